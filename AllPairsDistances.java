@@ -0,0 +1,385 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * An AllPairsDistances holds the cost of the shortest path between every pair of nodes of a
+ * graph that does not change, so that each query is a single array lookup. This is meant for
+ * small and medium graphs: the costs take 8 bytes per pair of nodes, so a graph with 10,000
+ * nodes needs 800 MB.
+ * <p>
+ * The costs are computed with a blocked Floyd-Warshall algorithm on a flat n x n matrix, which
+ * starts out holding the weight of each edge. The matrix is cut into square tiles that fit in
+ * the processor's cache, and for each diagonal tile in turn, the diagonal tile itself is updated
+ * first, then the tiles in its row and column, and then all other tiles. Within each of these
+ * three phases the tiles are independent, so they are updated in parallel by the threads of a
+ * ForkJoinPool. Updating a tile is a min-plus product: for each k of the diagonal tile, every
+ * cost dist[i][j] is lowered to dist[i][k] + dist[k][j] when that is cheaper.
+ * <p>
+ * The inner loop over j reads and writes contiguous rows, so it is run with the Java Vector API
+ * (see MinPlusVectorKernel) when the jdk.incubator.vector module is available, for example after
+ * starting java with --add-modules jdk.incubator.vector. Otherwise a scalar loop is used, which
+ * gives the same costs.
+ */
+public class AllPairsDistances<NodeType> {
+
+    // 64 x 64 doubles are 32 KB, so the three tiles of an update fit in a typical L2 cache
+    private static final int DEFAULT_TILE_SIZE = 64;
+    // updates with fewer tiles than this are run by the calling thread without forking
+    private static final int SEQUENTIAL_THRESHOLD = 2;
+
+    /**
+     * Lowers every cost dist[i * n + j] of a tile to dist[i * n + k] + dist[k * n + j] for the
+     * rows i in [rowFrom, rowTo), columns j in [columnFrom, columnTo) and intermediate nodes k in
+     * [kFrom, kTo), taking k in increasing order.
+     */
+    interface MinPlusKernel {
+        void update(double[] dist, int n, int rowFrom, int rowTo, int columnFrom, int columnTo,
+                    int kFrom, int kTo);
+    }
+
+    /**
+     * The kernel that runs on any JVM, one cost at a time.
+     */
+    static final MinPlusKernel SCALAR_KERNEL = (dist, n, rowFrom, rowTo, columnFrom, columnTo,
+                                                kFrom, kTo) -> {
+        for (int k = kFrom; k < kTo; k++) {
+            int kRow = k * n;
+            for (int i = rowFrom; i < rowTo; i++) {
+                int iRow = i * n;
+                double costToK = dist[iRow + k];
+                if (costToK == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                for (int j = columnFrom; j < columnTo; j++) {
+                    double candidate = costToK + dist[kRow + j];
+                    if (candidate < dist[iRow + j]) {
+                        dist[iRow + j] = candidate;
+                    }
+                }
+            }
+        }
+    };
+
+    // the vector kernel, or null when the Vector API is not available in this JVM
+    private static final MinPlusKernel VECTOR_KERNEL = loadVectorKernel();
+
+    private final HashMap<NodeType, Integer> rowOf = new HashMap<>();
+    private final int n;
+    private final double[] dist;
+    private final MinPlusKernel kernel;
+    private final long buildNanos;
+
+    /**
+     * Computes the costs between all pairs of nodes of the provided graph, with the vector
+     * kernel when it is available.
+     *
+     * @param graph the graph to compute costs for
+     * @param pool  the threads to update tiles with
+     * @throws IllegalArgumentException if the graph has too many nodes for an n x n matrix
+     */
+    public AllPairsDistances(BaseGraph<NodeType, ? extends Number> graph, ForkJoinPool pool) {
+        this(GraphSnapshot.of(graph), pool, true, DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * Computes the costs between all pairs of nodes of the provided snapshot.
+     *
+     * @param graph     the snapshot to compute costs for
+     * @param pool      the threads to update tiles with
+     * @param vectorize whether to use the vector kernel when it is available
+     * @param tileSize  the number of rows and columns of each tile
+     * @throws IllegalArgumentException if the graph has too many nodes for an n x n matrix, or
+     *                                  tileSize is not positive
+     */
+    public AllPairsDistances(GraphSnapshot<NodeType> graph, ForkJoinPool pool, boolean vectorize,
+                             int tileSize) {
+        long start = System.nanoTime();
+        if (tileSize <= 0) {
+            throw new IllegalArgumentException("Tile size must be positive");
+        }
+        // rows are numbered densely over the ids in use, skipping those of removed nodes
+        int[] rowOfId = new int[graph.nodeCount];
+        int rows = 0;
+        for (int v = 0; v < graph.nodeCount; v++) {
+            if (graph.dataOf(v) != null) {
+                this.rowOf.put(graph.dataOf(v), rows);
+                rowOfId[v] = rows++;
+            } else {
+                rowOfId[v] = -1;
+            }
+        }
+        if ((long) rows * rows > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Graph has too many nodes for a distance matrix");
+        }
+        this.n = rows;
+        this.kernel = vectorize && VECTOR_KERNEL != null ? VECTOR_KERNEL : SCALAR_KERNEL;
+
+        this.dist = new double[rows * rows];
+        Arrays.fill(this.dist, Double.POSITIVE_INFINITY);
+        for (int row = 0; row < rows; row++) {
+            this.dist[row * rows + row] = 0.0;
+        }
+        for (int v = 0; v < graph.nodeCount; v++) {
+            for (int e = graph.forwardOffsets[v]; e < graph.forwardOffsets[v + 1]; e++) {
+                int index = rowOfId[v] * rows + rowOfId[graph.forwardTargets[e]];
+                this.dist[index] = Math.min(this.dist[index], graph.forwardWeights[e]);
+            }
+        }
+
+        int tiles = (rows + tileSize - 1) / tileSize;
+        for (int k = 0; k < tiles; k++) {
+            // the diagonal tile depends only on itself
+            this.updateTile(k, k, k, tileSize);
+            // the tiles in its row and column depend only on themselves and the diagonal tile
+            int[] cross = new int[2 * (tiles - 1)];
+            int c = 0;
+            for (int other = 0; other < tiles; other++) {
+                if (other != k) {
+                    cross[c++] = k * tiles + other;
+                    cross[c++] = other * tiles + k;
+                }
+            }
+            pool.invoke(new TileTask(cross, 0, cross.length, tiles, k, tileSize));
+            // every other tile depends only on itself and one tile each of that row and column
+            int[] rest = new int[(tiles - 1) * (tiles - 1)];
+            int r = 0;
+            for (int i = 0; i < tiles; i++) {
+                for (int j = 0; j < tiles; j++) {
+                    if (i != k && j != k) {
+                        rest[r++] = i * tiles + j;
+                    }
+                }
+            }
+            pool.invoke(new TileTask(rest, 0, rest.length, tiles, k, tileSize));
+        }
+        this.buildNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Returns the vector kernel, or null when the classes of the Vector API cannot be loaded.
+     */
+    private static MinPlusKernel loadVectorKernel() {
+        try {
+            // loaded by name, so that this class compiles and runs without the incubator module
+            return (MinPlusKernel) Class.forName("MinPlusVectorKernel").getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Updates tile (tileRow, tileColumn) through the intermediate nodes of diagonal tile k.
+     */
+    private void updateTile(int tileRow, int tileColumn, int k, int tileSize) {
+        this.kernel.update(this.dist, this.n, tileRow * tileSize,
+                Math.min(this.n, (tileRow + 1) * tileSize), tileColumn * tileSize,
+                Math.min(this.n, (tileColumn + 1) * tileSize), k * tileSize,
+                Math.min(this.n, (k + 1) * tileSize));
+    }
+
+    /**
+     * Updates the tiles tiles[from .. to - 1], numbered row * tileCount + column, through the
+     * intermediate nodes of diagonal tile k, splitting the work between threads.
+     */
+    private class TileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] tiles;
+        private final int from;
+        private final int to;
+        private final int tileCount;
+        private final int k;
+        private final int tileSize;
+
+        TileTask(int[] tiles, int from, int to, int tileCount, int k, int tileSize) {
+            this.tiles = tiles;
+            this.from = from;
+            this.to = to;
+            this.tileCount = tileCount;
+            this.k = k;
+            this.tileSize = tileSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > SEQUENTIAL_THRESHOLD) {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new TileTask(this.tiles, this.from, middle, this.tileCount, this.k,
+                                this.tileSize),
+                        new TileTask(this.tiles, middle, this.to, this.tileCount, this.k,
+                                this.tileSize));
+                return;
+            }
+            for (int t = this.from; t < this.to; t++) {
+                updateTile(this.tiles[t] / this.tileCount, this.tiles[t] % this.tileCount, this.k,
+                        this.tileSize);
+            }
+        }
+    }
+
+    /**
+     * Returns the cost of the shortest path from start to end.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return the cost of the shortest path, or Double.POSITIVE_INFINITY when there is no path
+     * @throws NoSuchElementException when start or end is not a node of the graph
+     */
+    public double shortestPathCost(NodeType start, NodeType end) {
+        return this.dist[this.rowOf(start) * this.n + this.rowOf(end)];
+    }
+
+    private int rowOf(NodeType data) {
+        Integer row = this.rowOf.get(data);
+        if (row == null) {
+            throw new NoSuchElementException("Node is not present in the graph");
+        }
+        return row;
+    }
+
+    /**
+     * Returns whether the costs were computed with the Vector API.
+     *
+     * @return true when the vector kernel was used
+     */
+    public boolean isVectorized() {
+        return this.kernel != SCALAR_KERNEL;
+    }
+
+    /**
+     * Returns how long it took to compute the costs, including copying the edges.
+     *
+     * @return the build time in milliseconds
+     */
+    public double getBuildMillis() {
+        return this.buildNanos / 1e6;
+    }
+
+    /**
+     * Returns the memory used by the matrix of costs.
+     *
+     * @return the size of the matrix in bytes
+     */
+    public long getMatrixBytes() {
+        return 8L * this.dist.length;
+    }
+
+    /**
+     * Computes the costs between all pairs of nodes with the scalar kernel, and with the vector
+     * kernel when it is available, and compares both to running Dijkstra's algorithm from every
+     * node.
+     *
+     * @param args either a DOT file to load (default campus.dot), or the side length of a
+     *             synthetic grid graph
+     * @throws IOException when the DOT file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        String source = args.length > 0 ? args[0] : "campus.dot";
+        if (source.matches("\\d+")) {
+            GraphSnapshot<Integer> grid = DeltaSteppingSearch.randomGrid(Integer.parseInt(source),
+                    42);
+            DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+            for (int v = 0; v < grid.nodeCount; v++) {
+                graph.insertNode(v);
+            }
+            for (int v = 0; v < grid.nodeCount; v++) {
+                for (int e = grid.forwardOffsets[v]; e < grid.forwardOffsets[v + 1]; e++) {
+                    graph.insertEdge(v, grid.forwardTargets[e], grid.forwardWeights[e]);
+                }
+            }
+            report(source + "x" + source + " grid", graph);
+        } else {
+            DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+            new Backend(graph).loadGraphData(source);
+            report(source, graph);
+        }
+    }
+
+    /**
+     * Prints the time it takes to compute all costs of graph with each kernel and with Dijkstra's
+     * algorithm from every node, and checks that they agree.
+     */
+    private static <T> void report(String name, DijkstraGraph<T, Double> graph) {
+        System.out.println(String.format("%s: %d nodes, %d edges", name, graph.getNodeCount(),
+                graph.getEdgeCount()));
+        System.out.println(VECTOR_KERNEL != null ? "Vector API available" :
+                "Vector API not available (run with --add-modules jdk.incubator.vector)");
+        // one thread, to compare the kernels with Dijkstra's algorithm on the same single core
+        ForkJoinPool pool = new ForkJoinPool(1);
+        GraphSnapshot<T> snapshot = GraphSnapshot.of(graph);
+        List<Boolean> kernels = new ArrayList<>(List.of(false));
+        if (VECTOR_KERNEL != null) {
+            kernels.add(true);
+        }
+        AllPairsDistances<T> distances = null;
+        for (boolean vectorize : kernels) {
+            double best = Double.POSITIVE_INFINITY;
+            for (int round = 0; round < 5; round++) { // the first rounds warm up
+                distances = new AllPairsDistances<>(snapshot, pool, vectorize, DEFAULT_TILE_SIZE);
+                best = Math.min(best, distances.getBuildMillis());
+            }
+            System.out.println(String.format("Floyd-Warshall, %s kernel: %.1f ms (%.1f MB)",
+                    vectorize ? "vector" : "scalar", best, distances.getMatrixBytes() / 1e6));
+        }
+        pool.shutdown();
+
+        // Dijkstra's algorithm from every node, on a reused workspace
+        List<T> nodes = graph.getAllNodes();
+        SearchWorkspace<T, Double> workspace = new SearchWorkspace<>();
+        double best = Double.POSITIVE_INFINITY;
+        double largestError = 0.0;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (T from : nodes) {
+                workspace.reset(graph.getNodeIdBound());
+                workspace.offer(graph.nodes.get(from), 0.0, -1);
+                while (!workspace.isEmpty()) {
+                    int id = workspace.settleNext();
+                    double cost = workspace.costOf(id);
+                    for (BaseGraph<T, Double>.Edge edge : workspace.nodeOf(id).edgesLeaving) {
+                        workspace.offer(edge.successor, cost + edge.data, id);
+                    }
+                }
+                if (round == 0) {
+                    for (T to : nodes) {
+                        int id = graph.nodes.get(to).id;
+                        double expected = distances.shortestPathCost(from, to);
+                        if (workspace.isSettled(id)) {
+                            largestError = Math.max(largestError,
+                                    Math.abs(expected - workspace.costOf(id)));
+                        } else if (expected != Double.POSITIVE_INFINITY) {
+                            largestError = Double.POSITIVE_INFINITY;
+                        }
+                    }
+                }
+            }
+            if (round > 0) { // the first round checks the costs as well
+                best = Math.min(best, (System.nanoTime() - start) / 1e6);
+            }
+        }
+        System.out.println(String.format("Dijkstra from every node: %.1f ms", best));
+        System.out.println(String.format("Largest difference from Dijkstra: %g", largestError));
+
+        Random random = new Random(7);
+        double checksum = 0.0;
+        long start = System.nanoTime();
+        int queries = 1_000_000;
+        for (int i = 0; i < queries; i++) {
+            checksum += distances.shortestPathCost(nodes.get(random.nextInt(nodes.size())),
+                    nodes.get(random.nextInt(nodes.size())));
+        }
+        System.out.println(String.format("Query latency: %.0f ns",
+                (System.nanoTime() - start) / (double) queries));
+        if (checksum == 42.0) {
+            System.out.println(); // keeps the queries from being optimized away
+        }
+    }
+}
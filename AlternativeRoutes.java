@@ -0,0 +1,265 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * AlternativeRoutes finds routes between two nodes that are nearly as cheap as the shortest
+ * path, but take a genuinely different way, with the plateau method (Camvit's Choice Routing;
+ * see also Abraham, Delling, Goldberg and Werneck on via-node alternatives). It runs one
+ * Dijkstra search forward from the start along edgesLeaving, and one backward from the end along
+ * edgesEntering. Each search leaves a shortest path tree, and every path that both trees share
+ * is a plateau: for any node on a plateau, following the forward tree back to the start and the
+ * backward tree on to the end gives a route that is locally a shortest path all along the
+ * plateau. Long plateaus therefore give routes that are sensible detours rather than the
+ * shortest path with a pointless zig-zag added.
+ * <p>
+ * The route through each plateau is admissible when it is at most maxStretch times as expensive
+ * as the shortest path, its plateau covers at least minPlateau of the shortest path's cost (so
+ * that the route is locally optimal over that stretch), and it shares at most maxOverlap of the
+ * shortest path's cost with the routes chosen before it. Admissible routes are chosen cheapest
+ * first. Both searches stop once every node they settle is too far away for any admissible
+ * route, so the whole computation costs about as much as two searches.
+ */
+public class AlternativeRoutes<NodeType, EdgeType extends Number> {
+
+    private final BaseGraph<NodeType, EdgeType> graph;
+    private final double maxStretch;
+    private final double maxOverlap;
+    private final double minPlateau;
+
+    private final ThreadLocal<SearchWorkspace<NodeType, EdgeType>> forwardWorkspaces =
+            ThreadLocal.withInitial(SearchWorkspace::new);
+    private final ThreadLocal<SearchWorkspace<NodeType, EdgeType>> backwardWorkspaces =
+            ThreadLocal.withInitial(SearchWorkspace::new);
+
+    /**
+     * Prepares to find alternative routes in the provided graph with the usual limits: routes
+     * may cost up to 25% more than the shortest path, share up to 80% of it with earlier
+     * routes, and must follow a plateau covering at least 25% of it.
+     *
+     * @param graph the graph to find routes in
+     */
+    public AlternativeRoutes(BaseGraph<NodeType, EdgeType> graph) {
+        this(graph, 1.25, 0.8, 0.25);
+    }
+
+    /**
+     * Prepares to find alternative routes in the provided graph.
+     *
+     * @param graph      the graph to find routes in
+     * @param maxStretch how many times the cost of the shortest path a route may cost, at least 1
+     * @param maxOverlap the largest fraction of the shortest path's cost that a route may share
+     *                   with the routes chosen before it
+     * @param minPlateau the smallest fraction of the shortest path's cost that the plateau of a
+     *                   route must cover
+     * @throws IllegalArgumentException when maxStretch is less than 1
+     */
+    public AlternativeRoutes(BaseGraph<NodeType, EdgeType> graph, double maxStretch,
+                             double maxOverlap, double minPlateau) {
+        if (!(maxStretch >= 1.0)) {
+            throw new IllegalArgumentException("Stretch must be at least 1");
+        }
+        this.graph = graph;
+        this.maxStretch = maxStretch;
+        this.maxOverlap = maxOverlap;
+        this.minPlateau = minPlateau;
+    }
+
+    /**
+     * Returns up to maxRoutes routes from start to end, beginning with the shortest path and
+     * followed by admissible alternatives from cheapest to most expensive.
+     *
+     * @param start     the data item in the starting node of the routes
+     * @param end       the data item in the destination node of the routes
+     * @param maxRoutes the largest number of routes to return, at least 1
+     * @return the data items from the nodes along each route
+     * @throws IllegalArgumentException when maxRoutes is less than 1
+     * @throws NoSuchElementException   when start or end is not a node of the graph, or there is
+     *                                  no path from start to end
+     */
+    public List<List<NodeType>> find(NodeType start, NodeType end, int maxRoutes) {
+        if (maxRoutes < 1) {
+            throw new IllegalArgumentException("At least one route must be requested");
+        }
+        if (start == null || !this.graph.containsNode(start)) {
+            throw new NoSuchElementException("Start node is not present in the base graph");
+        }
+        if (end == null || !this.graph.containsNode(end)) {
+            throw new NoSuchElementException("End node is not present in the base graph");
+        }
+        BaseGraph<NodeType, EdgeType>.Node startNode = this.graph.nodes.get(start);
+        BaseGraph<NodeType, EdgeType>.Node endNode = this.graph.nodes.get(end);
+        if (startNode == endNode) {
+            return List.of(List.of(start));
+        }
+        int idBound = this.graph.getNodeIdBound();
+
+        // forward from start until end is settled, and then on until costs exceed the stretch
+        SearchWorkspace<NodeType, EdgeType> forward = this.forwardWorkspaces.get();
+        forward.reset(idBound);
+        forward.offer(startNode, 0.0, -1);
+        List<Integer> forwardOrder = new ArrayList<>();
+        double shortest = Double.POSITIVE_INFINITY;
+        while (!forward.isEmpty() && forward.peekCost() <= this.maxStretch * shortest) {
+            int id = forward.settleNext();
+            forwardOrder.add(id);
+            if (id == endNode.id) {
+                shortest = forward.costOf(id);
+            }
+            double cost = forward.costOf(id);
+            List<BaseGraph<NodeType, EdgeType>.Edge> edgesLeaving = forward.nodeOf(id)
+                    .edgesLeaving;
+            for (int i = 0; i < edgesLeaving.size(); i++) {
+                BaseGraph<NodeType, EdgeType>.Edge edge = edgesLeaving.get(i);
+                forward.offer(edge.successor, cost + edge.data.doubleValue(), id);
+            }
+        }
+        if (shortest == Double.POSITIVE_INFINITY) {
+            throw new NoSuchElementException("Path doesn't exist between the given points");
+        }
+        double limit = this.maxStretch * shortest;
+
+        // backward from end, over the same range of costs
+        SearchWorkspace<NodeType, EdgeType> backward = this.backwardWorkspaces.get();
+        backward.reset(idBound);
+        backward.offer(endNode, 0.0, -1);
+        while (!backward.isEmpty() && backward.peekCost() <= limit) {
+            int id = backward.settleNext();
+            double cost = backward.costOf(id);
+            List<BaseGraph<NodeType, EdgeType>.Edge> edgesEntering = backward.nodeOf(id)
+                    .edgesEntering;
+            for (int i = 0; i < edgesEntering.size(); i++) {
+                BaseGraph<NodeType, EdgeType>.Edge edge = edgesEntering.get(i);
+                backward.offer(edge.predecessor, cost + edge.data.doubleValue(), id);
+            }
+        }
+
+        // Plateaus, in the order of forward costs: node v continues the plateau of its forward
+        // parent u when v is also u's parent in the backward tree. Each plateau is recorded by
+        // its first node and its length.
+        int[] plateauOf = new int[idBound];
+        List<Integer> plateauFirst = new ArrayList<>();
+        List<Double> plateauLength = new ArrayList<>();
+        for (int v : forwardOrder) {
+            plateauOf[v] = -1;
+            if (!backward.isSettled(v) || forward.costOf(v) + backward.costOf(v) > limit) {
+                continue;
+            }
+            int u = forward.predecessorOf(v);
+            if (u != -1 && plateauOf[u] != -1 && backward.predecessorOf(u) == v) {
+                plateauOf[v] = plateauOf[u];
+                plateauLength.set(plateauOf[v], plateauLength.get(plateauOf[v]) +
+                        forward.costOf(v) - forward.costOf(u));
+            } else {
+                plateauOf[v] = plateauFirst.size();
+                plateauFirst.add(v);
+                plateauLength.add(0.0);
+            }
+        }
+
+        // admissible plateaus, cheapest route first
+        List<Integer> candidates = new ArrayList<>();
+        for (int p = 0; p < plateauFirst.size(); p++) {
+            if (plateauLength.get(p) >= this.minPlateau * shortest) {
+                candidates.add(p);
+            }
+        }
+        candidates.sort((a, b) -> Double.compare(
+                forward.costOf(plateauFirst.get(a)) + backward.costOf(plateauFirst.get(a)),
+                forward.costOf(plateauFirst.get(b)) + backward.costOf(plateauFirst.get(b))));
+
+        List<List<NodeType>> routes = new ArrayList<>();
+        // the edges of the routes chosen so far, as predecessor id * idBound + successor id
+        HashSet<Long> chosenEdges = new HashSet<>();
+        // the ids along each chosen route; when the shortest path costs nothing, a route that
+        // repeats one of them shares no cost with it, so the overlap test alone lets it through
+        HashSet<List<Integer>> chosenRoutes = new HashSet<>();
+        List<Integer> shortestPath = this.route(forward, backward, endNode.id);
+        this.choose(shortestPath, forward, backward, chosenEdges, routes);
+        chosenRoutes.add(shortestPath);
+        for (int p : candidates) {
+            if (routes.size() >= maxRoutes) {
+                break;
+            }
+            List<Integer> route = this.route(forward, backward, plateauFirst.get(p));
+            if (route == null || chosenRoutes.contains(route)) {
+                continue; // a loop, which no one would walk, or a route that was already chosen
+            }
+            double shared = 0.0;
+            for (int i = 1; i < route.size(); i++) {
+                if (chosenEdges.contains((long) route.get(i - 1) * idBound + route.get(i))) {
+                    shared += this.weight(route.get(i - 1), route.get(i), forward, backward);
+                }
+            }
+            if (shared <= this.maxOverlap * shortest) {
+                this.choose(route, forward, backward, chosenEdges, routes);
+                chosenRoutes.add(route);
+            }
+        }
+        return routes;
+    }
+
+    /**
+     * Returns the ids along the route from the start to via on the forward tree, and on to the
+     * end on the backward tree, or null when that route visits any node twice.
+     */
+    private List<Integer> route(SearchWorkspace<NodeType, EdgeType> forward,
+                                SearchWorkspace<NodeType, EdgeType> backward, int via) {
+        List<Integer> route = new ArrayList<>();
+        for (int id = via; id != -1; id = forward.predecessorOf(id)) {
+            route.add(id);
+        }
+        Collections.reverse(route);
+        for (int id = backward.predecessorOf(via); id != -1; id = backward.predecessorOf(id)) {
+            route.add(id);
+        }
+        if (new HashSet<>(route).size() < route.size()) {
+            return null;
+        }
+        return route;
+    }
+
+    /**
+     * Adds route to the chosen routes, and its edges to chosenEdges.
+     */
+    private void choose(List<Integer> route, SearchWorkspace<NodeType, EdgeType> forward,
+                        SearchWorkspace<NodeType, EdgeType> backward, HashSet<Long> chosenEdges,
+                        List<List<NodeType>> routes) {
+        long idBound = this.graph.getNodeIdBound();
+        List<NodeType> data = new ArrayList<>(route.size());
+        for (int i = 0; i < route.size(); i++) {
+            data.add(nodeOf(route.get(i), forward, backward).data);
+            if (i > 0) {
+                chosenEdges.add(route.get(i - 1) * idBound + route.get(i));
+            }
+        }
+        routes.add(data);
+    }
+
+    /**
+     * Returns the weight of the edge from the node with id pred to the node with id succ.
+     */
+    private double weight(int pred, int succ, SearchWorkspace<NodeType, EdgeType> forward,
+                          SearchWorkspace<NodeType, EdgeType> backward) {
+        List<BaseGraph<NodeType, EdgeType>.Edge> edgesLeaving = nodeOf(pred, forward, backward)
+                .edgesLeaving;
+        for (int i = 0; i < edgesLeaving.size(); i++) {
+            if (edgesLeaving.get(i).successor.id == succ) {
+                return edgesLeaving.get(i).data.doubleValue();
+            }
+        }
+        throw new IllegalStateException("Route follows a missing edge");
+    }
+
+    /**
+     * Returns a node on a route. The nodes up to the via node were settled by the forward search
+     * and the rest by the backward search.
+     */
+    private static <NodeType, EdgeType extends Number> BaseGraph<NodeType, EdgeType>.Node nodeOf(
+            int id, SearchWorkspace<NodeType, EdgeType> forward,
+            SearchWorkspace<NodeType, EdgeType> backward) {
+        return forward.isSettled(id) ? forward.nodeOf(id) : backward.nodeOf(id);
+    }
+}
@@ -2,13 +2,90 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
 
 public class Backend implements BackendInterface{
 
     GraphADT<String,Double> graph;
 
+    /*
+     * Furthest destination of every location, computed in the background
+     * after each call to loadGraphData. Null until the first load.
+     */
+    private volatile CompletableFuture<FurthestDestinationTable> furthestTable = null;
+
+    /*
+     * Compact table holding the furthest reachable destination of every
+     * location, and the time it takes to get there. Location i's furthest
+     * destination is locations[furthest[i]] at distance[i] seconds, or
+     * furthest[i] is -1 when no other location can be reached from it.
+     */
+    private static class FurthestDestinationTable
+    {
+        final String[] locations;
+        // location i has id i in the pool
+        final NamePool index;
+        final int[] furthest;
+        final double[] distance;
+        double diameter = 0.0;
+        double radius = Double.POSITIVE_INFINITY;
+
+        FurthestDestinationTable(List<String> locations)
+        {
+            this.locations = locations.toArray(new String[0]);
+            this.index = new NamePool(this.locations.length);
+            for (int i = 0; i < this.locations.length; i++) index.intern(this.locations[i]);
+            this.furthest = new int[this.locations.length];
+            this.distance = new double[this.locations.length];
+        }
+    }
+
+    /*
+     * Symbol table of the locations in the graph, built once by each call to
+     * loadGraphData when the graph is a DijkstraGraph, and null otherwise.
+     * Every location is interned to the id of its node in the graph, so that
+     * a request hashes each location name it is given once and then works
+     * with ids: the searches index their arrays by those ids, and names are
+     * only looked up again, by id, when results are returned.
+     */
+    private volatile LocationTable locationTable = null;
+
+    private static class LocationTable
+    {
+        final DijkstraGraph<String, Double> graph;
+        // every location, in the order of getAllNodes, and the id of each
+        final List<String> locations;
+        final int[] ids;
+        // the location with each node id, or null for ids that are not in use
+        final String[] names;
+        // locations.get(i) has id i in the pool, so its node id is ids[i]
+        final NamePool pool;
+        // the graph's structural change count when this table was built
+        final int version;
+
+        LocationTable(DijkstraGraph<String, Double> graph)
+        {
+            this.graph = graph;
+            this.version = graph.structuralChanges;
+            this.locations = graph.getAllNodes();
+            this.ids = new int[this.locations.size()];
+            this.names = new String[graph.getNodeIdBound()];
+            this.pool = new NamePool(this.ids.length);
+            for (int i = 0; i < this.ids.length; i++)
+            {
+                String location = this.locations.get(i);
+                this.ids[i] = graph.nodeIdOf(location);
+                this.names[this.ids[i]] = location;
+                this.pool.intern(location);
+            }
+        }
+    }
+
     /*
      * Implementing classes should support the constructor below.
      * @param graph object to store the backend's graph data
@@ -19,16 +96,44 @@ public class Backend implements BackendInterface{
     }
 
     /**
-     * Loads graph data from a dot file.  If a graph was previously loaded, this
+     * Loads graph data from a dot file, or from a binary graph file written by
+     * MappedGraph.write.  If a graph was previously loaded, this
      * method should first delete the contents (nodes and edges) of the existing 
      * graph before loading a new one.
      * @param filename the path to a dot file to read graph data from
      * @throws IOException if there was any problem reading from this file
      */
+    @SuppressWarnings("unchecked")
     public void loadGraphData(String filename) throws IOException
     {
         // Local vars
         File file = new File(filename);
+        boolean binary = MappedGraph.isGraphFile(file);
+        if (!binary && graph instanceof MappedGraph)
+            throw new IOException("MappedGraph can only load graph files, not " + filename +
+                "; convert it with: java MappedGraph " + filename);
+
+        // Never modify the graph while a previous table is still being computed from it
+        awaitFurthestDestinationTable();
+
+        // A VersionedGraph gets the whole reload in one transaction, so that its
+        // readers see either the old graph or the new one, never a mix
+        VersionedGraph<String>.Transaction update = graph instanceof VersionedGraph ?
+            ((VersionedGraph<String>) graph).beginUpdate() : null;
+        GraphADT<String,Double> target = update != null ? update : graph;
+
+        if (binary)
+        {
+            try
+            {
+                loadBinaryGraphData(filename, target);
+            }
+            finally
+            {
+                graphDataLoaded(update);
+            }
+            return;
+        }
         
         // dot file format: "Memorial Union" -> "Science Hall" [seconds=105.8];
         try (Scanner scanner = new Scanner(file)) 
@@ -37,9 +142,16 @@ public class Backend implements BackendInterface{
             // Skip line 1
             scanner.nextLine();
 
-            // Remove all nodes and edges
-            List<String> nodes = graph.getAllNodes();
-            for(int i = 0; i < nodes.size(); i++) graph.removeNode(nodes.get(i));
+            // The nodes and edges are collected in a builder, sized from the length
+            // of the file (lines take about 64 bytes, and locations have about 4
+            // edges each), and replace the contents of the graph at once at the end
+            int expectedEdges = (int) Math.min(Integer.MAX_VALUE, file.length() / 64);
+            GraphBuilder<String> builder = new GraphBuilder<>(expectedEdges / 4, expectedEdges);
+
+            // Every location name appears on many lines; the pool keeps one copy
+            // of each, so a name seen before is found from the characters of the
+            // line without creating a String for it
+            NamePool names = new NamePool(expectedEdges / 4);
 
             // Go through each line, created nodes and edges
             while(scanner.hasNextLine())
@@ -47,40 +159,215 @@ public class Backend implements BackendInterface{
                 String line = scanner.nextLine();
                 double seconds = 0;
 
-                String[] parts = line.split(" -> ");
-                // If split didn't work it is the last line in the file and can be skipped
-                if (parts.length == 1)
-                {
-                    scanner.close();
-                    return; 
-                } 
-
-                // Store "Source" as Source in a string
-                String source = parts[0].replace("\"", "").trim(); 
-
-                String[] partTwo = parts[1].split(" \\[seconds=");
-                // Store "Destination" as Destination in a string
-                String dest = partTwo[0].replace("\"", "").trim(); 
+                int arrow = line.indexOf(" -> ");
+                // If there is no arrow it is the last line in the file and can be skipped
+                if (arrow == -1) break;
+                int bracket = line.indexOf(" [seconds=", arrow);
+                int end = bracket == -1 ? -1 : line.indexOf("];", bracket);
 
                 try
                 {
-                    seconds = Double.parseDouble(partTwo[1].replace("];", ""));
+                    if (end == -1) throw new NumberFormatException("missing [seconds=...]; in: " + line);
+                    seconds = Double.parseDouble(line.substring(bracket + " [seconds=".length(), end));
                 }
                 catch (NumberFormatException e)
                 {
                     System.out.println("Recieved invalid double for seconds\nDouble check code works\nError: " + e.getMessage());
-                    scanner.close();
-                    return;
+                    break;
                 }
+
                 /* Insert new nodes and edges */
-                // insertNode() handles duplicate nodes, no need to check
-                graph.insertNode(source);
-                graph.insertNode(dest);
-                // insertEdge() updates edge if one is already there, no need to check
-                graph.insertEdge(source, dest, seconds);
+                // "Source" and "Destination" without their quotes and surrounding spaces
+                int source = internName(names, line, 0, arrow);
+                int dest = internName(names, line, arrow + " -> ".length(), bracket);
+                // a name new to the pool is a new node, and gets the same id in both
+                while (builder.getNodeCount() < names.size())
+                    builder.addNode(names.nameOf(builder.getNodeCount()));
+                // the builder keeps the last weight of an edge that is listed twice
+                builder.addEdgeBetweenIds(source, dest, seconds);
             }
+            // Replace all nodes and edges
+            builder.buildInto(target);
         } catch (IOException e) {
             throw new IOException("Error reading file: " + filename, e);
+        } finally {
+            graphDataLoaded(update);
+        }
+    }
+
+    /*
+     * Interns the location name in line[from .. to) into names, leaving out the
+     * spaces and quotes around it, and returns its id in names.
+     */
+    private static int internName(NamePool names, String line, int from, int to)
+    {
+        while (from < to && (line.charAt(from) == '"' || Character.isWhitespace(line.charAt(from)))) from++;
+        while (to > from && (line.charAt(to - 1) == '"' || Character.isWhitespace(line.charAt(to - 1)))) to--;
+        return names.intern(line, from, to);
+    }
+
+    /*
+     * Loads a binary graph file. A MappedGraph maps the file in place of its
+     * current contents without reading it; any other graph has its contents
+     * replaced through target by the file's nodes and edges.
+     */
+    private void loadBinaryGraphData(String filename, GraphADT<String,Double> target) throws IOException
+    {
+        if (graph instanceof MappedGraph)
+        {
+            ((MappedGraph) graph).load(filename);
+            return;
+        }
+        new MappedGraph(filename).copyInto(target);
+    }
+
+    /*
+     * Publishes the changes of update, if the graph is a VersionedGraph, and
+     * rebuilds the tables derived from the graph after each load.
+     */
+    private void graphDataLoaded(VersionedGraph<String>.Transaction update)
+    {
+        if (update != null) update.commit();
+        // Intern the locations of the new graph data once, for every later request
+        locationTable = buildLocationTable();
+        // Recompute every location's furthest destination without blocking the caller
+        furthestTable = CompletableFuture.supplyAsync(this::computeFurthestDestinationTable);
+    }
+
+    /*
+     * Builds the symbol table for the graph as it is now, or returns null
+     * when the graph is not a DijkstraGraph.
+     */
+    @SuppressWarnings("unchecked")
+    private LocationTable buildLocationTable()
+    {
+        if (!(graph instanceof DijkstraGraph)) return null;
+        return new LocationTable((DijkstraGraph<String, Double>) graph);
+    }
+
+    /*
+     * Returns the symbol table built by the last call to loadGraphData, or
+     * null if there is none or nodes were added or removed since, in which
+     * case requests fall back to looking locations up in the graph.
+     */
+    private LocationTable currentLocationTable()
+    {
+        LocationTable table = locationTable;
+        if (table == null || table.version != table.graph.structuralChanges) return null;
+        return table;
+    }
+
+    /*
+     * Returns the id of location in table, or -1 after printing that it was
+     * not found.
+     */
+    private static int internLocation(LocationTable table, String location)
+    {
+        int index = table.pool.idOf(location);
+        if (index == -1)
+        {
+            System.out.println("Location \"" + location + "\" not found");
+            return -1;
+        }
+        return table.ids[index];
+    }
+
+    /*
+     * Returns the ids along the shortest path from startLocation to
+     * endLocation, or an empty array if either is not found or no path exists.
+     */
+    private static int[] shortestPathIds(LocationTable table, String startLocation, String endLocation)
+    {
+        int start = internLocation(table, startLocation);
+        if (start == -1) return new int[0];
+        int end = internLocation(table, endLocation);
+        if (end == -1) return new int[0];
+        try
+        {
+            return table.graph.shortestPathIds(start, end);
+        }
+        catch (NoSuchElementException e)
+        {
+            System.out.println("No possible path found between " + startLocation + " and " + endLocation);
+            System.out.println("Error: " + e.getMessage());
+            return new int[0];
+        }
+    }
+
+    /*
+     * Computes the furthest destination of every location in the graph, with
+     * one single-source search per location run in parallel across cores.
+     */
+    private FurthestDestinationTable computeFurthestDestinationTable()
+    {
+        LocationTable interned = currentLocationTable();
+        FurthestDestinationTable table = new FurthestDestinationTable(
+            interned != null ? interned.locations : graph.getAllNodes());
+        IntStream.range(0, table.locations.length).parallel().forEach(i -> {
+            if (interned != null)
+            {
+                // Costs indexed by node id, so no location name is hashed
+                double[] costs = interned.graph.costsWithin(interned.ids[i], Double.POSITIVE_INFINITY);
+                table.furthest[i] = -1;
+                table.distance[i] = -1.0;
+                for (int j = 0; j < interned.ids.length; j++)
+                {
+                    double distance = costs[interned.ids[j]];
+                    if (j == i || distance == Double.POSITIVE_INFINITY) continue;
+                    if (distance > table.distance[i])
+                    {
+                        table.distance[i] = distance;
+                        table.furthest[i] = j;
+                    }
+                }
+                return;
+            }
+            MapADT<String, Double> reachable =
+                graph.reachableWithin(table.locations[i], Double.POSITIVE_INFINITY);
+            table.furthest[i] = -1;
+            table.distance[i] = -1.0;
+            for (MapADT.Cursor<String, Double> reached = reachable.cursor(); reached.advance(); )
+            {
+                int j = table.index.idOf(reached.key());
+                if (j == i || j == -1) continue;
+                double distance = reached.value();
+                // of equally distant locations, the first one listed is the furthest
+                if (distance > table.distance[i] || distance == table.distance[i] && j < table.furthest[i])
+                {
+                    table.distance[i] = distance;
+                    table.furthest[i] = j;
+                }
+            }
+        });
+        // Diameter and radius are the largest and smallest eccentricity among
+        // the locations from which any other location can be reached
+        for (int i = 0; i < table.locations.length; i++)
+        {
+            if (table.furthest[i] == -1) continue;
+            table.diameter = Math.max(table.diameter, table.distance[i]);
+            table.radius = Math.min(table.radius, table.distance[i]);
+        }
+        if (table.radius == Double.POSITIVE_INFINITY) table.radius = 0.0;
+        return table;
+    }
+
+    /*
+     * Waits for the table being computed after the last loadGraphData call,
+     * and returns it, or null if no graph data has been loaded yet or the
+     * computation failed.
+     */
+    private FurthestDestinationTable awaitFurthestDestinationTable()
+    {
+        CompletableFuture<FurthestDestinationTable> pending = furthestTable;
+        if (pending == null) return null;
+        try
+        {
+            return pending.join();
+        }
+        catch (CompletionException e)
+        {
+            System.out.println("Error computing furthest destinations: " + e.getMessage());
+            return null;
         }
     }
 
@@ -103,6 +390,15 @@ public class Backend implements BackendInterface{
      */
     public List<String> findLocationsOnShortestPath(String startLocation, String endLocation)
     {
+        LocationTable table = currentLocationTable();
+        if (table != null)
+        {
+            int[] pathIds = shortestPathIds(table, startLocation, endLocation);
+            List<String> path = new ArrayList<>(pathIds.length);
+            for (int id : pathIds) path.add(table.names[id]);
+            return path;
+        }
+
         // Default return value
         List<String> path = new ArrayList<>();
 
@@ -142,6 +438,18 @@ public class Backend implements BackendInterface{
      */
     public List<Double> findTimesOnShortestPath(String startLocation, String endLocation)
     {
+        LocationTable table = currentLocationTable();
+        if (table != null)
+        {
+            int[] pathIds = shortestPathIds(table, startLocation, endLocation);
+            List<Double> times = new ArrayList<>(Math.max(0, pathIds.length - 1));
+            for (int i = 0; i < pathIds.length - 1; i++)
+            {
+                times.add(table.graph.edgeBetween(pathIds[i], pathIds[i + 1]));
+            }
+            return times;
+        }
+
         // Default return value
         List<String> path = new ArrayList<>();
         List<Double> path_times = new ArrayList<Double>();
@@ -182,48 +490,150 @@ public class Backend implements BackendInterface{
     /**
      * Returns the most distant location (the one that takes the longest time to 
      * reach) when comparing all shortest paths that begin from the provided 
-     * startLocation.
+     * startLocation.  Once the table computed after loadGraphData is ready,
+     * this is a constant time lookup; until then a single search from
+     * startLocation is run instead.
      * @param startLocation the location to find the most distant location from
      * @return the most distant location (the one that takes the longest time to 
      *         reach which following the shortest path)
      * @throws NoSuchElementException if startLocation does not exist, or if
      *         there are no other locations that can be reached from there
      */
-  public String getFurthestDestinationFrom(String startLocation) throws NoSuchElementException
-  {
+    public String getFurthestDestinationFrom(String startLocation) throws NoSuchElementException
+    {
         // Check location is valid
         if (!graph.containsNode(startLocation)){
             String err = "Location \"" + startLocation + "\" not found";
             throw new NoSuchElementException(err);
         }
 
-        String furthest = startLocation;
-        double maxDistance = -1.0;
-        boolean foundValidPath = false;
-
-        for (String node : graph.getAllNodes()) {
-            if (node.equals(startLocation)) continue;
-
-            try {
-                double distance = graph.shortestPathCost(startLocation, node);
-                if (distance > maxDistance) {
+        String furthest = null;
+        CompletableFuture<FurthestDestinationTable> pending = furthestTable;
+        FurthestDestinationTable table = pending != null && pending.isDone()
+            && !pending.isCompletedExceptionally() ? pending.join() : null;
+        int startIndex = table != null ? table.index.idOf(startLocation) : -1;
+        if (startIndex != -1)
+        {
+            int furthestIndex = table.furthest[startIndex];
+            if (furthestIndex != -1) furthest = table.locations[furthestIndex];
+        }
+        else
+        {
+            // Table is still being computed, search from this one location only
+            MapADT<String, Double> reachable =
+                graph.reachableWithin(startLocation, Double.POSITIVE_INFINITY);
+            double maxDistance = -1.0;
+            for (String node : graph.getAllNodes()) {
+                Double distance = node.equals(startLocation) ? null : reachable.getOrDefault(node, null);
+                if (distance != null && distance > maxDistance) {
                     maxDistance = distance;
                     furthest = node;
-                    foundValidPath = true;
                 }
-            } catch (NoSuchElementException e) {
-                // skip unreachable nodes
             }
         }
 
-        if (!foundValidPath) {
+        if (furthest == null) {
             String err = "No location can be reached from " + startLocation;
-            //String dist = " Distance from start to end: " +
-                    //graph.shortestPathCost(graph.getAllNodes().get(0), graph.getAllNodes().get(graph.getAllNodes().size() - 1));
             throw new NoSuchElementException(err);
-	    
         }
 
         return furthest;
-  }
+    }
+
+    /**
+     * Returns the diameter of the loaded graph: the longest time it takes to
+     * walk the shortest path between any two locations that are connected.
+     * Waits for the table computed after loadGraphData if it is not ready yet.
+     * @return the diameter in seconds, or 0 if no graph data has been loaded
+     */
+    public double getGraphDiameter()
+    {
+        FurthestDestinationTable table = awaitFurthestDestinationTable();
+        return table == null ? 0.0 : table.diameter;
+    }
+
+    /**
+     * Returns the radius of the loaded graph: the smallest time, over all
+     * locations that can reach another location, needed to reach that
+     * location's furthest destination.  Waits for the table computed after
+     * loadGraphData if it is not ready yet.
+     * @return the radius in seconds, or 0 if no graph data has been loaded
+     */
+    public double getGraphRadius()
+    {
+        FurthestDestinationTable table = awaitFurthestDestinationTable();
+        return table == null ? 0.0 : table.radius;
+    }
+
+    /**
+     * Returns the locations that can be reached from startLocation within the
+     * provided number of seconds when following shortest paths, ordered from
+     * the quickest to reach to the slowest.
+     * @param startLocation the location to search from
+     * @param seconds the maximum walking time in seconds
+     * @return a list of the locations reachable within seconds, ordered by
+     *         increasing walking time
+     * @throws NoSuchElementException if startLocation does not exist
+     * @throws IllegalArgumentException if seconds is negative
+     */
+    public List<String> findLocationsWithinTime(String startLocation, double seconds)
+    {
+        List<String> locations = new ArrayList<>();
+        for (Map.Entry<String, Double> reached : reachedWithinTime(startLocation, seconds)) locations.add(reached.getKey());
+        return locations;
+    }
+
+    /**
+     * Returns the walking times in seconds from startLocation to each of the
+     * locations returned by findLocationsWithinTime, in the same order.
+     * @param startLocation the location to search from
+     * @param seconds the maximum walking time in seconds
+     * @return a list of walking times in seconds, ordered to match the list of
+     *         locations returned by findLocationsWithinTime
+     * @throws NoSuchElementException if startLocation does not exist
+     * @throws IllegalArgumentException if seconds is negative
+     */
+    public List<Double> findTimesWithinTime(String startLocation, double seconds)
+    {
+        List<Double> times = new ArrayList<>();
+        for (Map.Entry<String, Double> reached : reachedWithinTime(startLocation, seconds)) times.add(reached.getValue());
+        return times;
+    }
+
+    /*
+     * Returns the locations reachable from startLocation within seconds, each
+     * with its walking time, ordered by increasing walking time. Both
+     * findLocationsWithinTime and findTimesWithinTime use this, so that their
+     * lists always line up.
+     */
+    private List<Map.Entry<String, Double>> reachedWithinTime(String startLocation, double seconds)
+    {
+        List<Map.Entry<String, Double>> reached = new ArrayList<>();
+        LocationTable table = currentLocationTable();
+        if (table != null)
+        {
+            double[] costs = table.graph.costsWithin(internOrThrow(table, startLocation), seconds);
+            for (int id = 0; id < costs.length; id++) if (costs[id] != Double.POSITIVE_INFINITY) reached.add(Map.entry(table.names[id], costs[id]));
+        }
+        else
+        {
+            MapADT<String, Double> reachable = graph.reachableWithin(startLocation, seconds);
+            for (MapADT.Cursor<String, Double> cursor = reachable.cursor(); cursor.advance(); ) reached.add(Map.entry(cursor.key(), cursor.value()));
+        }
+        // Dijkstra settles locations by increasing time, but neither result keeps that order
+        reached.sort(Map.Entry.comparingByValue());
+        return reached;
+    }
+
+    /*
+     * Returns the id of location in table.
+     * @throws NoSuchElementException if location does not exist
+     */
+    private static int internOrThrow(LocationTable table, String location)
+    {
+        int index = table.pool.idOf(location);
+        if (index == -1)
+            throw new NoSuchElementException("Start node is not present in the base graph");
+        return table.ids[index];
+    }
 }
@@ -64,4 +64,45 @@ public interface BackendInterface {
    */
   public String getFurthestDestinationFrom(String startLocation) throws NoSuchElementException;
 
+  /**
+   * Returns the locations that can be reached from startLocation within the
+   * provided number of seconds when following shortest paths, ordered from
+   * the quickest to reach to the slowest.  The startLocation itself is the
+   * first location in this list.
+   * @param startLocation the location to search from
+   * @param seconds the maximum walking time in seconds
+   * @return a list of the locations reachable within seconds, ordered by
+   *         increasing walking time
+   * @throws NoSuchElementException if startLocation does not exist
+   * @throws IllegalArgumentException if seconds is negative
+   */
+  public List<String> findLocationsWithinTime(String startLocation, double seconds);
+
+  /**
+   * Returns the walking times in seconds from startLocation to each of the
+   * locations returned by findLocationsWithinTime, in the same order.
+   * @param startLocation the location to search from
+   * @param seconds the maximum walking time in seconds
+   * @return a list of walking times in seconds, ordered to match the list of
+   *         locations returned by findLocationsWithinTime
+   * @throws NoSuchElementException if startLocation does not exist
+   * @throws IllegalArgumentException if seconds is negative
+   */
+  public List<Double> findTimesWithinTime(String startLocation, double seconds);
+
+  /**
+   * Returns the diameter of the loaded graph: the longest time it takes to
+   * walk the shortest path between any two locations that are connected.
+   * @return the diameter in seconds, or 0 if no graph data has been loaded
+   */
+  public double getGraphDiameter();
+
+  /**
+   * Returns the radius of the loaded graph: the smallest time, over all
+   * locations that can reach another location, needed to reach that
+   * location's furthest destination.
+   * @return the radius in seconds, or 0 if no graph data has been loaded
+   */
+  public double getGraphRadius();
+
 }
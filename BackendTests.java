@@ -134,4 +134,98 @@ public class BackendTests {
         for (int i = 0; i < times.size(); i++) sum = sum + times.get(i);
         assertEquals(6, sum, "Times returned from findTimesOnShortestPath not correct.\nExpected: 6\nReturned: " + sum);
     }
+
+    /*
+     * Tests getFurthestDestinationFrom, getGraphDiameter and getGraphRadius
+     * on campus.dot against results computed from the all pairs cost matrix.
+     */
+    @Test
+    public void roleTest4()
+    {
+        DijkstraGraph<String,Double> graph = new DijkstraGraph<>();
+        Backend backend = new Backend(graph);
+        try {backend.loadGraphData("campus.dot");}
+        catch(IOException e) {fail(e.getMessage());}
+
+        // Waits for the precomputed table, so the lookups below use it
+        double diameter = backend.getGraphDiameter();
+        double radius = backend.getGraphRadius();
+
+        List<String> locations = graph.getAllNodes();
+        double[][] costs = graph.shortestPathCosts(locations, locations);
+        double expectedDiameter = 0.0;
+        double expectedRadius = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < locations.size(); i++)
+        {
+            String expectedFurthest = null;
+            double maxDistance = -1.0;
+            for (int j = 0; j < locations.size(); j++)
+            {
+                if (i == j || costs[i][j] == Double.POSITIVE_INFINITY) continue;
+                if (costs[i][j] > maxDistance) { maxDistance = costs[i][j]; expectedFurthest = locations.get(j); }
+            }
+            if (expectedFurthest == null) continue;
+            expectedDiameter = Math.max(expectedDiameter, maxDistance);
+            expectedRadius = Math.min(expectedRadius, maxDistance);
+            assertEquals(expectedFurthest, backend.getFurthestDestinationFrom(locations.get(i)),
+                "Incorrect furthest destination from " + locations.get(i));
+        }
+        assertEquals(expectedDiameter, diameter, 1e-9, "Incorrect graph diameter");
+        assertEquals(expectedRadius, radius, 1e-9, "Incorrect graph radius");
+        assertThrows(NoSuchElementException.class, () -> backend.getFurthestDestinationFrom("Invalid"),
+            "Missing location didn't throw exception");
+    }
+
+    /*
+     * Tests that the shortest path and within-time requests, which use the
+     * locations interned by loadGraphData, agree with the graph's own
+     * methods on campus.dot, and that they still work after the graph is
+     * changed outside of the backend.
+     */
+    @Test
+    public void roleTest5()
+    {
+        DijkstraGraph<String,Double> graph = new DijkstraGraph<>();
+        Backend backend = new Backend(graph);
+        try {backend.loadGraphData("campus.dot");}
+        catch(IOException e) {fail(e.getMessage());}
+
+        List<String> locations = graph.getAllNodes();
+        for (int i = 0; i < locations.size(); i += 7)
+        {
+            String start = locations.get(i);
+            String end = locations.get((i * 31 + 5) % locations.size());
+            List<String> path = backend.findLocationsOnShortestPath(start, end);
+            if (!graph.pathExists(start, end))
+            {
+                assertTrue(path.isEmpty(), "Returned a path where none exists");
+                continue;
+            }
+            assertEquals(graph.shortestPathData(start, end), path, "Incorrect path from " + start);
+            List<Double> times = backend.findTimesOnShortestPath(start, end);
+            assertEquals(path.size() - 1, times.size(), "Incorrect number of times");
+            double sum = 0;
+            for (double time : times) sum += time;
+            assertEquals(graph.shortestPathCost(start, end), sum, 1e-9, "Incorrect total time");
+
+            MapADT<String, Double> reachable = graph.reachableWithin(start, 300.0);
+            List<String> within = backend.findLocationsWithinTime(start, 300.0);
+            List<Double> withinTimes = backend.findTimesWithinTime(start, 300.0);
+            assertEquals(reachable.getSize(), within.size(), "Incorrect number of locations");
+            for (int j = 0; j < within.size(); j++)
+            {
+                assertEquals(reachable.get(within.get(j)), withinTimes.get(j), 1e-9,
+                    "Times and locations out of order");
+            }
+        }
+        assertTrue(backend.findLocationsOnShortestPath("Invalid", locations.get(0)).isEmpty());
+        assertThrows(NoSuchElementException.class, () -> backend.findLocationsWithinTime("Invalid", 10.0));
+        assertThrows(IllegalArgumentException.class, () -> backend.findTimesWithinTime(locations.get(0), -1.0));
+
+        // A location added directly to the graph is not in the table, so requests look it up in the graph
+        graph.insertNode("New Hall");
+        graph.insertEdge(locations.get(0), "New Hall", 10.0);
+        assertEquals(List.of(locations.get(0), "New Hall"),
+            backend.findLocationsOnShortestPath(locations.get(0), "New Hall"));
+    }
 }
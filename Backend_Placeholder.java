@@ -46,4 +46,26 @@ public class Backend_Placeholder implements BackendInterface {
     return all.get(all.size()-1);
   }
 
+  // returns the locations after startLocation in the placeholder graph's path
+  public List<String> findLocationsWithinTime(String startLocation, double seconds) {
+    List<String> all = graph.getAllNodes();
+    return new ArrayList<>(all.subList(all.indexOf(startLocation), all.size()));
+  }
+
+  // returns list of increasing values, starting from zero
+  public List<Double> findTimesWithinTime(String startLocation, double seconds) {
+    List<Double> times = new ArrayList<>();
+    for(int i=0;i<findLocationsWithinTime(startLocation,seconds).size();i++) times.add((double)i);
+    return times;
+  }
+
+  // fixed values based on the placeholder graph's path times of 1, 2 and 3
+  public double getGraphDiameter() {
+    return 6.0;
+  }
+
+  public double getGraphRadius() {
+    return 3.0;
+  }
+
 }
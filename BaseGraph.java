@@ -1,4 +1,5 @@
 import java.util.List;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.NoSuchElementException;
 
@@ -11,11 +12,15 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
     // Each node contains unique data along with two lists of directed edges
     protected class Node {
         public NodeType data;
-        public List<Edge> edgesLeaving = new LinkedList<>();
-        public List<Edge> edgesEntering = new LinkedList<>();
+        // dense id in [0, getNodeIdBound()), so per-node state can be kept in arrays or bitsets
+        public int id;
+        // ArrayLists, so that searches can walk them by index without allocating an Iterator
+        public List<Edge> edgesLeaving = new ArrayList<>();
+        public List<Edge> edgesEntering = new ArrayList<>();
 
-        public Node(NodeType data) {
+        public Node(NodeType data, int id) {
             this.data = data;
+            this.id = id;
         }
     }
 
@@ -36,7 +41,26 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
     }
 
     protected int edgeCount = 0;
-    // Edges can be retrieved through the edge lists in either connected node
+    // Edges can be retrieved through the edge lists in either connected node, or directly from
+    // this index by edgeKey(predecessor id, successor id), which finds an edge in constant time
+    // however many edges its nodes have
+    protected LongKeyMap<Edge> edgeIndex = new LongKeyMap<>();
+
+    // Incremented whenever a node or edge is inserted or removed (but not when an existing
+    // edge's weight is updated), so that derived indexes can tell when they are out of date
+    protected int structuralChanges = 0;
+    // Incremented whenever an existing edge's weight is updated, so that copies of the weights
+    // (such as a GraphSnapshot) can tell when they are out of date
+    protected int weightChanges = 0;
+
+    // Node ids are handed out in increasing order, and the ids of removed nodes are reused
+    // before new ones so that ids stay dense
+    protected int nextNodeId = 0;
+    protected LinkedList<Integer> freeNodeIds = new LinkedList<>();
+
+    // the node with each id, or null for ids that are not in use, so that code working with ids
+    // gets back to nodes without hashing their data
+    protected ArrayList<Node> nodesById = new ArrayList<>();
 
     /**
      * Constructor for BaseGraph that provides the map the graph uses.
@@ -57,9 +81,20 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      * @throws NullPointerException if data is null
      */
     public boolean insertNode(NodeType data) {
-        if (nodes.containsKey(data))
+        // the id is only taken once the node is actually added, so that a single lookup both
+        // checks for the data and adds its node
+        int id = freeNodeIds.isEmpty() ? nextNodeId : freeNodeIds.peek();
+        Node newNode = new Node(data, id);
+        if (!nodes.putIfAbsent(data, newNode))
             return false; // throws NPE when data's null
-        nodes.put(data, new Node(data));
+        if (freeNodeIds.isEmpty()) {
+            nextNodeId++;
+            nodesById.add(newNode);
+        } else {
+            freeNodeIds.pop();
+            nodesById.set(id, newNode);
+        }
+        this.structuralChanges++;
         return true;
     }
 
@@ -78,14 +113,91 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
             return false; // throws NPE when data==null
         Node oldNode = nodes.remove(data);
         // remove all edges entering neighboring nodes from this one
-        for (Edge edge : oldNode.edgesLeaving)
+        for (Edge edge : oldNode.edgesLeaving) {
             edge.successor.edgesEntering.remove(edge);
+            edgeIndex.remove(edgeKey(oldNode.id, edge.successor.id));
+        }
         // remove all edges leaving neighboring nodes toward this one
-        for (Edge edge : oldNode.edgesEntering)
+        for (Edge edge : oldNode.edgesEntering) {
             edge.predecessor.edgesLeaving.remove(edge);
+            edgeIndex.remove(edgeKey(edge.predecessor.id, oldNode.id));
+        }
+        // every edge of the node is gone from the graph: a self-loop is in edgesLeaving, and was
+        // taken out of edgesEntering by the first loop, so each edge is subtracted once
+        this.edgeCount -= oldNode.edgesLeaving.size() + oldNode.edgesEntering.size();
+        freeNodeIds.push(oldNode.id);
+        nodesById.set(oldNode.id, null);
+        this.structuralChanges++;
         return true;
     }
 
+    /**
+     * Remove every node and edge from the graph at once. Rather than taking each node out of
+     * the edge lists of its neighbors like removeNode does, this replaces the node map with an
+     * empty one of the same capacity (see MapADT.emptyCopy), starts a new edge index and drops
+     * the lists of nodes and free ids, so the old nodes and edges are left for the garbage
+     * collector. No node or edge is visited, but this is not strictly constant time: the new
+     * node map's arrays are as large as the old ones, and the JVM zeroes them when they are
+     * allocated. Node ids start from 0 again.
+     */
+    public void clear() {
+        nodes = nodes.emptyCopy();
+        edgeIndex = new LongKeyMap<>();
+        this.edgeCount = 0;
+        this.nextNodeId = 0;
+        freeNodeIds = new LinkedList<>();
+        nodesById = new ArrayList<>();
+        this.structuralChanges++;
+    }
+
+    /**
+     * Replace the contents of the graph with the provided nodes and edges, which GraphBuilder
+     * has already checked and merged: node data must be distinct, and no two edges may connect
+     * the same nodes in the same direction. Node i gets nodeData.get(i) and id i, and edge j
+     * goes from node sources[j] to node targets[j] with weight weights[j]. Edges are added to
+     * the edge lists of their nodes in the order given, like with insertEdge, but the lists are
+     * allocated at their final size and no edge is looked up first. Like clear, this replaces
+     * the node map with an empty one of the same capacity instead of emptying it.
+     *
+     * @param nodeData  the data of each node, in the order of their ids
+     * @param sources   the id of the predecessor node of each edge
+     * @param targets   the id of the successor node of each edge
+     * @param weights   the weight of each edge
+     * @param edgeCount the number of edges, which the arrays hold at least
+     */
+    protected void load(List<NodeType> nodeData, int[] sources, int[] targets,
+            EdgeType[] weights, int edgeCount) {
+        nodes = nodes.emptyCopy();
+        freeNodeIds = new LinkedList<>();
+        nodesById = new ArrayList<>(nodeData.size());
+        edgeIndex = new LongKeyMap<>(edgeCount);
+        int[] leaving = new int[nodeData.size()];
+        int[] entering = new int[nodeData.size()];
+        for (int j = 0; j < edgeCount; j++) {
+            leaving[sources[j]]++;
+            entering[targets[j]]++;
+        }
+        for (int i = 0; i < nodeData.size(); i++) {
+            Node node = new Node(nodeData.get(i), i);
+            node.edgesLeaving = new ArrayList<>(leaving[i]);
+            node.edgesEntering = new ArrayList<>(entering[i]);
+            if (!nodes.putIfAbsent(node.data, node))
+                throw new IllegalArgumentException("Duplicate node data: " + node.data);
+            nodesById.add(node);
+        }
+        this.nextNodeId = nodeData.size();
+        for (int j = 0; j < edgeCount; j++) {
+            Node predNode = nodesById.get(sources[j]);
+            Node succNode = nodesById.get(targets[j]);
+            Edge edge = new Edge(weights[j], predNode, succNode);
+            predNode.edgesLeaving.add(edge);
+            succNode.edgesEntering.add(edge);
+            edgeIndex.put(edgeKey(predNode.id, succNode.id), edge);
+        }
+        this.edgeCount = edgeCount;
+        this.structuralChanges++;
+    }
+
     /**
      * Check whether the graph contains a node with the provided data.
      * 
@@ -115,6 +227,53 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
         return nodes.getSize();
     }
 
+    /**
+     * Return an upper bound on the ids of the nodes in this graph: every node's id is at least 0
+     * and less than this bound. Arrays indexed by node id should have this length.
+     *
+     * @return one more than the largest node id that may be in use
+     */
+    public int getNodeIdBound() {
+        return nextNodeId;
+    }
+
+    /**
+     * Return the id of the node with the provided data. The id stays the same until that node is
+     * removed, so it can stand in for the data when the same node is used many times.
+     *
+     * @param data the node contents to look up
+     * @return the id of the node containing data
+     * @throws NoSuchElementException when no node contains data
+     */
+    public int nodeIdOf(NodeType data) {
+        if (data == null || !nodes.containsKey(data))
+            throw new NoSuchElementException("Node is not present in the base graph");
+        return nodes.get(data).id;
+    }
+
+    /**
+     * Return the data of the node with the provided id.
+     *
+     * @param id the id of a node, as returned by nodeIdOf
+     * @return the data item stored in the node with that id
+     * @throws NoSuchElementException when no node has that id
+     */
+    public NodeType nodeDataOf(int id) {
+        return nodeWithId(id).data;
+    }
+
+    /**
+     * Return the node with the provided id.
+     *
+     * @throws NoSuchElementException when no node has that id
+     */
+    protected Node nodeWithId(int id) {
+        Node node = id >= 0 && id < nodesById.size() ? nodesById.get(id) : null;
+        if (node == null)
+            throw new NoSuchElementException("No node has id " + id);
+        return node;
+    }
+
     /**
      * Insert a new directed edge with positive edges weight into the graph.
      * Or if an edge between pred and succ already exists, update the data
@@ -128,21 +287,24 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      */
     public boolean insertEdge(NodeType pred, NodeType succ, EdgeType weight) {
         // find nodes associated with node data, and return false when not found
-        Node predNode = nodes.get(pred);
-        Node succNode = nodes.get(succ);
+        Node predNode = findNode(pred);
+        Node succNode = findNode(succ);
         if (predNode == null || succNode == null)
             return false;
-        try {
+        Edge existingEdge = findEdge(predNode, succNode);
+        if (existingEdge != null) {
             // when an edge alread exists within the graph, update its weight
-            Edge existingEdge = getEdgeHelper(pred, succ);
             existingEdge.data = weight;
-        } catch (NoSuchElementException e) {
+            this.weightChanges++;
+        } else {
             // otherwise create a new edges
             Edge newEdge = new Edge(weight, predNode, succNode);
             this.edgeCount++;
-            // and insert it into each of its adjacent nodes' respective lists
+            this.structuralChanges++;
+            // and insert it into each of its adjacent nodes' respective lists, and the index
             predNode.edgesLeaving.add(newEdge);
             succNode.edgesEntering.add(newEdge);
+            edgeIndex.put(edgeKey(predNode.id, succNode.id), newEdge);
         }
         return true;
     }
@@ -156,19 +318,18 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      *         false if such an edge is not found in the graph
      */
     public boolean removeEdge(NodeType pred, NodeType succ) {
-        try {
-            // when an edge exists
-            Edge oldEdge = getEdgeHelper(pred, succ);
-            // remove it from the edge lists of each adjacent node
-            oldEdge.predecessor.edgesLeaving.remove(oldEdge);
-            oldEdge.successor.edgesEntering.remove(oldEdge);
-            // and decrement the edge count before removing
-            this.edgeCount--;
-            return true;
-        } catch (NoSuchElementException e) {
-            // when no such edge exists, return false instead
+        Edge oldEdge = findEdge(pred, succ);
+        // when no such edge exists, return false instead
+        if (oldEdge == null)
             return false;
-        }
+        // remove it from the edge lists of each adjacent node, and from the index
+        oldEdge.predecessor.edgesLeaving.remove(oldEdge);
+        oldEdge.successor.edgesEntering.remove(oldEdge);
+        edgeIndex.remove(edgeKey(oldEdge.predecessor.id, oldEdge.successor.id));
+        // and decrement the edge count before removing
+        this.edgeCount--;
+        this.structuralChanges++;
+        return true;
     }
 
     /**
@@ -179,12 +340,7 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      * @return true if the edge is found in the graph, or false other
      */
     public boolean containsEdge(NodeType pred, NodeType succ) {
-        try {
-            getEdgeHelper(pred, succ);
-            return true;
-        } catch (NoSuchElementException e) {
-            return false;
-        }
+        return findEdge(pred, succ) != null;
     }
 
     /**
@@ -201,15 +357,46 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
     }
 
     protected Edge getEdgeHelper(NodeType pred, NodeType succ) {
-        Node predNode = nodes.get(pred);
-        // search for edge through the predecessor's list of leaving edges
-        for (Edge edge : predNode.edgesLeaving)
-            // compare succ to the data in each leaving edge's successor
-            if (edge.successor.data.equals(succ))
-                return edge;
+        Edge edge = findEdge(pred, succ);
         // when no such edge can be found, throw NSE
-        throw new NoSuchElementException("No edge from " + pred.toString() + " to " +
-                succ.toString());
+        if (edge == null)
+            throw new NoSuchElementException("No edge from " + pred + " to " + succ);
+        return edge;
+    }
+
+    /**
+     * Return the node with the provided data, or null when there is none, with a single
+     * lookup that doesn't throw for missing data.
+     *
+     * @throws NullPointerException if data is null
+     */
+    protected Node findNode(NodeType data) {
+        return nodes.getOrDefault(data, null);
+    }
+
+    /**
+     * Return the edge between the nodes with the provided data, or null when either node or
+     * the edge between them does not exist.
+     */
+    protected Edge findEdge(NodeType pred, NodeType succ) {
+        Node predNode = findNode(pred);
+        Node succNode = findNode(succ);
+        return predNode == null || succNode == null ? null : findEdge(predNode, succNode);
+    }
+
+    /**
+     * Return the edge from predNode to succNode, or null when there is none, in constant time.
+     */
+    protected Edge findEdge(Node predNode, Node succNode) {
+        return edgeIndex.get(edgeKey(predNode.id, succNode.id));
+    }
+
+    /**
+     * Return the key of the edge from the node with id predId to the node with id succId in
+     * edgeIndex: both ids packed into one long, which is never negative since ids aren't.
+     */
+    protected static long edgeKey(int predId, int succId) {
+        return ((long) predId << 32) | succId;
     }
 
     /**
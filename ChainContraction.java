@@ -0,0 +1,470 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A ChainContraction collapses the corridors of a graph into single edges, so that searches do
+ * not spend a heap operation on every node along them. A node is an interior node of a corridor
+ * when it is connected (by edges in either direction) to exactly two other nodes, like a hallway
+ * with one way in and one way out. Every maximal run of interior nodes forms a chain between two
+ * anchor nodes (the nodes that are not interior), and is replaced by a super-edge from one anchor
+ * to the other in each direction that the whole chain can be walked.
+ * <p>
+ * Searches then run over the anchors only, following the graph's edges between anchors and the
+ * super-edges of chains. A search that starts inside a chain begins by walking to the chain's
+ * anchors, and a search that ends inside a chain finishes by walking in from them; paths are
+ * expanded back into every interior node they pass. Each chain keeps the edges it was built from,
+ * so that super-edge weights can be recomputed after edge weights are updated. The chains must be
+ * built again after nodes or edges are inserted or removed.
+ */
+public class ChainContraction<NodeType, EdgeType extends Number> {
+
+    private final BaseGraph<NodeType, EdgeType> graph;
+
+    // every chain is a path of node ids chainNodes[c][0 .. k + 1] where the first and last are
+    // anchors and the rest are interior; chainForward[c][i] is the edge from node i to node
+    // i + 1 and chainBackward[c][i] the edge from node i + 1 to node i (either may be null)
+    private final List<BaseGraph<NodeType, EdgeType>.Node[]> chainNodes = new ArrayList<>();
+    private final List<BaseGraph<NodeType, EdgeType>.Edge[]> chainForward = new ArrayList<>();
+    private final List<BaseGraph<NodeType, EdgeType>.Edge[]> chainBackward = new ArrayList<>();
+    // the total cost of walking each chain forward (first to last) and backward, or
+    // Double.POSITIVE_INFINITY when an edge is missing
+    private double[] forwardCost;
+    private double[] backwardCost;
+
+    // chainOf[id] and positionOf[id] locate each interior node; chainOf[id] is -1 for anchors
+    private final int[] chainOf;
+    private final int[] positionOf;
+    // superEdges[id] lists, for each anchor, the chains leaving it: c for chain c walked forward
+    // and -c - 1 for chain c walked backward
+    private final int[][] superEdges;
+
+    private final ThreadLocal<SearchWorkspace<NodeType, EdgeType>> workspaces =
+            ThreadLocal.withInitial(SearchWorkspace::new);
+    // how each node was reached in the current search: c or -c - 1 along a super-edge as in
+    // superEdges, or one of the codes below
+    private final ThreadLocal<int[]> reachedVia;
+    private static final int ALONG_EDGE = Integer.MAX_VALUE;
+    private static final int FROM_START_TO_FIRST = Integer.MIN_VALUE;
+    private static final int FROM_START_TO_LAST = Integer.MIN_VALUE + 1;
+
+    /**
+     * Finds every chain of the provided graph and computes its super-edges.
+     *
+     * @param graph the graph to contract
+     */
+    @SuppressWarnings("unchecked")
+    public ChainContraction(BaseGraph<NodeType, EdgeType> graph) {
+        this.graph = graph;
+        int idBound = graph.getNodeIdBound();
+        this.chainOf = new int[idBound];
+        this.positionOf = new int[idBound];
+        this.reachedVia = ThreadLocal.withInitial(() -> new int[idBound]);
+
+        BaseGraph<NodeType, EdgeType>.Node[] nodeById =
+                (BaseGraph<NodeType, EdgeType>.Node[]) new BaseGraph<?, ?>.Node[idBound];
+        for (NodeType data : graph.getAllNodes()) {
+            BaseGraph<NodeType, EdgeType>.Node node = graph.nodes.get(data);
+            nodeById[node.id] = node;
+        }
+        boolean[] interior = new boolean[idBound];
+        for (BaseGraph<NodeType, EdgeType>.Node node : nodeById) {
+            if (node != null) {
+                interior[node.id] = this.neighborsOf(node).size() == 2;
+            }
+        }
+
+        Arrays.fill(this.chainOf, -1);
+        for (BaseGraph<NodeType, EdgeType>.Node node : nodeById) {
+            if (node == null || !interior[node.id] || this.chainOf[node.id] != -1) {
+                continue;
+            }
+            // walk away from node in both directions until reaching an anchor on each side
+            List<BaseGraph<NodeType, EdgeType>.Node> neighbors = new ArrayList<>(
+                    this.neighborsOf(node));
+            List<BaseGraph<NodeType, EdgeType>.Node> left = this.walk(node, neighbors.get(0),
+                    interior);
+            if (left == null) {
+                continue; // a cycle of interior nodes without any anchor stays as it is
+            }
+            List<BaseGraph<NodeType, EdgeType>.Node> right = this.walk(node, neighbors.get(1),
+                    interior);
+            List<BaseGraph<NodeType, EdgeType>.Node> path = new ArrayList<>(left);
+            Collections.reverse(path);
+            path.add(node);
+            path.addAll(right);
+            this.addChain((BaseGraph<NodeType, EdgeType>.Node[]) path.toArray(
+                    new BaseGraph<?, ?>.Node[0]));
+        }
+
+        this.superEdges = new int[idBound][];
+        List<List<Integer>> leaving = new ArrayList<>(idBound);
+        for (int id = 0; id < idBound; id++) {
+            leaving.add(new ArrayList<>());
+        }
+        for (int c = 0; c < this.chainNodes.size(); c++) {
+            BaseGraph<NodeType, EdgeType>.Node[] nodes = this.chainNodes.get(c);
+            leaving.get(nodes[0].id).add(c);
+            leaving.get(nodes[nodes.length - 1].id).add(-c - 1);
+        }
+        for (int id = 0; id < idBound; id++) {
+            this.superEdges[id] = leaving.get(id).stream().mapToInt(Integer::intValue).toArray();
+        }
+        this.refreshWeights();
+    }
+
+    /**
+     * Returns the distinct nodes connected to node by an edge in either direction, not counting
+     * node itself.
+     */
+    private HashSet<BaseGraph<NodeType, EdgeType>.Node> neighborsOf(
+            BaseGraph<NodeType, EdgeType>.Node node) {
+        HashSet<BaseGraph<NodeType, EdgeType>.Node> neighbors = new HashSet<>();
+        for (BaseGraph<NodeType, EdgeType>.Edge edge : node.edgesLeaving) {
+            neighbors.add(edge.successor);
+        }
+        for (BaseGraph<NodeType, EdgeType>.Edge edge : node.edgesEntering) {
+            neighbors.add(edge.predecessor);
+        }
+        neighbors.remove(node);
+        return neighbors;
+    }
+
+    /**
+     * Walks from interior node from through next and on through interior nodes, and returns the
+     * nodes visited after from, ending with the first anchor. Returns null when the walk comes
+     * back around to from.
+     */
+    private List<BaseGraph<NodeType, EdgeType>.Node> walk(BaseGraph<NodeType, EdgeType>.Node from,
+            BaseGraph<NodeType, EdgeType>.Node next, boolean[] interior) {
+        List<BaseGraph<NodeType, EdgeType>.Node> visited = new ArrayList<>();
+        BaseGraph<NodeType, EdgeType>.Node previous = from;
+        BaseGraph<NodeType, EdgeType>.Node current = next;
+        while (true) {
+            if (current == from) {
+                return null;
+            }
+            visited.add(current);
+            if (!interior[current.id]) {
+                return visited;
+            }
+            BaseGraph<NodeType, EdgeType>.Node following = null;
+            for (BaseGraph<NodeType, EdgeType>.Node neighbor : this.neighborsOf(current)) {
+                if (neighbor != previous) {
+                    following = neighbor;
+                }
+            }
+            previous = current;
+            current = following;
+        }
+    }
+
+    /**
+     * Records a chain along the provided nodes, from one anchor to the other.
+     */
+    @SuppressWarnings("unchecked")
+    private void addChain(BaseGraph<NodeType, EdgeType>.Node[] nodes) {
+        int chain = this.chainNodes.size();
+        BaseGraph<NodeType, EdgeType>.Edge[] forward =
+                (BaseGraph<NodeType, EdgeType>.Edge[]) new BaseGraph<?, ?>.Edge[nodes.length - 1];
+        BaseGraph<NodeType, EdgeType>.Edge[] backward =
+                (BaseGraph<NodeType, EdgeType>.Edge[]) new BaseGraph<?, ?>.Edge[nodes.length - 1];
+        for (int i = 0; i + 1 < nodes.length; i++) {
+            forward[i] = this.findEdge(nodes[i], nodes[i + 1]);
+            backward[i] = this.findEdge(nodes[i + 1], nodes[i]);
+        }
+        for (int i = 1; i + 1 < nodes.length; i++) {
+            this.chainOf[nodes[i].id] = chain;
+            this.positionOf[nodes[i].id] = i;
+        }
+        this.chainNodes.add(nodes);
+        this.chainForward.add(forward);
+        this.chainBackward.add(backward);
+    }
+
+    private BaseGraph<NodeType, EdgeType>.Edge findEdge(BaseGraph<NodeType, EdgeType>.Node from,
+                                                        BaseGraph<NodeType, EdgeType>.Node to) {
+        for (BaseGraph<NodeType, EdgeType>.Edge edge : from.edgesLeaving) {
+            if (edge.successor == to) {
+                return edge;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Recomputes the cost of every super-edge from the current weights of the edges along its
+     * chain. This must be called after edge weights are updated.
+     */
+    public void refreshWeights() {
+        double[] forward = new double[this.chainNodes.size()];
+        double[] backward = new double[this.chainNodes.size()];
+        for (int c = 0; c < forward.length; c++) {
+            int last = this.chainNodes.get(c).length - 1;
+            forward[c] = this.walkCost(c, 0, last);
+            backward[c] = this.walkCost(c, last, 0);
+        }
+        this.forwardCost = forward;
+        this.backwardCost = backward;
+    }
+
+    /**
+     * Returns the cost of walking along chain c from position from to position to, in either
+     * direction, or Double.POSITIVE_INFINITY when an edge along the way is missing.
+     */
+    private double walkCost(int c, int from, int to) {
+        BaseGraph<NodeType, EdgeType>.Edge[] edges = from <= to ? this.chainForward.get(c) :
+                this.chainBackward.get(c);
+        double cost = 0.0;
+        for (int i = Math.min(from, to); i < Math.max(from, to); i++) {
+            if (edges[i] == null) {
+                return Double.POSITIVE_INFINITY;
+            }
+            cost += edges[i].data.doubleValue();
+        }
+        return cost;
+    }
+
+    /**
+     * Returns the number of chains that were contracted.
+     *
+     * @return the number of chains
+     */
+    public int getChainCount() {
+        return this.chainNodes.size();
+    }
+
+    /**
+     * Returns the number of interior nodes that searches skip over.
+     *
+     * @return the number of nodes inside chains
+     */
+    public int getContractedNodeCount() {
+        int count = 0;
+        for (BaseGraph<NodeType, EdgeType>.Node[] nodes : this.chainNodes) {
+            count += nodes.length - 2;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the cost of the shortest path from start to end.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return the cost of the shortest path
+     * @throws NoSuchElementException when start or end is not a node of the graph, or there is
+     *                                no path from start to end
+     */
+    public double shortestPathCost(NodeType start, NodeType end) {
+        return this.search(start, end).cost;
+    }
+
+    /**
+     * Returns the data of the nodes along the shortest path from start to end, including every
+     * interior node of the chains that the path passes through.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return list of data items from the nodes along the shortest path
+     * @throws NoSuchElementException when start or end is not a node of the graph, or there is
+     *                                no path from start to end
+     */
+    public List<NodeType> shortestPathData(NodeType start, NodeType end) {
+        Result result = this.search(start, end);
+        SearchWorkspace<NodeType, EdgeType> workspace = this.workspaces.get();
+        int[] via = this.reachedVia.get();
+        BaseGraph<NodeType, EdgeType>.Node startNode = this.graph.nodes.get(start);
+        BaseGraph<NodeType, EdgeType>.Node endNode = this.graph.nodes.get(end);
+
+        // the path is built backwards from end, starting with the walk in from the last anchor
+        // when end is inside a chain
+        ArrayList<NodeType> path = new ArrayList<>();
+        if (result.lastAnchor == -1) {
+            // start and end are in the same chain, and the path stays inside it
+            this.appendWalk(this.chainOf[startNode.id], this.positionOf[endNode.id],
+                    this.positionOf[startNode.id], path);
+            Collections.reverse(path);
+            return path;
+        }
+        if (result.lastAnchor != endNode.id) {
+            int c = this.chainOf[endNode.id];
+            int anchorPosition = result.fromChainStart ? 0 : this.chainNodes.get(c).length - 1;
+            this.appendWalk(c, this.positionOf[endNode.id], anchorPosition, path);
+            path.remove(path.size() - 1); // the anchor is added below
+        }
+
+        // back through the anchors, expanding each super-edge into its chain
+        int id = result.lastAnchor;
+        while (true) {
+            path.add(workspace.nodeOf(id).data);
+            int predecessor = workspace.predecessorOf(id);
+            int how = via[id];
+            if (how == FROM_START_TO_FIRST || how == FROM_START_TO_LAST) {
+                // reached directly from a start inside a chain
+                int c = this.chainOf[startNode.id];
+                int position = how == FROM_START_TO_FIRST ? 0 :
+                        this.chainNodes.get(c).length - 1;
+                ArrayList<NodeType> walked = new ArrayList<>();
+                this.appendWalk(c, this.positionOf[startNode.id], position, walked);
+                walked.remove(walked.size() - 1);
+                Collections.reverse(walked);
+                path.addAll(walked);
+                break;
+            }
+            if (how != ALONG_EDGE) {
+                int c = how >= 0 ? how : -how - 1;
+                int last = this.chainNodes.get(c).length - 1;
+                ArrayList<NodeType> walked = new ArrayList<>();
+                // walk from the predecessor anchor to id, then drop both anchors
+                this.appendWalk(c, how >= 0 ? 0 : last, how >= 0 ? last : 0, walked);
+                for (int i = walked.size() - 2; i >= 1; i--) {
+                    path.add(walked.get(i));
+                }
+            }
+            if (predecessor == -1) {
+                break; // id is the start
+            }
+            id = predecessor;
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Appends the data of the nodes of chain c from position from to position to, inclusive.
+     */
+    private void appendWalk(int c, int from, int to, List<NodeType> path) {
+        BaseGraph<NodeType, EdgeType>.Node[] nodes = this.chainNodes.get(c);
+        int step = from <= to ? 1 : -1;
+        for (int i = from; i != to + step; i += step) {
+            path.add(nodes[i].data);
+        }
+    }
+
+    /**
+     * The outcome of a search: the cost of the shortest path, the anchor it leaves last (-1 when
+     * start and end are in the same chain and the path stays inside it), and whether it walks
+     * into the end's chain from the chain's first node rather than its last.
+     */
+    private static class Result {
+        double cost;
+        int lastAnchor;
+        boolean fromChainStart;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm over the anchors, from start (or the anchors of its chain) until
+     * no cheaper way to end (or into end's chain) can be found.
+     */
+    private Result search(NodeType start, NodeType end) {
+        if (start == null || !this.graph.containsNode(start)) {
+            throw new NoSuchElementException("Start node is not present in the base graph");
+        }
+        if (end == null || !this.graph.containsNode(end)) {
+            throw new NoSuchElementException("End node is not present in the base graph");
+        }
+        BaseGraph<NodeType, EdgeType>.Node startNode = this.graph.nodes.get(start);
+        BaseGraph<NodeType, EdgeType>.Node endNode = this.graph.nodes.get(end);
+        SearchWorkspace<NodeType, EdgeType> workspace = this.workspaces.get();
+        int[] via = this.reachedVia.get();
+        workspace.reset(this.chainOf.length);
+        Result result = new Result();
+        result.cost = Double.POSITIVE_INFINITY;
+        result.lastAnchor = -2;
+
+        int startChain = this.chainOf[startNode.id];
+        int endChain = this.chainOf[endNode.id];
+        if (startNode == endNode) {
+            result.cost = 0.0;
+            result.lastAnchor = startChain == -1 ? startNode.id : -1;
+            if (startChain == -1) {
+                workspace.offer(startNode, 0.0, -1);
+                workspace.settleNext();
+                via[startNode.id] = ALONG_EDGE;
+            }
+            return result;
+        }
+        if (startChain == -1) {
+            workspace.offer(startNode, 0.0, -1);
+            via[startNode.id] = ALONG_EDGE;
+        } else {
+            // leave the start's chain through either anchor
+            BaseGraph<NodeType, EdgeType>.Node[] nodes = this.chainNodes.get(startChain);
+            int position = this.positionOf[startNode.id];
+            int last = nodes.length - 1;
+            double toFirst = this.walkCost(startChain, position, 0);
+            double toLast = this.walkCost(startChain, position, last);
+            if (toFirst != Double.POSITIVE_INFINITY && workspace.offer(nodes[0], toFirst, -1)) {
+                via[nodes[0].id] = FROM_START_TO_FIRST;
+            }
+            if (toLast != Double.POSITIVE_INFINITY && workspace.offer(nodes[last], toLast, -1)) {
+                via[nodes[last].id] = FROM_START_TO_LAST;
+            }
+            if (startChain == endChain) {
+                // the path may stay inside the chain
+                result.cost = this.walkCost(startChain, position, this.positionOf[endNode.id]);
+                result.lastAnchor = -1;
+            }
+        }
+
+        while (!workspace.isEmpty() && workspace.peekCost() < result.cost) {
+            int id = workspace.settleNext();
+            double cost = workspace.costOf(id);
+            BaseGraph<NodeType, EdgeType>.Node node = workspace.nodeOf(id);
+            if (node == endNode) {
+                result.cost = cost;
+                result.lastAnchor = id;
+                break;
+            }
+            if (endChain != -1) {
+                // finish by walking into the end's chain from this anchor
+                BaseGraph<NodeType, EdgeType>.Node[] nodes = this.chainNodes.get(endChain);
+                int last = nodes.length - 1;
+                int position = this.positionOf[endNode.id];
+                if (nodes[0] == node && cost + this.walkCost(endChain, 0, position) <
+                        result.cost) {
+                    result.cost = cost + this.walkCost(endChain, 0, position);
+                    result.lastAnchor = id;
+                    result.fromChainStart = true;
+                }
+                if (nodes[last] == node && cost + this.walkCost(endChain, last, position) <
+                        result.cost) {
+                    result.cost = cost + this.walkCost(endChain, last, position);
+                    result.lastAnchor = id;
+                    result.fromChainStart = false;
+                }
+            }
+
+            // graph edges between anchors
+            List<BaseGraph<NodeType, EdgeType>.Edge> edgesLeaving = node.edgesLeaving;
+            for (int i = 0; i < edgesLeaving.size(); i++) {
+                BaseGraph<NodeType, EdgeType>.Edge edge = edgesLeaving.get(i);
+                if (this.chainOf[edge.successor.id] == -1 && workspace.offer(edge.successor,
+                        cost + edge.data.doubleValue(), id)) {
+                    via[edge.successor.id] = ALONG_EDGE;
+                }
+            }
+            // super-edges across chains
+            for (int chain : this.superEdges[id]) {
+                int c = chain >= 0 ? chain : -chain - 1;
+                BaseGraph<NodeType, EdgeType>.Node[] nodes = this.chainNodes.get(c);
+                BaseGraph<NodeType, EdgeType>.Node other = chain >= 0 ? nodes[nodes.length - 1] :
+                        nodes[0];
+                double weight = chain >= 0 ? this.forwardCost[c] : this.backwardCost[c];
+                if (weight != Double.POSITIVE_INFINITY && other != node &&
+                        workspace.offer(other, cost + weight, id)) {
+                    via[other.id] = chain;
+                }
+            }
+        }
+
+        if (result.cost == Double.POSITIVE_INFINITY) {
+            throw new NoSuchElementException("Path doesn't exist between the given points");
+        }
+        return result;
+    }
+}
@@ -0,0 +1,226 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * This class indexes the strongly connected components of a graph so that whether one node can
+ * reach another is answered in constant time. Every node can reach every other node of its own
+ * component, and the components themselves form a directed acyclic graph (the condensation).
+ * <p>
+ * Components are found with an iterative version of Tarjan's algorithm, which keeps its own
+ * stack instead of recursing so that long paths cannot overflow the call stack. Tarjan's
+ * algorithm completes components in reverse topological order, so whenever an edge leads from
+ * component a to a different component b, a has the larger id. A node can therefore never reach
+ * a node whose component id is larger than its own. On top of that ordering, the set of
+ * components reachable from each component is stored as a bitset when there are at most
+ * CLOSURE_LIMIT components, which makes every answer exact.
+ * <p>
+ * The index describes the graph as it was when the index was built; it must be rebuilt after
+ * nodes or edges are inserted or removed.
+ */
+public class ComponentIndex<NodeType, EdgeType extends Number> {
+
+    // the reachability bitsets take CLOSURE_LIMIT^2 / 8 bytes (2 MB) at most
+    public static final int CLOSURE_LIMIT = 4096;
+
+    // component id of each node, ids are in reverse topological order of the condensation
+    private final HashMap<BaseGraph<NodeType, EdgeType>.Node, Integer> componentOf;
+    private final int componentCount;
+    // reachable[c] has bit d set when component c can reach component d, or null when there are
+    // too many components to store this
+    private final long[][] reachable;
+
+    /**
+     * Builds the component index of the provided graph.
+     *
+     * @param graph the graph to index
+     */
+    public ComponentIndex(BaseGraph<NodeType, EdgeType> graph) {
+        List<BaseGraph<NodeType, EdgeType>.Node> nodeList = new ArrayList<>();
+        HashMap<BaseGraph<NodeType, EdgeType>.Node, Integer> position =
+                new HashMap<>(Math.max(16, graph.getNodeCount() * 2));
+        for (NodeType data : graph.getAllNodes()) {
+            position.put(graph.nodes.get(data), nodeList.size());
+            nodeList.add(graph.nodes.get(data));
+        }
+
+        int[] component = this.findComponents(nodeList, position);
+        this.componentOf = new HashMap<>(Math.max(16, nodeList.size() * 2));
+        int count = 0;
+        for (int i = 0; i < nodeList.size(); i++) {
+            this.componentOf.put(nodeList.get(i), component[i]);
+            count = Math.max(count, component[i] + 1);
+        }
+        this.componentCount = count;
+        this.reachable = count <= CLOSURE_LIMIT ?
+                this.computeClosure(nodeList, position, component) : null;
+    }
+
+    /**
+     * Runs Tarjan's algorithm without recursion, and returns the component id of each node in
+     * nodeList. A node's visit is suspended on callStack while one of its successors is being
+     * visited, and resumes from edgeIterator once that successor is finished.
+     */
+    @SuppressWarnings("unchecked")
+    private int[] findComponents(List<BaseGraph<NodeType, EdgeType>.Node> nodeList,
+                                 HashMap<BaseGraph<NodeType, EdgeType>.Node, Integer> position) {
+        int size = nodeList.size();
+        int[] visitIndex = new int[size];
+        int[] lowLink = new int[size];
+        int[] component = new int[size];
+        boolean[] onStack = new boolean[size];
+        Iterator<BaseGraph<NodeType, EdgeType>.Edge>[] edgeIterator =
+                (Iterator<BaseGraph<NodeType, EdgeType>.Edge>[]) new Iterator<?>[size];
+        int[] componentStack = new int[size];
+        int[] callStack = new int[size];
+        int componentStackSize = 0;
+        int nextVisitIndex = 0;
+        int nextComponent = 0;
+
+        for (int i = 0; i < size; i++) {
+            visitIndex[i] = -1;
+        }
+        for (int root = 0; root < size; root++) {
+            if (visitIndex[root] != -1) {
+                continue;
+            }
+            int callStackSize = 0;
+            callStack[callStackSize++] = root;
+            visitIndex[root] = lowLink[root] = nextVisitIndex++;
+            componentStack[componentStackSize++] = root;
+            onStack[root] = true;
+            edgeIterator[root] = nodeList.get(root).edgesLeaving.iterator();
+
+            while (callStackSize > 0) {
+                int current = callStack[callStackSize - 1];
+                if (edgeIterator[current].hasNext()) {
+                    int successor = position.get(edgeIterator[current].next().successor);
+                    if (visitIndex[successor] == -1) {
+                        // suspend current and visit successor first
+                        callStack[callStackSize++] = successor;
+                        visitIndex[successor] = lowLink[successor] = nextVisitIndex++;
+                        componentStack[componentStackSize++] = successor;
+                        onStack[successor] = true;
+                        edgeIterator[successor] = nodeList.get(successor).edgesLeaving.iterator();
+                    } else if (onStack[successor]) {
+                        lowLink[current] = Math.min(lowLink[current], visitIndex[successor]);
+                    }
+                    continue;
+                }
+
+                // every edge of current is explored, so its visit is finished
+                callStackSize--;
+                edgeIterator[current] = null;
+                if (lowLink[current] == visitIndex[current]) {
+                    // current is the root of a component made of everything above it
+                    int member;
+                    do {
+                        member = componentStack[--componentStackSize];
+                        onStack[member] = false;
+                        component[member] = nextComponent;
+                    } while (member != current);
+                    nextComponent++;
+                }
+                if (callStackSize > 0) {
+                    int caller = callStack[callStackSize - 1];
+                    lowLink[caller] = Math.min(lowLink[caller], lowLink[current]);
+                }
+            }
+        }
+        return component;
+    }
+
+    /**
+     * Computes the set of components reachable from each component. Since every edge between
+     * components leads to a smaller id, visiting components in increasing id order means that
+     * every successor's set is complete before it is merged into its predecessors' sets.
+     */
+    private long[][] computeClosure(List<BaseGraph<NodeType, EdgeType>.Node> nodeList,
+                                    HashMap<BaseGraph<NodeType, EdgeType>.Node, Integer> position,
+                                    int[] component) {
+        // group nodes by component so that each component's edges can be scanned together
+        List<List<Integer>> members = new ArrayList<>(this.componentCount);
+        for (int c = 0; c < this.componentCount; c++) {
+            members.add(new ArrayList<>());
+        }
+        for (int i = 0; i < nodeList.size(); i++) {
+            members.get(component[i]).add(i);
+        }
+
+        int words = (this.componentCount + 63) / 64;
+        long[][] closure = new long[this.componentCount][words];
+        for (int c = 0; c < this.componentCount; c++) {
+            closure[c][c >>> 6] |= 1L << c;
+            for (int member : members.get(c)) {
+                for (BaseGraph<NodeType, EdgeType>.Edge edge : nodeList.get(member).edgesLeaving) {
+                    int target = component[position.get(edge.successor)];
+                    if (target != c && (closure[c][target >>> 6] & (1L << target)) == 0) {
+                        for (int word = 0; word < words; word++) {
+                            closure[c][word] |= closure[target][word];
+                        }
+                    }
+                }
+            }
+        }
+        return closure;
+    }
+
+    /**
+     * Returns the number of strongly connected components in the indexed graph.
+     *
+     * @return the number of components
+     */
+    public int getComponentCount() {
+        return this.componentCount;
+    }
+
+    /**
+     * Returns the id of the component containing the provided node. Ids run from 0 to
+     * getComponentCount() - 1 in reverse topological order.
+     *
+     * @param node a node of the indexed graph
+     * @return the node's component id
+     * @throws NoSuchElementException when the node was not part of the indexed graph
+     */
+    public int componentOf(BaseGraph<NodeType, EdgeType>.Node node) {
+        Integer component = this.componentOf.get(node);
+        if (component == null) {
+            throw new NoSuchElementException("Node is not part of the indexed graph");
+        }
+        return component;
+    }
+
+    /**
+     * Checks whether a path can exist from one node to another. A false answer is always
+     * correct. A true answer is exact as long as the graph has at most CLOSURE_LIMIT components,
+     * and otherwise means that the topological order of the components does not rule a path out.
+     *
+     * @param from the node a path would start at
+     * @param to   the node a path would end at
+     * @return false when there is definitely no path from from to to, and true otherwise
+     */
+    public boolean mayReach(BaseGraph<NodeType, EdgeType>.Node from,
+                            BaseGraph<NodeType, EdgeType>.Node to) {
+        return this.mayReachComponent(this.componentOf(from), this.componentOf(to));
+    }
+
+    /**
+     * Checks whether a path can exist from a node of component from to a node of component to,
+     * with the same guarantees as mayReach.
+     *
+     * @param from the component id a path would start in
+     * @param to   the component id a path would end in
+     * @return false when there is definitely no path, and true otherwise
+     */
+    public boolean mayReachComponent(int from, int to) {
+        if (from == to) {
+            return true;
+        }
+        if (from < to) {
+            return false;
+        }
+        return this.reachable == null || (this.reachable[from][to >>> 6] & (1L << to)) != 0;
+    }
+}
@@ -0,0 +1,594 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A MapADT that any number of threads can use at once, where reads never wait for a lock. Like
+ * HashtableMap it chains the pairs of each index, but the chains are made of immutable entries:
+ * a writer never changes an entry that a reader might be looking at, it publishes a new chain
+ * head (with a volatile write into an AtomicReferenceArray) instead. A reader therefore always
+ * walks a complete chain, either from before or from after any concurrent write.
+ * <p>
+ * Writers lock one of a fixed number of stripes, chosen by the low bits of the key's hash, so
+ * writes to different stripes run in parallel. The capacity is a power of two no smaller than
+ * the number of stripes, so an index always belongs to the same stripe no matter how the table
+ * grows. To grow, a writer takes every stripe lock, copies the chains into a table twice as
+ * large, and publishes it through a volatile field. Readers are never blocked while this
+ * happens: they keep reading the old table, which stays valid since no write reaches it
+ * anymore, until they next read the field.
+ */
+public class ConcurrentHashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueType> {
+
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final int STRIPES = 16;
+
+    /**
+     * An immutable pair in a chain.
+     */
+    private static class Entry {
+        final Object key;
+        final int hash;
+        final Object value;
+        final Entry next;
+
+        Entry(Object key, int hash, Object value, Entry next) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    private volatile AtomicReferenceArray<Entry> table;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Creates an empty map with the default capacity of 64.
+     */
+    public ConcurrentHashtableMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty map with room for the provided number of chains, rounded up to a power
+     * of two.
+     *
+     * @param capacity the smallest number of chains to start with
+     */
+    public ConcurrentHashtableMap(int capacity) {
+        this.table = new AtomicReferenceArray<>(
+                Integer.highestOneBit(Math.max(STRIPES, capacity) * 2 - 1));
+        for (int i = 0; i < STRIPES; i++) {
+            this.locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Mixes the high bits of a hash code into the low bits that select the index.
+     */
+    private static int spread(int hashCode) {
+        int hash = hashCode * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int hashOf(Object key) {
+        if (key == null) {
+            throw new NullPointerException("null keys not allowed");
+        }
+        return spread(key.hashCode());
+    }
+
+    /**
+     * Returns the entry for key in table, or null. This never locks.
+     */
+    private static Entry find(AtomicReferenceArray<Entry> table, Object key, int hash) {
+        for (Entry entry = table.get(hash & (table.length() - 1)); entry != null;
+             entry = entry.next) {
+            if (entry.hash == hash && (entry.key == key || entry.key.equals(key))) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds a pair to the chain at its index, or does nothing when the key is already there.
+     * Returns the existing entry, or null when the pair was added. The caller must hold the
+     * key's stripe lock.
+     */
+    private Entry insertLocked(Object key, int hash, Function<Object, Object> value) {
+        AtomicReferenceArray<Entry> current = this.table;
+        Entry existing = find(current, key, hash);
+        if (existing != null) {
+            return existing;
+        }
+        int index = hash & (current.length() - 1);
+        current.set(index, new Entry(key, hash, value.apply(key), current.get(index)));
+        this.size.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Doubles the capacity once the map holds more pairs than 3/4 of it, holding every stripe
+     * lock while the chains are copied.
+     */
+    private void growIfNeeded() {
+        if (this.size.get() <= this.table.length() - (this.table.length() >>> 2)) {
+            return;
+        }
+        this.lockAll();
+        try {
+            AtomicReferenceArray<Entry> old = this.table;
+            if (this.size.get() <= old.length() - (old.length() >>> 2)) {
+                return; // another writer grew the table first
+            }
+            AtomicReferenceArray<Entry> larger = new AtomicReferenceArray<>(old.length() * 2);
+            int mask = larger.length() - 1;
+            for (int i = 0; i < old.length(); i++) {
+                // entries are immutable, so they are copied rather than relinked, and the old
+                // chains stay intact for readers still walking them
+                for (Entry entry = old.get(i); entry != null; entry = entry.next) {
+                    int index = entry.hash & mask;
+                    larger.set(index, new Entry(entry.key, entry.hash, entry.value,
+                            larger.get(index)));
+                }
+            }
+            this.table = larger;
+        } finally {
+            this.unlockAll();
+        }
+    }
+
+    private void lockAll() {
+        for (ReentrantLock lock : this.locks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = this.locks.length - 1; i >= 0; i--) {
+            this.locks[i].unlock();
+        }
+    }
+
+    /**
+     * Adds a new key,value pair/mapping to this collection.
+     *
+     * @param key   the key of the key,value pair
+     * @param value the value that key maps to
+     * @throws IllegalArgumentException if key already maps to a value
+     * @throws NullPointerException     if key is null
+     */
+    @Override
+    public void put(KeyType key, ValueType value) throws IllegalArgumentException {
+        if (!this.putIfAbsent(key, value)) {
+            throw new IllegalArgumentException("key " + key.toString() + " already present in the" +
+                    " map");
+        }
+    }
+
+    /**
+     * Adds a new key,value pair/mapping to this collection, unless key already maps to a value.
+     * Checking for the key and adding the pair happen atomically.
+     *
+     * @param key   the key of the key,value pair
+     * @param value the value that key maps to
+     * @return true if the pair was added, and false if key already mapped to a value
+     * @throws NullPointerException if key is null
+     */
+    @Override
+    public boolean putIfAbsent(KeyType key, ValueType value) {
+        int hash = hashOf(key);
+        ReentrantLock lock = this.locks[hash & (STRIPES - 1)];
+        boolean added;
+        lock.lock();
+        try {
+            added = this.insertLocked(key, hash, ignored -> value) == null;
+        } finally {
+            lock.unlock();
+        }
+        if (added) {
+            this.growIfNeeded();
+        }
+        return added;
+    }
+
+    /**
+     * Retrieves the value that a key maps to, first mapping the key to a value computed from it
+     * when it doesn't map to one yet. The function is called at most once per key, while the
+     * key's stripe is locked, so it must not use this map.
+     *
+     * @param key             the key to look up
+     * @param mappingFunction computes the value for key when key is not stored yet
+     * @return the value that key maps to
+     * @throws NullPointerException if key is null
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public ValueType computeIfAbsent(KeyType key,
+            Function<? super KeyType, ? extends ValueType> mappingFunction) {
+        int hash = hashOf(key);
+        Entry existing = find(this.table, key, hash);
+        if (existing != null) {
+            return (ValueType) existing.value; // the common case takes no lock
+        }
+        ReentrantLock lock = this.locks[hash & (STRIPES - 1)];
+        Object[] computed = new Object[1];
+        lock.lock();
+        try {
+            existing = this.insertLocked(key, hash,
+                    ignored -> computed[0] = mappingFunction.apply(key));
+        } finally {
+            lock.unlock();
+        }
+        if (existing != null) {
+            return (ValueType) existing.value;
+        }
+        this.growIfNeeded();
+        return (ValueType) computed[0];
+    }
+
+    /**
+     * Checks whether a key maps to a value in this collection, without locking.
+     *
+     * @param key the key to check
+     * @return true if the key maps to a value, and false is the key doesn't map to a value
+     * @throws NullPointerException if key is null
+     */
+    @Override
+    public boolean containsKey(KeyType key) {
+        return find(this.table, key, hashOf(key)) != null;
+    }
+
+    /**
+     * Retrieves the specific value that a key maps to, without locking.
+     *
+     * @param key the key to look up
+     * @return the value that key maps to
+     * @throws NoSuchElementException when key is not stored in this collection
+     * @throws NullPointerException   if key is null
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public ValueType get(KeyType key) throws NoSuchElementException {
+        Entry entry = find(this.table, key, hashOf(key));
+        if (entry == null) {
+            throw new NoSuchElementException("Key not present");
+        }
+        return (ValueType) entry.value;
+    }
+
+    /**
+     * Retrieves the value that a key maps to, or defaultValue when the key doesn't map to one,
+     * without locking.
+     *
+     * @param key          the key to look up
+     * @param defaultValue the value to return when key is not stored in this collection
+     * @return the value that key maps to, or defaultValue
+     * @throws NullPointerException if key is null
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public ValueType getOrDefault(KeyType key, ValueType defaultValue) {
+        Entry entry = find(this.table, key, hashOf(key));
+        return entry == null ? defaultValue : (ValueType) entry.value;
+    }
+
+    /**
+     * Remove the mapping for a key from this collection. The entries before it in its chain are
+     * copied, so that readers walking the old chain are not disturbed.
+     *
+     * @param key the key whose mapping to remove
+     * @return the value that the removed key mapped to
+     * @throws NoSuchElementException when key is not stored in this collection
+     * @throws NullPointerException   if key is null
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public ValueType remove(KeyType key) throws NoSuchElementException {
+        int hash = hashOf(key);
+        ReentrantLock lock = this.locks[hash & (STRIPES - 1)];
+        lock.lock();
+        try {
+            AtomicReferenceArray<Entry> current = this.table;
+            int index = hash & (current.length() - 1);
+            Entry head = current.get(index);
+            Entry removed = find(current, key, hash);
+            if (removed == null) {
+                throw new NoSuchElementException("key not in table");
+            }
+            Entry rebuilt = removed.next;
+            for (Entry entry = head; entry != removed; entry = entry.next) {
+                rebuilt = new Entry(entry.key, entry.hash, entry.value, rebuilt);
+            }
+            current.set(index, rebuilt);
+            this.size.decrementAndGet();
+            return (ValueType) removed.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all key,value pairs from this collection.
+     */
+    @Override
+    public void clear() {
+        this.lockAll();
+        try {
+            this.table = new AtomicReferenceArray<>(this.table.length());
+            this.size.set(0);
+        } finally {
+            this.unlockAll();
+        }
+    }
+
+    /**
+     * Retrieves the number of keys stored in this collection.
+     *
+     * @return the number of keys stored in this collection
+     */
+    @Override
+    public int getSize() {
+        return this.size.get();
+    }
+
+    /**
+     * Retrieves this collection's capacity.
+     *
+     * @return the number of chains in the underlying array for this collection
+     */
+    @Override
+    public int getCapacity() {
+        return this.table.length();
+    }
+
+    /**
+     * Retrieves this collection's keys. Keys that are added or removed while this runs may or
+     * may not be included.
+     *
+     * @return a list of keys in the underlying array for this collection
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<KeyType> getKeys() {
+        AtomicReferenceArray<Entry> current = this.table;
+        List<KeyType> keyList = new ArrayList<>(this.size.get());
+        for (int i = 0; i < current.length(); i++) {
+            for (Entry entry = current.get(i); entry != null; entry = entry.next) {
+                keyList.add((KeyType) entry.key);
+            }
+        }
+        return keyList;
+    }
+
+    /**
+     * Returns a cursor that walks the chain at each index of the table in order, without
+     * locking. Unlike the other maps, this map may be changed while the cursor is in use:
+     * pairs that are added or removed meanwhile may or may not be visited, and every pair
+     * that is visited has a key and value that were stored together.
+     *
+     * @return a cursor positioned before the first pair
+     */
+    @Override
+    public Cursor<KeyType, ValueType> cursor() {
+        AtomicReferenceArray<Entry> current = this.table;
+        KeySpliterator<KeyType> entries =
+                new KeySpliterator<>(current, 0, current.length(), this.size.get());
+        return new Cursor<>() {
+            private Entry current = null;
+
+            public boolean advance() {
+                this.current = entries.nextEntry();
+                return this.current != null;
+            }
+
+            @SuppressWarnings("unchecked")
+            public KeyType key() {
+                return (KeyType) this.current.key;
+            }
+
+            @SuppressWarnings("unchecked")
+            public ValueType value() {
+                return (ValueType) this.current.value;
+            }
+        };
+    }
+
+    /**
+     * Returns a Spliterator over the keys in the chains of the table, which splits off the
+     * first half of its remaining indexes at a time. Like cursors, it never locks and may or
+     * may not include keys that are added or removed while it is in use.
+     *
+     * @return a Spliterator over this collection's keys
+     */
+    @Override
+    public Spliterator<KeyType> keySpliterator() {
+        AtomicReferenceArray<Entry> current = this.table;
+        return new KeySpliterator<>(current, 0, current.length(), this.size.get());
+    }
+
+    /**
+     * Walks the entries in the chains at indexes index up to end of a table, of which there
+     * are about estimate. Each chain is read once, when the walk reaches its index.
+     */
+    private static class KeySpliterator<KeyType> implements Spliterator<KeyType> {
+        private final AtomicReferenceArray<Entry> table;
+        private int index;
+        private final int end;
+        private long estimate;
+        // the rest of the chain at index - 1, or null
+        private Entry chain = null;
+
+        KeySpliterator(AtomicReferenceArray<Entry> table, int index, int end, long estimate) {
+            this.table = table;
+            this.index = index;
+            this.end = end;
+            this.estimate = estimate;
+        }
+
+        /**
+         * Returns the next entry, or null once there are no more.
+         */
+        Entry nextEntry() {
+            while (this.chain == null) {
+                if (this.index >= this.end) {
+                    return null;
+                }
+                this.chain = this.table.get(this.index++);
+            }
+            Entry entry = this.chain;
+            this.chain = entry.next;
+            return entry;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super KeyType> action) {
+            Entry entry = this.nextEntry();
+            if (entry == null) {
+                return false;
+            }
+            action.accept((KeyType) entry.key);
+            return true;
+        }
+
+        @Override
+        public Spliterator<KeyType> trySplit() {
+            int middle = (this.index + this.end) >>> 1;
+            if (middle <= this.index) {
+                return null;
+            }
+            // the rest of the current chain, if any, stays with this half
+            Spliterator<KeyType> prefix =
+                    new KeySpliterator<>(this.table, this.index, middle, this.estimate >>>= 1);
+            this.index = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return this.estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.CONCURRENT;
+        }
+    }
+
+    /**
+     * A HashtableMap behind one global lock, which is how it would have to be shared between
+     * threads otherwise.
+     */
+    private static class LockedHashtableMap<KeyType, ValueType> {
+        private final HashtableMap<KeyType, ValueType> map = new HashtableMap<>();
+
+        synchronized void put(KeyType key, ValueType value) {
+            this.map.put(key, value);
+        }
+
+        synchronized boolean containsKey(KeyType key) {
+            return this.map.containsKey(key);
+        }
+
+        synchronized void remove(KeyType key) {
+            this.map.remove(key);
+        }
+    }
+
+    /**
+     * Measures throughput of a workload of 90% reads and 10% writes on this map and on a
+     * HashtableMap behind a global lock, with 1 to 8 threads.
+     *
+     * @param args optionally the number of keys (default 100000)
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int keys = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int operations = 2_000_000;
+        System.out.println(String.format("%d keys, %d operations per thread, 10%% writes", keys,
+                operations));
+        for (int threads = 1; threads <= 8; threads *= 2) {
+            ConcurrentHashtableMap<Integer, Integer> concurrent = new ConcurrentHashtableMap<>();
+            LockedHashtableMap<Integer, Integer> locked = new LockedHashtableMap<>();
+            for (int i = 0; i < keys; i += 2) {
+                concurrent.put(i, i);
+                locked.put(i, i);
+            }
+            double concurrentRate = run(threads, operations, keys, key -> concurrent.containsKey(
+                    key), key -> {
+                if (!concurrent.putIfAbsent(key, key)) {
+                    try {
+                        concurrent.remove(key);
+                    } catch (NoSuchElementException e) {
+                        // another thread removed it first
+                    }
+                }
+            });
+            double lockedRate = run(threads, operations, keys, locked::containsKey, key -> {
+                synchronized (locked) {
+                    if (locked.containsKey(key)) {
+                        locked.remove(key);
+                    } else {
+                        locked.put(key, key);
+                    }
+                }
+            });
+            System.out.println(String.format("%d threads: %.1f M ops/s lock-free reads, %.1f M " +
+                    "ops/s global lock", threads, concurrentRate / 1e6, lockedRate / 1e6));
+        }
+    }
+
+    /**
+     * Runs operations random reads and writes on each of threads threads, and returns the total
+     * number of operations per second.
+     */
+    private static double run(int threads, int operations, int keys,
+                              Function<Integer, Boolean> read,
+                              Consumer<Integer> write)
+            throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            Thread worker = new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                int found = 0;
+                for (int i = 0; i < operations; i++) {
+                    int key = random.nextInt(keys);
+                    if (random.nextInt(10) == 0) {
+                        write.accept(key);
+                    } else if (read.apply(key)) {
+                        found++;
+                    }
+                }
+                if (found == -1) {
+                    System.out.println(); // keeps the reads from being optimized away
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return threads * (double) operations / ((System.nanoTime() - begin) / 1e9);
+    }
+}
@@ -0,0 +1,194 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentHashtableMapTests {
+
+    /**
+     * Runs task on each of threads threads at once, and fails with the first error any of them
+     * threw.
+     */
+    private static void runConcurrently(int threads, IntTask task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    task.run(index);
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (!errors.isEmpty()) {
+            fail(errors.peek());
+        }
+    }
+
+    private interface IntTask {
+        void run(int index) throws Exception;
+    }
+
+    /**
+     * Tests the single-threaded behavior of every operation, including the exceptions for
+     * duplicate, missing and null keys, and that the table grows while keeping every pair.
+     */
+    @Test
+    public void testPutGetRemove() {
+        ConcurrentHashtableMap<Integer, String> map = new ConcurrentHashtableMap<>(4);
+        for (int i = 0; i < 1000; i++) {
+            map.put(i * 64, "value" + i);
+            assertEquals(i + 1, map.getSize(), "Size didn't match");
+        }
+        assertTrue(map.getCapacity() >= 1000 * 4 / 3, "Table didn't grow");
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("value" + i, map.get(i * 64), "Value didn't match");
+            assertFalse(map.containsKey(i * 64 + 1));
+        }
+        assertEquals(1000, new HashSet<>(map.getKeys()).size());
+        assertThrows(IllegalArgumentException.class, () -> map.put(64, "duplicate"));
+        assertThrows(NoSuchElementException.class, () -> map.get(1));
+        assertThrows(NullPointerException.class, () -> map.put(null, "null"));
+        assertFalse(map.putIfAbsent(0, "other"));
+        assertEquals("value0", map.computeIfAbsent(0, key -> "other"));
+        assertEquals("new", map.computeIfAbsent(1, key -> "new"));
+        assertEquals("value1", map.remove(64));
+        assertThrows(NoSuchElementException.class, () -> map.remove(64));
+        assertEquals(1000, map.getSize());
+        map.clear();
+        assertEquals(0, map.getSize());
+        assertFalse(map.containsKey(0));
+    }
+
+    /**
+     * Has several threads insert and remove their own ranges of keys while other threads read
+     * keys that are never removed. Readers must always find those keys, even while the table
+     * grows, and the map must end up holding exactly the keys each writer left behind.
+     */
+    @Test
+    public void testConcurrentWritesAndReads() throws InterruptedException {
+        ConcurrentHashtableMap<Integer, Integer> map = new ConcurrentHashtableMap<>(16);
+        int stable = 1000;
+        for (int i = 0; i < stable; i++) {
+            map.put(-i - 1, i); // negative keys are never touched by writers
+        }
+        int writers = 4;
+        int perWriter = 20000;
+        AtomicInteger writersDone = new AtomicInteger();
+        runConcurrently(writers + 2, index -> {
+            if (index < writers) {
+                // each writer adds its range, and then removes the odd keys of it
+                for (int i = 0; i < perWriter; i++) {
+                    int key = index * perWriter + i;
+                    assertTrue(map.putIfAbsent(key, key));
+                }
+                for (int i = 1; i < perWriter; i += 2) {
+                    int key = index * perWriter + i;
+                    assertEquals(key, map.remove(key));
+                }
+                writersDone.incrementAndGet();
+            } else {
+                Random random = new Random(index);
+                while (writersDone.get() < writers) {
+                    int i = random.nextInt(stable);
+                    assertEquals(i, map.get(-i - 1), "Reader lost a key");
+                }
+            }
+        });
+        assertEquals(stable + writers * perWriter / 2, map.getSize());
+        assertEquals(map.getSize(), map.getKeys().size());
+        for (int key = 0; key < writers * perWriter; key++) {
+            assertEquals(key % 2 == 0, map.containsKey(key), "Key " + key + " didn't match");
+        }
+    }
+
+    /**
+     * Has every thread race to add the same keys: putIfAbsent must succeed for exactly one
+     * thread per key, and computeIfAbsent must call its function once per key and hand every
+     * thread the same value.
+     */
+    @Test
+    public void testConcurrentPutIfAbsent() throws InterruptedException {
+        ConcurrentHashtableMap<Integer, Object> map = new ConcurrentHashtableMap<>();
+        int keys = 5000;
+        AtomicInteger added = new AtomicInteger();
+        AtomicInteger computed = new AtomicInteger();
+        Object[][] seen = new Object[4][keys];
+        runConcurrently(4, index -> {
+            for (int key = 0; key < keys; key++) {
+                if (map.putIfAbsent(key, index)) {
+                    added.incrementAndGet();
+                }
+                seen[index][key] = map.computeIfAbsent(keys + key, k -> {
+                    computed.incrementAndGet();
+                    return new Object();
+                });
+            }
+        });
+        assertEquals(keys, added.get(), "putIfAbsent didn't add each key exactly once");
+        assertEquals(keys, computed.get(), "computeIfAbsent didn't compute each key once");
+        for (int key = 0; key < keys; key++) {
+            for (int t = 1; t < 4; t++) {
+                assertSame(seen[0][key], seen[t][key], "Threads saw different values");
+            }
+        }
+        assertEquals(2 * keys, map.getSize());
+    }
+
+    /**
+     * Streams and walks the keys with a cursor while other threads add and remove keys of
+     * their own, and checks that the keys that stay in the map throughout are always visited
+     * exactly once, with their values.
+     */
+    @Test
+    public void testCursorAndStreamDuringWrites() throws InterruptedException {
+        ConcurrentHashtableMap<Integer, Integer> map = new ConcurrentHashtableMap<>();
+        int stable = 2000;
+        for (int key = 0; key < stable; key++) {
+            map.put(key, -key);
+        }
+        runConcurrently(3, index -> {
+            if (index == 0) {
+                for (int round = 0; round < 20; round++) {
+                    List<Integer> keys = map.keyStream(true).filter(key -> key < stable)
+                            .collect(Collectors.toList());
+                    assertEquals(stable, keys.size(), "A stable key was missed or repeated");
+                    assertEquals(stable, new HashSet<>(keys).size());
+                    int visited = 0;
+                    for (MapADT.Cursor<Integer, Integer> cursor = map.cursor(); cursor.advance(); ) {
+                        if (cursor.key() < stable) {
+                            assertEquals(-cursor.key(), cursor.value());
+                            visited++;
+                        }
+                    }
+                    assertEquals(stable, visited);
+                }
+            } else {
+                for (int key = 20000 * index; key < 20000 * (index + 1); key++) {
+                    map.put(key, key);
+                    if (key % 2 == 0) {
+                        map.remove(key);
+                    }
+                }
+            }
+        });
+        assertEquals(stable + 20000, map.getSize());
+    }
+}
@@ -0,0 +1,415 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class computes the cost of the shortest path from one node to every other node of a
+ * GraphSnapshot with the parallel delta-stepping algorithm (Meyer and Sanders). Instead of
+ * settling one node at a time like Dijkstra's algorithm, nodes are grouped into buckets of width
+ * delta by their tentative cost, and all nodes of the lowest non-empty bucket have their edges
+ * relaxed at the same time by the threads of a ForkJoinPool.
+ * <p>
+ * Edges no heavier than delta are light: relaxing them can put a node back into the bucket that
+ * is being processed, so they are relaxed repeatedly until that bucket stays empty. Heavy edges
+ * always lead to a later bucket, so they are relaxed only once per bucket, after its light edges.
+ * A small delta does little redundant work but has many buckets with little parallelism; a
+ * large delta does the opposite. The average edge weight (see suggestDelta) is a reasonable
+ * start.
+ * <p>
+ * Relaxing an edge of weight w from the current bucket reaches at most w / delta buckets ahead,
+ * so only a window of buckets is ever waiting. Buckets are kept in a cyclic array covering that
+ * window, where bucket b is at index b modulo the array's length, instead of one array entry for
+ * every bucket up to the largest cost. The array only grows when an edge reaches further ahead
+ * than it covers, and empty buckets are skipped without being visited.
+ * <p>
+ * Tentative costs are kept in an AtomicLongArray holding the bits of each double. For
+ * non-negative doubles, the bit patterns compare in the same order as the values, so a
+ * compare-and-set loop on the bits lowers a cost safely when several threads relax edges into
+ * the same node. A DeltaSteppingSearch can be used by several threads at once.
+ */
+public class DeltaSteppingSearch {
+
+    // frontiers smaller than this are relaxed by the calling thread without forking
+    private static final int SEQUENTIAL_THRESHOLD = 256;
+    private static final long INFINITY_BITS = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+
+    private final GraphSnapshot<?> graph;
+    private final double delta;
+    private final ForkJoinPool pool;
+    // the edges leaving node v are reordered so that targets[offsets[v] .. lightEnd[v] - 1] are
+    // light and targets[lightEnd[v] .. offsets[v + 1] - 1] are heavy
+    private final int[] targets;
+    private final double[] weights;
+    private final int[] lightEnd;
+
+    /**
+     * Prepares delta-stepping searches over the provided snapshot.
+     *
+     * @param graph the snapshot to search
+     * @param delta the width of each bucket, a positive number
+     * @param pool  the threads to relax edges with
+     * @throws IllegalArgumentException if delta is not a positive number
+     */
+    public DeltaSteppingSearch(GraphSnapshot<?> graph, double delta, ForkJoinPool pool) {
+        if (!(delta > 0.0) || Double.isInfinite(delta)) {
+            throw new IllegalArgumentException("Delta must be a positive number");
+        }
+        this.graph = graph;
+        this.delta = delta;
+        this.pool = pool;
+        this.targets = new int[graph.edgeCount];
+        this.weights = new double[graph.edgeCount];
+        this.lightEnd = new int[graph.nodeCount];
+        for (int v = 0; v < graph.nodeCount; v++) {
+            int light = graph.forwardOffsets[v];
+            int heavy = graph.forwardOffsets[v + 1];
+            for (int e = graph.forwardOffsets[v]; e < graph.forwardOffsets[v + 1]; e++) {
+                int position = graph.forwardWeights[e] <= delta ? light++ : --heavy;
+                this.targets[position] = graph.forwardTargets[e];
+                this.weights[position] = graph.forwardWeights[e];
+            }
+            this.lightEnd[v] = light;
+        }
+    }
+
+    /**
+     * Returns the average edge weight of a snapshot, as a starting point for delta.
+     *
+     * @param graph the snapshot to search
+     * @return the average edge weight, or 1 when the snapshot has no edges
+     */
+    public static double suggestDelta(GraphSnapshot<?> graph) {
+        if (graph.edgeCount == 0) {
+            return 1.0;
+        }
+        double total = 0.0;
+        for (double weight : graph.forwardWeights) {
+            total += weight;
+        }
+        return total / graph.edgeCount;
+    }
+
+    /**
+     * Returns the snapshot this search runs on.
+     *
+     * @return the snapshot, whose ids are the indices of the arrays returned by run
+     */
+    public GraphSnapshot<?> getSnapshot() {
+        return this.graph;
+    }
+
+    /**
+     * Returns the width of each bucket.
+     *
+     * @return delta
+     */
+    public double getDelta() {
+        return this.delta;
+    }
+
+    /**
+     * Computes the cost of the shortest path from source to every node whose cost is no greater
+     * than budget. Buckets beyond the budget are never processed.
+     *
+     * @param source the id of the node to start from
+     * @param budget the largest cost of interest, or Double.POSITIVE_INFINITY for all nodes
+     * @return the cost of each node by id, or Double.POSITIVE_INFINITY for nodes that cannot be
+     *         reached within budget
+     */
+    public double[] run(int source, double budget) {
+        int nodeCount = this.graph.nodeCount;
+        AtomicLongArray cost = new AtomicLongArray(nodeCount);
+        for (int v = 0; v < nodeCount; v++) {
+            cost.set(v, INFINITY_BITS);
+        }
+        cost.set(source, Double.doubleToRawLongBits(0.0));
+
+        // stamps make sure a node enters each frontier, and each bucket's settled list, once
+        int[] frontierStamp = new int[nodeCount];
+        int[] settledStamp = new int[nodeCount];
+        int round = 0;
+        int pass = 0;
+
+        // bucket b is at buckets[b % buckets.length]; every waiting bucket lies in
+        // [current, current + buckets.length), so no two of them share an index
+        IntList[] buckets = new IntList[16];
+        buckets[0] = new IntList();
+        buckets[0].add(source);
+
+        for (long current = 0; current != -1 && current * this.delta <= budget;
+             current = this.nextBucket(buckets, current)) {
+            pass++;
+            IntList settled = new IntList();
+            int index = (int) (current % buckets.length);
+            while (buckets[index] != null) {
+                // keep only the nodes whose cost still falls into this bucket
+                IntList queued = buckets[index];
+                buckets[index] = null;
+                round++;
+                IntList frontier = new IntList();
+                for (int i = 0; i < queued.size; i++) {
+                    int v = queued.items[i];
+                    if (frontierStamp[v] != round && this.bucketOf(cost.get(v)) == current) {
+                        frontierStamp[v] = round;
+                        frontier.add(v);
+                        if (settledStamp[v] != pass) {
+                            settledStamp[v] = pass;
+                            settled.add(v);
+                        }
+                    }
+                }
+                buckets = this.enqueue(buckets, current, cost,
+                        this.relax(frontier, cost, budget, true));
+                index = (int) (current % buckets.length);
+            }
+            buckets = this.enqueue(buckets, current, cost,
+                    this.relax(settled, cost, budget, false));
+        }
+
+        double[] result = new double[nodeCount];
+        for (int v = 0; v < nodeCount; v++) {
+            double found = Double.longBitsToDouble(cost.get(v));
+            result[v] = found <= budget ? found : Double.POSITIVE_INFINITY;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the bucket that a cost, stored as bits, falls into.
+     */
+    private long bucketOf(long costBits) {
+        double value = Double.longBitsToDouble(costBits);
+        return value == Double.POSITIVE_INFINITY ? Long.MAX_VALUE : (long) (value / this.delta);
+    }
+
+    /**
+     * Returns the lowest bucket from current on that has nodes waiting in it, or -1 when every
+     * bucket is empty. The current bucket is checked again in case rounding put a node reached
+     * by a heavy edge back into it.
+     */
+    private long nextBucket(IntList[] buckets, long current) {
+        for (int ahead = 0; ahead < buckets.length; ahead++) {
+            if (buckets[(int) ((current + ahead) % buckets.length)] != null) {
+                return current + ahead;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Relaxes the light (or heavy) edges of every node in frontier, in parallel when the
+     * frontier is large enough, and returns the nodes whose cost was lowered.
+     */
+    private IntList relax(IntList frontier, AtomicLongArray cost, double budget, boolean light) {
+        RelaxTask task = new RelaxTask(frontier.items, 0, frontier.size, cost, budget, light);
+        return frontier.size <= SEQUENTIAL_THRESHOLD ? task.compute() : this.pool.invoke(task);
+    }
+
+    /**
+     * Adds every improved node to the bucket of its new cost, growing the cyclic bucket array
+     * when a bucket falls beyond the window it covers from current. A node may end up in several
+     * buckets; stale entries are skipped when a bucket is processed.
+     */
+    private IntList[] enqueue(IntList[] buckets, long current, AtomicLongArray cost,
+                              IntList improved) {
+        for (int i = 0; i < improved.size; i++) {
+            int v = improved.items[i];
+            // a lowered cost is never below the cost of the node it was reached from
+            long bucket = Math.max(current, this.bucketOf(cost.get(v)));
+            if (bucket - current >= buckets.length) {
+                buckets = this.grow(buckets, current, bucket - current + 1);
+            }
+            int index = (int) (bucket % buckets.length);
+            if (buckets[index] == null) {
+                buckets[index] = new IntList();
+            }
+            buckets[index].add(v);
+        }
+        return buckets;
+    }
+
+    /**
+     * Returns a larger cyclic bucket array covering at least span buckets from current, with
+     * every waiting bucket moved to its index in the new array.
+     */
+    private IntList[] grow(IntList[] buckets, long current, long span) {
+        long length = Math.max(span, 2L * buckets.length);
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Delta is too small for the edge weights");
+        }
+        IntList[] grown = new IntList[(int) length];
+        for (int ahead = 0; ahead < buckets.length; ahead++) {
+            IntList bucket = buckets[(int) ((current + ahead) % buckets.length)];
+            grown[(int) ((current + ahead) % length)] = bucket;
+        }
+        return grown;
+    }
+
+    /**
+     * Relaxes the edges of frontier[from .. to - 1], splitting the range in half until it is
+     * small enough to handle directly.
+     */
+    private class RelaxTask extends RecursiveTask<IntList> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] frontier;
+        private final int from;
+        private final int to;
+        private final AtomicLongArray cost;
+        private final double budget;
+        private final boolean light;
+
+        RelaxTask(int[] frontier, int from, int to, AtomicLongArray cost, double budget,
+                  boolean light) {
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+            this.cost = cost;
+            this.budget = budget;
+            this.light = light;
+        }
+
+        @Override
+        protected IntList compute() {
+            if (this.to - this.from > SEQUENTIAL_THRESHOLD) {
+                int middle = (this.from + this.to) >>> 1;
+                RelaxTask left = new RelaxTask(this.frontier, this.from, middle, this.cost,
+                        this.budget, this.light);
+                RelaxTask right = new RelaxTask(this.frontier, middle, this.to, this.cost,
+                        this.budget, this.light);
+                left.fork();
+                IntList improved = right.compute();
+                improved.addAll(left.join());
+                return improved;
+            }
+
+            IntList improved = new IntList();
+            for (int i = this.from; i < this.to; i++) {
+                int u = this.frontier[i];
+                double costOfU = Double.longBitsToDouble(this.cost.get(u));
+                int first = this.light ? graph.forwardOffsets[u] : lightEnd[u];
+                int last = this.light ? lightEnd[u] : graph.forwardOffsets[u + 1];
+                for (int e = first; e < last; e++) {
+                    double candidate = costOfU + weights[e];
+                    if (candidate > this.budget) {
+                        continue;
+                    }
+                    // lower the target's cost unless another thread already lowered it further
+                    long candidateBits = Double.doubleToRawLongBits(candidate);
+                    long currentBits = this.cost.get(targets[e]);
+                    while (candidateBits < currentBits) {
+                        if (this.cost.compareAndSet(targets[e], currentBits, candidateBits)) {
+                            improved.add(targets[e]);
+                            break;
+                        }
+                        currentBits = this.cost.get(targets[e]);
+                    }
+                }
+            }
+            return improved;
+        }
+    }
+
+    /**
+     * A growable list of ints, to avoid boxing every node id.
+     */
+    private static class IntList {
+        int[] items = new int[8];
+        int size = 0;
+
+        void add(int value) {
+            if (this.size == this.items.length) {
+                this.items = Arrays.copyOf(this.items, this.size * 2);
+            }
+            this.items[this.size++] = value;
+        }
+
+        void addAll(IntList other) {
+            if (this.size + other.size > this.items.length) {
+                this.items = Arrays.copyOf(this.items, Math.max(this.size + other.size,
+                        this.items.length * 2));
+            }
+            System.arraycopy(other.items, 0, this.items, this.size, other.size);
+            this.size += other.size;
+        }
+    }
+
+    /**
+     * Benchmarks one-to-all searches on a synthetic grid graph with 1 to N threads, where N is
+     * the number of available processors. Every node of a side x side grid has edges to its four
+     * neighbors, with random weights between 1 and 100.
+     *
+     * @param args optionally the side length of the grid (default 1000) and the number of
+     *             searches to time for each thread count (default 5)
+     */
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int searches = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        GraphSnapshot<Integer> grid = randomGrid(side, 42);
+        double delta = suggestDelta(grid);
+        System.out.println("Grid " + side + "x" + side + ": " + grid.nodeCount + " nodes, " +
+                grid.edgeCount + " edges, delta " + String.format("%.1f", delta));
+
+        Random random = new Random(7);
+        int[] sources = new int[searches];
+        for (int i = 0; i < searches; i++) {
+            sources[i] = random.nextInt(grid.nodeCount);
+        }
+        double singleThreadMillis = 0.0;
+        // powers of two up to the number of processors, then the number of processors itself
+        int processors = Runtime.getRuntime().availableProcessors();
+        IntList threadCounts = new IntList();
+        for (int threads = 1; threads < processors; threads *= 2) {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(processors);
+        for (int t = 0; t < threadCounts.size; t++) {
+            int threads = threadCounts.items[t];
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            DeltaSteppingSearch search = new DeltaSteppingSearch(grid, delta, pool);
+            search.run(sources[0], Double.POSITIVE_INFINITY); // warm up
+            long start = System.nanoTime();
+            for (int source : sources) {
+                search.run(source, Double.POSITIVE_INFINITY);
+            }
+            double millis = (System.nanoTime() - start) / 1e6 / searches;
+            if (threads == 1) {
+                singleThreadMillis = millis;
+            }
+            System.out.println(String.format("%2d threads: %8.1f ms per search, speedup %.2f",
+                    threads, millis, singleThreadMillis / millis));
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Returns a side x side grid where every node has edges to its four neighbors, with random
+     * weights between 1 and 100.
+     */
+    static GraphSnapshot<Integer> randomGrid(int side, long seed) {
+        Random random = new Random(seed);
+        int edgeCount = 4 * side * (side - 1);
+        int[] sources = new int[edgeCount];
+        int[] targets = new int[edgeCount];
+        double[] weights = new double[edgeCount];
+        int e = 0;
+        for (int row = 0; row < side; row++) {
+            for (int column = 0; column < side; column++) {
+                int v = row * side + column;
+                int[] neighbors = {column + 1 < side ? v + 1 : -1, column > 0 ? v - 1 : -1,
+                    row + 1 < side ? v + side : -1, row > 0 ? v - side : -1};
+                for (int neighbor : neighbors) {
+                    if (neighbor != -1) {
+                        sources[e] = v;
+                        targets[e] = neighbor;
+                        weights[e] = 1.0 + random.nextInt(100);
+                        e++;
+                    }
+                }
+            }
+        }
+        return GraphSnapshot.fromEdges(side * side, sources, targets, weights);
+    }
+}
@@ -6,15 +6,21 @@
 // Lecturer: <name of your lecturer>
 // Notes to Grader: <optional extra notes>
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
-import java.util.PriorityQueue;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-import java.util.LinkedList;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 /**
  * This class extends the BaseGraph data structure with additional methods for computing the total
@@ -52,19 +58,333 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
         }
     }
 
+    // Strongly connected components of this graph, rebuilt on demand once nodes or edges have
+    // been inserted or removed since componentIndexVersion
+    private volatile ComponentIndex<NodeType, EdgeType> componentIndex = null;
+    private volatile int componentIndexVersion = -1;
+
+    // When deltaSteppingPool is not null, reachableWithin searches without an overlay run on a
+    // DeltaSteppingSearch over a snapshot of this graph, which is taken again once nodes, edges
+    // or weights have changed since deltaSteppingVersion
+    private volatile ForkJoinPool deltaSteppingPool = null;
+    private volatile double deltaSteppingDelta = 0.0;
+    private volatile DeltaSteppingSearch deltaSteppingSearch = null;
+    private volatile long deltaSteppingVersion = -1;
+
+    // Hub labels answer point-to-point queries without an overlay for as long as the graph's
+    // nodes, edges and weights are unchanged since hubLabelsVersion
+    private volatile HubLabelIndex<NodeType> hubLabels = null;
+    private volatile long hubLabelsVersion = -1;
+
+    // The distance oracle answers approximate cost queries for as long as the graph's nodes,
+    // edges and weights are unchanged since distanceOracleVersion
+    private volatile DistanceOracle<NodeType> distanceOracle = null;
+    private volatile long distanceOracleVersion = -1;
+
+    // When multiLevelCellSizes is not null, point-to-point queries without an overlay run on a
+    // MultiLevelOverlay, which is customized again once weights have changed since
+    // multiLevelWeightVersion and partitioned again once nodes or edges have changed since
+    // multiLevelStructureVersion
+    private volatile int[] multiLevelCellSizes = null;
+    private volatile MultiLevelOverlay<NodeType, EdgeType> multiLevelOverlay = null;
+    private volatile int multiLevelStructureVersion = -1;
+    private volatile int multiLevelWeightVersion = -1;
+
+    // When chainContractionEnabled, point-to-point queries without an overlay skip over the
+    // corridors of this graph using a ChainContraction, whose super-edges are recomputed once
+    // weights have changed since chainWeightVersion and whose chains are found again once nodes
+    // or edges have changed since chainStructureVersion
+    private volatile boolean chainContractionEnabled = false;
+    private volatile ChainContraction<NodeType, EdgeType> chainContraction = null;
+    private volatile int chainStructureVersion = -1;
+    private volatile int chainWeightVersion = -1;
+
+    // Alternative routes with the default limits on stretch, overlap and plateau length
+    private final AlternativeRoutes<NodeType, EdgeType> alternativeRoutes =
+            new AlternativeRoutes<>(this);
+
+    // Each thread reuses its own workspace for point-to-point searches on this graph
+    private final ThreadLocal<SearchWorkspace<NodeType, EdgeType>> searchWorkspaces =
+            ThreadLocal.withInitial(SearchWorkspace::new);
+
     /**
      * Constructor that sets the map that the graph uses.
      */
     public DijkstraGraph() {
-        super(new HashtableMap<>());
+        super(new OpenAddressingMap<>());
+    }
+
+    /**
+     * Returns the component index of this graph, rebuilding it first when nodes or edges have
+     * been inserted or removed since it was last built.
+     */
+    protected ComponentIndex<NodeType, EdgeType> getComponentIndex() {
+        if (this.componentIndexVersion != this.structuralChanges) {
+            synchronized (this) {
+                if (this.componentIndexVersion != this.structuralChanges) {
+                    int version = this.structuralChanges;
+                    this.componentIndex = new ComponentIndex<>(this);
+                    this.componentIndexVersion = version;
+                }
+            }
+        }
+        return this.componentIndex;
+    }
+
+    /**
+     * Makes reachableWithin use the parallel delta-stepping algorithm (see DeltaSteppingSearch)
+     * instead of Dijkstra's algorithm for searches without an overlay. This pays off on large
+     * graphs searched with a large budget, where one search settles many nodes; small graphs are
+     * usually searched faster by a single thread.
+     *
+     * @param delta       the bucket width, or 0 to use the average edge weight
+     * @param parallelism the number of threads to relax edges with
+     * @throws IllegalArgumentException if delta is negative, NaN or infinite, or parallelism is
+     *                                  not positive
+     */
+    public synchronized void enableDeltaStepping(double delta, int parallelism) {
+        if (!(delta >= 0.0) || Double.isInfinite(delta)) {
+            throw new IllegalArgumentException("Delta must be a non-negative number");
+        }
+        this.disableDeltaStepping();
+        this.deltaSteppingDelta = delta;
+        this.deltaSteppingPool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Makes reachableWithin use Dijkstra's algorithm again, and releases the threads and
+     * snapshot used for delta-stepping.
+     */
+    public synchronized void disableDeltaStepping() {
+        if (this.deltaSteppingPool != null) {
+            this.deltaSteppingPool.shutdown();
+        }
+        this.deltaSteppingPool = null;
+        this.deltaSteppingSearch = null;
+        this.deltaSteppingVersion = -1;
+    }
+
+    /**
+     * Builds a hub label index of this graph (see HubLabelIndex), which then answers
+     * shortestPathData and shortestPathCost queries without an overlay by merging two labels
+     * instead of searching. Any change to the graph's nodes, edges or weights makes the index
+     * stale; queries then fall back to searching until this method is called again.
+     *
+     * @return the index, to report its build time and size
+     */
+    public synchronized HubLabelIndex<NodeType> buildHubLabels() {
+        long version = this.graphVersion();
+        this.hubLabels = new HubLabelIndex<>(this);
+        this.hubLabelsVersion = version;
+        return this.hubLabels;
+    }
+
+    /**
+     * Builds an approximate distance oracle of this graph (see DistanceOracle), which then
+     * answers shortestPathCost queries that ask for an approximate cost. Any change to the
+     * graph's nodes, edges or weights makes the oracle stale; approximate queries then get exact
+     * costs until this method is called again.
+     *
+     * @param k the number of levels of the oracle; its estimates are at most 2k - 1 times the
+     *          real cost when edges weigh the same both ways, and it takes about k * n^(1+1/k)
+     *          space
+     * @return the oracle, to report its build time and size
+     * @throws IllegalArgumentException when k is less than 1
+     */
+    public synchronized DistanceOracle<NodeType> buildDistanceOracle(int k) {
+        long version = this.graphVersion();
+        this.distanceOracle = new DistanceOracle<>(this, k);
+        this.distanceOracleVersion = version;
+        return this.distanceOracle;
+    }
+
+    /**
+     * Returns the hub label index when it was built from the graph as it is now, or null.
+     */
+    private HubLabelIndex<NodeType> currentHubLabels() {
+        HubLabelIndex<NodeType> index = this.hubLabels;
+        return index != null && this.hubLabelsVersion == this.graphVersion() ? index : null;
+    }
+
+    /**
+     * Makes shortestPathData and shortestPathCost queries without an overlay run on a
+     * MultiLevelOverlay of this graph. The graph is partitioned into cells of the provided sizes
+     * right away; after that, updating edge weights only makes the next query customize the
+     * overlay again (which is much faster than building an index from scratch), while inserting
+     * or removing nodes or edges makes it partition the graph again.
+     *
+     * @param cellSizes the largest number of nodes in a cell of each level, starting at level 1
+     * @return the overlay, to report its cells and customization time
+     * @throws IllegalArgumentException when cellSizes is empty or not increasing
+     */
+    public synchronized MultiLevelOverlay<NodeType, EdgeType> enableMultiLevelOverlay(
+            int... cellSizes) {
+        this.multiLevelOverlay = new MultiLevelOverlay<>(this, cellSizes);
+        this.multiLevelCellSizes = cellSizes.clone();
+        this.multiLevelStructureVersion = this.structuralChanges;
+        this.multiLevelWeightVersion = this.weightChanges;
+        return this.multiLevelOverlay;
+    }
+
+    /**
+     * Makes point-to-point queries without an overlay run over a ChainContraction of this
+     * graph, which replaces every corridor of nodes with exactly two neighbors by a single
+     * super-edge. Hub labels and the multi-level overlay are used instead when enabled. The
+     * chains are found again automatically once nodes or edges are inserted or removed.
+     *
+     * @return the contraction of the graph as it is now
+     */
+    public synchronized ChainContraction<NodeType, EdgeType> enableChainContraction() {
+        int weightVersion = this.weightChanges;
+        this.chainContraction = new ChainContraction<>(this);
+        this.chainStructureVersion = this.structuralChanges;
+        this.chainWeightVersion = weightVersion;
+        this.chainContractionEnabled = true;
+        return this.chainContraction;
+    }
+
+    /**
+     * Makes point-to-point queries search the whole graph again.
+     */
+    public synchronized void disableChainContraction() {
+        this.chainContractionEnabled = false;
+        this.chainContraction = null;
+    }
+
+    /**
+     * Returns the chain contraction, with chains and super-edge weights matching the graph as it
+     * is now, or null when it is disabled.
+     */
+    private ChainContraction<NodeType, EdgeType> currentChainContraction() {
+        if (!this.chainContractionEnabled) {
+            return null;
+        }
+        if (this.chainStructureVersion != this.structuralChanges ||
+                this.chainWeightVersion != this.weightChanges) {
+            synchronized (this) {
+                if (!this.chainContractionEnabled) {
+                    return null;
+                }
+                int weightVersion = this.weightChanges;
+                if (this.chainStructureVersion != this.structuralChanges) {
+                    this.enableChainContraction();
+                } else if (this.chainWeightVersion != weightVersion) {
+                    this.chainContraction.refreshWeights();
+                    this.chainWeightVersion = weightVersion;
+                }
+            }
+        }
+        return this.chainContraction;
+    }
+
+    /**
+     * Makes point-to-point queries search the graph directly again.
+     */
+    public synchronized void disableMultiLevelOverlay() {
+        this.multiLevelCellSizes = null;
+        this.multiLevelOverlay = null;
+    }
+
+    /**
+     * Returns the multi-level overlay, partitioned and customized for the graph as it is now,
+     * or null when it is disabled.
+     */
+    private MultiLevelOverlay<NodeType, EdgeType> currentMultiLevelOverlay() {
+        if (this.multiLevelCellSizes == null) {
+            return null;
+        }
+        if (this.multiLevelStructureVersion != this.structuralChanges ||
+                this.multiLevelWeightVersion != this.weightChanges) {
+            synchronized (this) {
+                if (this.multiLevelCellSizes == null) {
+                    return null;
+                }
+                int weightVersion = this.weightChanges;
+                if (this.multiLevelStructureVersion != this.structuralChanges) {
+                    this.enableMultiLevelOverlay(this.multiLevelCellSizes);
+                } else if (this.multiLevelWeightVersion != weightVersion) {
+                    this.multiLevelOverlay.customize();
+                    this.multiLevelWeightVersion = weightVersion;
+                }
+            }
+        }
+        return this.multiLevelOverlay;
+    }
+
+    /**
+     * Returns a number that changes whenever nodes, edges or weights of this graph change.
+     */
+    private long graphVersion() {
+        return ((long) this.structuralChanges << 32) | (this.weightChanges & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the delta-stepping search over a current snapshot of this graph, taking a new
+     * snapshot first when nodes, edges or weights have changed since the last one, or null when
+     * delta-stepping is disabled. Only taking a new snapshot locks the graph, so queries don't
+     * wait for the builds of the other accelerators.
+     */
+    private DeltaSteppingSearch getDeltaSteppingSearch() {
+        if (this.deltaSteppingPool == null) {
+            return null;
+        }
+        if (this.deltaSteppingVersion == this.graphVersion()) {
+            // the search is written before its version, so this is the current one, or null
+            // when delta-stepping was disabled in the meantime
+            return this.deltaSteppingSearch;
+        }
+        synchronized (this) {
+            long version = this.graphVersion();
+            if (this.deltaSteppingPool != null && this.deltaSteppingVersion != version) {
+                GraphSnapshot<NodeType> snapshot = GraphSnapshot.of(this);
+                double delta = this.deltaSteppingDelta > 0.0 ? this.deltaSteppingDelta :
+                        DeltaSteppingSearch.suggestDelta(snapshot);
+                this.deltaSteppingSearch = new DeltaSteppingSearch(snapshot, delta,
+                        this.deltaSteppingPool);
+                this.deltaSteppingVersion = version;
+            }
+            return this.deltaSteppingSearch;
+        }
+    }
+
+    /**
+     * Checks whether there is a directed path from the node with the provided start value to the
+     * node with the provided end value, without searching for that path. Once the component
+     * index is built this takes constant time.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return true if a path from start to end exists, false otherwise
+     * @throws NoSuchElementException when either start or end do not correspond to a graph node
+     */
+    public boolean pathExists(NodeType start, NodeType end) {
+        if (start == null || !this.containsNode(start)) {
+            throw new NoSuchElementException("Start node is not present in the base graph");
+        }
+        if (end == null || !this.containsNode(end)) {
+            throw new NoSuchElementException("End node is not present in the base graph");
+        }
+        ComponentIndex<NodeType, EdgeType> index = this.getComponentIndex();
+        if (index.getComponentCount() <= ComponentIndex.CLOSURE_LIMIT) {
+            return index.mayReach(this.nodes.get(start), this.nodes.get(end));
+        }
+        // too many components for exact answers from the index, fall back to searching
+        try {
+            this.searchShortestPath(start, end, null);
+            return true;
+        } catch (NoSuchElementException e) {
+            return false;
+        }
     }
 
     /**
-     * This helper method creates a network of SearchNodes while computing the shortest path between
-     * the provided start and end locations. The SearchNode that is returned by this method is
-     * represents the end of the shortest path that is found: it's cost is the cost of that shortest
-     * path, and the nodes linked together through predecessor references represent all of the nodes
-     * along that shortest path (ordered from end to start).
+     * Returns the shortest path between the provided start and end locations as a chain of
+     * SearchNodes. The SearchNode that is returned represents the end of the shortest path: its
+     * cost is the cost of that path, and the nodes linked together through predecessor references
+     * represent all of the nodes along it (ordered from end to start). The queries of this class
+     * no longer call this method, since they read the path straight out of the search workspace
+     * (see searchShortestPath); it is kept for subclasses, and builds the SearchNodes from the
+     * workspace once the search is done.
      *
      * @param start the data item in the starting node for the path
      * @param end   the data item in the destination node for the path
@@ -73,6 +393,60 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
      *                                or end data do not correspond to a graph node
      */
     protected SearchNode computeShortestPath(NodeType start, NodeType end) {
+        return this.computeShortestPath(start, end, null);
+    }
+
+    /**
+     * Same as computeShortestPath(start, end), except that the search sees the graph through the
+     * provided overlay: blocked nodes and edges are never used, and edge weights are scaled by
+     * the overlay's multipliers.
+     *
+     * @param start   the data item in the starting node for the path
+     * @param end     the data item in the destination node for the path
+     * @param overlay the changes to apply to this graph for this search, or null for none
+     * @return SearchNode for the final end node within the shortest path
+     * @throws NoSuchElementException when no path from start to end is found or when either start
+     *                                or end data do not correspond to a graph node
+     */
+    protected SearchNode computeShortestPath(NodeType start, NodeType end,
+                                             GraphOverlay<NodeType, EdgeType> overlay) {
+        SearchWorkspace<NodeType, EdgeType> workspace = this.searchShortestPath(start, end,
+                overlay);
+
+        // Rebuild the chain of SearchNodes from the workspace's predecessor ids, starting from
+        // the start node so that each SearchNode's predecessor already exists
+        int endId = workspace.lastSettled();
+        int length = 0;
+        for (int id = endId; id != -1; id = workspace.predecessorOf(id)) {
+            length++;
+        }
+        int[] pathIds = new int[length];
+        for (int id = endId, position = length - 1; id != -1; id = workspace.predecessorOf(id)) {
+            pathIds[position--] = id;
+        }
+        SearchNode searchNode = null;
+        for (int id : pathIds) {
+            searchNode = new SearchNode(workspace.nodeOf(id), workspace.costOf(id), searchNode);
+        }
+        return searchNode;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from start until end is settled, using this thread's search
+     * workspace instead of allocating a priority queue of SearchNodes and a map of visited
+     * nodes. Once this returns, end is the workspace's last settled node, and the workspace holds
+     * its cost and the predecessor of every node along its shortest path, until the same thread
+     * starts another search on this graph.
+     *
+     * @param start   the data item in the starting node for the path
+     * @param end     the data item in the destination node for the path
+     * @param overlay the changes to apply to this graph for this search, or null for none
+     * @return this thread's workspace, where end is settled
+     * @throws NoSuchElementException when no path from start to end is found or when either start
+     *                                or end data do not correspond to a graph node
+     */
+    private SearchWorkspace<NodeType, EdgeType> searchShortestPath(NodeType start, NodeType end,
+            GraphOverlay<NodeType, EdgeType> overlay) {
 
         // DijkstraGraph is a derived class of BaseGraph. The constructor of the BaseGraph is
         // inherited in the DijkstraGraph graph and is initialized with PlaceholderMap.
@@ -90,108 +464,72 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
         if (end == null || !this.containsNode(end)) {
             throw new NoSuchElementException("End node is not present in the base graph");
         }
+        return this.searchShortestPath(this.nodes.get(start), this.nodes.get(end), overlay);
+    }
 
-        // SearchNode contains cost field and has predecessor pointing to the previous SearchNode
-        // These features are why we are not directly using the Node class. When looking for
-        // different possibilities, the same node can have different paths since they have
-        // different edgesLeaving and SearchNode will help represent these possibilities.
-
-        // Priority queue can use the cost field in the SearchNode to process cheapest path first.
-        // Helps to keep track of unvisited nodes. Since SearchNode implements comparable
-        // interface, the Priority Queue uses the overridden compareTo() method in the
-        // SearchNode class when deciding priority of SearchNodes inserted into it
-        PriorityQueue<SearchNode> unvisitedQueue = new PriorityQueue<>();
-
-        // MapADT helps to keep track of visited nodes. Treats the map as a visited set by
-        // inserting nodes as both keys and values. The containsKey() method from this data
-        // structure can later be used to check if the node is already visited. If the node is
-        // already visited then it is not added into the visitedNodeList and the edge nodes from
-        // that node are not explored. That also means that this list will never have duplicates.
-        // However, there will be cases when the priority queue above will have some shared
-        // predecessor or successor node. Then again the edge weights will be different which is
-        // we run in the debug mode is one of the way to identify the predecessor-successor pair
-        HashtableMap<Node, Node> visitedNodesList = new HashtableMap<>();
-
-        // Step 1: Add the starting node into the priority queue. Since it is the starting node,
-        // its cost is zero and has no predecessor. Since we need to use SearchNode to keep track
-        // of path, we need to get the node from the graph with this starting value and turn it
-        // into a SearchNode.
-        // nodes here is a MapADT with KeyType as NodeType and ValueType as Node, so the .get()
-        // returns the node containing this starting value in the graph
-        SearchNode startingNode = new SearchNode(this.nodes.get(start), 0.0, null);
-        unvisitedQueue.add(startingNode);
-
-        // Step 2: First add the starting node into the visited list and then remove from the
-        // priority queue. Then, all the nodes from the list of edgeLeaving field of the starting
-        // node are added into the priority queue. The priority queue should sequence these
-        // adjacent nodes in the expected priority order. So, when the poll() is invoked, the
-        // head removed from the queue represents the node with the cheapest cost.
-        while (!unvisitedQueue.isEmpty()) {
-
-            // retrieves the node with the minimum cost from the current priority queue
-            SearchNode currentVertex = unvisitedQueue.poll();
-
-            // Step 3: It is necessary to check the visited list of nodes here because multiple
-            // predecessors can share the same node and if that node was already previously added
-            // into the visited list then that means that the new node + predecessor pair cost
-            // more. So this SearchNode needs to be skipped
-            if (!visitedNodesList.containsKey(currentVertex.node)) {
-
-                // Step 4: Need to keep track of this node if the node doesn't already exist
-                // in the visited list of nodes
-                visitedNodesList.put(currentVertex.node, currentVertex.node);
-
-                // Step 5: Now before we further explore the edges of this current node, we should
-                // confirm if we already reached the end. If we reached the end, we should terminate
-                // the loop and stop exploring other edges.
-                if (currentVertex.node.data.equals(end)) {
-                    // this is the final end point and so to traverse the path we need to
-                    // traverse through the predecessors that led to the ending node
-                    // this also means that not all the visited nodes will fall in this path
-                    return currentVertex;
-                }
+    /**
+     * Same as searchShortestPath(start, end, overlay), for nodes that were already looked up.
+     */
+    private SearchWorkspace<NodeType, EdgeType> searchShortestPath(Node startNode, Node endNode,
+            GraphOverlay<NodeType, EdgeType> overlay) {
+        // The component index rejects pairs without any path before the search begins, instead of
+        // exploring everything reachable from start first. During the search it also skips
+        // successors in components that have no path to the end node.
+        ComponentIndex<NodeType, EdgeType> componentIndex = this.getComponentIndex();
+        int endComponent = componentIndex.componentOf(endNode);
+        if (!componentIndex.mayReach(startNode, endNode)) {
+            throw new NoSuchElementException("Path doesn't exist between the given points");
+        }
+        // Blocking only ever removes paths, so the component index still applies with an
+        // overlay, but a blocked start or end cannot be part of any path
+        if (overlay != null && (overlay.isBlocked(startNode) || overlay.isBlocked(endNode))) {
+            throw new NoSuchElementException("Path doesn't exist between the given points");
+        }
 
-                // Step 6: Since we have not yet reached the end, what we need to do is now from
-                // this current vertex, we need to explore outgoing edges and their edge weight.
-                // We then need to calculate the cost of taking each path. We then add each of
-                // the adjacent nodes into the priority queue for the priority queue to continue
-                // doing its job of selecting the less costly SearchNode.
-                for (Edge eachEdgeAdjacentToCurrentVertex : currentVertex.node.edgesLeaving) {
-
-                    // Step 7: We explicitly converted the data field of the Edge class here because
-                    // it is a generic data type but if we look at the cost field in the SearchNode
-                    // class, its data type is double.When I usually work on paper, I tend to forget 
-		    // adding the edge weight with the predecessor's weight, which may
-                    // lead to an unexpected path.
-                    double costForTakingCurrentEdge =
-                            currentVertex.cost + Double.parseDouble(eachEdgeAdjacentToCurrentVertex.data.toString());
-
-                    // Step 8: Here, the SearchNode is being added to the priority queue. The
-                    // advantage of using SearchNode here is that we are able to track the path we
-                    // are taking from each vertex thanks to the fact that we are storing the
-                    // predecessor information into each SearchNode. Since the priority queue will
-                    // end up popping only the SearchNodes that are less costly to their
-                    // counterparts, when the end node is finally reached, the SearchNode will
-                    // have access to all the previous predecessors that were selected. In the
-                    // lecture, it is similar to writing the predecessor-successor node pair.
-                    // Something that can be noticed when running in debug mode is that, we can
-                    // see who the predecessor is and so in cases when the same successors are there
-                    // in the queue, we can tell which predecessor-successor pair it is.
-                    SearchNode currentAdjacentNode =
-                            new SearchNode(eachEdgeAdjacentToCurrentVertex.successor,
-                                    costForTakingCurrentEdge, currentVertex);
-
-                    unvisitedQueue.add(currentAdjacentNode);
+        // Step 1: The workspace replaces the priority queue of SearchNodes and the visited map.
+        // Its arrays are indexed by node id and stamped with a generation number, so resetting
+        // them for this search takes constant time. The starting node costs zero and has no
+        // predecessor (-1).
+        SearchWorkspace<NodeType, EdgeType> workspace = this.searchWorkspaces.get();
+        workspace.reset(this.getNodeIdBound());
+        workspace.offer(startNode, 0.0, -1);
+        int endId = endNode.id;
+
+        // Step 2: Repeatedly settle the cheapest node that is waiting in the workspace's heap.
+        // Unlike the priority queue of SearchNodes, the heap holds each node at most once: a
+        // cheaper path to a waiting node lowers its cost in place instead of adding an entry.
+        while (!workspace.isEmpty()) {
+            int currentId = workspace.settleNext();
+
+            // Step 3: Once the end node is settled its cost is final, so stop exploring
+            if (currentId == endId) {
+                return workspace;
+            }
+
+            // Step 4: Offer every successor the cost of reaching it through the current node,
+            // which the workspace keeps only when it is cheaper than what it already has
+            Node currentNode = workspace.nodeOf(currentId);
+            double currentCost = workspace.costOf(currentId);
+            List<Edge> edgesLeaving = currentNode.edgesLeaving;
+            for (int i = 0; i < edgesLeaving.size(); i++) {
+                Edge edge = edgesLeaving.get(i);
+                // no path to the end node continues through a settled successor, or through one
+                // whose component has no path to the end node
+                if (workspace.isSettled(edge.successor.id) || !componentIndex.mayReachComponent(
+                        componentIndex.componentOf(edge.successor), endComponent)) {
+                    continue;
                 }
+                // edges blocked by the overlay weigh infinity
+                double weight = this.edgeWeight(edge, overlay);
+                if (weight == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                workspace.offer(edge.successor, currentCost + weight, currentId);
             }
         }
 
-        // Step 9: If no path was found, then that means no path exist to reach the end from the
-        // start. This means when we were adding SearchNodes for each vertex starting from our
-        // starting node, we never encountered an edge that linked with the end node. Hence, the
-        // while loop above never returned a vertex.
+        // Step 5: If the heap runs out before the end node is settled, then no path exists
         throw new NoSuchElementException("Path doesn't exist between the given points");
-
     }
 
     /**
@@ -206,26 +544,55 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
      * @return list of data item from node along this shortest path
      */
     public List<NodeType> shortestPathData(NodeType start, NodeType end) {
+        HubLabelIndex<NodeType> index = this.currentHubLabels();
+        if (index != null) {
+            return index.shortestPathData(start, end);
+        }
+        MultiLevelOverlay<NodeType, EdgeType> multiLevel = this.currentMultiLevelOverlay();
+        if (multiLevel != null) {
+            return multiLevel.shortestPathData(this.nodeIdOf(start), this.nodeIdOf(end));
+        }
+        ChainContraction<NodeType, EdgeType> chains = this.currentChainContraction();
+        if (chains != null) {
+            return chains.shortestPathData(start, end);
+        }
+        return this.shortestPathData(start, end, null);
+    }
+
+    /**
+     * Returns the list of data values from nodes along the shortest path from start to end, as
+     * seen through the provided overlay: the path avoids every blocked node and edge, and edge
+     * weights are scaled by the overlay's multipliers. The graph itself is not modified.
+     *
+     * @param start   the data item in the starting node for the path
+     * @param end     the data item in the destination node for the path
+     * @param overlay the changes to apply to this graph for this search, or null for none
+     * @return list of data item from node along this shortest path
+     * @throws NoSuchElementException if either the start or end node cannot be found in the
+     *                                graph, or if there is no directed path from start to end
+     *                                that the overlay allows
+     */
+    public List<NodeType> shortestPathData(NodeType start, NodeType end,
+                                           GraphOverlay<NodeType, EdgeType> overlay) {
 
-        // SearchNode for the end node. Traversing back all the predecessors linked to this
-        // end node gives the shortest path.
-        SearchNode endNode = this.computeShortestPath(start, end);
-        LinkedList<NodeType> shortestPathTaken = new LinkedList<>();
-
-        // Adds the end search node as the head of the linked list initially and then traverses
-        // through the predecessors until the start node is reached.
-        // updates the head of the linked list with new predecessor each time. If the hint was
-        // not provided in the import section, I almost ended up using stacks. That way the start
-        // node would get added in the top, and it would also maintain O(1) time complexity. Here
-        // the head pointer gets updated in constant time and only one link should be updated
-        // when a new predecessor is added which also happens in constant time.
-        while (endNode != null) {
-            shortestPathTaken.addFirst(endNode.node.data);
-            // Since the start node has null as its predecessor the traversal gets terminated
-            // once the start node is added to the list
-            endNode = endNode.predecessor;
+        // The workspace holds the predecessor of every node along the shortest path, so
+        // traversing back from the end node gives the path without any SearchNodes.
+        SearchWorkspace<NodeType, EdgeType> workspace = this.searchShortestPath(start, end,
+                overlay);
+        int endId = workspace.lastSettled();
+        int length = 0;
+        for (int id = endId; id != -1; id = workspace.predecessorOf(id)) {
+            length++;
         }
 
+        // The list is sized exactly and filled from the end back to the start, then reversed in
+        // place, so the list itself is the only thing this method allocates. Since the start
+        // node has -1 as its predecessor the traversal gets terminated once it is added.
+        ArrayList<NodeType> shortestPathTaken = new ArrayList<>(length);
+        for (int id = endId; id != -1; id = workspace.predecessorOf(id)) {
+            shortestPathTaken.add(workspace.nodeOf(id).data);
+        }
+        Collections.reverse(shortestPathTaken);
         return shortestPathTaken;
     }
 
@@ -239,93 +606,522 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
      * @return the cost of the shortest path between these nodes
      */
     public double shortestPathCost(NodeType start, NodeType end) {
-        // The cost field of the end SearchNode is cumulative of all the edge weights from start
-        // node to all the adjacent nodes that fall in the shortest path
-        return computeShortestPath(start, end).cost;
+        HubLabelIndex<NodeType> index = this.currentHubLabels();
+        if (index != null) {
+            double cost = index.shortestPathCost(start, end);
+            if (cost == Double.POSITIVE_INFINITY) {
+                throw new NoSuchElementException("Path doesn't exist between the given points");
+            }
+            return cost;
+        }
+        MultiLevelOverlay<NodeType, EdgeType> multiLevel = this.currentMultiLevelOverlay();
+        if (multiLevel != null) {
+            double cost = multiLevel.shortestPathCost(this.nodeIdOf(start), this.nodeIdOf(end));
+            if (cost == Double.POSITIVE_INFINITY) {
+                throw new NoSuchElementException("Path doesn't exist between the given points");
+            }
+            return cost;
+        }
+        ChainContraction<NodeType, EdgeType> chains = this.currentChainContraction();
+        if (chains != null) {
+            return chains.shortestPathCost(start, end);
+        }
+        return this.shortestPathCost(start, end, null);
     }
 
+    /**
+     * Returns up to maxRoutes routes from start to end: the shortest path first, followed by
+     * alternatives that cost at most 25% more, take a meaningfully different way and are
+     * sensible all along (see AlternativeRoutes). Finding them costs about as much as two
+     * searches.
+     *
+     * @param start     the data item in the starting node of the routes
+     * @param end       the data item in the destination node of the routes
+     * @param maxRoutes the largest number of routes to return, at least 1
+     * @return list of the data items from the nodes along each route
+     * @throws IllegalArgumentException when maxRoutes is less than 1
+     * @throws NoSuchElementException   if either the start or end node cannot be found in the
+     *                                  graph, or if there is no directed path from start to end
+     */
+    public List<List<NodeType>> alternativeRoutes(NodeType start, NodeType end, int maxRoutes) {
+        return this.alternativeRoutes.find(start, end, maxRoutes);
+    }
 
     /**
-     * Tests the lecture example to verify if the graph implementation returns the correct shortest
-     * path and cost. The start node is D and the end node is I. The expected shortest path is
-     * D->G->H->I with the cost of 13.
+     * Returns the cost of the shortest path from start to end, or when approximate is true and
+     * a distance oracle was built from the graph as it is now, the oracle's estimate of it. An
+     * estimate is the cost of some path from start to end, and looking it up takes a few array
+     * lookups instead of a search.
+     *
+     * @param start       the data item in the starting node for the path
+     * @param end         the data item in the destination node for the path
+     * @param approximate whether an estimate from the distance oracle is good enough
+     * @return the cost of the shortest path between these nodes, or an estimate of it
+     * @throws NoSuchElementException if either the start or end node cannot be found in the
+     *                                graph, or if there is no directed path from start to end
      */
-    @Test
-    public void testLectureDemo() {
-        DijkstraGraph<String, Double> testGraph = new DijkstraGraph<>();
-        testGraph.insertNode("A");
-        testGraph.insertNode("B");
-        testGraph.insertNode("D");
-        testGraph.insertNode("E");
-        testGraph.insertNode("F");
-        testGraph.insertNode("G");
-        testGraph.insertNode("H");
-        testGraph.insertNode("I");
-        testGraph.insertNode("L");
-        testGraph.insertNode("M");
+    public double shortestPathCost(NodeType start, NodeType end, boolean approximate) {
+        DistanceOracle<NodeType> oracle = this.distanceOracle;
+        if (!approximate || oracle == null || this.distanceOracleVersion != this.graphVersion()) {
+            return this.shortestPathCost(start, end);
+        }
+        double cost = oracle.shortestPathCost(start, end);
+        if (cost == Double.POSITIVE_INFINITY) {
+            throw new NoSuchElementException("Path doesn't exist between the given points");
+        }
+        return cost;
+    }
 
-        testGraph.insertEdge("G", "A", 4.0);
-        testGraph.insertEdge("D", "A", 7.0);
-        testGraph.insertEdge("A", "B", 1.0);
-        testGraph.insertEdge("H", "B", 6.0);
-        testGraph.insertEdge("I", "D", 1.0);
-        testGraph.insertEdge("M", "E", 3.0);
-        testGraph.insertEdge("D", "F", 4.0);
-        testGraph.insertEdge("M", "F", 4.0);
-        testGraph.insertEdge("D", "G", 2.0);
-        testGraph.insertEdge("F", "G", 9.0);
-        testGraph.insertEdge("A", "H", 7.0);
-        testGraph.insertEdge("G", "H", 9.0);
-        testGraph.insertEdge("I", "H", 2.0);
-        testGraph.insertEdge("M", "I", 4.0);
-        testGraph.insertEdge("H", "I", 2.0);
-        testGraph.insertEdge("G", "L", 7.0);
-        testGraph.insertEdge("H", "L", 2.0);
-        testGraph.insertEdge("A", "M", 5.0);
-        testGraph.insertEdge("B", "M", 3.0);
+    /**
+     * Returns the cost of the shortest path from start to end as seen through the provided
+     * overlay, where edge weights are scaled by the overlay's multipliers and blocked nodes and
+     * edges are avoided. The graph itself is not modified.
+     *
+     * @param start   the data item in the starting node for the path
+     * @param end     the data item in the destination node for the path
+     * @param overlay the changes to apply to this graph for this search, or null for none
+     * @return the cost of the shortest path between these nodes
+     * @throws NoSuchElementException if either the start or end node cannot be found in the
+     *                                graph, or if there is no directed path from start to end
+     *                                that the overlay allows
+     */
+    public double shortestPathCost(NodeType start, NodeType end,
+                                   GraphOverlay<NodeType, EdgeType> overlay) {
+        // The cost of the end node in the workspace is cumulative of all the edge weights from
+        // start node to all the adjacent nodes that fall in the shortest path
+        SearchWorkspace<NodeType, EdgeType> workspace = this.searchShortestPath(start, end,
+                overlay);
+        return workspace.costOf(workspace.lastSettled());
+    }
 
-        List<String> shortestPathBetweenDtoI = testGraph.shortestPathData("D", "I");
-        Double shortestPathCostBetweenDtoI = testGraph.shortestPathCost("D", "I");
+    /**
+     * Returns the ids of the nodes along the shortest path from the node with id startId to the
+     * node with id endId. This is shortestPathData for callers that interned their data with
+     * nodeIdOf once: the search works with ids throughout, so no data item is hashed, and the
+     * data only needs to be looked up (with nodeDataOf) when the path is shown.
+     *
+     * @param startId the id of the starting node for the path
+     * @param endId   the id of the destination node for the path
+     * @return the ids of the nodes along the shortest path, from startId to endId
+     * @throws NoSuchElementException if no node has either id, or if there is no directed path
+     *                                from start to end
+     */
+    public int[] shortestPathIds(int startId, int endId) {
+        Node startNode = this.nodeWithId(startId);
+        Node endNode = this.nodeWithId(endId);
+        if (this.currentHubLabels() != null || this.currentMultiLevelOverlay() != null ||
+                this.currentChainContraction() != null) {
+            // the speed-up structures rebuild paths as data, which is mapped back to ids here
+            List<NodeType> path = this.shortestPathData(startNode.data, endNode.data);
+            int[] pathIds = new int[path.size()];
+            for (int i = 0; i < pathIds.length; i++) {
+                pathIds[i] = this.nodes.get(path.get(i)).id;
+            }
+            return pathIds;
+        }
+        SearchWorkspace<NodeType, EdgeType> workspace = this.searchShortestPath(startNode, endNode,
+                null);
+        int length = 0;
+        for (int id = endId; id != -1; id = workspace.predecessorOf(id)) {
+            length++;
+        }
+        int[] pathIds = new int[length];
+        for (int id = endId; id != -1; id = workspace.predecessorOf(id)) {
+            pathIds[--length] = id;
+        }
+        return pathIds;
+    }
 
-        List<String> expectedShortestPath = new ArrayList<>();
-        expectedShortestPath.add("D");
-        expectedShortestPath.add("G");
-        expectedShortestPath.add("H");
-        expectedShortestPath.add("I");
+    /**
+     * Returns the weight of the edge from the node with id predId to the node with id succId.
+     * This is getEdge for callers that interned their data with nodeIdOf.
+     *
+     * @param predId the id of the edge's predecessor node
+     * @param succId the id of the edge's successor node
+     * @return the weight of that edge
+     * @throws NoSuchElementException if no node has either id, or there is no such edge
+     */
+    public EdgeType edgeBetween(int predId, int succId) {
+        Edge edge = predId < 0 || succId < 0 ? null : this.edgeIndex.get(edgeKey(predId, succId));
+        if (edge == null) {
+            throw new NoSuchElementException("No edge from node " + predId + " to node " + succId);
+        }
+        return edge.data;
+    }
 
-        assertEquals(expectedShortestPath, shortestPathBetweenDtoI, "Incorrect Shortest Path");
-        assertEquals(13, shortestPathCostBetweenDtoI, "Incorrect Shortest Path Cost");
+    /**
+     * Returns the weight of an edge, as seen through the overlay when there is one.
+     */
+    private double edgeWeight(Edge edge, GraphOverlay<NodeType, EdgeType> overlay) {
+        return overlay == null ? edge.data.doubleValue() : overlay.weightOf(edge);
+    }
 
+
+    /**
+     * Returns every node that can be reached from the start node with a total path cost no greater
+     * than the provided budget, mapped to the cost of reaching it (its arrival time). The start
+     * node itself is always included with a cost of 0. This is Dijkstra's algorithm with an early
+     * stop: since nodes are settled in order of increasing cost, the search terminates as soon as
+     * the cheapest cost left in the search workspace's heap exceeds the budget, and nodes beyond
+     * the budget are never offered to it. The work done is therefore proportional to the number
+     * of nodes and edges inside the budget (plus the edges leaving that ball), not to the whole
+     * graph. When delta-stepping is enabled and no overlay is given, the search runs on it
+     * instead.
+     *
+     * @param start  the data item in the starting node for the search
+     * @param budget the maximum total path cost for a node to be included
+     * @return a map from each reachable node's data to the cost of its shortest path from start
+     * @throws NoSuchElementException when start does not correspond to a graph node
+     * @throws IllegalArgumentException when budget is negative or NaN
+     */
+    public MapADT<NodeType, Double> reachableWithin(NodeType start, double budget) {
+        return this.reachableWithin(start, budget, null);
     }
 
     /**
-     * Tests the modified lecture example to verify if the graph implementation returns the correct
-     * shortest path and cost. The start node is F and the end node is M. The expected shortest path
-     * is F->G->A->B->M with the cost of 17.
+     * Same as reachableWithin(start, budget), except that the search sees the graph through the
+     * provided overlay. A blocked start node reaches nothing, not even itself.
+     *
+     * @param start   the data item in the starting node for the search
+     * @param budget  the maximum total path cost for a node to be included
+     * @param overlay the changes to apply to this graph for this search, or null for none
+     * @return a map from each reachable node's data to the cost of its shortest path from start
+     * @throws NoSuchElementException when start does not correspond to a graph node
+     * @throws IllegalArgumentException when budget is negative or NaN
      */
-    @Test
-    public void testLectureDifferentPath() {
-        DijkstraGraph<String, Double> testGraph = new DijkstraGraph<>();
-        testGraph.insertNode("A");
-        testGraph.insertNode("B");
-        testGraph.insertNode("D");
-        testGraph.insertNode("E");
-        testGraph.insertNode("F");
-        testGraph.insertNode("G");
-        testGraph.insertNode("H");
-        testGraph.insertNode("I");
-        testGraph.insertNode("L");
-        testGraph.insertNode("M");
+    public MapADT<NodeType, Double> reachableWithin(NodeType start, double budget,
+                                                    GraphOverlay<NodeType, EdgeType> overlay) {
+        if (start == null || !this.containsNode(start)) {
+            throw new NoSuchElementException("Start node is not present in the base graph");
+        }
+        if (!(budget >= 0.0)) {
+            throw new IllegalArgumentException("Budget must be a non-negative number");
+        }
 
-        testGraph.insertEdge("G", "A", 4.0);
-        testGraph.insertEdge("D", "A", 7.0);
-        testGraph.insertEdge("A", "B", 1.0);
-        testGraph.insertEdge("H", "B", 6.0);
-        testGraph.insertEdge("I", "D", 1.0);
-        testGraph.insertEdge("M", "E", 3.0);
-        testGraph.insertEdge("D", "F", 4.0);
-        testGraph.insertEdge("M", "F", 4.0);
-        testGraph.insertEdge("D", "G", 2.0);
+        // the search itself works with node ids, and the data of the nodes it reached is only
+        // looked up to build the map
+        double[] costs = this.costsWithin(this.nodes.get(start), budget, overlay);
+        OpenAddressingMap<NodeType, Double> arrivalTimes = new OpenAddressingMap<>();
+        for (int id = 0; id < costs.length; id++) {
+            if (costs[id] != Double.POSITIVE_INFINITY) {
+                arrivalTimes.put(this.nodesById.get(id).data, costs[id]);
+            }
+        }
+        return arrivalTimes;
+    }
+
+    /**
+     * Returns the cost of reaching every node from the node with id startId, indexed by node id,
+     * for the nodes reachable with a total path cost no greater than the budget, and
+     * Double.POSITIVE_INFINITY for every other id. This is reachableWithin for callers that
+     * interned their data with nodeIdOf once: neither the search nor its result hashes any data.
+     *
+     * @param startId the id of the starting node for the search
+     * @param budget  the maximum total path cost for a node to be reached
+     * @return an array of getNodeIdBound() costs
+     * @throws NoSuchElementException when no node has id startId
+     * @throws IllegalArgumentException when budget is negative or NaN
+     */
+    public double[] costsWithin(int startId, double budget) {
+        Node startNode = this.nodeWithId(startId);
+        if (!(budget >= 0.0)) {
+            throw new IllegalArgumentException("Budget must be a non-negative number");
+        }
+        return this.costsWithin(startNode, budget, null);
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from start, seeing the graph through the overlay when there is
+     * one, and stops as soon as the cheapest node waiting in the workspace exceeds the budget.
+     * Successors beyond the budget are never offered, so the work done is proportional to the
+     * number of nodes and edges inside the budget, not to the whole graph.
+     */
+    private double[] costsWithin(Node start, double budget,
+                                 GraphOverlay<NodeType, EdgeType> overlay) {
+        DeltaSteppingSearch deltaStepping = overlay == null ? this.getDeltaSteppingSearch() : null;
+        if (deltaStepping != null) {
+            return deltaStepping.run(start.id, budget);
+        }
+        double[] costs = new double[this.getNodeIdBound()];
+        Arrays.fill(costs, Double.POSITIVE_INFINITY);
+        if (overlay != null && overlay.isBlocked(start)) {
+            return costs;
+        }
+        SearchWorkspace<NodeType, EdgeType> workspace = this.searchWorkspaces.get();
+        workspace.reset(costs.length);
+        workspace.offer(start, 0.0, -1);
+        while (!workspace.isEmpty() && workspace.peekCost() <= budget) {
+            int currentId = workspace.settleNext();
+            double currentCost = workspace.costOf(currentId);
+            costs[currentId] = currentCost;
+            List<Edge> edgesLeaving = workspace.nodeOf(currentId).edgesLeaving;
+            for (int i = 0; i < edgesLeaving.size(); i++) {
+                Edge edge = edgesLeaving.get(i);
+                // edges blocked by the overlay weigh infinity, which an infinite budget allows
+                double weight = this.edgeWeight(edge, overlay);
+                if (weight == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                double costThroughEdge = currentCost + weight;
+                if (costThroughEdge <= budget && !workspace.isSettled(edge.successor.id)) {
+                    workspace.offer(edge.successor, costThroughEdge, currentId);
+                }
+            }
+        }
+        return costs;
+    }
+
+    /**
+     * Computes the cost of the shortest path from every source to every target. Entry [i][j] of
+     * the returned matrix holds the cost from sources.get(i) to targets.get(j), or
+     * Double.POSITIVE_INFINITY when no such path exists.
+     * <p>
+     * Rather than running one point-to-point search per pair, a single search is run from each
+     * node of the smaller of the two lists: forward along edgesLeaving from each source, or
+     * backward along edgesEntering from each target. One such search settles the cost to (or
+     * from) every node of the other list at once, and stops as soon as all of them are settled.
+     * The searches are independent of each other and are run in parallel; each one writes only
+     * its own row or column of the matrix. The graph must not be modified while this runs.
+     *
+     * @param sources the data items of the nodes to start paths from
+     * @param targets the data items of the nodes to end paths at
+     * @return a sources.size() by targets.size() matrix of shortest path costs
+     * @throws NoSuchElementException when any source or target does not correspond to a graph
+     *                                node
+     */
+    public double[][] shortestPathCosts(List<NodeType> sources, List<NodeType> targets) {
+        List<Node> sourceNodes = this.findNodes(sources);
+        List<Node> targetNodes = this.findNodes(targets);
+        double[][] costs = new double[sourceNodes.size()][targetNodes.size()];
+
+        if (sourceNodes.size() <= targetNodes.size()) {
+            // one forward search per source fills one row
+            IntStream.range(0, sourceNodes.size()).parallel().forEach(row -> {
+                double[] settled =
+                        this.computeShortestPathCosts(sourceNodes.get(row), targetNodes, false);
+                for (int column = 0; column < targetNodes.size(); column++) {
+                    costs[row][column] = settled[targetNodes.get(column).id];
+                }
+            });
+        } else {
+            // one backward search per target fills one column
+            IntStream.range(0, targetNodes.size()).parallel().forEach(column -> {
+                double[] settled =
+                        this.computeShortestPathCosts(targetNodes.get(column), sourceNodes, true);
+                for (int row = 0; row < sourceNodes.size(); row++) {
+                    costs[row][column] = settled[sourceNodes.get(row).id];
+                }
+            });
+        }
+        return costs;
+    }
+
+    /**
+     * Returns the start followed by every stop, in the order that visits all of the stops with
+     * the lowest total path cost that could be found. Costs between the start and the stops come
+     * from shortestPathCosts, which runs one search per stop, and the order itself is chosen by
+     * TourOptimizer: exactly for up to TourOptimizer.EXACT_STOP_LIMIT stops, and with local search
+     * beyond that. Duplicate stops and stops equal to start are visited only once.
+     *
+     * @param start         the data item in the node where the tour begins
+     * @param stops         the data items of the nodes that the tour must visit
+     * @param returnToStart true when the tour must end back at start after the last stop
+     * @return list of data items of start and every stop, in visiting order (ending with start
+     *         again when returnToStart is true)
+     * @throws NoSuchElementException when start or any stop does not correspond to a graph node,
+     *                                or when no tour from start can reach every stop
+     */
+    public List<NodeType> shortestTourOrder(NodeType start, List<NodeType> stops,
+                                            boolean returnToStart) {
+        List<NodeType> points = new ArrayList<>();
+        points.add(start);
+        for (NodeType stop : stops) {
+            if (!points.contains(stop)) {
+                points.add(stop);
+            }
+        }
+        int[] order = TourOptimizer.optimizeOrder(this.shortestPathCosts(points, points),
+                returnToStart);
+
+        List<NodeType> tour = new ArrayList<>(order.length + 1);
+        for (int index : order) {
+            tour.add(points.get(index));
+        }
+        if (returnToStart && tour.size() > 1) {
+            tour.add(start);
+        }
+        return tour;
+    }
+
+    /**
+     * Returns the list of data values from nodes along the tour found by shortestTourOrder, where
+     * each leg between consecutive stops follows that leg's shortest path. Nodes shared by two
+     * consecutive legs are listed only once.
+     *
+     * @param start         the data item in the node where the tour begins
+     * @param stops         the data items of the nodes that the tour must visit
+     * @param returnToStart true when the tour must end back at start after the last stop
+     * @return list of data items from nodes along the whole tour
+     * @throws NoSuchElementException when start or any stop does not correspond to a graph node,
+     *                                or when no tour from start can reach every stop
+     */
+    public List<NodeType> shortestTourData(NodeType start, List<NodeType> stops,
+                                           boolean returnToStart) {
+        List<NodeType> tour = this.shortestTourOrder(start, stops, returnToStart);
+        List<NodeType> path = new ArrayList<>();
+        path.add(start);
+        for (int i = 1; i < tour.size(); i++) {
+            List<NodeType> leg = this.shortestPathData(tour.get(i - 1), tour.get(i));
+            path.addAll(leg.subList(1, leg.size()));
+        }
+        return path;
+    }
+
+    /**
+     * Looks up the graph node for each of the provided data items, in order.
+     *
+     * @throws NoSuchElementException when any data item does not correspond to a graph node
+     */
+    private List<Node> findNodes(List<NodeType> data) {
+        List<Node> found = new ArrayList<>(data.size());
+        for (NodeType item : data) {
+            if (item == null || !this.containsNode(item)) {
+                throw new NoSuchElementException("Node " + item + " is not present in the base " +
+                        "graph");
+            }
+            found.add(this.nodes.get(item));
+        }
+        return found;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from origin until every node in stops has been settled (or until
+     * everything reachable has been settled), and returns the cost of each settled node. When
+     * backward is true the search follows edgesEntering instead of edgesLeaving, so the costs are
+     * those of paths ending at origin rather than starting from it. Predecessors are not tracked.
+     * The costs are indexed by node id, with Double.POSITIVE_INFINITY for nodes that were not
+     * settled, so the search never hashes a node.
+     */
+    protected double[] computeShortestPathCosts(Node origin, List<Node> stops, boolean backward) {
+        double[] settled = new double[this.getNodeIdBound()];
+        Arrays.fill(settled, Double.POSITIVE_INFINITY);
+        boolean[] pendingStops = new boolean[settled.length];
+        int pendingCount = 0;
+        for (Node stop : stops) {
+            if (!pendingStops[stop.id]) {
+                pendingStops[stop.id] = true;
+                pendingCount++;
+            }
+        }
+
+        SearchWorkspace<NodeType, EdgeType> workspace = this.searchWorkspaces.get();
+        workspace.reset(settled.length);
+        workspace.offer(origin, 0.0, -1);
+        while (!workspace.isEmpty()) {
+            int currentId = workspace.settleNext();
+            double currentCost = workspace.costOf(currentId);
+            settled[currentId] = currentCost;
+            if (pendingStops[currentId]) {
+                pendingStops[currentId] = false;
+                if (--pendingCount == 0) {
+                    break;
+                }
+            }
+
+            Node currentNode = workspace.nodeOf(currentId);
+            List<Edge> edges = backward ? currentNode.edgesEntering : currentNode.edgesLeaving;
+            for (int i = 0; i < edges.size(); i++) {
+                Edge edge = edges.get(i);
+                Node neighbor = backward ? edge.predecessor : edge.successor;
+                if (!workspace.isSettled(neighbor.id)) {
+                    workspace.offer(neighbor, currentCost + edge.data.doubleValue(), currentId);
+                }
+            }
+        }
+        return settled;
+    }
+
+    /**
+     * Tests the lecture example to verify if the graph implementation returns the correct shortest
+     * path and cost. The start node is D and the end node is I. The expected shortest path is
+     * D->G->H->I with the cost of 13.
+     */
+    @Test
+    public void testLectureDemo() {
+        DijkstraGraph<String, Double> testGraph = new DijkstraGraph<>();
+        testGraph.insertNode("A");
+        testGraph.insertNode("B");
+        testGraph.insertNode("D");
+        testGraph.insertNode("E");
+        testGraph.insertNode("F");
+        testGraph.insertNode("G");
+        testGraph.insertNode("H");
+        testGraph.insertNode("I");
+        testGraph.insertNode("L");
+        testGraph.insertNode("M");
+
+        testGraph.insertEdge("G", "A", 4.0);
+        testGraph.insertEdge("D", "A", 7.0);
+        testGraph.insertEdge("A", "B", 1.0);
+        testGraph.insertEdge("H", "B", 6.0);
+        testGraph.insertEdge("I", "D", 1.0);
+        testGraph.insertEdge("M", "E", 3.0);
+        testGraph.insertEdge("D", "F", 4.0);
+        testGraph.insertEdge("M", "F", 4.0);
+        testGraph.insertEdge("D", "G", 2.0);
+        testGraph.insertEdge("F", "G", 9.0);
+        testGraph.insertEdge("A", "H", 7.0);
+        testGraph.insertEdge("G", "H", 9.0);
+        testGraph.insertEdge("I", "H", 2.0);
+        testGraph.insertEdge("M", "I", 4.0);
+        testGraph.insertEdge("H", "I", 2.0);
+        testGraph.insertEdge("G", "L", 7.0);
+        testGraph.insertEdge("H", "L", 2.0);
+        testGraph.insertEdge("A", "M", 5.0);
+        testGraph.insertEdge("B", "M", 3.0);
+
+        List<String> shortestPathBetweenDtoI = testGraph.shortestPathData("D", "I");
+        Double shortestPathCostBetweenDtoI = testGraph.shortestPathCost("D", "I");
+
+        List<String> expectedShortestPath = new ArrayList<>();
+        expectedShortestPath.add("D");
+        expectedShortestPath.add("G");
+        expectedShortestPath.add("H");
+        expectedShortestPath.add("I");
+
+        assertEquals(expectedShortestPath, shortestPathBetweenDtoI, "Incorrect Shortest Path");
+        assertEquals(13, shortestPathCostBetweenDtoI, "Incorrect Shortest Path Cost");
+
+    }
+
+    /**
+     * Tests the modified lecture example to verify if the graph implementation returns the correct
+     * shortest path and cost. The start node is F and the end node is M. The expected shortest path
+     * is F->G->A->B->M with the cost of 17.
+     */
+    @Test
+    public void testLectureDifferentPath() {
+        DijkstraGraph<String, Double> testGraph = new DijkstraGraph<>();
+        testGraph.insertNode("A");
+        testGraph.insertNode("B");
+        testGraph.insertNode("D");
+        testGraph.insertNode("E");
+        testGraph.insertNode("F");
+        testGraph.insertNode("G");
+        testGraph.insertNode("H");
+        testGraph.insertNode("I");
+        testGraph.insertNode("L");
+        testGraph.insertNode("M");
+
+        testGraph.insertEdge("G", "A", 4.0);
+        testGraph.insertEdge("D", "A", 7.0);
+        testGraph.insertEdge("A", "B", 1.0);
+        testGraph.insertEdge("H", "B", 6.0);
+        testGraph.insertEdge("I", "D", 1.0);
+        testGraph.insertEdge("M", "E", 3.0);
+        testGraph.insertEdge("D", "F", 4.0);
+        testGraph.insertEdge("M", "F", 4.0);
+        testGraph.insertEdge("D", "G", 2.0);
         testGraph.insertEdge("F", "G", 9.0);
         testGraph.insertEdge("A", "H", 7.0);
         testGraph.insertEdge("G", "H", 9.0);
@@ -401,6 +1197,59 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
 
     }
 
+    /**
+     * Tests the queries that take node ids: they give the same paths, edge weights and costs as
+     * the queries that take data, and ids of removed nodes are rejected.
+     */
+    @Test
+    public void testQueriesByNodeId() {
+        GraphSnapshot<Integer> grid = DeltaSteppingSearch.randomGrid(12, 5);
+        DijkstraGraph<Integer, Double> testGraph = new DijkstraGraph<>();
+        for (int v = 0; v < grid.nodeCount; v++) {
+            testGraph.insertNode(v);
+        }
+        for (int v = 0; v < grid.nodeCount; v++) {
+            for (int e = grid.forwardOffsets[v]; e < grid.forwardOffsets[v + 1]; e++) {
+                testGraph.insertEdge(v, grid.forwardTargets[e], grid.forwardWeights[e]);
+            }
+        }
+        for (int start = 0; start < grid.nodeCount; start += 13) {
+            int startId = testGraph.nodeIdOf(start);
+            assertEquals(start, testGraph.nodeDataOf(startId));
+            double[] costs = testGraph.costsWithin(startId, 40.0);
+            MapADT<Integer, Double> reachable = testGraph.reachableWithin(start, 40.0);
+            int reached = 0;
+            for (int id = 0; id < costs.length; id++) {
+                if (costs[id] != Double.POSITIVE_INFINITY) {
+                    reached++;
+                    assertEquals(reachable.get(testGraph.nodeDataOf(id)), costs[id], 1e-9);
+                }
+            }
+            assertEquals(reachable.getSize(), reached, "Reached a different number of nodes");
+            for (int end = 0; end < grid.nodeCount; end += 17) {
+                int[] pathIds = testGraph.shortestPathIds(startId, testGraph.nodeIdOf(end));
+                List<Integer> path = testGraph.shortestPathData(start, end);
+                assertEquals(path.size(), pathIds.length);
+                double cost = 0.0;
+                for (int i = 0; i < pathIds.length; i++) {
+                    assertEquals(path.get(i), testGraph.nodeDataOf(pathIds[i]), "Paths differ");
+                    if (i > 0) {
+                        cost += testGraph.edgeBetween(pathIds[i - 1], pathIds[i]);
+                    }
+                }
+                assertEquals(testGraph.shortestPathCost(start, end), cost, 1e-9);
+            }
+        }
+        int removedId = testGraph.nodeIdOf(0);
+        testGraph.removeNode(0);
+        assertThrows(NoSuchElementException.class, () -> testGraph.nodeDataOf(removedId));
+        assertThrows(NoSuchElementException.class, () -> testGraph.shortestPathIds(removedId, 1));
+        assertThrows(NoSuchElementException.class, () -> testGraph.nodeIdOf(0));
+        testGraph.insertNode(1000);
+        assertEquals(removedId, testGraph.nodeIdOf(1000), "Removed id wasn't reused");
+        assertEquals(1000, testGraph.nodeDataOf(removedId));
+    }
+
     /**
      * Tests question number 3 from assignment to verify if the graph implementation returns the
      * correct shortest path and cost. The start node is A and the end node is G. The expected
@@ -444,4 +1293,895 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
         assertEquals(expectedShortestPath, shortestPathBetweenAtoG, "Incorrect Shortest Path");
         assertEquals(9, shortestPathCostBetweenAtoG, "Incorrect Shortest Path Cost");
     }
+
+    /**
+     * Tests reachableWithin() on the lecture example. Starting from D with a budget of 6, only D
+     * (0), G (2), F (4) and A (6) can be reached: H costs 11 and B costs 7 through A, so they
+     * must be left out even though a path to them exists.
+     */
+    @Test
+    public void testReachableWithinBudget() {
+        DijkstraGraph<String, Double> testGraph = new DijkstraGraph<>();
+        for (String node : new String[] {"A", "B", "D", "F", "G", "H"}) {
+            testGraph.insertNode(node);
+        }
+        testGraph.insertEdge("D", "A", 7.0);
+        testGraph.insertEdge("G", "A", 4.0);
+        testGraph.insertEdge("A", "B", 1.0);
+        testGraph.insertEdge("D", "F", 4.0);
+        testGraph.insertEdge("D", "G", 2.0);
+        testGraph.insertEdge("F", "G", 9.0);
+        testGraph.insertEdge("G", "H", 9.0);
+
+        MapADT<String, Double> reachable = testGraph.reachableWithin("D", 6.0);
+
+        assertEquals(4, reachable.getSize(), "Incorrect number of reachable nodes");
+        assertEquals(0.0, reachable.get("D"), "Start node should be reached at no cost");
+        assertEquals(2.0, reachable.get("G"), "Incorrect arrival time for G");
+        assertEquals(4.0, reachable.get("F"), "Incorrect arrival time for F");
+        assertEquals(6.0, reachable.get("A"), "Arrival exactly on the budget should be included");
+        assertFalse(reachable.containsKey("B"), "B is past the budget but was included");
+        assertFalse(reachable.containsKey("H"), "H is past the budget but was included");
+
+        assertEquals(1, testGraph.reachableWithin("D", 0.0).getSize(),
+                "A zero budget should only reach the start node");
+        assertThrows(NoSuchElementException.class, () -> testGraph.reachableWithin("Z", 5.0),
+                "Missing start node didn't throw exception");
+    }
+
+    /**
+     * Tests shortestPathCosts() on the lecture example against one shortestPathCost() call per
+     * pair. Both the forward (fewer sources) and backward (fewer targets) strategies are checked,
+     * and pairs without a path must be reported as infinity.
+     */
+    @Test
+    public void testShortestPathCostsMatrix() {
+        DijkstraGraph<String, Double> testGraph = new DijkstraGraph<>();
+        for (String node : new String[] {"A", "B", "D", "E", "F", "G", "H", "I", "L", "M"}) {
+            testGraph.insertNode(node);
+        }
+        testGraph.insertEdge("G", "A", 4.0);
+        testGraph.insertEdge("D", "A", 7.0);
+        testGraph.insertEdge("A", "B", 1.0);
+        testGraph.insertEdge("H", "B", 6.0);
+        testGraph.insertEdge("I", "D", 1.0);
+        testGraph.insertEdge("M", "E", 3.0);
+        testGraph.insertEdge("D", "F", 4.0);
+        testGraph.insertEdge("M", "F", 4.0);
+        testGraph.insertEdge("D", "G", 2.0);
+        testGraph.insertEdge("F", "G", 9.0);
+        testGraph.insertEdge("A", "H", 7.0);
+        testGraph.insertEdge("G", "H", 9.0);
+        testGraph.insertEdge("I", "H", 2.0);
+        testGraph.insertEdge("M", "I", 4.0);
+        testGraph.insertEdge("H", "I", 2.0);
+        testGraph.insertEdge("G", "L", 7.0);
+        testGraph.insertEdge("H", "L", 2.0);
+        testGraph.insertEdge("A", "M", 5.0);
+        testGraph.insertEdge("B", "M", 3.0);
+
+        List<String> few = List.of("D", "E");
+        List<String> many = List.of("A", "D", "E", "I", "L", "M");
+
+        double[][] forward = testGraph.shortestPathCosts(few, many);
+        double[][] backward = testGraph.shortestPathCosts(many, few);
+        for (int i = 0; i < few.size(); i++) {
+            for (int j = 0; j < many.size(); j++) {
+                double expectedForward = expectedCost(testGraph, few.get(i), many.get(j));
+                double expectedBackward = expectedCost(testGraph, many.get(j), few.get(i));
+                assertEquals(expectedForward, forward[i][j], "Incorrect cost from " + few.get(i)
+                        + " to " + many.get(j));
+                assertEquals(expectedBackward, backward[j][i], "Incorrect cost from " +
+                        many.get(j) + " to " + few.get(i));
+            }
+        }
+        assertEquals(13.0, forward[0][3], "Incorrect cost from D to I");
+        assertEquals(Double.POSITIVE_INFINITY, forward[1][0], "E cannot reach A");
+
+        assertThrows(NoSuchElementException.class, () -> testGraph.shortestPathCosts(few,
+                List.of("Z")), "Missing target node didn't throw exception");
+    }
+
+    /**
+     * Returns shortestPathCost(start, end), or infinity when there is no such path.
+     */
+    private static double expectedCost(DijkstraGraph<String, Double> graph, String start,
+                                       String end) {
+        try {
+            return graph.shortestPathCost(start, end);
+        } catch (NoSuchElementException e) {
+            return Double.POSITIVE_INFINITY;
+        }
+    }
+
+    /**
+     * Tests shortestTourOrder() and shortestTourData() on assignment question three. From A, the
+     * stops G, D and F are cheapest in the order F, D, G (3 + 3 + 6 = 12), and the stitched path
+     * must follow the shortest path of each of those legs.
+     */
+    @Test
+    public void testShortestTour() {
+        DijkstraGraph<String, Double> testGraph = new DijkstraGraph<>();
+        for (String node : new String[] {"A", "B", "C", "D", "E", "F", "G"}) {
+            testGraph.insertNode(node);
+        }
+        testGraph.insertEdge("C", "B", 2.0);
+        testGraph.insertEdge("F", "B", 2.0);
+        testGraph.insertEdge("A", "C", 2.0);
+        testGraph.insertEdge("F", "C", 4.0);
+        testGraph.insertEdge("A", "D", 4.0);
+        testGraph.insertEdge("B", "D", 2.0);
+        testGraph.insertEdge("F", "D", 3.0);
+        testGraph.insertEdge("B", "E", 3.0);
+        testGraph.insertEdge("D", "E", 4.0);
+        testGraph.insertEdge("A", "F", 3.0);
+        testGraph.insertEdge("C", "G", 8.0);
+        testGraph.insertEdge("E", "G", 2.0);
+
+        List<String> stops = List.of("G", "D", "F", "D");
+        assertEquals(List.of("A", "F", "D", "G"), testGraph.shortestTourOrder("A", stops, false),
+                "Incorrect tour order");
+        assertEquals(List.of("A", "F", "D", "E", "G"), testGraph.shortestTourData("A", stops,
+                false), "Incorrect tour path");
+
+        assertThrows(NoSuchElementException.class, () -> testGraph.shortestTourOrder("A", stops,
+                true), "No path leads back to A but still didn't throw exception");
+    }
+
+    /**
+     * Tests pathExists() and the component index. {A, B, C} and {D, E} are two cycles joined by
+     * the single edge C->D, so every node reaches D and E but nothing reaches back from D or E,
+     * and the isolated node F neither reaches nor is reached by anything. Inserting E->A later
+     * must merge everything but F into one component.
+     */
+    @Test
+    public void testPathExistsWithComponents() {
+        DijkstraGraph<String, Double> testGraph = new DijkstraGraph<>();
+        for (String node : new String[] {"A", "B", "C", "D", "E", "F"}) {
+            testGraph.insertNode(node);
+        }
+        testGraph.insertEdge("A", "B", 1.0);
+        testGraph.insertEdge("B", "C", 1.0);
+        testGraph.insertEdge("C", "A", 1.0);
+        testGraph.insertEdge("C", "D", 5.0);
+        testGraph.insertEdge("D", "E", 1.0);
+        testGraph.insertEdge("E", "D", 1.0);
+
+        assertEquals(3, testGraph.getComponentIndex().getComponentCount(),
+                "Incorrect number of components");
+        assertTrue(testGraph.pathExists("A", "E"), "A reaches E through C->D");
+        assertTrue(testGraph.pathExists("B", "A"), "B reaches A along its cycle");
+        assertFalse(testGraph.pathExists("D", "A"), "Nothing leads back from D to A");
+        assertFalse(testGraph.pathExists("A", "F"), "F is isolated");
+        assertThrows(NoSuchElementException.class, () -> testGraph.shortestPathData("E", "B"),
+                "No path from E to B but still didn't throw exception");
+        assertEquals(List.of("B", "C", "D", "E"), testGraph.shortestPathData("B", "E"),
+                "Incorrect Shortest Path");
+
+        // the index must notice the new edge and be rebuilt
+        testGraph.insertEdge("E", "A", 1.0);
+        assertEquals(2, testGraph.getComponentIndex().getComponentCount(),
+                "Component index was not rebuilt after inserting an edge");
+        assertTrue(testGraph.pathExists("D", "A"), "D reaches A through E->A after insertion");
+        assertEquals(3.0, testGraph.shortestPathCost("D", "B"), "Incorrect Shortest Path Cost");
+    }
+
+    /**
+     * Tests that building the component index of a single cycle through 20,000 nodes neither
+     * overflows the call stack nor splits the cycle. A recursive Tarjan would nest one call per
+     * node along this cycle.
+     */
+    @Test
+    public void testComponentIndexLongCycle() {
+        DijkstraGraph<Integer, Double> longCycle = new DijkstraGraph<>();
+        int length = 20000;
+        for (int i = 0; i < length; i++) {
+            longCycle.insertNode(i);
+        }
+        for (int i = 0; i < length; i++) {
+            longCycle.insertEdge(i, (i + 1) % length, 1.0);
+        }
+        ComponentIndex<Integer, Double> index = new ComponentIndex<>(longCycle);
+        assertEquals(1, index.getComponentCount(), "A cycle must be a single component");
+
+        longCycle.removeEdge(length - 1, 0);
+        index = new ComponentIndex<>(longCycle);
+        assertEquals(length, index.getComponentCount(), "A path has one component per node");
+        assertTrue(index.mayReach(longCycle.nodes.get(0), longCycle.nodes.get(length - 1)),
+                "The start of a path reaches its end");
+        assertFalse(index.mayReach(longCycle.nodes.get(length - 1), longCycle.nodes.get(0)),
+                "The end of a path does not reach its start");
+    }
+
+    /**
+     * Tests that searches through a GraphOverlay avoid blocked nodes and edges and use scaled
+     * weights, while the graph itself and searches without the overlay are left unchanged. In
+     * the lecture example the shortest path from D to I is D->G->H->I (13).
+     */
+    @Test
+    public void testOverlayAvoidsBlockedNodesAndEdges() {
+        DijkstraGraph<String, Double> testGraph = new DijkstraGraph<>();
+        for (String node : new String[] {"A", "B", "D", "E", "F", "G", "H", "I", "L", "M"}) {
+            testGraph.insertNode(node);
+        }
+        testGraph.insertEdge("G", "A", 4.0);
+        testGraph.insertEdge("D", "A", 7.0);
+        testGraph.insertEdge("A", "B", 1.0);
+        testGraph.insertEdge("H", "B", 6.0);
+        testGraph.insertEdge("I", "D", 1.0);
+        testGraph.insertEdge("M", "E", 3.0);
+        testGraph.insertEdge("D", "F", 4.0);
+        testGraph.insertEdge("M", "F", 4.0);
+        testGraph.insertEdge("D", "G", 2.0);
+        testGraph.insertEdge("F", "G", 9.0);
+        testGraph.insertEdge("A", "H", 7.0);
+        testGraph.insertEdge("G", "H", 9.0);
+        testGraph.insertEdge("I", "H", 2.0);
+        testGraph.insertEdge("M", "I", 4.0);
+        testGraph.insertEdge("H", "I", 2.0);
+        testGraph.insertEdge("G", "L", 7.0);
+        testGraph.insertEdge("H", "L", 2.0);
+        testGraph.insertEdge("A", "M", 5.0);
+        testGraph.insertEdge("B", "M", 3.0);
+
+        // closing H leaves D->G->A->B->M->I (14)
+        GraphOverlay<String, Double> closedH = new GraphOverlay<>(testGraph);
+        assertTrue(closedH.blockNode("H"), "H should be found");
+        assertEquals(List.of("D", "G", "A", "B", "M", "I"), testGraph.shortestPathData("D", "I",
+                closedH), "Path through the overlay passes through a blocked node");
+        assertEquals(14.0, testGraph.shortestPathCost("D", "I", closedH), "Incorrect cost");
+        assertFalse(testGraph.reachableWithin("D", 20.0, closedH).containsKey("H"),
+                "Blocked node reached through the overlay");
+
+        // blocking G->H and scaling G->A by 3 makes D->A->B->M->I (15) the shortest path
+        GraphOverlay<String, Double> construction = new GraphOverlay<>(testGraph);
+        assertTrue(construction.blockEdge("G", "H"), "Edge G->H should be found");
+        assertTrue(construction.scaleEdge("G", "A", 3.0), "Edge G->A should be found");
+        assertFalse(construction.blockEdge("H", "G"), "There is no edge H->G to block");
+        assertEquals(List.of("D", "A", "B", "M", "I"), testGraph.shortestPathData("D", "I",
+                construction), "Incorrect path through the overlay");
+        assertEquals(15.0, testGraph.shortestPathCost("D", "I", construction), "Incorrect cost");
+        assertEquals(7.0, testGraph.reachableWithin("D", 20.0, construction).get("A"),
+                "Scaled edge G->A should make D->A the cheapest way to A");
+
+        // the graph itself is unchanged
+        assertEquals(13.0, testGraph.shortestPathCost("D", "I"), "Overlay modified the graph");
+        assertEquals(19, testGraph.getEdgeCount(), "Overlay modified the graph");
+
+        GraphOverlay<String, Double> closedEnd = new GraphOverlay<>(testGraph);
+        closedEnd.blockNode("I");
+        assertThrows(NoSuchElementException.class, () -> testGraph.shortestPathData("D", "I",
+                closedEnd), "Blocked end node didn't throw exception");
+        assertThrows(IllegalArgumentException.class, () -> closedEnd.scaleEdge("D", "A", 0.0),
+                "Non-positive multiplier didn't throw exception");
+    }
+
+    /**
+     * Tests that a blocked node is never offered to the search, even with an infinite budget,
+     * and that a node given the id of a removed blocked node, either by insertNode or after
+     * the graph is cleared and loaded again, is not blocked.
+     */
+    @Test
+    public void testOverlayAfterIdReuse() {
+        DijkstraGraph<String, Double> testGraph = new DijkstraGraph<>();
+        for (String node : new String[] {"A", "B", "C"}) {
+            testGraph.insertNode(node);
+        }
+        testGraph.insertEdge("A", "B", 1.0);
+        testGraph.insertEdge("B", "C", 1.0);
+        testGraph.insertEdge("A", "C", 5.0);
+        GraphOverlay<String, Double> closedB = new GraphOverlay<>(testGraph);
+        assertTrue(closedB.blockNode("B"));
+        int blockedId = testGraph.nodeIdOf("B");
+
+        assertEquals(Set.of("A", "C"), new HashSet<>(testGraph.reachableWithin("A",
+                Double.POSITIVE_INFINITY, closedB).getKeys()), "Blocked node reached");
+        assertFalse(testGraph.searchWorkspaces.get().isSettled(blockedId),
+                "Blocked node was expanded with an infinite budget");
+        assertEquals(5.0, testGraph.reachableWithin("A", Double.POSITIVE_INFINITY, closedB)
+                .get("C"), "Path to C went through the blocked node");
+
+        // D takes B's id once B is removed, but was never blocked
+        assertTrue(testGraph.removeNode("B"));
+        assertTrue(testGraph.insertNode("D"));
+        assertEquals(blockedId, testGraph.nodeIdOf("D"), "D didn't reuse B's id");
+        assertTrue(testGraph.insertEdge("A", "D", 1.0));
+        assertEquals(Set.of("A", "C", "D"), new HashSet<>(testGraph.reachableWithin("A", 10.0,
+                closedB).getKeys()), "New node with a blocked node's id was blocked");
+        assertEquals(1.0, testGraph.shortestPathCost("A", "D", closedB));
+
+        // a reload through a builder starts ids from 0 again
+        GraphBuilder<String> builder = new GraphBuilder<>();
+        builder.addEdge("E", "F", 2.0);
+        builder.addEdge("F", "G", 2.0);
+        builder.buildInto(testGraph);
+        assertEquals(4.0, testGraph.shortestPathCost("E", "G", closedB),
+                "Reloaded node with a blocked node's id was blocked");
+        assertFalse(closedB.blockNode("B"), "Removed node was found");
+    }
+
+    /**
+     * Tests that reachableWithin returns the same costs with delta-stepping enabled as with
+     * Dijkstra's algorithm, on a 40x40 grid whose frontiers are large enough to be split across
+     * threads, and that the snapshot is taken again after a weight update and a node removal.
+     */
+    @Test
+    public void testDeltaSteppingMatchesDijkstra() {
+        GraphSnapshot<Integer> grid = DeltaSteppingSearch.randomGrid(40, 11);
+        DijkstraGraph<Integer, Double> testGraph = new DijkstraGraph<>();
+        for (int v = 0; v < grid.nodeCount; v++) {
+            testGraph.insertNode(v);
+        }
+        for (int v = 0; v < grid.nodeCount; v++) {
+            for (int e = grid.forwardOffsets[v]; e < grid.forwardOffsets[v + 1]; e++) {
+                testGraph.insertEdge(v, grid.forwardTargets[e], grid.forwardWeights[e]);
+            }
+        }
+
+        for (double delta : new double[] {0.0, 0.01, 250.0}) {
+            for (double budget : new double[] {Double.POSITIVE_INFINITY, 600.0}) {
+                MapADT<Integer, Double> expected = testGraph.reachableWithin(820, budget);
+                testGraph.enableDeltaStepping(delta, 4);
+                MapADT<Integer, Double> actual = testGraph.reachableWithin(820, budget);
+                testGraph.disableDeltaStepping();
+                assertEquals(expected.getSize(), actual.getSize(), "Different nodes reached");
+                for (int v = 0; v < grid.nodeCount; v++) {
+                    if (expected.containsKey(v)) {
+                        assertEquals(expected.get(v), actual.get(v), 1e-9, "Wrong cost for " + v);
+                    }
+                }
+            }
+        }
+
+        // every grid edge weighs at least 1, so a weight of 0.5 makes 820->821 the shortest path
+        testGraph.enableDeltaStepping(0.0, 2);
+        testGraph.reachableWithin(820, 1e9);
+        testGraph.insertEdge(820, 821, 0.5);
+        assertEquals(0.5, testGraph.reachableWithin(820, 1e9).get(821), 1e-9,
+                "Weight update was not picked up");
+        testGraph.removeNode(821);
+        assertFalse(testGraph.reachableWithin(820, 1e9).containsKey(821),
+                "Node removal was not picked up");
+        testGraph.disableDeltaStepping();
+    }
+
+    /**
+     * Tests that once the JIT has warmed up, shortestPathCost allocates nothing and
+     * shortestPathData allocates only its result list, by reading the current thread's
+     * allocated-bytes counter around a batch of queries on a 40x40 grid.
+     */
+    @Test
+    public void testSteadyStateQueriesDoNotAllocate() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean,
+                "Allocation counter is not available on this JVM");
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(allocations.isThreadAllocatedMemorySupported() &&
+                allocations.isThreadAllocatedMemoryEnabled(), "Allocation counter is disabled");
+
+        GraphSnapshot<Integer> grid = DeltaSteppingSearch.randomGrid(40, 11);
+        DijkstraGraph<Integer, Double> testGraph = new DijkstraGraph<>();
+        // box every key up front so that the queries below do not allocate Integers
+        Integer[] keys = new Integer[grid.nodeCount];
+        for (int v = 0; v < grid.nodeCount; v++) {
+            keys[v] = v;
+            testGraph.insertNode(keys[v]);
+        }
+        for (int v = 0; v < grid.nodeCount; v++) {
+            for (int e = grid.forwardOffsets[v]; e < grid.forwardOffsets[v + 1]; e++) {
+                testGraph.insertEdge(keys[v], keys[grid.forwardTargets[e]], grid.forwardWeights[e]);
+            }
+        }
+
+        int queries = 2000;
+        long costBytes = Long.MAX_VALUE;
+        long dataBytes = Long.MAX_VALUE;
+        long pathLength = 0;
+        // the first rounds warm up the JIT; keep the lowest count of any round to ignore noise
+        for (int round = 0; round < 6; round++) {
+            long before = allocations.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < queries; i++) {
+                testGraph.shortestPathCost(keys[i % keys.length], keys[(i * 7919) % keys.length]);
+            }
+            long middle = allocations.getCurrentThreadAllocatedBytes();
+            pathLength = 0;
+            for (int i = 0; i < queries; i++) {
+                pathLength += testGraph.shortestPathData(keys[i % keys.length],
+                        keys[(i * 7919) % keys.length]).size();
+            }
+            long after = allocations.getCurrentThreadAllocatedBytes();
+            costBytes = Math.min(costBytes, middle - before);
+            dataBytes = Math.min(dataBytes, after - middle);
+        }
+
+        // the lookups of start and end in the OpenAddressingMap allocate nothing, so this only
+        // leaves room for the odd object the JIT doesn't eliminate, while a search that
+        // allocated per relaxation would take kilobytes per query
+        assertTrue(costBytes <= 64L * queries, "shortestPathCost allocated " + costBytes +
+                " bytes over " + queries + " queries");
+        // an ArrayList and its array take at most 64 bytes plus 8 per element
+        assertTrue(dataBytes <= 128L * queries + 8L * pathLength, "shortestPathData allocated " +
+                dataBytes + " bytes for " + pathLength + " path nodes over " + queries +
+                " queries");
+    }
+
+    /**
+     * Tests that hub labels give the same costs as Dijkstra's algorithm for every pair of a
+     * 15x15 grid and of the lecture example, that the paths they rebuild have those costs, and
+     * that they are no longer used once the graph changes.
+     */
+    @Test
+    public void testHubLabelsMatchDijkstra() {
+        GraphSnapshot<Integer> grid = DeltaSteppingSearch.randomGrid(15, 5);
+        DijkstraGraph<Integer, Double> gridGraph = new DijkstraGraph<>();
+        for (int v = 0; v < grid.nodeCount; v++) {
+            gridGraph.insertNode(v);
+        }
+        for (int v = 0; v < grid.nodeCount; v++) {
+            for (int e = grid.forwardOffsets[v]; e < grid.forwardOffsets[v + 1]; e++) {
+                gridGraph.insertEdge(v, grid.forwardTargets[e], grid.forwardWeights[e]);
+            }
+        }
+        // a one-way edge into a node with no way back, so that some pairs have no path
+        gridGraph.insertNode(-1);
+        gridGraph.insertEdge(0, -1, 3.0);
+        HubLabelIndex<Integer> gridIndex = new HubLabelIndex<>(gridGraph);
+        for (int s = -1; s < grid.nodeCount; s++) {
+            for (int t = -1; t < grid.nodeCount; t++) {
+                double expected;
+                try {
+                    expected = gridGraph.shortestPathCost(s, t);
+                } catch (NoSuchElementException e) {
+                    expected = Double.POSITIVE_INFINITY;
+                }
+                assertEquals(expected, gridIndex.shortestPathCost(s, t), 1e-9,
+                        "Wrong cost from " + s + " to " + t);
+            }
+        }
+        for (int s = 0; s < grid.nodeCount; s += 7) {
+            for (int t = 0; t < grid.nodeCount; t += 11) {
+                List<Integer> path = gridIndex.shortestPathData(s, t);
+                assertEquals(s, path.get(0), "Path must begin at the start");
+                assertEquals(t, path.get(path.size() - 1), "Path must end at the end");
+                double cost = 0.0;
+                for (int i = 1; i < path.size(); i++) {
+                    cost += gridGraph.getEdge(path.get(i - 1), path.get(i));
+                }
+                assertEquals(gridIndex.shortestPathCost(s, t), cost, 1e-9,
+                        "Rebuilt path from " + s + " to " + t + " has the wrong cost");
+            }
+        }
+
+        DijkstraGraph<String, Double> testGraph = new DijkstraGraph<>();
+        for (String node : new String[] {"A", "B", "D", "E", "F", "G", "H", "I", "L", "M"}) {
+            testGraph.insertNode(node);
+        }
+        testGraph.insertEdge("G", "A", 4.0);
+        testGraph.insertEdge("D", "A", 7.0);
+        testGraph.insertEdge("A", "B", 1.0);
+        testGraph.insertEdge("H", "B", 6.0);
+        testGraph.insertEdge("I", "D", 1.0);
+        testGraph.insertEdge("M", "E", 3.0);
+        testGraph.insertEdge("D", "F", 4.0);
+        testGraph.insertEdge("M", "F", 4.0);
+        testGraph.insertEdge("D", "G", 2.0);
+        testGraph.insertEdge("F", "G", 9.0);
+        testGraph.insertEdge("A", "H", 7.0);
+        testGraph.insertEdge("G", "H", 9.0);
+        testGraph.insertEdge("I", "H", 2.0);
+        testGraph.insertEdge("M", "I", 4.0);
+        testGraph.insertEdge("H", "I", 2.0);
+        testGraph.insertEdge("G", "L", 7.0);
+        testGraph.insertEdge("H", "L", 2.0);
+        testGraph.insertEdge("A", "M", 5.0);
+        testGraph.insertEdge("B", "M", 3.0);
+        HubLabelIndex<String> index = testGraph.buildHubLabels();
+        assertTrue(index.getLabelEntryCount() > 0, "Index has no labels");
+        assertEquals(List.of("D", "G", "H", "I"), testGraph.shortestPathData("D", "I"),
+                "Incorrect path from hub labels");
+        assertEquals(13.0, testGraph.shortestPathCost("D", "I"), "Incorrect cost");
+        assertThrows(NoSuchElementException.class, () -> testGraph.shortestPathCost("L", "D"),
+                "Pair without a path didn't throw exception");
+        assertThrows(NoSuchElementException.class, () -> testGraph.shortestPathData("Z", "D"),
+                "Missing node didn't throw exception");
+
+        // a cheaper edge makes the index stale, so the query searches the graph instead
+        testGraph.insertEdge("D", "I", 1.0);
+        assertEquals(1.0, testGraph.shortestPathCost("D", "I"), "Stale hub labels were used");
+    }
+
+    /**
+     * Tests that queries on a two-level MultiLevelOverlay of a 20x20 grid give the same costs as
+     * searching the graph, that unpacked paths have those costs, and that updated weights and
+     * removed edges are picked up by customizing or partitioning again.
+     */
+    @Test
+    public void testMultiLevelOverlayMatchesDijkstra() {
+        GraphSnapshot<Integer> grid = DeltaSteppingSearch.randomGrid(20, 17);
+        DijkstraGraph<Integer, Double> testGraph = new DijkstraGraph<>();
+        for (int v = 0; v < grid.nodeCount; v++) {
+            testGraph.insertNode(v);
+        }
+        for (int v = 0; v < grid.nodeCount; v++) {
+            for (int e = grid.forwardOffsets[v]; e < grid.forwardOffsets[v + 1]; e++) {
+                testGraph.insertEdge(v, grid.forwardTargets[e], grid.forwardWeights[e]);
+            }
+        }
+        MultiLevelOverlay<Integer, Double> overlay = testGraph.enableMultiLevelOverlay(10, 60);
+        assertTrue(overlay.getCellCount(1) > overlay.getCellCount(2), "Levels are not nested");
+        assertTrue(overlay.getCellCount(2) > 1, "Top level should have more than one cell");
+
+        for (int round = 0; round < 3; round++) {
+            for (int s = 0; s < grid.nodeCount; s += 13) {
+                for (int t = 0; t < grid.nodeCount; t += 7) {
+                    int start = s;
+                    int end = t;
+                    if (!testGraph.pathExists(s, t)) {
+                        assertThrows(NoSuchElementException.class, () -> testGraph
+                                .shortestPathCost(start, end), "Pair without a path from " + s +
+                                " to " + t + " didn't throw exception");
+                        continue;
+                    }
+                    double expected = testGraph.shortestPathCost(s, t, null);
+                    assertEquals(expected, testGraph.shortestPathCost(s, t), 1e-9,
+                            "Wrong cost from " + s + " to " + t + " in round " + round);
+                    List<Integer> path = testGraph.shortestPathData(s, t);
+                    assertEquals(s, path.get(0), "Path must begin at the start");
+                    assertEquals(t, path.get(path.size() - 1), "Path must end at the end");
+                    double cost = 0.0;
+                    for (int i = 1; i < path.size(); i++) {
+                        cost += testGraph.getEdge(path.get(i - 1), path.get(i));
+                    }
+                    assertEquals(expected, cost, 1e-9, "Unpacked path from " + s + " to " + t +
+                            " has the wrong cost in round " + round);
+                }
+            }
+            if (round == 0) {
+                // make a whole row much slower, so that customization has to change cliques
+                for (int column = 0; column + 1 < 20; column++) {
+                    testGraph.insertEdge(200 + column, 201 + column, 1000.0);
+                    testGraph.insertEdge(201 + column, 200 + column, 1000.0);
+                }
+            } else {
+                // cut the grid in half, so that the graph has to be partitioned again
+                for (int column = 0; column < 20; column++) {
+                    testGraph.removeEdge(180 + column, 200 + column);
+                }
+            }
+        }
+        assertThrows(NoSuchElementException.class, () -> testGraph.shortestPathData(0, 399),
+                "Pair without a path didn't throw exception");
+        testGraph.disableMultiLevelOverlay();
+    }
+
+    /**
+     * Tests that queries over a ChainContraction give the same costs and paths as searching the
+     * whole graph, on a small grid with corridors added between its nodes: two-way and one-way
+     * corridors, a dead end, and a loop that leaves and returns to the same node. Queries start
+     * and end inside corridors too, and are repeated after an edge inside a corridor gets
+     * slower and after a corridor is cut.
+     */
+    @Test
+    public void testChainContractionMatchesDijkstra() {
+        GraphSnapshot<Integer> grid = DeltaSteppingSearch.randomGrid(6, 5);
+        DijkstraGraph<Integer, Double> testGraph = new DijkstraGraph<>();
+        for (int v = 0; v < grid.nodeCount; v++) {
+            testGraph.insertNode(v);
+        }
+        for (int v = 0; v < grid.nodeCount; v++) {
+            for (int e = grid.forwardOffsets[v]; e < grid.forwardOffsets[v + 1]; e++) {
+                testGraph.insertEdge(v, grid.forwardTargets[e], grid.forwardWeights[e]);
+            }
+        }
+        // corridors of nodes 100 and up: {from, to, length, one way}
+        int[][] corridors = {{0, 35, 6, 0}, {5, 30, 4, 1}, {14, 14, 3, 0}, {20, -1, 3, 0},
+                {7, 8, 2, 0}};
+        int next = 100;
+        for (int[] corridor : corridors) {
+            int previous = corridor[0];
+            for (int i = 0; i < corridor[2]; i++) {
+                testGraph.insertNode(next);
+                testGraph.insertEdge(previous, next, 1.0 + i);
+                if (corridor[3] == 0) {
+                    testGraph.insertEdge(next, previous, 2.0 + i);
+                }
+                previous = next++;
+            }
+            if (corridor[1] != -1) {
+                testGraph.insertEdge(previous, corridor[1], 1.5);
+                if (corridor[3] == 0) {
+                    testGraph.insertEdge(corridor[1], previous, 2.5);
+                }
+            }
+        }
+        ChainContraction<Integer, Double> chains = testGraph.enableChainContraction();
+        assertTrue(chains.getContractedNodeCount() >= 16, "Corridor nodes were not contracted");
+        assertTrue(chains.getChainCount() >= 4, "Corridors were not found as chains");
+
+        List<Integer> nodes = testGraph.getAllNodes();
+        for (int round = 0; round < 3; round++) {
+            for (int s : nodes) {
+                for (int t : nodes) {
+                    if (!testGraph.pathExists(s, t)) {
+                        assertThrows(NoSuchElementException.class, () -> testGraph
+                                .shortestPathCost(s, t), "Pair without a path from " + s +
+                                " to " + t + " didn't throw exception");
+                        continue;
+                    }
+                    double expected = testGraph.shortestPathCost(s, t, null);
+                    assertEquals(expected, testGraph.shortestPathCost(s, t), 1e-9,
+                            "Wrong cost from " + s + " to " + t + " in round " + round);
+                    List<Integer> path = testGraph.shortestPathData(s, t);
+                    assertEquals(s, path.get(0), "Path must begin at the start");
+                    assertEquals(t, path.get(path.size() - 1), "Path must end at the end");
+                    double cost = 0.0;
+                    for (int i = 1; i < path.size(); i++) {
+                        cost += testGraph.getEdge(path.get(i - 1), path.get(i));
+                    }
+                    assertEquals(expected, cost, 1e-9, "Expanded path from " + s + " to " + t +
+                            " has the wrong cost in round " + round);
+                }
+            }
+            if (round == 0) {
+                // make the long corridor slower in one direction, without changing its chain
+                testGraph.insertEdge(102, 103, 500.0);
+            } else {
+                // cut the long corridor, so that its chains have to be found again
+                testGraph.removeEdge(103, 104);
+                testGraph.removeEdge(104, 103);
+            }
+        }
+        testGraph.disableChainContraction();
+    }
+
+    /**
+     * Tests that AllPairsDistances gives the same costs as Dijkstra's algorithm for every pair of
+     * nodes of a 12x12 grid with some edges removed, using tiles that do not divide the number
+     * of nodes evenly, with both the scalar kernel and (when available) the vector kernel.
+     */
+    @Test
+    public void testAllPairsDistancesMatchDijkstra() {
+        GraphSnapshot<Integer> grid = DeltaSteppingSearch.randomGrid(12, 23);
+        DijkstraGraph<Integer, Double> testGraph = new DijkstraGraph<>();
+        for (int v = 0; v < grid.nodeCount; v++) {
+            testGraph.insertNode(v);
+        }
+        for (int v = 0; v < grid.nodeCount; v++) {
+            for (int e = grid.forwardOffsets[v]; e < grid.forwardOffsets[v + 1]; e++) {
+                testGraph.insertEdge(v, grid.forwardTargets[e], grid.forwardWeights[e]);
+            }
+        }
+        // cut off the last row from above, and remove a node so that ids have a gap
+        for (int column = 0; column < 12; column++) {
+            testGraph.removeEdge(120 + column, 132 + column);
+        }
+        testGraph.removeNode(50);
+
+        for (boolean vectorize : new boolean[] {false, true}) {
+            AllPairsDistances<Integer> distances = new AllPairsDistances<>(
+                    GraphSnapshot.of(testGraph), ForkJoinPool.commonPool(), vectorize, 10);
+            for (int s : testGraph.getAllNodes()) {
+                for (int t : testGraph.getAllNodes()) {
+                    double expected = testGraph.pathExists(s, t) ?
+                            testGraph.shortestPathCost(s, t, null) : Double.POSITIVE_INFINITY;
+                    assertEquals(expected, distances.shortestPathCost(s, t), 1e-9,
+                            "Wrong cost from " + s + " to " + t + " (vectorize " + vectorize +
+                            ")");
+                }
+            }
+            assertThrows(NoSuchElementException.class, () -> distances.shortestPathCost(50, 0),
+                    "Removed node didn't throw exception");
+        }
+    }
+
+    /**
+     * Tests the approximate distance oracle on a 15x15 grid whose edges weigh the same both
+     * ways: with k = 1 every estimate is exact, with k = 3 every estimate is between the real
+     * cost and 5 times the real cost, and exact queries are unaffected. Once an edge changes,
+     * approximate queries give exact costs until the oracle is built again.
+     */
+    @Test
+    public void testDistanceOracleStretch() {
+        GraphSnapshot<Integer> grid = DeltaSteppingSearch.randomGrid(15, 29);
+        DijkstraGraph<Integer, Double> testGraph = new DijkstraGraph<>();
+        for (int v = 0; v < grid.nodeCount; v++) {
+            testGraph.insertNode(v);
+        }
+        for (int v = 0; v < grid.nodeCount; v++) {
+            for (int e = grid.forwardOffsets[v]; e < grid.forwardOffsets[v + 1]; e++) {
+                if (v < grid.forwardTargets[e]) {
+                    testGraph.insertEdge(v, grid.forwardTargets[e], grid.forwardWeights[e]);
+                    testGraph.insertEdge(grid.forwardTargets[e], v, grid.forwardWeights[e]);
+                }
+            }
+        }
+        testGraph.insertNode(-1); // a node without edges
+
+        DistanceOracle<Integer> exact = testGraph.buildDistanceOracle(1);
+        for (int s = 0; s < grid.nodeCount; s += 3) {
+            for (int t = 0; t < grid.nodeCount; t += 5) {
+                assertEquals(testGraph.shortestPathCost(s, t), exact.shortestPathCost(s, t), 1e-9,
+                        "k = 1 must give the exact cost from " + s + " to " + t);
+            }
+        }
+
+        DistanceOracle<Integer> oracle = testGraph.buildDistanceOracle(3);
+        assertEquals(3, oracle.getK());
+        for (int s = 0; s < grid.nodeCount; s += 2) {
+            for (int t = 0; t < grid.nodeCount; t += 3) {
+                double real = testGraph.shortestPathCost(s, t);
+                double estimate = testGraph.shortestPathCost(s, t, true);
+                assertTrue(estimate >= real - 1e-9, "Estimate from " + s + " to " + t +
+                        " is below the real cost");
+                assertTrue(estimate <= 5 * real + 1e-9, "Estimate from " + s + " to " + t +
+                        " is more than 2k - 1 times the real cost");
+                assertEquals(real, testGraph.shortestPathCost(s, t, false), 1e-9);
+            }
+        }
+        assertThrows(NoSuchElementException.class, () -> testGraph.shortestPathCost(0, -1, true),
+                "Pair without a path didn't throw exception");
+
+        // once the graph changes, the stale oracle must not be used
+        testGraph.insertEdge(0, 224, 0.5);
+        assertEquals(0.5, testGraph.shortestPathCost(0, 224, true), 1e-9);
+    }
+
+    /**
+     * Tests alternative routes on three graphs. In a ladder with two disjoint sides, the second
+     * route must be the other side. A path whose edges weigh nothing must be returned once. In a
+     * 12x12 grid whose edges weigh the same both ways, every route must start and end at the
+     * right nodes, follow existing edges, visit no node twice, cost at most 25% more than the
+     * shortest path, and share at most 80% of the shortest path's cost with each earlier route.
+     */
+    @Test
+    public void testAlternativeRoutes() {
+        DijkstraGraph<String, Double> ladder = new DijkstraGraph<>();
+        for (String node : new String[] {"S", "A1", "A2", "A3", "B1", "B2", "B3", "T"}) {
+            ladder.insertNode(node);
+        }
+        String[][] sides = {{"S", "A1", "A2", "A3", "T"}, {"S", "B1", "B2", "B3", "T"}};
+        for (int side = 0; side < 2; side++) {
+            for (int i = 1; i < sides[side].length; i++) {
+                ladder.insertEdge(sides[side][i - 1], sides[side][i], 1.0 + side * 0.05);
+            }
+        }
+        List<List<String>> ladderRoutes = ladder.alternativeRoutes("S", "T", 3);
+        assertEquals(2, ladderRoutes.size(), "The ladder has exactly two different routes");
+        assertEquals(List.of(sides[0]), ladderRoutes.get(0), "Cheaper side must come first");
+        assertEquals(List.of(sides[1]), ladderRoutes.get(1), "Other side must come second");
+        assertEquals(1, ladder.alternativeRoutes("S", "T", 1).size());
+        assertThrows(NoSuchElementException.class, () -> ladder.alternativeRoutes("T", "S", 2),
+                "Pair without a path didn't throw exception");
+
+        // a shortest path of cost 0 must not be returned a second time
+        DijkstraGraph<String, Double> free = new DijkstraGraph<>();
+        for (String node : new String[] {"S", "A", "T"}) {
+            free.insertNode(node);
+        }
+        free.insertEdge("S", "A", 0.0);
+        free.insertEdge("A", "T", 0.0);
+        assertEquals(List.of(List.of("S", "A", "T")), free.alternativeRoutes("S", "T", 3),
+                "Route of cost 0 was returned more than once");
+
+        GraphSnapshot<Integer> grid = DeltaSteppingSearch.randomGrid(12, 31);
+        DijkstraGraph<Integer, Double> testGraph = new DijkstraGraph<>();
+        for (int v = 0; v < grid.nodeCount; v++) {
+            testGraph.insertNode(v);
+        }
+        for (int v = 0; v < grid.nodeCount; v++) {
+            for (int e = grid.forwardOffsets[v]; e < grid.forwardOffsets[v + 1]; e++) {
+                if (v < grid.forwardTargets[e]) {
+                    testGraph.insertEdge(v, grid.forwardTargets[e], grid.forwardWeights[e]);
+                    testGraph.insertEdge(grid.forwardTargets[e], v, grid.forwardWeights[e]);
+                }
+            }
+        }
+        int[][] pairs = {{0, 143}, {11, 132}, {5, 138}, {60, 71}};
+        int withAlternatives = 0;
+        for (int[] pair : pairs) {
+            double shortest = testGraph.shortestPathCost(pair[0], pair[1]);
+            List<List<Integer>> routes = testGraph.alternativeRoutes(pair[0], pair[1], 4);
+            assertTrue(routes.size() >= 1 && routes.size() <= 4);
+            if (routes.size() > 1) {
+                withAlternatives++;
+            }
+            for (int r = 0; r < routes.size(); r++) {
+                List<Integer> route = routes.get(r);
+                assertEquals(pair[0], route.get(0), "Route must begin at the start");
+                assertEquals(pair[1], route.get(route.size() - 1), "Route must end at the end");
+                assertEquals(route.size(), new HashSet<>(route).size(), "Route visits a node twice");
+                double cost = 0.0;
+                for (int i = 1; i < route.size(); i++) {
+                    cost += testGraph.getEdge(route.get(i - 1), route.get(i));
+                }
+                if (r == 0) {
+                    assertEquals(shortest, cost, 1e-9, "First route must be the shortest path");
+                }
+                assertTrue(cost <= 1.25 * shortest + 1e-9, "Route costs too much more");
+                for (int earlier = 0; earlier < r; earlier++) {
+                    double shared = 0.0;
+                    List<Integer> other = routes.get(earlier);
+                    for (int i = 1; i < route.size(); i++) {
+                        int index = other.indexOf(route.get(i - 1));
+                        if (index != -1 && index + 1 < other.size() &&
+                                other.get(index + 1).equals(route.get(i))) {
+                            shared += testGraph.getEdge(route.get(i - 1), route.get(i));
+                        }
+                    }
+                    assertTrue(shared <= 0.8 * shortest + 1e-9, "Route shares too much with " +
+                            "route " + earlier);
+                }
+            }
+        }
+        assertTrue(withAlternatives >= 2, "Too few pairs had any alternative route");
+    }
+
+    /**
+     * Tests that edges are found through the edge index after insertions, weight updates,
+     * removals and node removals, including when a removed node's id is reused by a new node
+     * that must not inherit the old node's edges, and that lookups involving missing nodes
+     * return false or throw NoSuchElementException as before.
+     */
+    @Test
+    public void testEdgeIndex() {
+        DijkstraGraph<String, Double> testGraph = new DijkstraGraph<>();
+        for (String node : new String[] {"A", "B", "C"}) {
+            testGraph.insertNode(node);
+        }
+        assertTrue(testGraph.insertEdge("A", "B", 1.0));
+        assertTrue(testGraph.insertEdge("B", "C", 2.0));
+        assertTrue(testGraph.insertEdge("C", "A", 3.0));
+        assertTrue(testGraph.insertEdge("B", "B", 4.0));
+        assertTrue(testGraph.insertEdge("A", "B", 5.0), "Weight update failed");
+        assertEquals(4, testGraph.getEdgeCount());
+        assertEquals(5.0, testGraph.getEdge("A", "B"));
+        assertEquals(5.0, testGraph.edgeBetween(testGraph.nodeIdOf("A"), testGraph.nodeIdOf("B")));
+        assertFalse(testGraph.insertEdge("A", "Z", 1.0), "Edge to a missing node was inserted");
+        assertFalse(testGraph.containsEdge("Z", "A"));
+        assertFalse(testGraph.removeEdge("A", "Z"));
+        assertThrows(NoSuchElementException.class, () -> testGraph.getEdge("Z", "A"));
+        assertThrows(NoSuchElementException.class, () -> testGraph.edgeBetween(0, -1));
+
+        int removedId = testGraph.nodeIdOf("B");
+        assertTrue(testGraph.removeNode("B"));
+        assertEquals(1, testGraph.getEdgeCount());
+        assertFalse(testGraph.containsEdge("A", "B"));
+        testGraph.insertNode("D");
+        assertEquals(removedId, testGraph.nodeIdOf("D"), "Removed node's id wasn't reused");
+        assertFalse(testGraph.containsEdge("A", "D"), "New node inherited an edge");
+        assertFalse(testGraph.containsEdge("D", "C"), "New node inherited an edge");
+        assertFalse(testGraph.containsEdge("D", "D"), "New node inherited a self-loop");
+        assertTrue(testGraph.insertEdge("A", "D", 6.0));
+        assertEquals(2, testGraph.getEdgeCount());
+        assertTrue(testGraph.removeEdge("A", "D"));
+        assertFalse(testGraph.containsEdge("A", "D"));
+        assertEquals(3.0, testGraph.getEdge("C", "A"));
+    }
+
+    /**
+     * Tests that removing a node subtracts each of its edges from the edge count once: edges
+     * leaving it, edges entering it, an edge in each direction to the same neighbor, and a
+     * self-loop.
+     */
+    @Test
+    public void testRemoveNodeEdgeCount() {
+        DijkstraGraph<String, Double> testGraph = new DijkstraGraph<>();
+        for (String node : new String[] {"A", "B", "C", "D"}) {
+            testGraph.insertNode(node);
+        }
+        testGraph.insertEdge("A", "B", 1.0);
+        testGraph.insertEdge("B", "A", 1.0);
+        testGraph.insertEdge("A", "C", 1.0);
+        testGraph.insertEdge("D", "A", 1.0);
+        testGraph.insertEdge("A", "A", 1.0);
+        testGraph.insertEdge("B", "C", 1.0);
+        testGraph.insertEdge("C", "D", 1.0);
+        assertEquals(7, testGraph.getEdgeCount());
+        assertTrue(testGraph.removeNode("A"));
+        assertEquals(2, testGraph.getEdgeCount(), "Edges of the removed node are still counted");
+        assertTrue(testGraph.removeNode("C"));
+        assertEquals(0, testGraph.getEdgeCount());
+        assertFalse(testGraph.removeNode("A"));
+        assertEquals(0, testGraph.getEdgeCount());
+    }
 }
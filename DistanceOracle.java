@@ -0,0 +1,474 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * A DistanceOracle estimates the cost of shortest paths in a graph that does not change, using
+ * far less memory than a table of all costs, in the way of Thorup and Zwick's approximate
+ * distance oracles. For a parameter k, nodes are sampled into nested levels A_0 (every node)
+ * &#8839; A_1 &#8839; ... &#8839; A_(k-1), where each level keeps every node of the one below
+ * with probability n^(-1/k). For each node v and level i, the oracle remembers the pivot of v:
+ * the node of A_i nearest to v. It also remembers the bunch of v: every node w of level i (but
+ * not i + 1) that is closer to v than any node of A_(i+1), together with the exact cost between
+ * v and w. Bunches have about k * n^(1/k) entries each, so the oracle takes about
+ * k * n^(1+1/k) space in total.
+ * <p>
+ * A query from u to v walks up the levels, and at each level checks whether the pivot of u is
+ * in the bunch of v, or the pivot of v is in the bunch of u; the first hit w gives the cost of
+ * the path from u to w to v. That takes at most 2k bunch lookups. On graphs where every edge can
+ * be walked both ways at the same cost, the estimate is at most 2k - 1 times the real cost, and
+ * k = 1 gives exact costs (every bunch then holds every node).
+ * <p>
+ * Since the graphs here are directed, every node has two pivots and two bunches per level: one
+ * for paths leaving it, and one for paths entering it. On directed graphs an estimate is still
+ * the cost of a real path, but the stretch bound can fail. When no level gives a hit (which can
+ * only happen when some nodes cannot reach each other), the oracle answers with an exact search.
+ */
+public class DistanceOracle<NodeType> {
+
+    private final GraphSnapshot<NodeType> graph;
+    private final HashMap<NodeType, Integer> idOf = new HashMap<>();
+    private final int k;
+    // level[v] is the highest i with v in A_i
+    private final int[] level;
+    // fromPivot[i * nodeCount + v] is the node of A_i nearest from v (reached by a path leaving
+    // v), at a cost of fromPivotCost[i * nodeCount + v]; toPivot is the node of A_i nearest to v
+    // (with a path entering v). Both are -1 when no such node exists.
+    private final int[] fromPivot;
+    private final double[] fromPivotCost;
+    private final int[] toPivot;
+    private final double[] toPivotCost;
+    // the out-bunch of v lists the nodes outHubs[outOffsets[v] .. outOffsets[v + 1] - 1], sorted
+    // by id, with the cost of the shortest path from v to each of them; the in-bunch of v lists
+    // nodes with the cost of the shortest path from each of them to v
+    private final int[] outOffsets;
+    private final int[] outHubs;
+    private final double[] outCosts;
+    private final int[] inOffsets;
+    private final int[] inHubs;
+    private final double[] inCosts;
+    private final long buildNanos;
+    // reused by the exact searches that answer queries no bunch covers
+    private final ThreadLocal<SearchWorkspace<NodeType, Double>> searchWorkspaces =
+            ThreadLocal.withInitial(SearchWorkspace::new);
+
+    /**
+     * Builds an oracle for the provided graph.
+     *
+     * @param graph the graph to estimate costs in
+     * @param k     the number of levels; estimates get worse but the oracle smaller as k grows
+     * @throws IllegalArgumentException when k is less than 1
+     */
+    public DistanceOracle(BaseGraph<NodeType, ? extends Number> graph, int k) {
+        this(GraphSnapshot.of(graph), k, new Random(42));
+    }
+
+    /**
+     * Builds an oracle for the provided snapshot.
+     *
+     * @param graph  the snapshot to estimate costs in
+     * @param k      the number of levels; estimates get worse but the oracle smaller as k grows
+     * @param random the source of the random choice of each level's nodes
+     * @throws IllegalArgumentException when k is less than 1
+     */
+    public DistanceOracle(GraphSnapshot<NodeType> graph, int k, Random random) {
+        long start = System.nanoTime();
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1");
+        }
+        this.graph = graph;
+        this.k = k;
+        int nodeCount = graph.nodeCount;
+        List<Integer> nodes = new ArrayList<>();
+        for (int v = 0; v < nodeCount; v++) {
+            if (graph.dataOf(v) != null) {
+                this.idOf.put(graph.dataOf(v), v);
+                nodes.add(v);
+            }
+        }
+
+        // sample the levels, trying again while the top level comes out empty
+        this.level = new int[nodeCount];
+        double keep = Math.pow(Math.max(nodes.size(), 1), -1.0 / k);
+        boolean topIsEmpty = k > 1 && !nodes.isEmpty();
+        while (topIsEmpty) {
+            for (int v : nodes) {
+                int i = 0;
+                while (i + 1 < k && random.nextDouble() < keep) {
+                    i++;
+                }
+                this.level[v] = i;
+                topIsEmpty &= i < k - 1;
+            }
+        }
+
+        // pivots of every level, from one search that starts at every node of that level at once
+        this.fromPivot = new int[k * nodeCount];
+        this.fromPivotCost = new double[k * nodeCount];
+        this.toPivot = new int[k * nodeCount];
+        this.toPivotCost = new double[k * nodeCount];
+        HubLabelIndex.MinHeap heap = new HubLabelIndex.MinHeap(nodeCount);
+        for (int i = 0; i < k; i++) {
+            // the nearest node of A_i from v is found by searching backward from A_i
+            this.findPivots(i, heap, graph.backwardOffsets, graph.backwardSources,
+                    graph.backwardWeights, this.fromPivot, this.fromPivotCost);
+            this.findPivots(i, heap, graph.forwardOffsets, graph.forwardTargets,
+                    graph.forwardWeights, this.toPivot, this.toPivotCost);
+        }
+
+        // bunches: each node w of level i reaches exactly the nodes closer to w than to A_(i+1),
+        // and since nodes are taken in order of id, every bunch comes out sorted by id
+        BunchBuilder outBunches = new BunchBuilder(nodeCount);
+        BunchBuilder inBunches = new BunchBuilder(nodeCount);
+        double[] cost = new double[nodeCount];
+        Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        for (int w : nodes) {
+            // the out-bunches that w joins are found by searching backward from w
+            this.growCluster(w, heap, cost, graph.backwardOffsets, graph.backwardSources,
+                    graph.backwardWeights, this.fromPivotCost, outBunches);
+            this.growCluster(w, heap, cost, graph.forwardOffsets, graph.forwardTargets,
+                    graph.forwardWeights, this.toPivotCost, inBunches);
+        }
+        this.outOffsets = outBunches.offsets();
+        this.outHubs = outBunches.hubs();
+        this.outCosts = outBunches.costs();
+        this.inOffsets = inBunches.offsets();
+        this.inHubs = inBunches.hubs();
+        this.inCosts = inBunches.costs();
+        this.buildNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Finds, for every node, the nearest node of level i along the provided adjacency arrays,
+     * with a single search that starts from all nodes of A_i.
+     */
+    private void findPivots(int i, HubLabelIndex.MinHeap heap, int[] offsets, int[] neighbors,
+                            double[] weights, int[] pivot, double[] pivotCost) {
+        int nodeCount = this.graph.nodeCount;
+        int base = i * nodeCount;
+        Arrays.fill(pivot, base, base + nodeCount, -1);
+        Arrays.fill(pivotCost, base, base + nodeCount, Double.POSITIVE_INFINITY);
+        heap.clear();
+        for (int v = 0; v < nodeCount; v++) {
+            if (this.graph.dataOf(v) != null && this.level[v] >= i) {
+                pivot[base + v] = v;
+                pivotCost[base + v] = 0.0;
+                heap.add(0.0, v);
+            }
+        }
+        while (!heap.isEmpty()) {
+            double costOfU = heap.peekKey();
+            int u = heap.poll();
+            if (costOfU > pivotCost[base + u]) {
+                continue; // stale entry
+            }
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int v = neighbors[e];
+                double candidate = costOfU + weights[e];
+                if (candidate < pivotCost[base + v]) {
+                    pivotCost[base + v] = candidate;
+                    pivot[base + v] = pivot[base + u];
+                    heap.add(candidate, v);
+                }
+            }
+        }
+    }
+
+    /**
+     * Searches from w along the provided adjacency arrays, adding w to the bunch of every node
+     * that is closer to w than to any node of the level above w's. Nodes outside of that cluster
+     * are not expanded, since no shortest path from the cluster leads back into it through them.
+     */
+    private void growCluster(int w, HubLabelIndex.MinHeap heap, double[] cost, int[] offsets,
+                             int[] neighbors, double[] weights, double[] pivotCost,
+                             BunchBuilder bunches) {
+        int nodeCount = this.graph.nodeCount;
+        int above = this.level[w] + 1;
+        List<Integer> touched = new ArrayList<>();
+        cost[w] = 0.0;
+        touched.add(w);
+        heap.clear();
+        heap.add(0.0, w);
+        while (!heap.isEmpty()) {
+            double costOfU = heap.peekKey();
+            int u = heap.poll();
+            if (costOfU > cost[u]) {
+                continue; // stale entry
+            }
+            // the top level has nothing above it, so its clusters reach every node
+            if (above < this.k && costOfU >= pivotCost[above * nodeCount + u]) {
+                continue;
+            }
+            bunches.add(u, w, costOfU);
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int v = neighbors[e];
+                double candidate = costOfU + weights[e];
+                if (candidate < cost[v]) {
+                    if (cost[v] == Double.POSITIVE_INFINITY) {
+                        touched.add(v);
+                    }
+                    cost[v] = candidate;
+                    heap.add(candidate, v);
+                }
+            }
+        }
+        for (int v : touched) {
+            cost[v] = Double.POSITIVE_INFINITY;
+        }
+    }
+
+    /**
+     * Growable bunches of every node, copied into flat arrays once all clusters are grown.
+     */
+    private static class BunchBuilder {
+        final int[][] hubs;
+        final double[][] costs;
+        final int[] size;
+
+        BunchBuilder(int nodeCount) {
+            this.hubs = new int[nodeCount][];
+            this.costs = new double[nodeCount][];
+            this.size = new int[nodeCount];
+            for (int v = 0; v < nodeCount; v++) {
+                this.hubs[v] = new int[2];
+                this.costs[v] = new double[2];
+            }
+        }
+
+        void add(int v, int hub, double cost) {
+            if (this.size[v] == this.hubs[v].length) {
+                int capacity = this.size[v] * 2;
+                this.hubs[v] = Arrays.copyOf(this.hubs[v], capacity);
+                this.costs[v] = Arrays.copyOf(this.costs[v], capacity);
+            }
+            this.hubs[v][this.size[v]] = hub;
+            this.costs[v][this.size[v]] = cost;
+            this.size[v]++;
+        }
+
+        int[] offsets() {
+            int[] offsets = new int[this.size.length + 1];
+            for (int v = 0; v < this.size.length; v++) {
+                offsets[v + 1] = offsets[v] + this.size[v];
+            }
+            return offsets;
+        }
+
+        int[] hubs() {
+            int[] flat = new int[this.offsets()[this.size.length]];
+            for (int v = 0, position = 0; v < this.size.length; position += this.size[v], v++) {
+                System.arraycopy(this.hubs[v], 0, flat, position, this.size[v]);
+            }
+            return flat;
+        }
+
+        double[] costs() {
+            double[] flat = new double[this.offsets()[this.size.length]];
+            for (int v = 0, position = 0; v < this.size.length; position += this.size[v], v++) {
+                System.arraycopy(this.costs[v], 0, flat, position, this.size[v]);
+            }
+            return flat;
+        }
+    }
+
+    /**
+     * Returns the cost stored with hub in the bunch of v, or Double.POSITIVE_INFINITY when hub
+     * is not in the bunch.
+     */
+    private static double bunchCost(int[] offsets, int[] hubs, double[] costs, int v, int hub) {
+        int index = Arrays.binarySearch(hubs, offsets[v], offsets[v + 1], hub);
+        return index >= 0 ? costs[index] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns an estimate of the cost of the shortest path from start to end: the cost of a path
+     * from start to end that, on graphs whose edges weigh the same both ways, costs at most
+     * 2k - 1 times as much as the shortest one.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return the estimated cost, or Double.POSITIVE_INFINITY when there is no path
+     * @throws NoSuchElementException when start or end is not a node of the graph
+     */
+    public double shortestPathCost(NodeType start, NodeType end) {
+        int u = this.idOf(start);
+        int v = this.idOf(end);
+        int nodeCount = this.graph.nodeCount;
+        for (int i = 0; i < this.k; i++) {
+            int w = this.fromPivot[i * nodeCount + u];
+            if (w != -1) {
+                double cost = bunchCost(this.inOffsets, this.inHubs, this.inCosts, v, w);
+                if (cost != Double.POSITIVE_INFINITY) {
+                    return this.fromPivotCost[i * nodeCount + u] + cost;
+                }
+            }
+            w = this.toPivot[i * nodeCount + v];
+            if (w != -1) {
+                double cost = bunchCost(this.outOffsets, this.outHubs, this.outCosts, u, w);
+                if (cost != Double.POSITIVE_INFINITY) {
+                    return cost + this.toPivotCost[i * nodeCount + v];
+                }
+            }
+        }
+        return this.exactCost(u, v);
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from u until v is settled, on this thread's workspace so that a
+     * query allocates nothing that grows with the graph.
+     */
+    private double exactCost(int u, int v) {
+        SearchWorkspace<NodeType, Double> workspace = this.searchWorkspaces.get();
+        workspace.reset(this.graph.nodeCount);
+        workspace.offer(u, 0.0, -1);
+        while (!workspace.isEmpty()) {
+            int x = workspace.settleNext();
+            double costOfX = workspace.costOf(x);
+            if (x == v) {
+                return costOfX;
+            }
+            for (int e = this.graph.forwardOffsets[x]; e < this.graph.forwardOffsets[x + 1];
+                 e++) {
+                int y = this.graph.forwardTargets[e];
+                if (!workspace.isSettled(y)) {
+                    workspace.offer(y, costOfX + this.graph.forwardWeights[e], x);
+                }
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    private int idOf(NodeType data) {
+        Integer id = this.idOf.get(data);
+        if (id == null) {
+            throw new NoSuchElementException("Node is not present in the graph");
+        }
+        return id;
+    }
+
+    /**
+     * Returns the number of levels, which bounds the stretch of estimates at 2k - 1.
+     *
+     * @return the parameter k the oracle was built with
+     */
+    public int getK() {
+        return this.k;
+    }
+
+    /**
+     * Returns how long it took to build the oracle.
+     *
+     * @return the build time in milliseconds
+     */
+    public double getBuildMillis() {
+        return this.buildNanos / 1e6;
+    }
+
+    /**
+     * Returns the total number of entries in all out-bunches and in-bunches.
+     *
+     * @return the number of bunch entries
+     */
+    public long getBunchEntryCount() {
+        return this.outHubs.length + (long) this.inHubs.length;
+    }
+
+    /**
+     * Returns the memory used by the bunches and pivots, not counting the graph itself.
+     *
+     * @return the size of the oracle's arrays in bytes
+     */
+    public long getOracleBytes() {
+        // 12 bytes per bunch entry and per pivot, 4 bytes per offset
+        return 12L * (this.getBunchEntryCount() + this.fromPivot.length + this.toPivot.length) +
+                4L * (this.outOffsets.length + this.inOffsets.length);
+    }
+
+    /**
+     * Builds oracles for k = 1 (on graphs small enough for it) to 4 and reports their size, build
+     * time, query latency and how far estimates are from the real costs.
+     *
+     * @param args either a DOT file to load (default campus.dot), or the side length of a
+     *             synthetic grid graph
+     * @throws IOException when the DOT file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        String source = args.length > 0 ? args[0] : "campus.dot";
+        if (source.matches("\\d+")) {
+            GraphSnapshot<Integer> grid = DeltaSteppingSearch.randomGrid(Integer.parseInt(source),
+                    42);
+            DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+            for (int v = 0; v < grid.nodeCount; v++) {
+                graph.insertNode(v);
+            }
+            for (int v = 0; v < grid.nodeCount; v++) {
+                for (int e = grid.forwardOffsets[v]; e < grid.forwardOffsets[v + 1]; e++) {
+                    graph.insertEdge(v, grid.forwardTargets[e], grid.forwardWeights[e]);
+                }
+            }
+            report(source + "x" + source + " grid", graph);
+        } else {
+            DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+            new Backend(graph).loadGraphData(source);
+            report(source, graph);
+        }
+    }
+
+    /**
+     * Prints the size, build time, query latency and stretch of oracles for graph.
+     */
+    private static <T> void report(String name, DijkstraGraph<T, Double> graph) {
+        System.out.println(String.format("%s: %d nodes, %d edges (all pairs: %.1f MB)", name,
+                graph.getNodeCount(), graph.getEdgeCount(),
+                8.0 * graph.getNodeCount() * graph.getNodeCount() / 1e6));
+        List<T> nodes = graph.getAllNodes();
+        Random random = new Random(7);
+        int pairs = 1000;
+        List<T> starts = new ArrayList<>();
+        List<T> ends = new ArrayList<>();
+        double[] exact = new double[pairs];
+        for (int i = 0; i < pairs; i++) {
+            starts.add(nodes.get(random.nextInt(nodes.size())));
+            ends.add(nodes.get(random.nextInt(nodes.size())));
+            exact[i] = graph.pathExists(starts.get(i), ends.get(i)) ?
+                    graph.shortestPathCost(starts.get(i), ends.get(i)) : Double.POSITIVE_INFINITY;
+        }
+        GraphSnapshot<T> snapshot = GraphSnapshot.of(graph);
+        // with k = 1 every bunch holds every node, which is as large as a table of all costs
+        for (int k = graph.getNodeCount() <= 5000 ? 1 : 2; k <= 4; k++) {
+            DistanceOracle<T> oracle = new DistanceOracle<>(snapshot, k, new Random(42));
+            double worst = 1.0;
+            double total = 0.0;
+            int counted = 0;
+            for (int i = 0; i < pairs; i++) {
+                double estimate = oracle.shortestPathCost(starts.get(i), ends.get(i));
+                if (exact[i] > 0.0 && exact[i] != Double.POSITIVE_INFINITY) {
+                    worst = Math.max(worst, estimate / exact[i]);
+                    total += estimate / exact[i];
+                    counted++;
+                }
+            }
+            double checksum = 0.0;
+            int repeats = 200;
+            long start = System.nanoTime();
+            for (int round = 0; round < repeats; round++) {
+                for (int i = 0; i < pairs; i++) {
+                    checksum += oracle.shortestPathCost(starts.get(i), ends.get(i));
+                }
+            }
+            double queryNanos = (System.nanoTime() - start) / (double) (repeats * pairs);
+            System.out.println(String.format("k = %d: %.1f MB, %.1f entries per node, built in " +
+                    "%.1f ms, %.0f ns per query, stretch %.3f on average and %.3f at most", k,
+                    oracle.getOracleBytes() / 1e6,
+                    oracle.getBunchEntryCount() / (double) graph.getNodeCount(),
+                    oracle.getBuildMillis(), queryNanos, total / Math.max(counted, 1), worst));
+            if (checksum == 42.0) {
+                System.out.println(); // keeps the queries from being optimized away
+            }
+        }
+    }
+}
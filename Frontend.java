@@ -173,4 +173,74 @@ public class Frontend implements FrontendInterface {
 
         return htmlPathDescription.toString();
     }
+
+    /**
+     * Returns an HTML fragment that can be embedded within the body of a larger html page.  This
+     * HTML output should include: - a text input field with the id="origin", for the start
+     * location - a text input field with the id="seconds", for the time budget - a button labelled
+     * "Reachable Within Time" to submit this request. Ensure that these text fields are clearly
+     * labelled, so that the user can understand how to use them.
+     *
+     * @return an HTML string that contains input controls that the user can make use of to request
+     * the locations reachable within a time
+     */
+    @Override
+    public String generateReachableWithinPromptHTML() {
+        StringBuilder htmlReachableControls = new StringBuilder();
+        htmlReachableControls.append(
+                "<label for=\"origin\">Start Location" +
+                        "<input type=\"text\" id=\"origin\">" +
+                "</label>\n" +
+                "<label for=\"seconds\">Time Budget (seconds)" +
+                        "<input type=\"text\" id=\"seconds\">" +
+                "</label>\n" +
+                "<button id=\"find-reachable\" type=\"button\" " +
+                        "onclick=\"generateReachableWithinResponseHTML(" +
+                        "document.getElementById('origin').value," +
+                        "document.getElementById('seconds').value)\">" +
+                        "Reachable Within Time" +
+                "</button>\n");
+
+        return htmlReachableControls.toString();
+    }
+
+    /**
+     * Returns an HTML fragment that can be embedded within the body of a larger html page.  This
+     * HTML output should include: - a paragraph (p) that describes the start location and time
+     * budget - an ordered list (ol) of the reachable locations with the time it takes to reach
+     * each of them. Or if the request cannot be answered, the HTML returned should instead
+     * indicate the kind of problem encountered.
+     *
+     * @param start   is the starting location to search from
+     * @param seconds is the time budget in seconds, as entered by the user
+     * @return an HTML string that describes the locations that can be reached from start within
+     * the time budget
+     */
+    @Override
+    public String generateReachableWithinResponseHTML(String start, String seconds) {
+        StringBuilder htmlReachableDescription = new StringBuilder();
+        List<String> locations = null;
+        List<Double> times = null;
+
+        try {
+            double budget = Double.parseDouble(seconds);
+            locations = backend.findLocationsWithinTime(start, budget);
+            times = backend.findTimesWithinTime(start, budget);
+        } catch (Exception e) {
+            System.err.println(e.getMessage());
+            return "<p> Error: Encountered error when calling .findLocationsWithinTime()</p>";
+        }
+
+        htmlReachableDescription.append("<p>Start point: ").append(start).append("</p>\n")
+                .append("<p>Reachable within ").append(seconds).append(" seconds:</p>\n");
+
+        htmlReachableDescription.append("<ol>\n");
+        for (int i = 0; i < locations.size(); i++) {
+            htmlReachableDescription.append("<li>").append(locations.get(i)).append(" (")
+                    .append(times.get(i)).append(" seconds)</li>\n");
+        }
+        htmlReachableDescription.append("</ol>\n");
+
+        return htmlReachableDescription.toString();
+    }
 }
@@ -72,5 +72,33 @@ public interface FrontendInterface {
      *        specified start location
      */
     public String generateFurthestDestinationFromResponseHTML(String start);
+
+    /**
+     * Returns an HTML fragment that can be embedded within the body of a
+     * larger html page.  This HTML output should include:
+     * - a text input field with the id="origin", for the start location
+     * - a text input field with the id="seconds", for the time budget
+     * - a button labelled "Reachable Within Time" to submit this request
+     * Ensure that these text fields are clearly labelled, so that the user
+     * can understand how to use them.
+     * @return an HTML string that contains input controls that the user can
+     *         make use of to request the locations reachable within a time
+     */
+    public String generateReachableWithinPromptHTML();
+
+    /**
+     * Returns an HTML fragment that can be embedded within the body of a
+     * larger html page.  This HTML output should include:
+     * - a paragraph (p) that describes the start location and time budget
+     * - an ordered list (ol) of the reachable locations, each with the time
+     *   it takes to reach it, ordered from the quickest to the slowest
+     * Or if the request cannot be answered, the HTML returned should instead
+     * indicate the kind of problem encountered.
+     * @param start is the starting location to search from
+     * @param seconds is the time budget in seconds, as entered by the user
+     * @return an HTML string that describes the locations that can be reached
+     *         from start within the time budget
+     */
+    public String generateReachableWithinResponseHTML(String start, String seconds);
  
 }
@@ -256,4 +256,32 @@ public class FrontendTests {
                 "HashtableMap.contains() and frontend expected to display specific " + "message");
 
     }
+
+    /**
+     * Tests the integration of .generateReachableWithinResponseHTML() in the frontend with
+     * .findLocationsWithinTime() and .findTimesWithinTime() in the backend. Memorial Union reaches
+     * Science Hall in 105.8 seconds, so a budget of 110 seconds must list both with their times,
+     * while a budget that is not a number must produce the error message.
+     */
+    @Test
+    public void integrationTest6() {
+        GraphADT<String, Double> testGraph = new DijkstraGraph<>();
+        BackendInterface testBackend = new Backend(testGraph);
+        try {
+            testBackend.loadGraphData("./campus.dot");
+        } catch (IOException e) {
+            fail(e.getMessage());
+        }
+        FrontendInterface testFrontend = new Frontend(testBackend);
+
+        String response = testFrontend.generateReachableWithinResponseHTML("Memorial Union", "110");
+        assertTrue(response.contains("<li>Memorial Union (0.0 seconds)</li>\n") && response.contains(
+                "<li>Science Hall (105.8 seconds)</li>\n"), "Missing reachable locations");
+        assertFalse(response.contains("Brat Stand"), "Location past the time budget was listed");
+
+        String invalidBudget = testFrontend.generateReachableWithinResponseHTML("Memorial Union",
+                "five minutes");
+        assertEquals("<p> Error: Encountered error when calling .findLocationsWithinTime()</p>",
+                invalidBudget, "Frontend should display specific message for an invalid budget");
+    }
 }
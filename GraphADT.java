@@ -32,6 +32,14 @@ public interface GraphADT<NodeType, EdgeType extends Number> {
    */
   public boolean removeNode(NodeType data);
 
+  /**
+   * Remove every node and edge from the graph. Implementations should drop
+   * their contents at once; this default removes the nodes one at a time.
+   */
+  public default void clear() {
+    for (NodeType node : getAllNodes()) removeNode(node);
+  }
+
   /**
    * Check whether the graph contains a node with the provided data.
    *
@@ -137,5 +145,20 @@ public interface GraphADT<NodeType, EdgeType extends Number> {
    *         start node to the end node
    */
   public double shortestPathCost(NodeType start, NodeType end);
+
+  /**
+   * Returns the data of every node that can be reached from the node with the
+   * provided start value along a path whose cost (sum over edge weights) is no
+   * greater than budget, mapped to the cost of its shortest path from start.
+   * The start value itself is always included with a cost of 0.
+   *
+   * @param start the data item in the starting node for the search
+   * @param budget the maximum path cost for a node to be included
+   * @return map from each reachable node's data to its shortest path cost
+   * @throws NoSuchElementException if the start node cannot be found in the
+   *         graph
+   * @throws IllegalArgumentException if budget is negative or NaN
+   */
+  public MapADT<NodeType, Double> reachableWithin(NodeType start, double budget);
     
 }
@@ -0,0 +1,221 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Collects the nodes and edges of a graph, such as those read from a dot file, and then puts
+ * them into a graph all at once. Adding them to a graph one at a time hashes both nodes of
+ * every edge, checks each node for a duplicate and each edge for an existing one, and grows the
+ * node map, the edge index and the edge lists as they fill up. A builder hashes each node's
+ * data once, into a map sized from a hint, and only appends the ids and weight of each edge
+ * to arrays.
+ * <p>
+ * When the graph is built, the edges are merged in bulk: they are grouped by their source with
+ * a counting sort, each group is sorted by target so that repeated edges end up next to each
+ * other, and of each run of edges between the same two nodes only one is kept, with the
+ * weight that was added last. The result is the same as if every edge had been passed to
+ * insertEdge in the order it was added: edge lists hold each edge at the position of its first
+ * insertion, and an edge added again updates its weight. A BaseGraph, such as a DijkstraGraph,
+ * is then filled by BaseGraph.load, which allocates each node's edge lists at their final size
+ * and finds no edge twice. Any other GraphADT is cleared, and then given the merged nodes and
+ * edges through insertNode and insertEdge.
+ * <p>
+ * A builder can be used again after it is built, to build the same graph or to add more.
+ */
+public class GraphBuilder<NodeType> {
+
+    // the id of each node's data, and the data of each id
+    private final OpenAddressingMap<NodeType, Integer> ids;
+    private final ArrayList<NodeType> nodes;
+    // edge j goes from node sources[j] to node targets[j] with weight weights[j]
+    private int[] sources;
+    private int[] targets;
+    private double[] weights;
+    private int edgeCount = 0;
+
+    /**
+     * Creates an empty builder with room for a few nodes and edges before it grows.
+     */
+    public GraphBuilder() {
+        this(16, 64);
+    }
+
+    /**
+     * Creates an empty builder with room for the provided number of nodes and edges, so that
+     * building a graph of about that size never grows the node map or the edge arrays.
+     *
+     * @param expectedNodes the number of distinct nodes to make room for
+     * @param expectedEdges the number of edges to make room for, counting repeated ones
+     */
+    public GraphBuilder(int expectedNodes, int expectedEdges) {
+        // the map grows once it is 3/4 full
+        this.ids = new OpenAddressingMap<>(Math.max(1, expectedNodes) * 4 / 3 + 1);
+        this.nodes = new ArrayList<>(Math.max(1, expectedNodes));
+        this.sources = new int[Math.max(1, expectedEdges)];
+        this.targets = new int[this.sources.length];
+        this.weights = new double[this.sources.length];
+    }
+
+    /**
+     * Adds a node, unless a node with the same data was added already.
+     *
+     * @param data the data of the node
+     * @return the id of the node with data in this builder, which is the number of distinct
+     *         nodes added before it
+     * @throws NullPointerException if data is null
+     */
+    public int addNode(NodeType data) {
+        // most nodes are added many times, so look them up without allocating first
+        Integer id = this.ids.getOrDefault(data, null);
+        if (id == null) {
+            id = this.nodes.size();
+            this.ids.put(data, id);
+            this.nodes.add(data);
+        }
+        return id;
+    }
+
+    /**
+     * Adds an edge between two nodes that were already added, by their ids. Adding an edge
+     * between the same two nodes again replaces its weight when the graph is built, like
+     * insertEdge does.
+     *
+     * @param source the id of the edge's predecessor node, as returned by addNode
+     * @param target the id of the edge's successor node, as returned by addNode
+     * @param weight the weight of the edge
+     * @throws IndexOutOfBoundsException if either id is not the id of a node
+     */
+    public void addEdgeBetweenIds(int source, int target, double weight) {
+        this.checkId(source);
+        this.checkId(target);
+        if (this.edgeCount == this.sources.length) {
+            int capacity = this.sources.length * 2;
+            this.sources = Arrays.copyOf(this.sources, capacity);
+            this.targets = Arrays.copyOf(this.targets, capacity);
+            this.weights = Arrays.copyOf(this.weights, capacity);
+        }
+        this.sources[this.edgeCount] = source;
+        this.targets[this.edgeCount] = target;
+        this.weights[this.edgeCount] = weight;
+        this.edgeCount++;
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= this.nodes.size()) {
+            throw new IndexOutOfBoundsException("No node has id " + id);
+        }
+    }
+
+    /**
+     * Adds an edge, and its two nodes unless they were added already.
+     *
+     * @param source the data of the edge's predecessor node
+     * @param target the data of the edge's successor node
+     * @param weight the weight of the edge
+     * @throws NullPointerException if source or target is null
+     */
+    public void addEdge(NodeType source, NodeType target, double weight) {
+        int sourceId = this.addNode(source);
+        this.addEdgeBetweenIds(sourceId, this.addNode(target), weight);
+    }
+
+    /**
+     * Returns the number of distinct nodes added so far.
+     *
+     * @return the number of nodes
+     */
+    public int getNodeCount() {
+        return this.nodes.size();
+    }
+
+    /**
+     * Returns the number of edges added so far, counting every edge that was added again.
+     *
+     * @return the number of calls to addEdge
+     */
+    public int getAddedEdgeCount() {
+        return this.edgeCount;
+    }
+
+    /**
+     * Returns the edges that the graph will hold, one per pair of nodes, in the order each was
+     * first added. Each is returned as a long holding the index of its first addition in the
+     * high half and the index of its last addition, which has its weight, in the low half.
+     * Indexes are less than 2^31, so the longs sort in the order of first additions.
+     */
+    private long[] mergeEdges() {
+        // group the edges by source: those from node i go to grouped[start[i] .. start[i + 1])
+        int[] start = new int[this.nodes.size() + 1];
+        for (int j = 0; j < this.edgeCount; j++) {
+            start[this.sources[j] + 1]++;
+        }
+        for (int i = 0; i < this.nodes.size(); i++) {
+            start[i + 1] += start[i];
+        }
+        int[] next = Arrays.copyOf(start, this.nodes.size());
+        long[] grouped = new long[this.edgeCount];
+        for (int j = 0; j < this.edgeCount; j++) {
+            grouped[next[this.sources[j]]++] = (long) this.targets[j] << 32 | j;
+        }
+        // sort each group by target, and then by index, so repeated edges form runs
+        long[] merged = new long[this.edgeCount];
+        int mergedCount = 0;
+        for (int i = 0; i < this.nodes.size(); i++) {
+            Arrays.sort(grouped, start[i], start[i + 1]);
+            for (int run = start[i], end; run < start[i + 1]; run = end) {
+                end = run + 1;
+                while (end < start[i + 1] && grouped[end] >>> 32 == grouped[run] >>> 32) {
+                    end++;
+                }
+                merged[mergedCount++] = (grouped[run] & 0xFFFFFFFFL) << 32
+                        | (grouped[end - 1] & 0xFFFFFFFFL);
+            }
+        }
+        merged = Arrays.copyOf(merged, mergedCount);
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    /**
+     * Replaces the contents of graph with the nodes and edges added to this builder.
+     *
+     * @param graph the graph to fill
+     */
+    @SuppressWarnings("unchecked")
+    public void buildInto(GraphADT<NodeType, Double> graph) {
+        long[] merged = this.mergeEdges();
+        if (graph instanceof BaseGraph) {
+            int[] edgeSources = new int[merged.length];
+            int[] edgeTargets = new int[merged.length];
+            Double[] edgeWeights = new Double[merged.length];
+            for (int k = 0; k < merged.length; k++) {
+                int first = (int) (merged[k] >>> 32);
+                edgeSources[k] = this.sources[first];
+                edgeTargets[k] = this.targets[first];
+                edgeWeights[k] = this.weights[(int) merged[k]];
+            }
+            ((BaseGraph<NodeType, Double>) graph).load(this.nodes, edgeSources, edgeTargets,
+                    edgeWeights, merged.length);
+            return;
+        }
+        graph.clear();
+        for (NodeType data : this.nodes) {
+            graph.insertNode(data);
+        }
+        for (long edge : merged) {
+            int first = (int) (edge >>> 32);
+            graph.insertEdge(this.nodes.get(this.sources[first]),
+                    this.nodes.get(this.targets[first]), this.weights[(int) edge]);
+        }
+    }
+
+    /**
+     * Returns a new DijkstraGraph with the nodes and edges added to this builder.
+     *
+     * @return the graph
+     */
+    public DijkstraGraph<NodeType, Double> build() {
+        DijkstraGraph<NodeType, Double> graph = new DijkstraGraph<>();
+        this.buildInto(graph);
+        return graph;
+    }
+}
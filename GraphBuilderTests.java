@@ -0,0 +1,129 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GraphBuilderTests {
+
+    /**
+     * Returns the targets and weights of the edges leaving each node of a BaseGraph, in the
+     * order of its edge lists, so that two graphs can be compared edge list by edge list.
+     */
+    private static List<String> edgeLists(DijkstraGraph<Integer, Double> graph) {
+        List<String> lists = new ArrayList<>();
+        for (int i = 0; i < graph.getNodeIdBound(); i++) {
+            BaseGraph<Integer, Double>.Node node = graph.nodesById.get(i);
+            if (node == null) {
+                continue;
+            }
+            StringBuilder list = new StringBuilder(node.data + ":");
+            for (BaseGraph<Integer, Double>.Edge edge : node.edgesLeaving) {
+                list.append(' ').append(edge.successor.data).append('=').append(edge.data);
+            }
+            list.append(" <-");
+            for (BaseGraph<Integer, Double>.Edge edge : node.edgesEntering) {
+                list.append(' ').append(edge.predecessor.data);
+            }
+            lists.add(list.toString());
+        }
+        lists.sort(null);
+        return lists;
+    }
+
+    /**
+     * Adds random edges, many of them repeated with new weights, to a builder and one at a
+     * time to a DijkstraGraph, and checks that the built graph has the same nodes, edges,
+     * weights and edge list order, and finds the same shortest paths.
+     */
+    @Test
+    public void testMatchesInsertEdge() {
+        GraphBuilder<Integer> builder = new GraphBuilder<>(1, 1);
+        DijkstraGraph<Integer, Double> expected = new DijkstraGraph<>();
+        Random random = new Random(21);
+        for (int step = 0; step < 20000; step++) {
+            int pred = random.nextInt(300);
+            int succ = random.nextInt(300);
+            double weight = 1 + random.nextInt(50);
+            builder.addEdge(pred, succ, weight);
+            expected.insertNode(pred);
+            expected.insertNode(succ);
+            expected.insertEdge(pred, succ, weight);
+        }
+        builder.addNode(1000);
+        expected.insertNode(1000);
+        assertEquals(20000, builder.getAddedEdgeCount());
+        assertEquals(expected.getNodeCount(), builder.getNodeCount());
+
+        DijkstraGraph<Integer, Double> graph = builder.build();
+        assertEquals(expected.getNodeCount(), graph.getNodeCount());
+        assertEquals(expected.getEdgeCount(), graph.getEdgeCount());
+        assertEquals(new HashSet<>(expected.getAllNodes()), new HashSet<>(graph.getAllNodes()));
+        assertEquals(edgeLists(expected), edgeLists(graph), "Edge lists differ");
+        for (int i = 0; i < 50; i++) {
+            int start = random.nextInt(300);
+            int end = random.nextInt(300);
+            assertEquals(expected.containsEdge(start, end), graph.containsEdge(start, end));
+            assertEquals(expected.shortestPathData(start, end), graph.shortestPathData(start, end));
+        }
+        assertThrows(NoSuchElementException.class, () -> graph.shortestPathData(1000, 0));
+
+        // the built graph can still be changed one node and edge at a time
+        assertTrue(graph.insertNode(2000));
+        assertTrue(graph.insertEdge(1000, 2000, 3.0));
+        assertEquals(3.0, graph.shortestPathCost(1000, 2000));
+        assertTrue(graph.removeNode(0));
+        assertEquals(expected.getNodeCount(), graph.getNodeCount());
+    }
+
+    /**
+     * Tests that buildInto replaces the contents of a graph of each kind, whether it is filled
+     * in bulk or through insertNode and insertEdge, and that clear empties each of them.
+     */
+    @Test
+    public void testBuildIntoAndClear() {
+        GraphBuilder<String> builder = new GraphBuilder<>();
+        builder.addEdge("A", "B", 1.0);
+        builder.addEdge("B", "C", 2.0);
+        builder.addEdge("A", "C", 5.0);
+        builder.addEdge("A", "B", 4.0);
+        int c = builder.addNode("C");
+        builder.addEdgeBetweenIds(c, builder.addNode("D"), 1.0);
+        assertThrows(IndexOutOfBoundsException.class, () -> builder.addEdgeBetweenIds(0, 4, 1.0));
+        assertThrows(NullPointerException.class, () -> builder.addNode(null));
+
+        VersionedGraph<String> versioned = new VersionedGraph<>();
+        List<GraphADT<String, Double>> graphs = List.of(new DijkstraGraph<>(),
+                new OffHeapGraph(1, 1), versioned);
+        for (GraphADT<String, Double> graph : graphs) {
+            graph.insertNode("Old");
+            graph.insertNode("A");
+            graph.insertEdge("A", "Old", 1.0);
+            builder.buildInto(graph);
+            String kind = graph.getClass().getName();
+            assertFalse(graph.containsNode("Old"), kind + " kept an old node");
+            assertEquals(4, graph.getNodeCount(), kind);
+            assertEquals(4, graph.getEdgeCount(), kind);
+            assertEquals(4.0, graph.getEdge("A", "B"), kind + " didn't keep the last weight");
+            assertEquals(List.of("A", "C", "D"), graph.shortestPathData("A", "D"), kind);
+            assertEquals(6.0, graph.shortestPathCost("A", "D"), kind);
+
+            graph.clear();
+            assertEquals(0, graph.getNodeCount(), kind);
+            assertEquals(0, graph.getEdgeCount(), kind);
+            assertTrue(graph.getAllNodes().isEmpty(), kind);
+            assertFalse(graph.containsNode("A"), kind);
+            assertTrue(graph.insertNode("A"), kind);
+            assertTrue(graph.insertNode("B"), kind);
+            assertTrue(graph.insertEdge("B", "A", 2.0), kind);
+            assertEquals(2.0, graph.shortestPathCost("B", "A"), kind);
+            assertFalse(graph.containsEdge("A", "B"), kind);
+        }
+        long version = versioned.snapshot().getVersion();
+        versioned.clear();
+        assertEquals(version + 1, versioned.snapshot().getVersion(), "Clear took several versions");
+        assertThrows(UnsupportedOperationException.class, () -> versioned.snapshot().clear());
+    }
+}
@@ -0,0 +1,129 @@
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * A GraphOverlay describes temporary changes to a graph that should only apply to some queries,
+ * such as closed buildings, paths under construction, or slower routes in bad weather. Instead of
+ * removing nodes and edges from the shared graph (and inserting them back afterwards), a search
+ * is given an overlay and consults it for every node and edge that it explores. The graph itself
+ * is never modified or copied, so any number of overlays can be used at the same time.
+ * <p>
+ * Blocked nodes and edges are kept in sets, and the factors that edge weights are multiplied by
+ * in a map, so an overlay only takes space for the changes it actually makes. The ids of blocked
+ * nodes are also kept in a bitset, which settles most lookups without hashing. Ids are reused
+ * once their node is removed, so a set bit is only a hint, and the node itself decides. An
+ * overlay refers to the nodes and edges that exist when its methods are called; nodes and edges
+ * that are removed and later inserted again are not blocked or scaled, and neither are new nodes
+ * that are given the id of a blocked node.
+ */
+public class GraphOverlay<NodeType, EdgeType extends Number> {
+
+    private final BaseGraph<NodeType, EdgeType> graph;
+    // nodes (and edges) have no equals method, so these sets compare them by identity
+    private final HashSet<BaseGraph<NodeType, EdgeType>.Node> blockedNodes = new HashSet<>();
+    // the id of every blocked node; a node with a set bit is blocked if it is in blockedNodes
+    private final BitSet blockedIds = new BitSet();
+    private final HashSet<BaseGraph<NodeType, EdgeType>.Edge> blockedEdges = new HashSet<>();
+    private final HashMap<BaseGraph<NodeType, EdgeType>.Edge, Double> weightMultipliers =
+            new HashMap<>();
+
+    /**
+     * Creates an overlay without any changes for the provided graph.
+     *
+     * @param graph the graph whose nodes and edges this overlay refers to
+     */
+    public GraphOverlay(BaseGraph<NodeType, EdgeType> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Blocks a node, so that searches using this overlay never pass through it and cannot start
+     * or end at it.
+     *
+     * @param data the data item stored in the node to block
+     * @return true if the node was found and is now blocked, or false if no node contains data
+     * @throws NullPointerException if data is null
+     */
+    public boolean blockNode(NodeType data) {
+        BaseGraph<NodeType, EdgeType>.Node node = this.graph.findNode(data);
+        if (node == null) {
+            return false;
+        }
+        this.blockedNodes.add(node);
+        this.blockedIds.set(node.id);
+        return true;
+    }
+
+    /**
+     * Blocks a directed edge, so that searches using this overlay never follow it.
+     *
+     * @param pred the data item contained in the source node for the edge
+     * @param succ the data item contained in the target node for the edge
+     * @return true if the edge was found and is now blocked, or false if no such edge exists
+     */
+    public boolean blockEdge(NodeType pred, NodeType succ) {
+        BaseGraph<NodeType, EdgeType>.Edge edge = this.findEdge(pred, succ);
+        if (edge == null) {
+            return false;
+        }
+        this.blockedEdges.add(edge);
+        return true;
+    }
+
+    /**
+     * Multiplies the weight of a directed edge by the provided factor for searches using this
+     * overlay. Scaling the same edge again replaces the previous factor.
+     *
+     * @param pred       the data item contained in the source node for the edge
+     * @param succ       the data item contained in the target node for the edge
+     * @param multiplier the positive factor to multiply the edge's weight by
+     * @return true if the edge was found and is now scaled, or false if no such edge exists
+     * @throws IllegalArgumentException if multiplier is not a positive number
+     */
+    public boolean scaleEdge(NodeType pred, NodeType succ, double multiplier) {
+        if (!(multiplier > 0.0) || Double.isInfinite(multiplier)) {
+            throw new IllegalArgumentException("Multiplier must be a positive number");
+        }
+        BaseGraph<NodeType, EdgeType>.Edge edge = this.findEdge(pred, succ);
+        if (edge == null) {
+            return false;
+        }
+        this.weightMultipliers.put(edge, multiplier);
+        return true;
+    }
+
+    /**
+     * Checks whether a node is blocked by this overlay.
+     *
+     * @param node a node of the graph this overlay was created for
+     * @return true if the node is blocked
+     */
+    public boolean isBlocked(BaseGraph<NodeType, EdgeType>.Node node) {
+        return this.blockedIds.get(node.id) && this.blockedNodes.contains(node);
+    }
+
+    /**
+     * Returns the weight of an edge as seen through this overlay: the edge's own weight times its
+     * multiplier, or Double.POSITIVE_INFINITY when the edge or the node it leads to is blocked.
+     *
+     * @param edge an edge of the graph this overlay was created for
+     * @return the weight that searches using this overlay should use for the edge
+     */
+    public double weightOf(BaseGraph<NodeType, EdgeType>.Edge edge) {
+        if (this.isBlocked(edge.successor) || this.isBlocked(edge.predecessor)
+                || this.blockedEdges.contains(edge)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        Double multiplier = this.weightMultipliers.get(edge);
+        return multiplier == null ? edge.data.doubleValue() :
+                edge.data.doubleValue() * multiplier;
+    }
+
+    /**
+     * Returns the edge from pred to succ, or null when either node or the edge does not exist.
+     */
+    private BaseGraph<NodeType, EdgeType>.Edge findEdge(NodeType pred, NodeType succ) {
+        return this.graph.findEdge(pred, succ);
+    }
+}
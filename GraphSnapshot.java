@@ -0,0 +1,133 @@
+import java.util.List;
+
+/**
+ * An immutable copy of a graph's structure in compressed sparse row (CSR) form. Nodes are
+ * identified by their dense ids, and the edges leaving node v are stored in
+ * forwardTargets[forwardOffsets[v] .. forwardOffsets[v + 1] - 1], with their weights at the same
+ * positions of forwardWeights. The edges entering each node are stored the same way in the
+ * backward arrays. Scanning a node's edges therefore reads one contiguous range of primitive
+ * arrays instead of following linked list nodes, and since nothing can change after
+ * construction, any number of threads can search a snapshot at the same time.
+ * <p>
+ * Ids that are not in use by any node (for example those of removed nodes) have no edges and no
+ * data.
+ */
+public class GraphSnapshot<NodeType> {
+
+    public final int nodeCount; // ids run from 0 to nodeCount - 1
+    public final int edgeCount;
+    public final int[] forwardOffsets;
+    public final int[] forwardTargets;
+    public final double[] forwardWeights;
+    public final int[] backwardOffsets;
+    public final int[] backwardSources;
+    public final double[] backwardWeights;
+    private final Object[] nodeData;
+
+    /**
+     * Builds a snapshot from parallel arrays describing each edge, with nodes identified by ids
+     * from 0 to nodeCount - 1. Edges keep their relative order within each node's range.
+     *
+     * @param nodeCount the number of node ids
+     * @param sources   the id of the source node of each edge
+     * @param targets   the id of the target node of each edge
+     * @param weights   the weight of each edge
+     * @param nodeData  the data of each node by id (entries may be null), or null for none
+     */
+    GraphSnapshot(int nodeCount, int[] sources, int[] targets, double[] weights,
+                  Object[] nodeData) {
+        this.nodeCount = nodeCount;
+        this.edgeCount = sources.length;
+        this.nodeData = nodeData == null ? new Object[nodeCount] : nodeData;
+
+        this.forwardOffsets = new int[nodeCount + 1];
+        this.forwardTargets = new int[edgeCount];
+        this.forwardWeights = new double[edgeCount];
+        this.backwardOffsets = new int[nodeCount + 1];
+        this.backwardSources = new int[edgeCount];
+        this.backwardWeights = new double[edgeCount];
+
+        // count the edges of each node, then turn the counts into the start of each range
+        for (int e = 0; e < edgeCount; e++) {
+            this.forwardOffsets[sources[e] + 1]++;
+            this.backwardOffsets[targets[e] + 1]++;
+        }
+        for (int v = 0; v < nodeCount; v++) {
+            this.forwardOffsets[v + 1] += this.forwardOffsets[v];
+            this.backwardOffsets[v + 1] += this.backwardOffsets[v];
+        }
+        int[] forwardNext = this.forwardOffsets.clone();
+        int[] backwardNext = this.backwardOffsets.clone();
+        for (int e = 0; e < edgeCount; e++) {
+            int forward = forwardNext[sources[e]]++;
+            this.forwardTargets[forward] = targets[e];
+            this.forwardWeights[forward] = weights[e];
+            int backward = backwardNext[targets[e]]++;
+            this.backwardSources[backward] = sources[e];
+            this.backwardWeights[backward] = weights[e];
+        }
+    }
+
+    /**
+     * Takes a snapshot of the provided graph, where each node is identified by its id.
+     *
+     * @param graph the graph to copy
+     * @return a snapshot of the graph's current nodes, edges and weights
+     */
+    public static <NodeType, EdgeType extends Number> GraphSnapshot<NodeType> of(
+            BaseGraph<NodeType, EdgeType> graph) {
+        int nodeCount = graph.getNodeIdBound();
+        Object[] nodeData = new Object[nodeCount];
+        List<NodeType> allNodes = graph.getAllNodes();
+        int edgeCount = 0;
+        for (NodeType data : allNodes) {
+            edgeCount += graph.nodes.get(data).edgesLeaving.size();
+        }
+
+        int[] sources = new int[edgeCount];
+        int[] targets = new int[edgeCount];
+        double[] weights = new double[edgeCount];
+        int e = 0;
+        for (NodeType data : allNodes) {
+            BaseGraph<NodeType, EdgeType>.Node node = graph.nodes.get(data);
+            nodeData[node.id] = data;
+            for (BaseGraph<NodeType, EdgeType>.Edge edge : node.edgesLeaving) {
+                sources[e] = node.id;
+                targets[e] = edge.successor.id;
+                weights[e] = edge.data.doubleValue();
+                e++;
+            }
+        }
+        return new GraphSnapshot<>(nodeCount, sources, targets, weights, nodeData);
+    }
+
+    /**
+     * Builds a snapshot from parallel arrays describing each edge, where the data of each node
+     * is its own id. This is mostly useful for generating large synthetic graphs.
+     *
+     * @param nodeCount the number of node ids
+     * @param sources   the id of the source node of each edge
+     * @param targets   the id of the target node of each edge
+     * @param weights   the weight of each edge
+     * @return a snapshot containing these edges
+     */
+    public static GraphSnapshot<Integer> fromEdges(int nodeCount, int[] sources, int[] targets,
+                                                   double[] weights) {
+        Object[] nodeData = new Object[nodeCount];
+        for (int v = 0; v < nodeCount; v++) {
+            nodeData[v] = v;
+        }
+        return new GraphSnapshot<>(nodeCount, sources, targets, weights, nodeData);
+    }
+
+    /**
+     * Returns the data of the node with the provided id.
+     *
+     * @param id a node id
+     * @return the node's data, or null when no node has this id
+     */
+    @SuppressWarnings("unchecked")
+    public NodeType dataOf(int id) {
+        return (NodeType) this.nodeData[id];
+    }
+}
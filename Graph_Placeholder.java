@@ -91,4 +91,14 @@ public class Graph_Placeholder implements GraphADT<String, Double> {
     return sum;
   }
 
+  public MapADT<String, Double> reachableWithin(String start, double budget) {
+    if(!path.contains(start)) throw new NoSuchElementException();
+    PlaceholderMap<String, Double> reachable = new PlaceholderMap<>();
+    for(String node : path) {
+      double cost = node.equals(start) ? 0 : shortestPathCost(start, node);
+      if(cost <= budget) reachable.put(node, cost);
+    }
+    return reachable;
+  }
+
 }
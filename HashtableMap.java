@@ -1,29 +1,60 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class HashtableMap <KeyType, ValueType> implements MapADT<KeyType, ValueType>{
 
     protected LinkedList<Pair>[] table = null ;
+    // number of pairs in the table, kept up to date so that getSize doesn't walk every list
+    private int size = 0;
+
+    // In incremental mode, growing keeps the previous table in oldTable and moves its lists into
+    // table a few at a time. The lists of oldTable below migratedIndex have been moved already;
+    // oldTable is null when no migration is in progress.
+    private final boolean incrementalResize;
+    protected LinkedList<Pair>[] oldTable = null;
+    private int migratedIndex = 0;
+    // the number of old lists that each put or remove moves into the new table
+    private static final int MIGRATION_STEP = 4;
 
     /**
      * Default constructor
      */
-    @SuppressWarnings("unchecked")
     public HashtableMap(){
 
-        this.table = new LinkedList[64];
+        this(64);
     }
 
     /**
      * Constructor that allows to specify the size of the array for table
      * @param capacity the size of the array used for the table field
      */
-    @SuppressWarnings("unchecked")
     public HashtableMap(int capacity){
-        this.table = new LinkedList[capacity];
+        this(capacity, false);
+    }
+
+    /**
+     * Constructor that also chooses how the table grows. By default, the put that raises the load
+     * factor to 80% moves every pair into a table twice as large, which takes time proportional
+     * to the size of the map. With incremental resizing, that put only allocates the larger table,
+     * and each later put or remove moves a few lists of the old table into it, so no single
+     * operation does more than a bounded amount of rehashing. Lookups check the old table for keys
+     * whose list hasn't moved yet.
+     * @param capacity the size of the array used for the table field
+     * @param incrementalResize true to spread rehashing over the operations after a resize
+     */
+    public HashtableMap(int capacity, boolean incrementalResize){
+        this.table = newTable(capacity);
+        this.incrementalResize = incrementalResize;
     }
 
     /**
@@ -59,27 +90,89 @@ public class HashtableMap <KeyType, ValueType> implements MapADT<KeyType, ValueT
 
         // uses the Pair class to generate a Pair object that stores the key value pair
         Pair keyValuePairToPut = new Pair(key, value);
-        int indexForPair = this.calculateHashCode(key);
+        // while a migration is in progress, a key whose old list hasn't moved yet is added to
+        // that list, so that it moves along with the rest of it
+        LinkedList<Pair>[] tableForPair = this.tableHolding(key);
+        int indexForPair = this.calculateHashCode(key, tableForPair.length);
 
         // initializes the null references with new linked list if the index doesn't already
         // contain one. When the table is first initialized in the constructor, all the index values
 	// are set to null so calling add directly can cause an exception
-        if(this.table[indexForPair] == null){
-            this.table[indexForPair] = new LinkedList<>();
+        if(tableForPair[indexForPair] == null){
+            tableForPair[indexForPair] = new LinkedList<>();
         }
 
-        this.table[indexForPair].add(keyValuePairToPut);
+        tableForPair[indexForPair].add(keyValuePairToPut);
+        this.size++;
+        this.migrateSome();
         // Checks if rehashing is necessary after mapping this pair
         this.performRehash();
     }
 
     /**
      * Computes a hash code for the given key and returns the corresponding index.
-     * Index in the table corresponds to the absolute value of the key's hashcode modulus the
-     * current capacity of the table array
+     * Index in the table corresponds to the key's hashcode without its sign bit modulus the
+     * current capacity of the table array. Math.abs can't be used here since the absolute value
+     * of Integer.MIN_VALUE is still negative.
      */
     private int calculateHashCode(KeyType key){
-        return Math.abs(key.hashCode()) % this.table.length;
+        return this.calculateHashCode(key, this.table.length);
+    }
+
+    /**
+     * Computes the index of the given key in a table of the given capacity.
+     */
+    private int calculateHashCode(KeyType key, int capacity){
+        return (key.hashCode() & Integer.MAX_VALUE) % capacity;
+    }
+
+    /**
+     * Returns the table whose list holds key, if the key is present: the old table while the
+     * key's list there hasn't been moved yet, and the current table otherwise.
+     */
+    private LinkedList<Pair>[] tableHolding(KeyType key){
+        if(this.oldTable != null
+                && this.calculateHashCode(key, this.oldTable.length) >= this.migratedIndex){
+            return this.oldTable;
+        }
+        return this.table;
+    }
+
+    /**
+     * Returns the list that holds key if the key is present, or null.
+     */
+    private LinkedList<Pair> listHolding(KeyType key){
+        LinkedList<Pair>[] tableWithKey = this.tableHolding(key);
+        return tableWithKey[this.calculateHashCode(key, tableWithKey.length)];
+    }
+
+    /**
+     * Moves up to MIGRATION_STEP lists of the old table into the current table, and drops the old
+     * table once all of its lists have moved.
+     */
+    private void migrateSome(){
+        for(int moved = 0; this.oldTable != null && moved < MIGRATION_STEP; moved++){
+            this.migrateNextList();
+        }
+    }
+
+    private void migrateNextList(){
+        LinkedList<Pair> listToMove = this.oldTable[this.migratedIndex];
+        this.oldTable[this.migratedIndex] = null;
+        this.migratedIndex++;
+        if(listToMove != null){
+            for(Pair pairToMove : listToMove){
+                int newIndex = this.calculateHashCode(pairToMove.key);
+                if(this.table[newIndex] == null){
+                    this.table[newIndex] = new LinkedList<>();
+                }
+                this.table[newIndex].add(pairToMove);
+            }
+        }
+        if(this.migratedIndex == this.oldTable.length){
+            this.oldTable = null;
+            this.migratedIndex = 0;
+        }
     }
 
     /**
@@ -96,6 +189,19 @@ public class HashtableMap <KeyType, ValueType> implements MapADT<KeyType, ValueT
         return this.getSize() / (double) this.getCapacity();
     }
 
+    /**
+     * Allocates an empty table with the provided capacity. Java can't create an array of a generic
+     * type, so the array is created with the wildcard type and cast, which is safe since every
+     * list stored in it holds Pairs.
+     *
+     * @param capacity the length of the new table
+     * @return the new table, with every index empty
+     */
+    @SuppressWarnings("unchecked")
+    private LinkedList<Pair>[] newTable(int capacity){
+        return (LinkedList<Pair>[]) new LinkedList<?>[capacity];
+    }
+
     /**
      * Dynamically grows the table dy doubling its capacity and rehashing whenever the load
      * factor is greater than or equal to 80%.
@@ -115,10 +221,23 @@ public class HashtableMap <KeyType, ValueType> implements MapADT<KeyType, ValueT
         if(this.calculateLoadFactor() < 0.80){
             return;
         }
+        // in incremental mode, the new table starts out empty and the old one is moved into it by
+        // later operations. A migration that is still going on is finished first, which is rare
+        // since each put moves MIGRATION_STEP lists while the table only fills up again after
+        // 0.8 * capacity puts.
+        if(this.incrementalResize){
+            while(this.oldTable != null){
+                this.migrateNextList();
+            }
+            this.oldTable = this.table;
+            this.migratedIndex = 0;
+            this.table = newTable(this.table.length * 2);
+            return;
+        }
         // when the load factor exceeds the threshold, a new table with double the size of the current
         // table is created
         LinkedList<Pair>[] oldTable = this.table;
-        this.table =  new LinkedList[this.table.length * 2];;
+        this.table = newTable(this.table.length * 2);
 
         // all the key-value pairs of the current table are copied into the new table. However,
         // since the capacity of the new array changes, they key needs to be mapped again
@@ -159,8 +278,7 @@ public class HashtableMap <KeyType, ValueType> implements MapADT<KeyType, ValueT
      */
     private boolean containsKeyHelper(KeyType key){
         // calculates the expected index location and retrieves the linked list at that index
-        int indexToLookInto = this.calculateHashCode(key);
-        LinkedList<Pair> linkedListToLookInto = this.table[indexToLookInto];
+        LinkedList<Pair> linkedListToLookInto = this.listHolding(key);
 
         // if the index to look into hasn't been initialized yet, means the index value is null and 
 	// so the key will not be present in this location
@@ -185,20 +303,44 @@ public class HashtableMap <KeyType, ValueType> implements MapADT<KeyType, ValueT
      */
     @Override
     public ValueType get(KeyType key) throws NoSuchElementException {
-        if(!containsKey(key)){
-            throw new NoSuchElementException("Key not present");
+        if (key == null){
+            throw new NullPointerException("null keys not allowed");
         }
-        int indexMappedWithKey = this.calculateHashCode(key);
-        LinkedList<Pair> linkedListWithKey = this.table[indexMappedWithKey];
+        // a single pass over the list at the key's index both finds the key and its value
+        LinkedList<Pair> linkedListWithKey = this.listHolding(key);
+        if(linkedListWithKey != null){
+            for(Pair currentPair: linkedListWithKey){
+                if(currentPair.key.equals(key)){
+                    return currentPair.value;
+                }
+            }
+        }
+        throw new NoSuchElementException("Key not present");
+    }
 
-        ValueType valueToReturn = null;
-        for(Pair currentPair: linkedListWithKey){
-            if(currentPair.key.equals(key)){
-                valueToReturn = currentPair.value;
-                break;
+    /**
+     * Retrieves the value that a key maps to, or defaultValue when the key doesn't map to one,
+     * with a single pass over the list at the key's index.
+     *
+     * @param key the key to look up
+     * @param defaultValue the value to return when key is not stored in this collection
+     * @return the value that key maps to, or defaultValue
+     * @throws NullPointerException if key is null
+     */
+    @Override
+    public ValueType getOrDefault(KeyType key, ValueType defaultValue) {
+        if (key == null){
+            throw new NullPointerException("null keys not allowed");
+        }
+        LinkedList<Pair> linkedListWithKey = this.listHolding(key);
+        if(linkedListWithKey != null){
+            for(Pair currentPair: linkedListWithKey){
+                if(currentPair.key.equals(key)){
+                    return currentPair.value;
+                }
             }
         }
-        return valueToReturn;
+        return defaultValue;
     }
 
     /**
@@ -214,17 +356,18 @@ public class HashtableMap <KeyType, ValueType> implements MapADT<KeyType, ValueT
             throw new NoSuchElementException("key not in table");
         }
 
-        int indexMappedWithKey = this.calculateHashCode(key);
-        LinkedList<Pair> linkedListWithKey = this.table[indexMappedWithKey];
+        LinkedList<Pair> linkedListWithKey = this.listHolding(key);
 
         ValueType valueToReturn = null;
         for(Pair currentPair: linkedListWithKey){
             if(currentPair.key.equals(key)){
                 valueToReturn = currentPair.value;
                 linkedListWithKey.remove(currentPair);
+                this.size--;
                 break;
             }
         }
+        this.migrateSome();
         return valueToReturn;
 
     }
@@ -237,9 +380,21 @@ public class HashtableMap <KeyType, ValueType> implements MapADT<KeyType, ValueT
 	for(int index = 0; index < this.table.length; index++){
 	    	this.table[index] = null;
 	    }
+        this.oldTable = null;
+        this.migratedIndex = 0;
+        this.size = 0;
 
     }
 
+    /**
+     * Returns a new, empty map with a table as large as this one's, that grows the same way.
+     * @return the empty map
+     */
+    @Override
+    public MapADT<KeyType, ValueType> emptyCopy(){
+        return new HashtableMap<>(this.table.length, this.incrementalResize);
+    }
+
     /**
      * Retrieves the number of keys stored in this collection.
      *
@@ -247,13 +402,7 @@ public class HashtableMap <KeyType, ValueType> implements MapADT<KeyType, ValueT
      */
     @Override
     public int getSize() {
-        int count = 0;
-        for(LinkedList<Pair> currentList: this.table){
-            if(currentList != null){
-                count+= currentList.size();
-            }
-        }
-        return count;
+        return this.size;
     }
 
     /**
@@ -274,16 +423,183 @@ public class HashtableMap <KeyType, ValueType> implements MapADT<KeyType, ValueT
     @Override
     public List<KeyType> getKeys() {
 
-        LinkedList<KeyType> keyList = new LinkedList<>();
-        for (LinkedList<Pair> listAtCurrentIndex : this.table) {
-            if (listAtCurrentIndex == null) {
-                continue;
+        // an ArrayList, so that callers can index into it in constant time
+        List<KeyType> keyList = new ArrayList<>(this.size);
+        this.keyIterator().forEachRemaining(keyList::add);
+        return keyList;
+    }
+
+    /**
+     * Returns a cursor that walks the list at each index of the table in order.
+     *
+     * @return a cursor positioned before the first pair
+     */
+    @Override
+    public Cursor<KeyType, ValueType> cursor() {
+        KeyIterator pairs = this.keyIterator();
+        return new Cursor<>() {
+            private Pair current = null;
+
+            public boolean advance() {
+                this.current = pairs.nextPair();
+                return this.current != null;
+            }
+
+            public KeyType key() {
+                return this.current.key;
+            }
+
+            public ValueType value() {
+                return this.current.value;
+            }
+        };
+    }
+
+    /**
+     * Returns a Spliterator over the keys in the lists of the table, which splits off the
+     * first half of its remaining indexes at a time.
+     *
+     * @return a Spliterator over this collection's keys
+     */
+    @Override
+    public Spliterator<KeyType> keySpliterator() {
+        return this.keyIterator();
+    }
+
+    /**
+     * Returns a KeyIterator over the lists of table, followed by those of oldTable while a
+     * migration is in progress (the lists of oldTable that have moved already are null).
+     */
+    private KeyIterator keyIterator() {
+        int end = this.table.length + (this.oldTable == null ? 0 : this.oldTable.length);
+        return new KeyIterator(this.table, this.oldTable, 0, end, this.size);
+    }
+
+    /**
+     * Walks the pairs in the lists at indexes index up to end of table followed by oldTable,
+     * of which there are about estimate.
+     */
+    private class KeyIterator implements Spliterator<KeyType> {
+        private final LinkedList<Pair>[] table;
+        private final LinkedList<Pair>[] oldTable;
+        private int index;
+        private final int end;
+        private long estimate;
+        // the rest of the list at index - 1, or null
+        private Iterator<Pair> list = null;
+
+        KeyIterator(LinkedList<Pair>[] table, LinkedList<Pair>[] oldTable, int index, int end,
+                long estimate) {
+            this.table = table;
+            this.oldTable = oldTable;
+            this.index = index;
+            this.end = end;
+            this.estimate = estimate;
+        }
+
+        /**
+         * Returns the next pair, or null once there are no more.
+         */
+        Pair nextPair() {
+            while (this.list == null || !this.list.hasNext()) {
+                if (this.index >= this.end) {
+                    return null;
+                }
+                LinkedList<Pair> next = this.index < this.table.length ? this.table[this.index]
+                        : this.oldTable[this.index - this.table.length];
+                this.index++;
+                this.list = next == null ? null : next.iterator();
+            }
+            return this.list.next();
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super KeyType> action) {
+            Pair pair = this.nextPair();
+            if (pair == null) {
+                return false;
             }
-            for (Pair atCurrentIndex : listAtCurrentIndex) {
-                keyList.add(atCurrentIndex.key);
+            action.accept(pair.key);
+            return true;
+        }
+
+        @Override
+        public Spliterator<KeyType> trySplit() {
+            int middle = (this.index + this.end) >>> 1;
+            if (middle <= this.index) {
+                return null;
             }
+            // the rest of the current list, if any, stays with this half
+            KeyIterator prefix = new KeyIterator(this.table, this.oldTable, this.index, middle,
+                    this.estimate >>>= 1);
+            this.index = middle;
+            return prefix;
         }
-        return keyList;
+
+        @Override
+        public long estimateSize() {
+            return this.estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
+    }
+
+    /**
+     * Prints the distribution of put latencies while filling a map with and without incremental
+     * resizing. Puts during which the garbage collector ran are left out, since their pauses
+     * would otherwise hide the cost of rehashing, and are only counted.
+     * @param args optionally the number of keys to insert (default 2000000)
+     */
+    public static void main(String[] args) {
+        int keys = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        // a first round of each lets the JIT compile put before anything is measured
+        measurePutLatencies(keys / 10, false);
+        measurePutLatencies(keys / 10, true);
+        for (boolean incremental : new boolean[] {false, true}) {
+            long[] latencies = measurePutLatencies(keys, incremental);
+            Arrays.sort(latencies);
+            int collected = 0;
+            while (collected < latencies.length && latencies[collected] < 0) {
+                collected++;
+            }
+            long[] measured = Arrays.copyOfRange(latencies, collected, latencies.length);
+            int n = measured.length;
+            System.out.println(String.format("%-11s p50 %5d ns  p99 %5d ns  p99.9 %6d ns  " +
+                    "p99.99 %7d ns  max %9d ns  (%d puts with GC left out)",
+                    incremental ? "incremental" : "all at once", measured[n / 2],
+                    measured[(int) (n * 0.99)], measured[(int) (n * 0.999)],
+                    measured[(int) (n * 0.9999)], measured[n - 1], collected));
+        }
+    }
+
+    /**
+     * Inserts keys keys into a new map and returns how long each put took, in nanoseconds, or -1
+     * for the puts during which the garbage collector ran.
+     */
+    private static long[] measurePutLatencies(int keys, boolean incremental) {
+        List<GarbageCollectorMXBean> collectors =
+                ManagementFactory.getGarbageCollectorMXBeans();
+        HashtableMap<Integer, Integer> map = new HashtableMap<>(64, incremental);
+        long[] latencies = new long[keys];
+        for (int i = 0; i < keys; i++) {
+            long collections = 0;
+            for (GarbageCollectorMXBean collector : collectors) {
+                collections += collector.getCollectionCount();
+            }
+            long begin = System.nanoTime();
+            map.put(i, i);
+            latencies[i] = System.nanoTime() - begin;
+            for (GarbageCollectorMXBean collector : collectors) {
+                collections -= collector.getCollectionCount();
+            }
+            if (collections != 0) {
+                latencies[i] = -1;
+            }
+        }
+        return latencies;
     }
 
     /**
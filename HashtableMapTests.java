@@ -0,0 +1,146 @@
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HashtableMapTests {
+
+    /**
+     * Counts the pairs in the lists of a table.
+     */
+    private static int countPairs(LinkedList<HashtableMap<Integer, Integer>.Pair>[] table) {
+        int pairs = 0;
+        for (LinkedList<HashtableMap<Integer, Integer>.Pair> list : table) {
+            if (list != null) {
+                pairs += list.size();
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Tests that the put which triggers an incremental resize moves no pairs, that later puts
+     * move the old table over a few lists at a time, and that the old table is gone before the
+     * table has to grow again.
+     */
+    @Test
+    public void testIncrementalResizeSpreadsRehashing() {
+        HashtableMap<Integer, Integer> map = new HashtableMap<>(64, true);
+        int capacity = map.getCapacity();
+        int growths = 0;
+        for (int key = 0; key < 10000; key++) {
+            boolean migrating = map.oldTable != null;
+            int movedBefore = countPairs(map.table);
+            map.put(key, key);
+            if (map.getCapacity() != capacity) {
+                assertFalse(migrating, "Table grew again before the old one was moved");
+                assertEquals(2 * capacity, map.getCapacity(), "Capacity didn't double");
+                assertNotNull(map.oldTable, "Growing moved every pair at once");
+                assertEquals(0, countPairs(map.table), "Growing moved pairs");
+                assertEquals(key + 1, countPairs(map.oldTable));
+                capacity = map.getCapacity();
+                growths++;
+            } else if (migrating) {
+                // the new pair and at most four lists' worth of old pairs
+                assertTrue(countPairs(map.table) - movedBefore <= 1 + 4 * 8,
+                        "A put moved too many pairs");
+            }
+            assertEquals(key + 1, map.getSize());
+        }
+        assertTrue(growths >= 6, "Table didn't grow");
+        for (int key = 0; key < 10000; key++) {
+            assertEquals(key, map.get(key), "Value didn't match");
+        }
+    }
+
+    /**
+     * Compares a map with incremental resizing against java.util.HashMap over random puts,
+     * removes and lookups, including keys with negative hash codes, so that lookups run both
+     * while lists are split between the old and the new table and after the move is done.
+     */
+    @Test
+    public void testIncrementalResizeMatchesHashMap() {
+        HashtableMap<Integer, Integer> map = new HashtableMap<>(5, true);
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(17);
+        for (int step = 0; step < 30000; step++) {
+            int key = random.nextInt(4000) - 1000;
+            int operation = random.nextInt(10);
+            if (operation < 6) {
+                assertEquals(!expected.containsKey(key), map.putIfAbsent(key, step));
+                expected.putIfAbsent(key, step);
+            } else if (operation < 8) {
+                if (expected.containsKey(key)) {
+                    assertEquals(expected.remove(key), map.remove(key));
+                } else {
+                    assertThrows(NoSuchElementException.class, () -> map.remove(key));
+                }
+            } else {
+                assertEquals(expected.containsKey(key), map.containsKey(key));
+                if (expected.containsKey(key)) {
+                    assertEquals(expected.get(key), map.get(key), "Value didn't match");
+                }
+            }
+            assertEquals(expected.size(), map.getSize(), "Size didn't match");
+        }
+        assertEquals(expected.keySet(), new HashSet<>(map.getKeys()));
+        map.clear();
+        assertEquals(0, map.getSize());
+        assertTrue(map.getKeys().isEmpty());
+        map.put(1, 1);
+        assertEquals(1, map.get(1));
+    }
+
+    /**
+     * Counts how often each key of a Spliterator comes up after splitting it and its halves as
+     * far as they go.
+     */
+    private static void splitAndCount(Spliterator<Integer> keys, HashMap<Integer, Integer> counts) {
+        Spliterator<Integer> prefix = keys.trySplit();
+        if (prefix != null) {
+            splitAndCount(prefix, counts);
+            splitAndCount(keys, counts);
+        } else {
+            keys.forEachRemaining(key -> counts.merge(key, 1, Integer::sum));
+        }
+    }
+
+    /**
+     * Tests that cursors and key Spliterators visit every pair exactly once, including while a
+     * map with incremental resizing has its lists split between the old and the new table.
+     */
+    @Test
+    public void testCursorAndSpliterator() {
+        HashtableMap<Integer, Integer> map = new HashtableMap<>(8, true);
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        assertFalse(map.cursor().advance(), "Cursor of an empty map found a pair");
+        boolean duringMigration = false;
+        for (int key = -500; key < 2000; key++) {
+            map.put(key, key * 2);
+            expected.put(key, key * 2);
+            if (key % 20 != 0) {
+                continue;
+            }
+            duringMigration |= map.oldTable != null;
+            HashMap<Integer, Integer> visited = new HashMap<>();
+            for (MapADT.Cursor<Integer, Integer> cursor = map.cursor(); cursor.advance(); ) {
+                assertNull(visited.put(cursor.key(), cursor.value()), "Pair visited twice");
+            }
+            assertEquals(expected, visited);
+            HashMap<Integer, Integer> counts = new HashMap<>();
+            splitAndCount(map.keySpliterator(), counts);
+            assertEquals(expected.keySet(), counts.keySet());
+            assertTrue(counts.values().stream().allMatch(count -> count == 1), "Key seen twice");
+        }
+        assertTrue(duringMigration, "No check ran while a migration was in progress");
+        List<Integer> streamed = map.keyStream(true).collect(Collectors.toList());
+        assertEquals(expected.size(), streamed.size());
+        assertEquals(expected.keySet(), new HashSet<>(streamed));
+    }
+}
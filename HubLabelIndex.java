@@ -0,0 +1,640 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * A HubLabelIndex answers shortest path queries on a graph that does not change, by looking up
+ * precomputed labels instead of searching. Every node v has an out-label, listing hubs that v can
+ * reach together with the cost of getting there, and an in-label, listing hubs that can reach v.
+ * The labels are built so that for every pair s and t with a path between them, some hub on a
+ * shortest path from s to t appears in both the out-label of s and the in-label of t (a 2-hop
+ * cover). The cost from s to t is then the minimum, over the hubs the two labels share, of the
+ * cost from s to the hub plus the cost from the hub to t.
+ * <p>
+ * Labels are computed with pruned landmark labeling (Akiba, Iwata and Yoshida): nodes are taken
+ * in order of importance, and each one runs a forward and a backward search that stops expanding
+ * any node whose cost the labels built so far already cover. Important nodes (those that lie on
+ * many shortest paths) come first, so they cover most pairs early and later searches stay small.
+ * Importance is estimated by counting, in the shortest path trees of a sample of nodes, how many
+ * nodes lie below each node.
+ * <p>
+ * Each label is stored as a range of flat arrays, sorted by the rank of its hubs, so that a query
+ * is a single merge of two sorted ranges. Next to each entry, the index also stores the node after
+ * v on the shortest path from v to the hub (or before v on the path from the hub), so that whole
+ * paths can be rebuilt one label lookup per node.
+ */
+public class HubLabelIndex<NodeType> {
+
+    // number of shortest path trees used to estimate how important each node is
+    private static final int ORDER_SAMPLES = 16;
+
+    private final GraphSnapshot<NodeType> graph;
+    private final HashMap<NodeType, Integer> idOf = new HashMap<>();
+    // hubOrder[rank] is the id of the node with that rank, most important first
+    private final int[] hubOrder;
+
+    // the out-label of node v is [outOffsets[v], outOffsets[v + 1]) of the other out arrays:
+    // hub ranks in increasing order, the cost from v to each hub, and the id of the node after v
+    // on that path (-1 when v is the hub itself)
+    private final int[] outOffsets;
+    private final int[] outHubs;
+    private final double[] outCosts;
+    private final int[] outNext;
+    // in-labels are stored the same way, with the cost from each hub to v and the id of the node
+    // before v on that path
+    private final int[] inOffsets;
+    private final int[] inHubs;
+    private final double[] inCosts;
+    private final int[] inPrevious;
+
+    private final long buildNanos;
+
+    /**
+     * Builds the hub labels of the provided graph.
+     *
+     * @param graph the graph to index
+     */
+    public HubLabelIndex(BaseGraph<NodeType, ? extends Number> graph) {
+        this(GraphSnapshot.of(graph));
+    }
+
+    /**
+     * Builds the hub labels of the provided snapshot.
+     *
+     * @param graph the snapshot to index
+     */
+    public HubLabelIndex(GraphSnapshot<NodeType> graph) {
+        long start = System.nanoTime();
+        this.graph = graph;
+        int nodeCount = graph.nodeCount;
+        for (int v = 0; v < nodeCount; v++) {
+            if (graph.dataOf(v) != null) {
+                this.idOf.put(graph.dataOf(v), v);
+            }
+        }
+        this.hubOrder = this.computeHubOrder();
+
+        // labels grow while they are built, and are copied into the flat arrays afterwards
+        LabelBuilder out = new LabelBuilder(nodeCount);
+        LabelBuilder in = new LabelBuilder(nodeCount);
+        PrunedSearch search = new PrunedSearch(nodeCount);
+        for (int rank = 0; rank < this.hubOrder.length; rank++) {
+            int hub = this.hubOrder[rank];
+            // forward from the hub: the hub reaches v, so it joins v's in-label
+            search.run(hub, rank, out, in, graph.forwardOffsets, graph.forwardTargets,
+                    graph.forwardWeights);
+            // backward to the hub: v reaches the hub, so it joins v's out-label
+            search.run(hub, rank, in, out, graph.backwardOffsets, graph.backwardSources,
+                    graph.backwardWeights);
+        }
+
+        this.outOffsets = out.offsets();
+        this.outHubs = out.hubs();
+        this.outCosts = out.costs();
+        this.outNext = out.links();
+        this.inOffsets = in.offsets();
+        this.inHubs = in.hubs();
+        this.inCosts = in.costs();
+        this.inPrevious = in.links();
+        this.buildNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Orders the nodes by importance: the nodes that lie above the most other nodes in the
+     * shortest path trees of a random sample of roots come first, with ties broken by degree.
+     */
+    private int[] computeHubOrder() {
+        int nodeCount = this.graph.nodeCount;
+        long[] descendants = new long[nodeCount];
+        int[] parent = new int[nodeCount];
+        int[] settleOrder = new int[nodeCount];
+        double[] cost = new double[nodeCount];
+        Random random = new Random(nodeCount);
+        List<Integer> ids = new ArrayList<>(this.idOf.values());
+        MinHeap heap = new MinHeap(nodeCount);
+
+        for (int sample = 0; sample < Math.min(ORDER_SAMPLES, ids.size()); sample++) {
+            int root = ids.get(random.nextInt(ids.size()));
+            Arrays.fill(cost, Double.POSITIVE_INFINITY);
+            Arrays.fill(parent, -1);
+            cost[root] = 0.0;
+            heap.clear();
+            heap.add(0.0, root);
+            int settled = 0;
+            while (!heap.isEmpty()) {
+                double costOfU = heap.peekKey();
+                int u = heap.poll();
+                if (costOfU > cost[u]) {
+                    continue; // stale entry
+                }
+                settleOrder[settled++] = u;
+                for (int e = this.graph.forwardOffsets[u]; e < this.graph.forwardOffsets[u + 1];
+                     e++) {
+                    int v = this.graph.forwardTargets[e];
+                    double candidate = costOfU + this.graph.forwardWeights[e];
+                    if (candidate < cost[v]) {
+                        cost[v] = candidate;
+                        parent[v] = u;
+                        heap.add(candidate, v);
+                    }
+                }
+            }
+            // every node's subtree is complete before its parent's, in reverse settle order
+            long[] subtree = new long[nodeCount];
+            for (int i = settled - 1; i >= 0; i--) {
+                int v = settleOrder[i];
+                subtree[v]++;
+                descendants[v] += subtree[v];
+                if (parent[v] != -1) {
+                    subtree[parent[v]] += subtree[v];
+                }
+            }
+        }
+
+        Integer[] order = ids.toArray(new Integer[0]);
+        Arrays.sort(order, (a, b) -> {
+            if (descendants[a] != descendants[b]) {
+                return Long.compare(descendants[b], descendants[a]);
+            }
+            return Integer.compare(this.degree(b), this.degree(a));
+        });
+        int[] hubOrder = new int[order.length];
+        for (int rank = 0; rank < order.length; rank++) {
+            hubOrder[rank] = order[rank];
+        }
+        return hubOrder;
+    }
+
+    /**
+     * Returns the number of edges entering and leaving node v.
+     */
+    private int degree(int v) {
+        return this.graph.forwardOffsets[v + 1] - this.graph.forwardOffsets[v] +
+                this.graph.backwardOffsets[v + 1] - this.graph.backwardOffsets[v];
+    }
+
+    /**
+     * Returns the cost of the shortest path from start to end.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return the cost of the shortest path, or Double.POSITIVE_INFINITY when there is none
+     * @throws NoSuchElementException when start or end is not a node of the indexed graph
+     */
+    public double shortestPathCost(NodeType start, NodeType end) {
+        return this.costBetween(this.idOf(start), this.idOf(end));
+    }
+
+    /**
+     * Returns the data of the nodes along the shortest path from start to end, starting with
+     * start and ending with end.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return list of data items from the nodes along the shortest path
+     * @throws NoSuchElementException when start or end is not a node of the indexed graph, or
+     *                                there is no path from start to end
+     */
+    public List<NodeType> shortestPathData(NodeType start, NodeType end) {
+        int s = this.idOf(start);
+        int t = this.idOf(end);
+        int best = this.bestHub(s, t);
+        if (best == -1) {
+            throw new NoSuchElementException("Path doesn't exist between the given points");
+        }
+        int hubRank = this.outHubs[best];
+        int hub = this.hubOrder[hubRank];
+
+        ArrayList<NodeType> path = new ArrayList<>();
+        // from start to the hub, following each out-label's next node
+        for (int v = s; v != hub; v = this.outNext[this.findEntry(this.outOffsets,
+                this.outHubs, v, hubRank)]) {
+            path.add(this.graph.dataOf(v));
+        }
+        // from end back to the hub, following each in-label's previous node, then reversed
+        int middle = path.size();
+        for (int v = t; v != hub; v = this.inPrevious[this.findEntry(this.inOffsets,
+                this.inHubs, v, hubRank)]) {
+            path.add(this.graph.dataOf(v));
+        }
+        path.add(this.graph.dataOf(hub));
+        Collections.reverse(path.subList(middle, path.size()));
+        return path;
+    }
+
+    /**
+     * Returns the cost from node s to node t, by merging the out-label of s with the in-label
+     * of t.
+     */
+    private double costBetween(int s, int t) {
+        int i = this.outOffsets[s];
+        int iEnd = this.outOffsets[s + 1];
+        int j = this.inOffsets[t];
+        int jEnd = this.inOffsets[t + 1];
+        double bestCost = Double.POSITIVE_INFINITY;
+        while (i < iEnd && j < jEnd) {
+            int outHub = this.outHubs[i];
+            int inHub = this.inHubs[j];
+            if (outHub == inHub) {
+                bestCost = Math.min(bestCost, this.outCosts[i++] + this.inCosts[j++]);
+            } else if (outHub < inHub) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return bestCost;
+    }
+
+    /**
+     * Merges the labels like costBetween, but returns the position in the out arrays of the hub with the cheapest total cost, or -1 when the labels share no hub.
+     */
+    private int bestHub(int s, int t) {
+        int i = this.outOffsets[s];
+        int iEnd = this.outOffsets[s + 1];
+        int j = this.inOffsets[t];
+        int jEnd = this.inOffsets[t + 1];
+        double bestCost = Double.POSITIVE_INFINITY;
+        int best = -1;
+        while (i < iEnd && j < jEnd) {
+            int outHub = this.outHubs[i];
+            int inHub = this.inHubs[j];
+            if (outHub == inHub) {
+                double cost = this.outCosts[i] + this.inCosts[j];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    best = i;
+                }
+                i++;
+                j++;
+            } else if (outHub < inHub) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the position of hubRank within the label of v, by binary search.
+     */
+    private int findEntry(int[] offsets, int[] hubs, int v, int hubRank) {
+        int position = Arrays.binarySearch(hubs, offsets[v], offsets[v + 1], hubRank);
+        if (position < 0) {
+            throw new IllegalStateException("Label of node " + v + " is missing hub " + hubRank);
+        }
+        return position;
+    }
+
+    /**
+     * Returns the id of the node containing data.
+     */
+    private int idOf(NodeType data) {
+        Integer id = data == null ? null : this.idOf.get(data);
+        if (id == null) {
+            throw new NoSuchElementException("Node is not part of the indexed graph");
+        }
+        return id;
+    }
+
+    /**
+     * Returns how long building the index took.
+     *
+     * @return the build time in milliseconds
+     */
+    public double getBuildMillis() {
+        return this.buildNanos / 1e6;
+    }
+
+    /**
+     * Returns the total number of entries in all out-labels and in-labels.
+     *
+     * @return the number of label entries
+     */
+    public int getLabelEntryCount() {
+        return this.outHubs.length + this.inHubs.length;
+    }
+
+    /**
+     * Returns the average number of entries per label, counting the out-label and in-label of
+     * every node separately.
+     *
+     * @return the average label size
+     */
+    public double getAverageLabelSize() {
+        return this.idOf.isEmpty() ? 0.0 : this.getLabelEntryCount() / (2.0 * this.idOf.size());
+    }
+
+    /**
+     * Returns the memory taken by the label arrays.
+     *
+     * @return the size of the labels in bytes
+     */
+    public long getLabelBytes() {
+        // each entry takes a hub rank, a cost and a linked node id
+        return (long) this.getLabelEntryCount() * (4 + 8 + 4) +
+                4L * (this.outOffsets.length + this.inOffsets.length);
+    }
+
+    /**
+     * A pruned Dijkstra search from (or, along backward arrays, to) one hub. The search stops
+     * expanding any node whose cost the labels built so far already cover, and adds the hub to
+     * the labels of every other node it settles.
+     */
+    private static class PrunedSearch {
+        private final double[] cost;
+        private final int[] link;
+        // hubCost[rank] is the cost between the current hub and the hub with that rank, taken
+        // from the current hub's own label, so that each pruning test is one pass over a label
+        private final double[] hubCost;
+        private final int[] touched;
+        private final MinHeap heap;
+
+        PrunedSearch(int nodeCount) {
+            this.cost = new double[nodeCount];
+            this.link = new int[nodeCount];
+            this.hubCost = new double[nodeCount];
+            this.touched = new int[nodeCount];
+            this.heap = new MinHeap(nodeCount);
+            Arrays.fill(this.cost, Double.POSITIVE_INFINITY);
+            Arrays.fill(this.hubCost, Double.POSITIVE_INFINITY);
+        }
+
+        /**
+         * Runs the search from hub along the provided adjacency arrays. hubLabels holds the
+         * labels on the hub's side of each path and targetLabels the labels that the hub is
+         * added to.
+         */
+        void run(int hub, int rank, LabelBuilder hubLabels, LabelBuilder targetLabels,
+                 int[] offsets, int[] neighbors, double[] weights) {
+            for (int i = 0; i < hubLabels.size[hub]; i++) {
+                this.hubCost[hubLabels.hubs[hub][i]] = hubLabels.costs[hub][i];
+            }
+            int touchedCount = 0;
+            this.cost[hub] = 0.0;
+            this.link[hub] = -1;
+            this.touched[touchedCount++] = hub;
+            this.heap.clear();
+            this.heap.add(0.0, hub);
+
+            while (!this.heap.isEmpty()) {
+                double costOfU = this.heap.peekKey();
+                int u = this.heap.poll();
+                if (costOfU > this.cost[u]) {
+                    continue; // stale entry
+                }
+                // prune when a higher ranked hub already covers this pair at no greater cost
+                boolean covered = false;
+                for (int i = 0; i < targetLabels.size[u] && !covered; i++) {
+                    covered = this.hubCost[targetLabels.hubs[u][i]] + targetLabels.costs[u][i] <=
+                            costOfU;
+                }
+                if (covered) {
+                    continue;
+                }
+                targetLabels.add(u, rank, costOfU, this.link[u]);
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int v = neighbors[e];
+                    double candidate = costOfU + weights[e];
+                    if (candidate < this.cost[v]) {
+                        if (this.cost[v] == Double.POSITIVE_INFINITY) {
+                            this.touched[touchedCount++] = v;
+                        }
+                        this.cost[v] = candidate;
+                        this.link[v] = u;
+                        this.heap.add(candidate, v);
+                    }
+                }
+            }
+
+            for (int i = 0; i < touchedCount; i++) {
+                this.cost[this.touched[i]] = Double.POSITIVE_INFINITY;
+            }
+            for (int i = 0; i < hubLabels.size[hub]; i++) {
+                this.hubCost[hubLabels.hubs[hub][i]] = Double.POSITIVE_INFINITY;
+            }
+        }
+    }
+
+    /**
+     * Growable labels of every node, copied into flat arrays once all hubs are added. Hubs are
+     * added in rank order, so every label is sorted by rank without any extra work.
+     */
+    private static class LabelBuilder {
+        final int[][] hubs;
+        final double[][] costs;
+        final int[][] links;
+        final int[] size;
+
+        LabelBuilder(int nodeCount) {
+            this.hubs = new int[nodeCount][];
+            this.costs = new double[nodeCount][];
+            this.links = new int[nodeCount][];
+            this.size = new int[nodeCount];
+            for (int v = 0; v < nodeCount; v++) {
+                this.hubs[v] = new int[4];
+                this.costs[v] = new double[4];
+                this.links[v] = new int[4];
+            }
+        }
+
+        void add(int v, int hubRank, double cost, int link) {
+            if (this.size[v] == this.hubs[v].length) {
+                int capacity = this.size[v] * 2;
+                this.hubs[v] = Arrays.copyOf(this.hubs[v], capacity);
+                this.costs[v] = Arrays.copyOf(this.costs[v], capacity);
+                this.links[v] = Arrays.copyOf(this.links[v], capacity);
+            }
+            this.hubs[v][this.size[v]] = hubRank;
+            this.costs[v][this.size[v]] = cost;
+            this.links[v][this.size[v]] = link;
+            this.size[v]++;
+        }
+
+        int[] offsets() {
+            int[] offsets = new int[this.size.length + 1];
+            for (int v = 0; v < this.size.length; v++) {
+                offsets[v + 1] = offsets[v] + this.size[v];
+            }
+            return offsets;
+        }
+
+        int[] hubs() {
+            return this.flatten(this.hubs);
+        }
+
+        int[] links() {
+            return this.flatten(this.links);
+        }
+
+        double[] costs() {
+            double[] flat = new double[this.offsets()[this.size.length]];
+            for (int v = 0, position = 0; v < this.size.length; position += this.size[v], v++) {
+                System.arraycopy(this.costs[v], 0, flat, position, this.size[v]);
+            }
+            return flat;
+        }
+
+        private int[] flatten(int[][] perNode) {
+            int[] flat = new int[this.offsets()[this.size.length]];
+            for (int v = 0, position = 0; v < this.size.length; position += this.size[v], v++) {
+                System.arraycopy(perNode[v], 0, flat, position, this.size[v]);
+            }
+            return flat;
+        }
+    }
+
+    /**
+     * A binary min-heap of node ids keyed by cost. A node whose cost drops is added again, and
+     * the outdated entry is skipped when it comes out.
+     */
+    static class MinHeap {
+        private double[] keys;
+        private int[] ids;
+        private int size = 0;
+
+        MinHeap(int capacity) {
+            this.keys = new double[Math.max(capacity, 1)];
+            this.ids = new int[Math.max(capacity, 1)];
+        }
+
+        void clear() {
+            this.size = 0;
+        }
+
+        boolean isEmpty() {
+            return this.size == 0;
+        }
+
+        double peekKey() {
+            return this.keys[0];
+        }
+
+        void add(double key, int id) {
+            if (this.size == this.keys.length) {
+                this.keys = Arrays.copyOf(this.keys, this.size * 2);
+                this.ids = Arrays.copyOf(this.ids, this.size * 2);
+            }
+            int index = this.size++;
+            while (index > 0 && this.keys[(index - 1) >>> 1] > key) {
+                int parent = (index - 1) >>> 1;
+                this.keys[index] = this.keys[parent];
+                this.ids[index] = this.ids[parent];
+                index = parent;
+            }
+            this.keys[index] = key;
+            this.ids[index] = id;
+        }
+
+        int poll() {
+            int top = this.ids[0];
+            this.size--;
+            double key = this.keys[this.size];
+            int id = this.ids[this.size];
+            int index = 0;
+            while (2 * index + 1 < this.size) {
+                int child = 2 * index + 1;
+                if (child + 1 < this.size && this.keys[child + 1] < this.keys[child]) {
+                    child++;
+                }
+                if (this.keys[child] >= key) {
+                    break;
+                }
+                this.keys[index] = this.keys[child];
+                this.ids[index] = this.ids[child];
+                index = child;
+            }
+            this.keys[index] = key;
+            this.ids[index] = id;
+            return top;
+        }
+    }
+
+    /**
+     * Builds the hub labels of a graph and reports the build time, label size and query latency
+     * compared to Dijkstra's algorithm.
+     *
+     * @param args either a DOT file to load (default campus.dot), or the side length of a
+     *             synthetic grid graph
+     * @throws IOException when the DOT file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        String source = args.length > 0 ? args[0] : "campus.dot";
+        if (source.matches("\\d+")) {
+            GraphSnapshot<Integer> grid = DeltaSteppingSearch.randomGrid(Integer.parseInt(source),
+                    42);
+            DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+            for (int v = 0; v < grid.nodeCount; v++) {
+                graph.insertNode(v);
+            }
+            for (int v = 0; v < grid.nodeCount; v++) {
+                for (int e = grid.forwardOffsets[v]; e < grid.forwardOffsets[v + 1]; e++) {
+                    graph.insertEdge(v, grid.forwardTargets[e], grid.forwardWeights[e]);
+                }
+            }
+            report(source + "x" + source + " grid", graph);
+        } else {
+            DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+            new Backend(graph).loadGraphData(source);
+            report(source, graph);
+        }
+    }
+
+    /**
+     * Prints the build time, label size and query latency of the hub labels of graph.
+     */
+    private static <T> void report(String name, DijkstraGraph<T, Double> graph) {
+        HubLabelIndex<T> index = new HubLabelIndex<>(graph);
+        System.out.println(String.format("%s: %d nodes, %d edges", name, graph.getNodeCount(),
+                graph.getEdgeCount()));
+        System.out.println(String.format("Build time: %.1f ms", index.getBuildMillis()));
+        System.out.println(String.format("Label size: %.1f entries on average, %d entries, " +
+                "%.1f KB", index.getAverageLabelSize(), index.getLabelEntryCount(),
+                index.getLabelBytes() / 1024.0));
+
+        List<T> nodes = graph.getAllNodes();
+        Random random = new Random(7);
+        int pairs = 1000;
+        List<T> starts = new ArrayList<>();
+        List<T> ends = new ArrayList<>();
+        for (int i = 0; i < pairs; i++) {
+            starts.add(nodes.get(random.nextInt(nodes.size())));
+            ends.add(nodes.get(random.nextInt(nodes.size())));
+        }
+        double checksum = 0.0;
+        for (int round = 0; round < 20; round++) { // warm up
+            for (int i = 0; i < pairs; i++) {
+                checksum += index.shortestPathCost(starts.get(i), ends.get(i));
+            }
+        }
+        int repeats = 200;
+        long start = System.nanoTime();
+        for (int round = 0; round < repeats; round++) {
+            for (int i = 0; i < pairs; i++) {
+                checksum += index.shortestPathCost(starts.get(i), ends.get(i));
+            }
+        }
+        double labelNanos = (System.nanoTime() - start) / (double) (repeats * pairs);
+
+        start = System.nanoTime();
+        for (int i = 0; i < pairs; i++) {
+            try {
+                checksum += graph.shortestPathCost(starts.get(i), ends.get(i));
+            } catch (NoSuchElementException e) {
+                // unreachable pairs cost the same either way
+            }
+        }
+        double dijkstraNanos = (System.nanoTime() - start) / (double) pairs;
+        System.out.println(String.format("Query latency: %.0f ns with labels, %.0f ns with " +
+                "Dijkstra (%.0fx faster)", labelNanos, dijkstraNanos, dijkstraNanos / labelNanos));
+        if (checksum == 42.0) {
+            System.out.println(); // keeps the queries from being optimized away
+        }
+    }
+}
@@ -0,0 +1,184 @@
+import java.util.Arrays;
+
+/**
+ * A hash table from non-negative long keys to values, with open addressing over a long[] of
+ * keys and an Object[] of values, in the same way as OpenAddressingMap. Keys are never boxed,
+ * and a key that is not in the table is reported by returning null rather than by throwing, so
+ * a lookup that misses costs no more than one that hits. It is meant for keys made of two ints,
+ * such as the ids of the two nodes an edge connects; see BaseGraph.edgeKey.
+ * <p>
+ * Since keys are non-negative, an empty slot is marked by the key -1, and null values can't be
+ * stored.
+ */
+public class LongKeyMap<ValueType> {
+
+    private static final long EMPTY = -1L;
+
+    private long[] keys;
+    private Object[] values;
+    private int size = 0;
+    // the table grows when size would exceed this
+    private int threshold;
+
+    /**
+     * Creates an empty map with room for 64 keys before it grows.
+     */
+    public LongKeyMap() {
+        this(64);
+    }
+
+    /**
+     * Creates an empty map with room for the provided number of keys before it grows.
+     *
+     * @param expectedKeys the number of keys to make room for
+     */
+    public LongKeyMap(int expectedKeys) {
+        this.allocate(Integer.highestOneBit(Math.max(4, expectedKeys * 4 / 3 + 1) * 2 - 1));
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        Arrays.fill(this.keys, EMPTY);
+        this.values = new Object[capacity];
+        this.threshold = capacity - (capacity >>> 2);
+    }
+
+    /**
+     * Mixes all 64 bits of a key into the low bits that select its home slot.
+     */
+    private static int spread(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L; // the golden ratio, as in Fibonacci hashing
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Returns the slot that holds key, or -(slot + 1) for the empty slot where key would go.
+     */
+    private int findSlot(long key) {
+        int mask = this.keys.length - 1;
+        for (int slot = spread(key) & mask; ; slot = (slot + 1) & mask) {
+            long current = this.keys[slot];
+            if (current == key) {
+                return slot;
+            }
+            if (current == EMPTY) {
+                return -(slot + 1);
+            }
+        }
+    }
+
+    private static void checkKey(long key) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Keys must not be negative: " + key);
+        }
+    }
+
+    /**
+     * Retrieves the value that a key maps to.
+     *
+     * @param key the key to look up
+     * @return the value that key maps to, or null if key is not stored in this map
+     */
+    @SuppressWarnings("unchecked")
+    public ValueType get(long key) {
+        int slot = key < 0 ? -1 : this.findSlot(key);
+        return slot < 0 ? null : (ValueType) this.values[slot];
+    }
+
+    /**
+     * Maps key to value, replacing any value that key already mapped to.
+     *
+     * @param key   a non-negative key
+     * @param value the value that key maps to
+     * @return the value that key mapped to before, or null if it was not stored
+     * @throws IllegalArgumentException if key is negative
+     * @throws NullPointerException     if value is null
+     */
+    @SuppressWarnings("unchecked")
+    public ValueType put(long key, ValueType value) {
+        checkKey(key);
+        if (value == null) {
+            throw new NullPointerException("null values not allowed");
+        }
+        int slot = this.findSlot(key);
+        if (slot >= 0) {
+            ValueType old = (ValueType) this.values[slot];
+            this.values[slot] = value;
+            return old;
+        }
+        this.keys[-slot - 1] = key;
+        this.values[-slot - 1] = value;
+        if (++this.size > this.threshold) {
+            this.grow();
+        }
+        return null;
+    }
+
+    /**
+     * Doubles the capacity, moving every pair to its slot in the larger table.
+     */
+    private void grow() {
+        long[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+        this.allocate(oldKeys.length * 2);
+        int mask = this.keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = spread(oldKeys[i]) & mask;
+                while (this.keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Removes the mapping for a key, shifting later entries of the same run back like
+     * OpenAddressingMap.remove, so that no deleted markers are left behind.
+     *
+     * @param key the key whose mapping to remove
+     * @return the value that key mapped to, or null if it was not stored
+     */
+    @SuppressWarnings("unchecked")
+    public ValueType remove(long key) {
+        int slot = key < 0 ? -1 : this.findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+        ValueType removed = (ValueType) this.values[slot];
+        int mask = this.keys.length - 1;
+        int gap = slot;
+        for (int next = (gap + 1) & mask; this.keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = spread(this.keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                this.keys[gap] = this.keys[next];
+                this.values[gap] = this.values[next];
+                gap = next;
+            }
+        }
+        this.keys[gap] = EMPTY;
+        this.values[gap] = null;
+        this.size--;
+        return removed;
+    }
+
+    /**
+     * Removes all pairs from this map.
+     */
+    public void clear() {
+        Arrays.fill(this.keys, EMPTY);
+        Arrays.fill(this.values, null);
+        this.size = 0;
+    }
+
+    /**
+     * Retrieves the number of keys stored in this map.
+     *
+     * @return the number of keys stored in this map
+     */
+    public int getSize() {
+        return this.size;
+    }
+}
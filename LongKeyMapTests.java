@@ -0,0 +1,61 @@
+import java.util.HashMap;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongKeyMapTests {
+
+    /**
+     * Compares the map with java.util.HashMap over random puts, replacements and removes of
+     * keys packed from two small ints, as BaseGraph packs node ids, while the table grows from
+     * its smallest size.
+     */
+    @Test
+    public void testMatchesHashMap() {
+        LongKeyMap<Integer> map = new LongKeyMap<>(1);
+        HashMap<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(13);
+        for (int step = 0; step < 50000; step++) {
+            long key = BaseGraph.edgeKey(random.nextInt(100), random.nextInt(100));
+            if (random.nextInt(3) > 0) {
+                assertEquals(expected.put(key, step), map.put(key, step));
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            assertEquals(expected.size(), map.getSize(), "Size didn't match");
+        }
+        for (int pred = 0; pred < 100; pred++) {
+            for (int succ = 0; succ < 100; succ++) {
+                long key = BaseGraph.edgeKey(pred, succ);
+                assertEquals(expected.get(key), map.get(key), "Value didn't match");
+            }
+        }
+        map.clear();
+        assertEquals(0, map.getSize());
+        assertNull(map.get(BaseGraph.edgeKey(0, 0)));
+    }
+
+    /**
+     * Tests that missing and negative keys are reported by null instead of exceptions, and that
+     * keys differing only in their high or low half are told apart.
+     */
+    @Test
+    public void testMissingKeys() {
+        LongKeyMap<String> map = new LongKeyMap<>();
+        assertNull(map.get(42L));
+        assertNull(map.remove(42L));
+        assertNull(map.get(-1L), "Lookup of the empty marker found a value");
+        assertNull(map.remove(-1L));
+        assertEquals(0, map.getSize());
+        assertThrows(IllegalArgumentException.class, () -> map.put(-5L, "negative"));
+        assertThrows(NullPointerException.class, () -> map.put(5L, null));
+
+        map.put(BaseGraph.edgeKey(1, 2), "1->2");
+        map.put(BaseGraph.edgeKey(2, 1), "2->1");
+        map.put(BaseGraph.edgeKey(Integer.MAX_VALUE, Integer.MAX_VALUE), "max");
+        assertEquals("1->2", map.get(BaseGraph.edgeKey(1, 2)));
+        assertEquals("2->1", map.get(BaseGraph.edgeKey(2, 1)));
+        assertEquals("max", map.get(BaseGraph.edgeKey(Integer.MAX_VALUE, Integer.MAX_VALUE)));
+        assertNull(map.get(BaseGraph.edgeKey(1, 1)));
+    }
+}
@@ -1,5 +1,11 @@
+import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * This abstract data type represents a collection that maps keys to values,
@@ -16,6 +22,40 @@ public interface MapADT<KeyType, ValueType> {
      */
     public void put(KeyType key, ValueType value) throws IllegalArgumentException;
 
+    /**
+     * Adds a new key,value pair/mapping to this collection, unless key already maps to a value.
+     * Implementations should find the key's place only once, instead of calling containsKey and
+     * then put.
+     * @param key the key of the key,value pair
+     * @param value the value that key maps to
+     * @return true if the pair was added, and false if key already mapped to a value (which is
+     *         left unchanged)
+     * @throws NullPointerException if key is null
+     */
+    public default boolean putIfAbsent(KeyType key, ValueType value) {
+        if (this.containsKey(key))
+            return false;
+        this.put(key, value);
+        return true;
+    }
+
+    /**
+     * Retrieves the value that a key maps to, first mapping the key to a value computed from it
+     * when it doesn't map to one yet. Implementations should find the key's place only once.
+     * @param key the key to look up
+     * @param mappingFunction computes the value for key when key is not stored yet
+     * @return the value that key maps to
+     * @throws NullPointerException if key is null
+     */
+    public default ValueType computeIfAbsent(KeyType key,
+            Function<? super KeyType, ? extends ValueType> mappingFunction) {
+        if (this.containsKey(key))
+            return this.get(key);
+        ValueType value = mappingFunction.apply(key);
+        this.put(key, value);
+        return value;
+    }
+
     /**
      * Checks whether a key maps to a value in this collection.
      * @param key the key to check
@@ -33,6 +73,19 @@ public interface MapADT<KeyType, ValueType> {
      */
     public ValueType get(KeyType key) throws NoSuchElementException;
 
+    /**
+     * Retrieves the value that a key maps to, or defaultValue when the key doesn't map to one.
+     * Implementations should find the key's place only once, and not throw for missing keys,
+     * so that lookups that often miss don't pay for an exception.
+     * @param key the key to look up
+     * @param defaultValue the value to return when key is not stored in this collection
+     * @return the value that key maps to, or defaultValue
+     * @throws NullPointerException if key is null
+     */
+    public default ValueType getOrDefault(KeyType key, ValueType defaultValue) {
+        return this.containsKey(key) ? this.get(key) : defaultValue;
+    }
+
     /**
      * Remove the mapping for a key from this collection.
      * @param key the key whose mapping to remove
@@ -59,11 +112,101 @@ public interface MapADT<KeyType, ValueType> {
      */
     public int getCapacity();
 
+    /**
+     * Returns an empty collection of the same kind and capacity as this one, to take this
+     * collection's place when all of its pairs are dropped at once. Implementations should
+     * allocate a new collection, which leaves the old one to the garbage collector instead of
+     * emptying each slot. That still takes time in proportion to the capacity, since new
+     * arrays are zeroed, but writes nothing to the old storage. This default clears this
+     * collection and returns it.
+     * @return an empty collection with this collection's capacity
+     */
+    public default MapADT<KeyType, ValueType> emptyCopy() {
+        this.clear();
+        return this;
+    }
+
     /**
      * Retrieves this collection's keys.
      * @return a list of keys in the underlying array for this collection
      */
     public List<KeyType> getKeys();
 
+    /**
+     * A position among the pairs of a map, which starts before the first pair and moves to the
+     * next one with each call to advance. Cursors read keys and values straight from the map's
+     * storage, so visiting every pair neither copies the keys nor looks any key up again.
+     * The map must not be changed while a cursor over it is in use, unless its implementation
+     * says otherwise.
+     */
+    public interface Cursor<KeyType, ValueType> {
+
+        /**
+         * Moves to the next pair.
+         * @return true if there is a next pair, and false once every pair has been visited
+         */
+        public boolean advance();
+
+        /**
+         * Retrieves the key of the current pair, after advance returned true.
+         * @return the key of the pair the cursor is at
+         */
+        public KeyType key();
+
+        /**
+         * Retrieves the value of the current pair, after advance returned true.
+         * @return the value of the pair the cursor is at
+         */
+        public ValueType value();
+    }
+
+    /**
+     * Returns a cursor over the pairs of this collection, in no particular order.
+     * Implementations should walk their own storage; this default walks a copy of getKeys and
+     * looks each value up.
+     * @return a cursor positioned before the first pair
+     */
+    public default Cursor<KeyType, ValueType> cursor() {
+        Iterator<KeyType> keys = this.getKeys().iterator();
+        return new Cursor<>() {
+            private KeyType key = null;
+
+            public boolean advance() {
+                if (!keys.hasNext())
+                    return false;
+                this.key = keys.next();
+                return true;
+            }
+
+            public KeyType key() {
+                return this.key;
+            }
+
+            public ValueType value() {
+                return get(this.key);
+            }
+        };
+    }
+
+    /**
+     * Returns a Spliterator over the keys of this collection, in no particular order.
+     * Implementations should split their storage into ranges without copying it, so that a
+     * parallel stream of the keys can hand each range to a different thread; this default
+     * splits a copy of getKeys.
+     * @return a Spliterator over this collection's keys
+     */
+    public default Spliterator<KeyType> keySpliterator() {
+        return Spliterators.spliterator(this.getKeys(), Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    /**
+     * Returns a stream of this collection's keys, from keySpliterator.
+     * @param parallel true for a parallel stream, which splits the keys across threads
+     * @return a stream of the keys of this collection
+     */
+    public default Stream<KeyType> keyStream(boolean parallel) {
+        return StreamSupport.stream(this.keySpliterator(), parallel);
+    }
+
 }
 
@@ -0,0 +1,757 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32C;
+
+/**
+ * A read-only GraphADT that reads its nodes, edges and location names straight out of a binary
+ * graph file mapped into memory with FileChannel.map. Backend.loadGraphData parses a dot file
+ * line by line, splitting strings and inserting every node and edge into a graph; opening a
+ * graph file instead checks its header, maps it and makes one pass over its offsets and edge
+ * targets, so startup takes far less time than parsing, even for a graph of millions of edges.
+ * Nothing is copied onto the heap: each
+ * query reads the pages it touches, which the operating system loads on first use and keeps in
+ * its page cache, so every process that maps the same file shares a single copy of it.
+ * <p>
+ * A graph file is written from any loaded graph by write, or converted from a dot file by
+ * running this class. All numbers are little-endian, and the file holds, in order:
+ * <ul>
+ * <li>a header of HEADER_BYTES bytes: MAGIC, the format VERSION, flags, the number of nodes,
+ * edges, name pool bytes and name table slots, and a CRC-32C checksum of everything after the
+ * header (valid when the HAS_CHECKSUM flag is set).</li>
+ * <li>the string pool's offsets: name i is the UTF-8 bytes from nameStart[i] up to
+ * nameStart[i + 1] of the pool, so there are nodeCount + 1 of them.</li>
+ * <li>the hash of each name, and an open-addressing table of node id + 1 (0 for empty slots)
+ * by name hash, so names are looked up without building a map when the file is opened.</li>
+ * <li>the edges in compressed sparse row form: the edges leaving node i are firstEdge[i] up to
+ * firstEdge[i + 1], and edge e goes to node target[e] at a cost of weight[e].</li>
+ * <li>the string pool itself.</li>
+ * </ul>
+ * Node ids are the positions of the nodes in the graph's getAllNodes list when it was written.
+ * A mapped file can't be modified, so every method that would change the graph throws an
+ * UnsupportedOperationException; load replaces the whole graph with another file instead. Files
+ * are limited to 2 GB, the most that one MappedByteBuffer can map.
+ */
+public class MappedGraph implements GraphADT<String, Double> {
+
+    // "GRPH" when read as little-endian bytes
+    public static final int MAGIC = 0x48505247;
+    public static final int VERSION = 1;
+    public static final int HAS_CHECKSUM = 1;
+
+    // header layout
+    private static final int HEADER_BYTES = 40;
+    private static final int MAGIC_AT = 0;
+    private static final int VERSION_AT = 4;
+    private static final int FLAGS_AT = 8;
+    private static final int NODE_COUNT_AT = 12;
+    private static final int EDGE_COUNT_AT = 16;
+    private static final int NAME_POOL_BYTES_AT = 20;
+    private static final int NAME_SLOTS_AT = 24;
+    private static final int CHECKSUM_AT = 32;
+
+    /*
+     * The sections of one mapped file. A query reads this.file once and uses only that Mapping,
+     * so a concurrent call to load never changes the graph under a running search.
+     */
+    private static class Mapping {
+        final int nodeCount;
+        final int edgeCount;
+        final IntBuffer nameStart;
+        final IntBuffer nameHash;
+        final IntBuffer nameSlots;
+        final IntBuffer firstEdge;
+        final IntBuffer target;
+        final DoubleBuffer weight;
+        final ByteBuffer namePool;
+
+        Mapping(ByteBuffer buffer, int nodeCount, int edgeCount, int namePoolBytes,
+                int nameSlotCount) {
+            this.nodeCount = nodeCount;
+            this.edgeCount = edgeCount;
+            Layout layout = new Layout(nodeCount, edgeCount, namePoolBytes, nameSlotCount);
+            this.nameStart = ints(buffer, layout.nameStartAt, nodeCount + 1);
+            this.nameHash = ints(buffer, layout.nameHashAt, nodeCount);
+            this.nameSlots = ints(buffer, layout.nameSlotsAt, nameSlotCount);
+            this.firstEdge = ints(buffer, layout.firstEdgeAt, nodeCount + 1);
+            this.target = ints(buffer, layout.targetAt, edgeCount);
+            this.weight = buffer.slice(layout.weightAt, edgeCount * 8)
+                    .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+            this.namePool = buffer.slice(layout.namePoolAt, namePoolBytes);
+        }
+
+        private static IntBuffer ints(ByteBuffer buffer, int offset, int count) {
+            return buffer.slice(offset, count * 4).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        }
+    }
+
+    /*
+     * Where each section starts in a file with the provided counts. Every section starts at a
+     * multiple of 4 bytes, and the weights at a multiple of 8.
+     */
+    private static class Layout {
+        final int nameStartAt;
+        final int nameHashAt;
+        final int nameSlotsAt;
+        final int firstEdgeAt;
+        final int targetAt;
+        final int weightAt;
+        final int namePoolAt;
+        final long fileBytes;
+
+        Layout(int nodeCount, int edgeCount, int namePoolBytes, int nameSlotCount) {
+            long at = HEADER_BYTES;
+            this.nameStartAt = (int) at;
+            at += 4L * (nodeCount + 1);
+            this.nameHashAt = (int) at;
+            at += 4L * nodeCount;
+            this.nameSlotsAt = (int) at;
+            at += 4L * nameSlotCount;
+            this.firstEdgeAt = (int) at;
+            at += 4L * (nodeCount + 1);
+            this.targetAt = (int) at;
+            at += 4L * edgeCount;
+            at = (at + 7) & ~7L;
+            this.weightAt = (int) at;
+            at += 8L * edgeCount;
+            this.namePoolAt = (int) at;
+            this.fileBytes = at + namePoolBytes;
+            if (this.fileBytes > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Graph is too large for a single mapped file");
+            }
+        }
+    }
+
+    // the mapping of the last file loaded; an empty graph until then
+    private volatile Mapping file = new Mapping(
+            ByteBuffer.allocate((int) new Layout(0, 0, 0, 1).fileBytes), 0, 0, 0, 1);
+
+    private final ThreadLocal<SearchWorkspace<String, Double>> searchWorkspaces =
+            ThreadLocal.withInitial(SearchWorkspace::new);
+
+    /**
+     * Creates an empty graph, for a graph file to be loaded into later.
+     */
+    public MappedGraph() {
+    }
+
+    /**
+     * Creates a graph backed by the provided graph file, without verifying its checksum.
+     *
+     * @param filename the path to a graph file written by write
+     * @throws IOException if the file can't be read or is not a valid graph file
+     */
+    public MappedGraph(String filename) throws IOException {
+        this.load(filename, false);
+    }
+
+    /**
+     * Replaces this graph with the contents of the provided graph file, without verifying its
+     * checksum, so that only the header, the offsets and the edge targets are read before the
+     * method returns.
+     *
+     * @param filename the path to a graph file written by write
+     * @throws IOException if the file can't be read or is not a valid graph file
+     */
+    public void load(String filename) throws IOException {
+        this.load(filename, false);
+    }
+
+    /**
+     * Replaces this graph with the contents of the provided graph file. Searches that are
+     * already running finish on the graph they started with. Whether or not the checksum is
+     * verified, the file's structure is checked (see isWellFormed), so that a damaged file is
+     * rejected here rather than making later queries fail or never return.
+     *
+     * @param filename       the path to a graph file written by write
+     * @param verifyChecksum whether to read the whole file to check it against the checksum in
+     *                       its header (when it has one) before using it
+     * @throws IOException if the file can't be read, is not a valid graph file, or doesn't match
+     *                     its checksum
+     */
+    public void load(String filename, boolean verifyChecksum) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException(filename + " is not a graph file");
+            }
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(filename + " is too large to map");
+            }
+            // the mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(MAGIC_AT) != MAGIC) {
+            throw new IOException(filename + " is not a graph file");
+        }
+        if (buffer.getInt(VERSION_AT) != VERSION) {
+            throw new IOException(filename + " has unsupported graph file version " +
+                    buffer.getInt(VERSION_AT));
+        }
+        int nodeCount = buffer.getInt(NODE_COUNT_AT);
+        int edgeCount = buffer.getInt(EDGE_COUNT_AT);
+        int namePoolBytes = buffer.getInt(NAME_POOL_BYTES_AT);
+        int nameSlotCount = buffer.getInt(NAME_SLOTS_AT);
+        if (nodeCount < 0 || edgeCount < 0 || namePoolBytes < 0 || nameSlotCount <= nodeCount ||
+                Integer.bitCount(nameSlotCount) != 1 ||
+                new Layout(nodeCount, edgeCount, namePoolBytes, nameSlotCount).fileBytes !=
+                        buffer.capacity()) {
+            throw new IOException(filename + " is truncated or has an invalid header");
+        }
+        if (verifyChecksum && (buffer.getInt(FLAGS_AT) & HAS_CHECKSUM) != 0 &&
+                checksumOf(buffer) != buffer.getLong(CHECKSUM_AT)) {
+            throw new IOException(filename + " doesn't match its checksum");
+        }
+        Mapping mapping = new Mapping(buffer, nodeCount, edgeCount, namePoolBytes, nameSlotCount);
+        if (!isWellFormed(mapping, namePoolBytes)) {
+            throw new IOException(filename + " is corrupt");
+        }
+        this.file = mapping;
+    }
+
+    /**
+     * Checks, in one pass over the offsets, the name table and the edge targets, what queries
+     * rely on without checking themselves: the names and the edge lists lie in order within
+     * the pool and the edges, every edge and every slot of the name table refers to an existing
+     * node, and the name table has an empty slot to end each lookup. The checksum catches more,
+     * but takes reading the whole file.
+     */
+    private static boolean isWellFormed(Mapping mapping, int namePoolBytes) {
+        if (mapping.nameStart.get(0) != 0 || mapping.firstEdge.get(0) != 0 ||
+                mapping.nameStart.get(mapping.nodeCount) != namePoolBytes ||
+                mapping.firstEdge.get(mapping.nodeCount) != mapping.edgeCount) {
+            return false;
+        }
+        for (int node = 0; node < mapping.nodeCount; node++) {
+            if (mapping.nameStart.get(node) > mapping.nameStart.get(node + 1) ||
+                    mapping.firstEdge.get(node) > mapping.firstEdge.get(node + 1)) {
+                return false;
+            }
+        }
+        for (int edge = 0; edge < mapping.edgeCount; edge++) {
+            int target = mapping.target.get(edge);
+            if (target < 0 || target >= mapping.nodeCount) {
+                return false;
+            }
+        }
+        boolean hasEmptySlot = false;
+        for (int slot = 0; slot < mapping.nameSlots.capacity(); slot++) {
+            int value = mapping.nameSlots.get(slot);
+            if (value < 0 || value > mapping.nodeCount) {
+                return false;
+            }
+            hasEmptySlot |= value == 0;
+        }
+        return hasEmptySlot;
+    }
+
+    /**
+     * Checks whether a file starts like a graph file, so that callers can tell graph files from
+     * dot files.
+     *
+     * @param file the file to check
+     * @return true if the file exists and starts with MAGIC
+     */
+    public static boolean isGraphFile(File file) {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            return in.length() >= HEADER_BYTES && Integer.reverseBytes(in.readInt()) == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static long checksumOf(ByteBuffer buffer) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(HEADER_BYTES, buffer.capacity() - HEADER_BYTES));
+        return crc.getValue();
+    }
+
+    /**
+     * Mixes the high bits of a hash code into the low bits that select the home slot.
+     */
+    private static int spread(int hashCode) {
+        int hash = hashCode * 0x9E3779B9; // the golden ratio, as in Fibonacci hashing
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Writes a graph to a graph file, which replaces any existing file only once it is complete,
+     * so that other processes never map a partly written file. Graphs that extend BaseGraph are
+     * read through their adjacency lists; for any other graph every pair of nodes is checked for
+     * an edge, which takes quadratic time.
+     *
+     * @param graph        the graph to write
+     * @param filename     the path of the graph file to create or replace
+     * @param withChecksum whether to store a checksum of the file in its header
+     * @throws IOException if the file can't be written
+     */
+    @SuppressWarnings("unchecked")
+    public static void write(GraphADT<String, Double> graph, String filename, boolean withChecksum)
+            throws IOException {
+        List<String> names = graph.getAllNodes();
+        int nodeCount = names.size();
+        byte[][] utf8 = new byte[nodeCount][];
+        int namePoolBytes = 0;
+        OpenAddressingMap<String, Integer> idOf = new OpenAddressingMap<>(Math.max(1, nodeCount * 2));
+        for (int i = 0; i < nodeCount; i++) {
+            utf8[i] = names.get(i).getBytes(StandardCharsets.UTF_8);
+            namePoolBytes += utf8[i].length;
+            idOf.put(names.get(i), i);
+        }
+
+        // the targets and weights of each node's leaving edges, in node id order
+        int[] firstEdge = new int[nodeCount + 1];
+        ArrayList<Integer> targets = new ArrayList<>();
+        ArrayList<Double> weights = new ArrayList<>();
+        for (int i = 0; i < nodeCount; i++) {
+            firstEdge[i] = targets.size();
+            if (graph instanceof BaseGraph) {
+                BaseGraph<String, Double> baseGraph = (BaseGraph<String, Double>) graph;
+                for (BaseGraph<String, Double>.Edge edge :
+                        baseGraph.nodes.get(names.get(i)).edgesLeaving) {
+                    targets.add(idOf.get(edge.successor.data));
+                    weights.add(edge.data);
+                }
+            } else {
+                for (int j = 0; j < nodeCount; j++) {
+                    if (graph.containsEdge(names.get(i), names.get(j))) {
+                        targets.add(j);
+                        weights.add(graph.getEdge(names.get(i), names.get(j)));
+                    }
+                }
+            }
+        }
+        int edgeCount = targets.size();
+        firstEdge[nodeCount] = edgeCount;
+
+        int nameSlotCount = Integer.highestOneBit(Math.max(4, nodeCount * 2) * 2 - 1);
+        Layout layout = new Layout(nodeCount, edgeCount, namePoolBytes, nameSlotCount);
+        Path target = Path.of(filename).toAbsolutePath();
+        Path partial = target.resolveSibling(target.getFileName() + ".partial");
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer =
+                    channel.map(FileChannel.MapMode.READ_WRITE, 0, layout.fileBytes);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC_AT, MAGIC);
+            buffer.putInt(VERSION_AT, VERSION);
+            buffer.putInt(FLAGS_AT, withChecksum ? HAS_CHECKSUM : 0);
+            buffer.putInt(NODE_COUNT_AT, nodeCount);
+            buffer.putInt(EDGE_COUNT_AT, edgeCount);
+            buffer.putInt(NAME_POOL_BYTES_AT, namePoolBytes);
+            buffer.putInt(NAME_SLOTS_AT, nameSlotCount);
+
+            int poolAt = 0;
+            for (int i = 0; i < nodeCount; i++) {
+                int hash = spread(names.get(i).hashCode());
+                buffer.putInt(layout.nameStartAt + 4 * i, poolAt);
+                buffer.putInt(layout.nameHashAt + 4 * i, hash);
+                buffer.put(layout.namePoolAt + poolAt, utf8[i]);
+                poolAt += utf8[i].length;
+                int slot = hash & (nameSlotCount - 1);
+                while (buffer.getInt(layout.nameSlotsAt + 4 * slot) != 0) {
+                    slot = (slot + 1) & (nameSlotCount - 1);
+                }
+                buffer.putInt(layout.nameSlotsAt + 4 * slot, i + 1);
+            }
+            buffer.putInt(layout.nameStartAt + 4 * nodeCount, poolAt);
+            for (int i = 0; i <= nodeCount; i++) {
+                buffer.putInt(layout.firstEdgeAt + 4 * i, firstEdge[i]);
+            }
+            for (int e = 0; e < edgeCount; e++) {
+                buffer.putInt(layout.targetAt + 4 * e, targets.get(e));
+                buffer.putDouble(layout.weightAt + 8 * e, weights.get(e));
+            }
+            if (withChecksum) {
+                buffer.putLong(CHECKSUM_AT, checksumOf(buffer));
+            }
+            buffer.force();
+        }
+        // processes that mapped the old file keep reading it until they load the new one
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns the id of the node named name in mapping, or -1 if there is none.
+     */
+    private static int idOf(Mapping mapping, String name) {
+        if (name == null) {
+            return -1;
+        }
+        int hash = spread(name.hashCode());
+        byte[] utf8 = null;
+        int mask = mapping.nameSlots.capacity() - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int node = mapping.nameSlots.get(slot) - 1;
+            if (node == -1) {
+                return -1;
+            }
+            if (mapping.nameHash.get(node) != hash) {
+                continue;
+            }
+            if (utf8 == null) {
+                utf8 = name.getBytes(StandardCharsets.UTF_8);
+            }
+            int start = mapping.nameStart.get(node);
+            if (mapping.nameStart.get(node + 1) - start == utf8.length &&
+                    mapping.namePool.slice(start, utf8.length).equals(ByteBuffer.wrap(utf8))) {
+                return node;
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the node with the provided id in mapping.
+     */
+    private static String nameOf(Mapping mapping, int node) {
+        int start = mapping.nameStart.get(node);
+        byte[] utf8 = new byte[mapping.nameStart.get(node + 1) - start];
+        mapping.namePool.get(start, utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the edge from pred to succ in mapping, or -1 if there is none.
+     */
+    private static int edgeBetween(Mapping mapping, String pred, String succ) {
+        int predNode = idOf(mapping, pred);
+        int succNode = idOf(mapping, succ);
+        if (predNode == -1 || succNode == -1) {
+            return -1;
+        }
+        for (int edge = mapping.firstEdge.get(predNode); edge < mapping.firstEdge.get(predNode + 1);
+             edge++) {
+            if (mapping.target.get(edge) == succNode) {
+                return edge;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Always throws, since a mapped graph can't be modified.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean insertNode(String data) {
+        throw new UnsupportedOperationException("MappedGraph is read-only");
+    }
+
+    /**
+     * Always throws, since a mapped graph can't be modified.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean removeNode(String data) {
+        throw new UnsupportedOperationException("MappedGraph is read-only");
+    }
+
+    /**
+     * Always throws, since a mapped graph can't be modified.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("MappedGraph is read-only");
+    }
+
+    /**
+     * Checks whether the graph contains a node with the provided data.
+     *
+     * @param data the node contents to check for
+     * @return true if data item is stored in a node within the graph, or false otherwise
+     */
+    @Override
+    public boolean containsNode(String data) {
+        return idOf(this.file, data) != -1;
+    }
+
+    /**
+     * Returns a list of all data values from nodes in this graph, in the order of their ids.
+     *
+     * @return a list of all data values from nodes in this graph
+     */
+    @Override
+    public List<String> getAllNodes() {
+        Mapping mapping = this.file;
+        List<String> names = new ArrayList<>(mapping.nodeCount);
+        for (int node = 0; node < mapping.nodeCount; node++) {
+            names.add(nameOf(mapping, node));
+        }
+        return names;
+    }
+
+    /**
+     * Returns the number of nodes in the graph.
+     *
+     * @return the number of nodes in the graph
+     */
+    @Override
+    public int getNodeCount() {
+        return this.file.nodeCount;
+    }
+
+    /**
+     * Always throws, since a mapped graph can't be modified.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean insertEdge(String pred, String succ, Double weight) {
+        throw new UnsupportedOperationException("MappedGraph is read-only");
+    }
+
+    /**
+     * Always throws, since a mapped graph can't be modified.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean removeEdge(String pred, String succ) {
+        throw new UnsupportedOperationException("MappedGraph is read-only");
+    }
+
+    /**
+     * Checks if an edge exists between two nodes in the graph.
+     *
+     * @param pred the data item contained in the source node for the edge
+     * @param succ the data item contained in the target node for the edge
+     * @return true if the edge exists, false otherwise
+     */
+    @Override
+    public boolean containsEdge(String pred, String succ) {
+        return edgeBetween(this.file, pred, succ) != -1;
+    }
+
+    /**
+     * Return the weight of an edge between the nodes with the provided data.
+     *
+     * @param pred the data item contained in the source node for the edge
+     * @param succ the data item contained in the target node for the edge
+     * @return the weight of the edge between these two nodes
+     * @throws NoSuchElementException if either node or the edge between them are not part of
+     *                                the graph
+     */
+    @Override
+    public Double getEdge(String pred, String succ) {
+        Mapping mapping = this.file;
+        int edge = edgeBetween(mapping, pred, succ);
+        if (edge == -1) {
+            throw new NoSuchElementException("Edge or nodes do not exist");
+        }
+        return mapping.weight.get(edge);
+    }
+
+    /**
+     * Returns the number of edges in the graph.
+     *
+     * @return the number of edges in the graph
+     */
+    @Override
+    public int getEdgeCount() {
+        return this.file.edgeCount;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm over mapping from start until end is settled, or until every
+     * node within budget is settled when end is -1.
+     */
+    private SearchWorkspace<String, Double> search(Mapping mapping, int start, int end,
+            double budget) {
+        SearchWorkspace<String, Double> workspace = this.searchWorkspaces.get();
+        workspace.reset(mapping.nodeCount);
+        workspace.offer(start, 0.0, -1);
+        while (!workspace.isEmpty() && workspace.peekCost() <= budget) {
+            int current = workspace.settleNext();
+            if (current == end) {
+                return workspace;
+            }
+            double cost = workspace.costOf(current);
+            for (int edge = mapping.firstEdge.get(current);
+                 edge < mapping.firstEdge.get(current + 1); edge++) {
+                int succ = mapping.target.get(edge);
+                if (!workspace.isSettled(succ)) {
+                    workspace.offer(succ, cost + mapping.weight.get(edge), current);
+                }
+            }
+        }
+        if (end != -1) {
+            throw new NoSuchElementException("Path doesn't exist between the given points");
+        }
+        return workspace;
+    }
+
+    /**
+     * Looks up the ids of start and end in mapping, and searches for the shortest path between
+     * them.
+     */
+    private SearchWorkspace<String, Double> searchShortestPath(Mapping mapping, String start,
+            String end) {
+        int startNode = idOf(mapping, start);
+        if (startNode == -1) {
+            throw new NoSuchElementException("Start node is not present in the graph");
+        }
+        int endNode = idOf(mapping, end);
+        if (endNode == -1) {
+            throw new NoSuchElementException("End node is not present in the graph");
+        }
+        return this.search(mapping, startNode, endNode, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Returns the list of data values from nodes along the shortest path from the node with the
+     * provided start value through the node with the provided end value.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return list of data item from node along this shortest path
+     * @throws NoSuchElementException if either the start or end node cannot be found in the
+     *                                graph, or if there is no directed path from start to end
+     */
+    @Override
+    public List<String> shortestPathData(String start, String end) {
+        Mapping mapping = this.file;
+        SearchWorkspace<String, Double> workspace = this.searchShortestPath(mapping, start, end);
+        List<String> path = new ArrayList<>();
+        for (int node = workspace.lastSettled(); node != -1;
+             node = workspace.predecessorOf(node)) {
+            path.add(nameOf(mapping, node));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Returns the cost of the shortest path from the node containing the start data to the node
+     * containing the end data.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return the cost of the shortest path between these nodes
+     * @throws NoSuchElementException if either the start or end node cannot be found in the
+     *                                graph, or if there is no directed path from start to end
+     */
+    @Override
+    public double shortestPathCost(String start, String end) {
+        SearchWorkspace<String, Double> workspace =
+                this.searchShortestPath(this.file, start, end);
+        return workspace.costOf(workspace.lastSettled());
+    }
+
+    /**
+     * Returns every node that can be reached from the start node with a total path cost no
+     * greater than the provided budget, mapped to the cost of reaching it.
+     *
+     * @param start  the data item in the starting node for the search
+     * @param budget the maximum total path cost for a node to be included
+     * @return a map from each reachable node's data to the cost of its shortest path from start
+     * @throws NoSuchElementException   when start does not correspond to a graph node
+     * @throws IllegalArgumentException when budget is negative or NaN
+     */
+    @Override
+    public MapADT<String, Double> reachableWithin(String start, double budget) {
+        Mapping mapping = this.file;
+        int startNode = idOf(mapping, start);
+        if (startNode == -1) {
+            throw new NoSuchElementException("Start node is not present in the graph");
+        }
+        if (!(budget >= 0.0)) {
+            throw new IllegalArgumentException("Budget must be a non-negative number");
+        }
+        SearchWorkspace<String, Double> workspace = this.search(mapping, startNode, -1, budget);
+        OpenAddressingMap<String, Double> arrivalTimes = new OpenAddressingMap<>();
+        for (int node = 0; node < mapping.nodeCount; node++) {
+            if (workspace.isSettled(node)) {
+                arrivalTimes.put(nameOf(mapping, node), workspace.costOf(node));
+            }
+        }
+        return arrivalTimes;
+    }
+
+    /**
+     * Replaces the contents of another graph with every node and edge of this graph, through
+     * a GraphBuilder sized to fit them, which is how Backend loads a graph file into a graph
+     * that is not a MappedGraph.
+     *
+     * @param graph the graph to fill with this graph's nodes and edges
+     */
+    public void copyInto(GraphADT<String, Double> graph) {
+        Mapping mapping = this.file;
+        GraphBuilder<String> builder = new GraphBuilder<>(mapping.nodeCount, mapping.edgeCount);
+        // node ids in the file are the builder's ids, since the names are distinct
+        for (int node = 0; node < mapping.nodeCount; node++) {
+            builder.addNode(nameOf(mapping, node));
+        }
+        for (int node = 0; node < mapping.nodeCount; node++) {
+            for (int edge = mapping.firstEdge.get(node); edge < mapping.firstEdge.get(node + 1);
+                 edge++) {
+                builder.addEdgeBetweenIds(node, mapping.target.get(edge), mapping.weight.get(edge));
+            }
+        }
+        builder.buildInto(graph);
+    }
+
+    /**
+     * Converts a dot file into a graph file, then compares how long Backend takes to load each
+     * of them.
+     *
+     * @param args the dot file to convert (default campus.dot), and the graph file to write
+     *             (default the dot file's name ending in .graph instead)
+     * @throws IOException if either file can't be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        String dotFile = args.length > 0 ? args[0] : "campus.dot";
+        String graphFile = args.length > 1 ? args[1] : dotFile.replaceAll("\\.dot$", "") + ".graph";
+
+        DijkstraGraph<String, Double> parsed = new DijkstraGraph<>();
+        new Backend(parsed).loadGraphData(dotFile);
+        write(parsed, graphFile, true);
+        System.out.println(String.format("wrote %s: %d nodes, %d edges, %d bytes (%s: %d bytes)",
+                graphFile, parsed.getNodeCount(), parsed.getEdgeCount(),
+                new File(graphFile).length(), dotFile, new File(dotFile).length()));
+
+        // load each once first, so that neither timing includes loading classes
+        new Backend(new DijkstraGraph<>()).loadGraphData(dotFile);
+        new MappedGraph().load(graphFile, true);
+        int runs = 20;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            new Backend(new DijkstraGraph<>()).loadGraphData(dotFile);
+        }
+        double parseMillis = (System.nanoTime() - start) / 1e6 / runs;
+        start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            new MappedGraph(graphFile);
+        }
+        double mapMillis = (System.nanoTime() - start) / 1e6 / runs;
+        start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            new MappedGraph().load(graphFile, true);
+        }
+        double verifyMillis = (System.nanoTime() - start) / 1e6 / runs;
+        System.out.println(String.format("parse %s into a DijkstraGraph: %.3f ms, map %s: " +
+                "%.3f ms (%.3f ms with its checksum verified)", dotFile, parseMillis, graphFile,
+                mapMillis, verifyMillis));
+    }
+}
@@ -0,0 +1,194 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedGraphTests {
+
+    private static String tempGraphFile() throws IOException {
+        File file = File.createTempFile("mapped", ".graph");
+        file.deleteOnExit();
+        return file.getPath();
+    }
+
+    private static int readInt(RandomAccessFile file, long at) throws IOException {
+        file.seek(at);
+        return Integer.reverseBytes(file.readInt());
+    }
+
+    private static void writeInt(RandomAccessFile file, long at, int value) throws IOException {
+        file.seek(at);
+        file.writeInt(Integer.reverseBytes(value));
+    }
+
+    /**
+     * Writes campus.dot to a graph file and checks that the MappedGraph opened from it has the
+     * same nodes and edges, shortest paths and reachable sets as the DijkstraGraph it was
+     * written from, and that it can't be modified.
+     */
+    @Test
+    public void testMatchesWrittenGraph() throws IOException {
+        DijkstraGraph<String, Double> parsed = new DijkstraGraph<>();
+        new Backend(parsed).loadGraphData("campus.dot");
+        String graphFile = tempGraphFile();
+        MappedGraph.write(parsed, graphFile, true);
+        assertTrue(MappedGraph.isGraphFile(new File(graphFile)));
+        assertFalse(MappedGraph.isGraphFile(new File("campus.dot")));
+
+        MappedGraph mapped = new MappedGraph(graphFile);
+        assertEquals(parsed.getNodeCount(), mapped.getNodeCount());
+        assertEquals(parsed.getEdgeCount(), mapped.getEdgeCount());
+        List<String> locations = parsed.getAllNodes();
+        assertEquals(new HashSet<>(locations), new HashSet<>(mapped.getAllNodes()));
+        for (String pred : locations) {
+            assertTrue(mapped.containsNode(pred));
+            for (String succ : locations) {
+                assertEquals(parsed.containsEdge(pred, succ), mapped.containsEdge(pred, succ));
+                if (parsed.containsEdge(pred, succ)) {
+                    assertEquals(parsed.getEdge(pred, succ), mapped.getEdge(pred, succ));
+                }
+            }
+        }
+        for (int i = 0; i < locations.size(); i += 7) {
+            for (int j = 0; j < locations.size(); j += 5) {
+                String start = locations.get(i);
+                String end = locations.get(j);
+                if (!parsed.reachableWithin(start, Double.POSITIVE_INFINITY).containsKey(end)) {
+                    assertThrows(NoSuchElementException.class,
+                            () -> mapped.shortestPathCost(start, end));
+                    continue;
+                }
+                assertEquals(parsed.shortestPathCost(start, end),
+                        mapped.shortestPathCost(start, end), 1e-9);
+                assertEquals(parsed.shortestPathData(start, end),
+                        mapped.shortestPathData(start, end));
+            }
+            MapADT<String, Double> expected = parsed.reachableWithin(locations.get(i), 600.0);
+            MapADT<String, Double> actual = mapped.reachableWithin(locations.get(i), 600.0);
+            assertEquals(expected.getSize(), actual.getSize());
+            for (String location : expected.getKeys()) {
+                assertEquals(expected.get(location), actual.get(location), 1e-9);
+            }
+        }
+        assertFalse(mapped.containsNode("Invalid"));
+        assertThrows(NoSuchElementException.class, () -> mapped.getEdge("Invalid", "Invalid"));
+        assertThrows(UnsupportedOperationException.class, () -> mapped.insertNode("New"));
+        assertThrows(UnsupportedOperationException.class,
+                () -> mapped.removeNode(locations.get(0)));
+    }
+
+    /**
+     * Checks that a corrupted file is only rejected when its checksum is verified, and that
+     * truncated files and dot files are always rejected.
+     */
+    @Test
+    public void testRejectsDamagedFiles() throws IOException {
+        DijkstraGraph<String, Double> parsed = new DijkstraGraph<>();
+        new Backend(parsed).loadGraphData("campus.dot");
+        String graphFile = tempGraphFile();
+        MappedGraph.write(parsed, graphFile, true);
+        new MappedGraph().load(graphFile, true);
+
+        try (RandomAccessFile file = new RandomAccessFile(graphFile, "rw")) {
+            long last = file.length() - 1;
+            file.seek(last);
+            int lastByte = file.read();
+            file.seek(last);
+            file.write(lastByte ^ 1);
+        }
+        assertThrows(IOException.class, () -> new MappedGraph().load(graphFile, true));
+        new MappedGraph().load(graphFile, false);
+
+        try (RandomAccessFile file = new RandomAccessFile(graphFile, "rw")) {
+            file.setLength(file.length() - 8);
+        }
+        assertThrows(IOException.class, () -> new MappedGraph(graphFile));
+        assertThrows(IOException.class, () -> new MappedGraph("campus.dot"));
+    }
+
+    /**
+     * Checks that files without a checksum are still rejected when their edge offsets are out
+     * of order or past the last edge, an edge leads to a node that doesn't exist, or the name
+     * table has no empty slot, any of which would otherwise fail or loop forever in a query.
+     */
+    @Test
+    public void testRejectsCorruptStructure() throws IOException {
+        DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+        for (String node : List.of("A", "B", "C")) {
+            graph.insertNode(node);
+        }
+        graph.insertEdge("A", "B", 1.0);
+        graph.insertEdge("B", "C", 2.0);
+        String graphFile = tempGraphFile();
+        for (int damage = 0; damage < 4; damage++) {
+            MappedGraph.write(graph, graphFile, false);
+            new MappedGraph(graphFile);
+            try (RandomAccessFile file = new RandomAccessFile(graphFile, "rw")) {
+                // the sections follow the 40-byte header: name offsets, name hashes, the name
+                // table, edge offsets and then edge targets
+                int nodeCount = readInt(file, 12);
+                int slotCount = readInt(file, 24);
+                long slotsAt = 40 + 4L * (nodeCount + 1) + 4L * nodeCount;
+                long firstEdgeAt = slotsAt + 4L * slotCount;
+                long targetAt = firstEdgeAt + 4L * (nodeCount + 1);
+                switch (damage) {
+                    case 0:
+                        writeInt(file, firstEdgeAt + 4, 2);
+                        writeInt(file, firstEdgeAt + 8, 1);
+                        break;
+                    case 1:
+                        writeInt(file, firstEdgeAt + 4L * nodeCount, 5);
+                        break;
+                    case 2:
+                        writeInt(file, targetAt, nodeCount);
+                        break;
+                    default:
+                        for (int slot = 0; slot < slotCount; slot++) {
+                            writeInt(file, slotsAt + 4L * slot, 1);
+                        }
+                }
+            }
+            assertThrows(IOException.class, () -> new MappedGraph(graphFile),
+                    "Damage " + damage + " was not detected");
+        }
+    }
+
+    /**
+     * Checks that Backend loads a graph file both into a DijkstraGraph and into a MappedGraph,
+     * answering as it does after loading campus.dot, and that a MappedGraph backend refuses dot
+     * files.
+     */
+    @Test
+    public void testBackendLoadsGraphFiles() throws IOException {
+        Backend fromDot = new Backend(new DijkstraGraph<>());
+        fromDot.loadGraphData("campus.dot");
+        String graphFile = tempGraphFile();
+        MappedGraph.write(fromDot.graph, graphFile, false);
+
+        Backend copied = new Backend(new DijkstraGraph<>());
+        copied.loadGraphData(graphFile);
+        Backend mapped = new Backend(new MappedGraph());
+        mapped.loadGraphData(graphFile);
+        assertThrows(IOException.class, () -> mapped.loadGraphData("campus.dot"));
+
+        List<String> locations = fromDot.getListOfAllLocations();
+        assertEquals(new HashSet<>(locations), new HashSet<>(copied.getListOfAllLocations()));
+        assertEquals(new HashSet<>(locations), new HashSet<>(mapped.getListOfAllLocations()));
+        String start = locations.get(0);
+        String end = locations.get(locations.size() - 1);
+        for (Backend backend : List.of(copied, mapped)) {
+            assertEquals(fromDot.findLocationsOnShortestPath(start, end),
+                    backend.findLocationsOnShortestPath(start, end));
+            assertEquals(fromDot.findTimesOnShortestPath(start, end),
+                    backend.findTimesOnShortestPath(start, end));
+            assertEquals(new HashSet<>(fromDot.findLocationsWithinTime(start, 300.0)),
+                    new HashSet<>(backend.findLocationsWithinTime(start, 300.0)));
+            assertEquals(fromDot.getFurthestDestinationFrom(start),
+                    backend.getFurthestDestinationFrom(start));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The min-plus kernel of AllPairsDistances written with the Java Vector API, which lowers as
+ * many costs of a row at once as fit in the processor's widest vector register. The Vector API
+ * is an incubator module in this version of Java, so this class must be compiled and run with
+ * --add-modules jdk.incubator.vector. AllPairsDistances only loads it by name, and uses its
+ * scalar kernel when the module is missing.
+ */
+class MinPlusVectorKernel implements AllPairsDistances.MinPlusKernel {
+
+    // loading this class fails here, with a LinkageError, when the module is missing
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public void update(double[] dist, int n, int rowFrom, int rowTo, int columnFrom,
+                       int columnTo, int kFrom, int kTo) {
+        int vectorEnd = columnFrom + SPECIES.loopBound(columnTo - columnFrom);
+        for (int k = kFrom; k < kTo; k++) {
+            int kRow = k * n;
+            for (int i = rowFrom; i < rowTo; i++) {
+                int iRow = i * n;
+                double costToK = dist[iRow + k];
+                if (costToK == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                DoubleVector toK = DoubleVector.broadcast(SPECIES, costToK);
+                int j = columnFrom;
+                for (; j < vectorEnd; j += SPECIES.length()) {
+                    DoubleVector viaK = toK.add(DoubleVector.fromArray(SPECIES, dist, kRow + j));
+                    DoubleVector.fromArray(SPECIES, dist, iRow + j).min(viaK)
+                            .intoArray(dist, iRow + j);
+                }
+                for (; j < columnTo; j++) {
+                    double candidate = costToK + dist[kRow + j];
+                    if (candidate < dist[iRow + j]) {
+                        dist[iRow + j] = candidate;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,628 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * A MultiLevelOverlay speeds up shortest path queries on a graph whose edge weights change often
+ * but whose nodes and edges rarely do, following customizable route planning (Delling, Goldberg,
+ * Pajor and Werneck). Its work is split into two phases:
+ * <ul>
+ * <li>The nodes are partitioned into cells once, based only on which nodes are connected.
+ * Cells are nested: every cell of level l is a union of cells of level l - 1, and level 0 is the
+ * graph itself. A node with an edge to or from a node in a different level-l cell is a boundary
+ * node of its level-l cell.</li>
+ * <li>Customization then computes, for every cell, the cost of the shortest path inside the cell
+ * between every pair of its boundary nodes (the cell's clique). Level 1 cliques are found by
+ * searching the graph inside each cell, and the cliques of each higher level by searching the
+ * cliques of the level below, so customization is fast, and the cells of a level are customized
+ * in parallel. Customization runs again whenever weights have changed.</li>
+ * </ul>
+ * A query runs Dijkstra's algorithm on a graph that changes with the distance from start and
+ * end: inside the cells that contain start or end it uses the graph's own edges, and elsewhere it
+ * skips across whole cells of the highest level that contains neither start nor end, using their
+ * cliques. Paths are unpacked by searching inside each skipped cell between the two boundary
+ * nodes that its clique edge connects.
+ * <p>
+ * The partition refers to the nodes and edges that exist when the overlay is built; it must be
+ * built again after nodes or edges are inserted or removed.
+ */
+public class MultiLevelOverlay<NodeType, EdgeType extends Number> {
+
+    private final int nodeCount; // ids run from 0 to nodeCount - 1
+    private final Object[] nodeById;
+    // edges leaving node v are edges[offsets[v] .. offsets[v + 1] - 1] and lead to targets[...]
+    private final int[] offsets;
+    private final int[] targets;
+    private final BaseGraph<NodeType, EdgeType>.Edge[] edges;
+
+    private final int levelCount;
+    // cellOf[l][v] is the level-l cell containing node v (index 0 is unused)
+    private final int[][] cellOf;
+    // boundary[l][c] lists the boundary nodes of level-l cell c, and boundaryIndex[l][v] is the
+    // position of v in its level-l cell's list, or -1 when v is not a boundary node at level l
+    private final int[][][] boundary;
+    private final int[][] boundaryIndex;
+
+    // the weights and cliques of the latest customization, replaced as a whole so that queries
+    // running during a customization keep using a consistent metric
+    private volatile Metric metric;
+    private final ThreadLocal<Search> searches;
+
+    /**
+     * The edge weights and cliques computed by one customization. cliques[l][c] holds the costs
+     * between the boundary nodes of level-l cell c, row by row, where entry [i * b + j] is the
+     * cost from boundary node i to boundary node j of a cell with b boundary nodes.
+     */
+    private static class Metric {
+        final double[] weights;
+        final double[][][] cliques;
+        final long customizeNanos;
+
+        Metric(double[] weights, double[][][] cliques, long customizeNanos) {
+            this.weights = weights;
+            this.cliques = cliques;
+            this.customizeNanos = customizeNanos;
+        }
+    }
+
+    /**
+     * Partitions the provided graph and customizes the overlay for its current weights.
+     *
+     * @param graph     the graph to build the overlay of
+     * @param cellSizes the largest number of nodes in a cell of each level, starting at level 1;
+     *                  each size must be larger than the one before
+     * @throws IllegalArgumentException when cellSizes is empty or not increasing
+     */
+    @SuppressWarnings("unchecked")
+    public MultiLevelOverlay(BaseGraph<NodeType, EdgeType> graph, int... cellSizes) {
+        if (cellSizes.length == 0) {
+            throw new IllegalArgumentException("At least one level is required");
+        }
+        for (int l = 0; l < cellSizes.length; l++) {
+            if (cellSizes[l] < 1 || (l > 0 && cellSizes[l] <= cellSizes[l - 1])) {
+                throw new IllegalArgumentException("Cell sizes must be positive and increasing");
+            }
+        }
+
+        this.nodeCount = graph.getNodeIdBound();
+        this.nodeById = new Object[this.nodeCount];
+        List<NodeType> allNodes = graph.getAllNodes();
+        int edgeCount = 0;
+        for (NodeType data : allNodes) {
+            BaseGraph<NodeType, EdgeType>.Node node = graph.nodes.get(data);
+            this.nodeById[node.id] = node;
+            edgeCount += node.edgesLeaving.size();
+        }
+        this.offsets = new int[this.nodeCount + 1];
+        this.targets = new int[edgeCount];
+        this.edges = (BaseGraph<NodeType, EdgeType>.Edge[]) new BaseGraph<?, ?>.Edge[edgeCount];
+        for (int v = 0, e = 0; v < this.nodeCount; v++) {
+            this.offsets[v] = e;
+            if (this.nodeById[v] != null) {
+                for (BaseGraph<NodeType, EdgeType>.Edge edge : this.nodeOf(v).edgesLeaving) {
+                    this.targets[e] = edge.successor.id;
+                    this.edges[e++] = edge;
+                }
+            }
+            this.offsets[v + 1] = e;
+        }
+
+        this.levelCount = cellSizes.length;
+        this.cellOf = new int[this.levelCount + 1][];
+        this.boundary = new int[this.levelCount + 1][][];
+        this.boundaryIndex = new int[this.levelCount + 1][];
+        this.partition(cellSizes);
+        this.searches = ThreadLocal.withInitial(() -> new Search(this.nodeCount));
+        this.customize();
+    }
+
+    @SuppressWarnings("unchecked")
+    private BaseGraph<NodeType, EdgeType>.Node nodeOf(int id) {
+        return (BaseGraph<NodeType, EdgeType>.Node) this.nodeById[id];
+    }
+
+    /**
+     * Builds the nested cells of every level and finds their boundary nodes. Level 1 cells are
+     * grown from unassigned nodes by breadth-first search over edges in either direction until
+     * they hold cellSizes[0] nodes; each higher level grows cells out of whole cells of the level
+     * below in the same way, so cells stay connected and nested.
+     */
+    private void partition(int[] cellSizes) {
+        // undirected neighbors of each node, following edges in either direction
+        List<List<Integer>> neighbors = new ArrayList<>(this.nodeCount);
+        for (int v = 0; v < this.nodeCount; v++) {
+            neighbors.add(new ArrayList<>());
+        }
+        for (int v = 0; v < this.nodeCount; v++) {
+            for (int e = this.offsets[v]; e < this.offsets[v + 1]; e++) {
+                neighbors.get(v).add(this.targets[e]);
+                neighbors.get(this.targets[e]).add(v);
+            }
+        }
+
+        // at level 0 every node is a cell of its own
+        int[] unitOf = new int[this.nodeCount];
+        int[] unitSize = new int[this.nodeCount];
+        for (int v = 0; v < this.nodeCount; v++) {
+            unitOf[v] = v;
+            unitSize[v] = this.nodeById[v] == null ? 0 : 1;
+        }
+        List<List<Integer>> unitNeighbors = neighbors;
+        for (int level = 1; level <= this.levelCount; level++) {
+            // grow cells out of the units (cells of the level below) by breadth-first search
+            int units = unitSize.length;
+            int[] cellOfUnit = new int[units];
+            Arrays.fill(cellOfUnit, -1);
+            ArrayList<Integer> cellSizeList = new ArrayList<>();
+            int[] queue = new int[units];
+            for (int seed = 0; seed < units; seed++) {
+                if (cellOfUnit[seed] != -1 || unitSize[seed] == 0) {
+                    continue;
+                }
+                int cell = cellSizeList.size();
+                int size = unitSize[seed];
+                int head = 0;
+                int tail = 0;
+                cellOfUnit[seed] = cell;
+                queue[tail++] = seed;
+                while (head < tail) {
+                    for (int next : unitNeighbors.get(queue[head++])) {
+                        if (cellOfUnit[next] == -1 && size + unitSize[next] <= cellSizes[level - 1]) {
+                            cellOfUnit[next] = cell;
+                            size += unitSize[next];
+                            queue[tail++] = next;
+                        }
+                    }
+                }
+                cellSizeList.add(size);
+            }
+
+            int cellCount = cellSizeList.size();
+            this.cellOf[level] = new int[this.nodeCount];
+            for (int v = 0; v < this.nodeCount; v++) {
+                this.cellOf[level][v] = this.nodeById[v] == null ? -1 : cellOfUnit[unitOf[v]];
+            }
+            this.findBoundary(level, cellCount);
+
+            // the cells of this level are the units of the next
+            List<List<Integer>> cellNeighbors = new ArrayList<>(cellCount);
+            for (int c = 0; c < cellCount; c++) {
+                cellNeighbors.add(new ArrayList<>());
+            }
+            for (int v = 0; v < this.nodeCount; v++) {
+                for (int e = this.offsets[v]; e < this.offsets[v + 1]; e++) {
+                    int from = this.cellOf[level][v];
+                    int to = this.cellOf[level][this.targets[e]];
+                    if (from != to) {
+                        cellNeighbors.get(from).add(to);
+                        cellNeighbors.get(to).add(from);
+                    }
+                }
+            }
+            unitOf = this.cellOf[level];
+            unitSize = new int[cellCount];
+            for (int c = 0; c < cellCount; c++) {
+                unitSize[c] = cellSizeList.get(c);
+            }
+            unitNeighbors = cellNeighbors;
+        }
+    }
+
+    /**
+     * Finds the boundary nodes of every cell of a level: the nodes with an edge to or from a
+     * node in a different cell of that level.
+     */
+    private void findBoundary(int level, int cellCount) {
+        boolean[] isBoundary = new boolean[this.nodeCount];
+        for (int v = 0; v < this.nodeCount; v++) {
+            for (int e = this.offsets[v]; e < this.offsets[v + 1]; e++) {
+                if (this.cellOf[level][v] != this.cellOf[level][this.targets[e]]) {
+                    isBoundary[v] = true;
+                    isBoundary[this.targets[e]] = true;
+                }
+            }
+        }
+        int[] boundarySize = new int[cellCount];
+        this.boundaryIndex[level] = new int[this.nodeCount];
+        for (int v = 0; v < this.nodeCount; v++) {
+            this.boundaryIndex[level][v] = isBoundary[v] ? boundarySize[this.cellOf[level][v]]++
+                    : -1;
+        }
+        this.boundary[level] = new int[cellCount][];
+        for (int c = 0; c < cellCount; c++) {
+            this.boundary[level][c] = new int[boundarySize[c]];
+        }
+        for (int v = 0; v < this.nodeCount; v++) {
+            if (isBoundary[v]) {
+                this.boundary[level][this.cellOf[level][v]][this.boundaryIndex[level][v]] = v;
+            }
+        }
+    }
+
+    /**
+     * Reads the current weight of every edge and recomputes the cliques of every cell, level by
+     * level, customizing the cells of each level in parallel.
+     */
+    public void customize() {
+        long start = System.nanoTime();
+        double[] weights = new double[this.edges.length];
+        for (int e = 0; e < this.edges.length; e++) {
+            weights[e] = this.edges[e].data.doubleValue();
+        }
+        double[][][] cliques = new double[this.levelCount + 1][][];
+        Metric partial = new Metric(weights, cliques, 0);
+        for (int level = 1; level <= this.levelCount; level++) {
+            int currentLevel = level;
+            cliques[level] = new double[this.boundary[level].length][];
+            IntStream.range(0, this.boundary[level].length).parallel().forEach(cell -> {
+                Search search = this.searches.get();
+                int[] cellBoundary = this.boundary[currentLevel][cell];
+                int size = cellBoundary.length;
+                double[] clique = new double[size * size];
+                for (int i = 0; i < size; i++) {
+                    search.run(partial, cellBoundary[i], -1, currentLevel - 1, currentLevel,
+                            cell, -1, -1);
+                    for (int j = 0; j < size; j++) {
+                        clique[i * size + j] = search.costOf(cellBoundary[j]);
+                    }
+                }
+                cliques[currentLevel][cell] = clique;
+            });
+        }
+        this.metric = new Metric(weights, cliques, System.nanoTime() - start);
+    }
+
+    /**
+     * Returns the cost of the shortest path from the node with id start to the node with id end.
+     *
+     * @param start the id of the starting node
+     * @param end   the id of the destination node
+     * @return the cost of the shortest path, or Double.POSITIVE_INFINITY when there is none
+     * @throws NoSuchElementException when either id is not a node of the overlay's graph
+     */
+    public double shortestPathCost(int start, int end) {
+        this.checkNode(start);
+        this.checkNode(end);
+        Search search = this.searches.get();
+        search.run(this.metric, start, end, -1, 0, 0, start, end);
+        return search.costOf(end);
+    }
+
+    /**
+     * Returns the data of the nodes along the shortest path from the node with id start to the
+     * node with id end, starting with start's data and ending with end's.
+     *
+     * @param start the id of the starting node
+     * @param end   the id of the destination node
+     * @return list of data items from the nodes along the shortest path
+     * @throws NoSuchElementException when either id is not a node of the overlay's graph, or
+     *                                there is no path from start to end
+     */
+    public List<NodeType> shortestPathData(int start, int end) {
+        this.checkNode(start);
+        this.checkNode(end);
+        Metric current = this.metric;
+        Search search = this.searches.get();
+        search.run(current, start, end, -1, 0, 0, start, end);
+        if (search.costOf(end) == Double.POSITIVE_INFINITY) {
+            throw new NoSuchElementException("Path doesn't exist between the given points");
+        }
+
+        // walk back from end, then unpack every clique edge into the path inside its cell
+        ArrayList<Integer> hops = new ArrayList<>();
+        ArrayList<Integer> hopLevels = new ArrayList<>();
+        for (int v = end; v != start; v = search.predecessor[v]) {
+            hops.add(v);
+            hopLevels.add(search.viaLevel[v]);
+        }
+        hops.add(start);
+        Collections.reverse(hops);
+        Collections.reverse(hopLevels);
+
+        ArrayList<NodeType> path = new ArrayList<>();
+        path.add(this.nodeOf(start).data);
+        for (int i = 0; i + 1 < hops.size(); i++) {
+            this.unpack(current, hops.get(i), hops.get(i + 1), hopLevels.get(i), path);
+        }
+        return path;
+    }
+
+    /**
+     * Appends to path the nodes after from on the shortest path to to, where from and to are
+     * joined by an edge of the graph (level 0) or by a clique edge of their level-level cell.
+     */
+    private void unpack(Metric current, int from, int to, int level, List<NodeType> path) {
+        if (level == 0) {
+            path.add(this.nodeOf(to).data);
+            return;
+        }
+        // search the cell one level down, as customization did, then unpack those hops too; the
+        // hops are copied out first, so the recursive calls can reuse this thread's Search
+        Search search = this.searches.get();
+        search.run(current, from, to, level - 1, level, this.cellOf[level][from], -1, -1);
+        ArrayList<Integer> hops = new ArrayList<>();
+        ArrayList<Integer> hopLevels = new ArrayList<>();
+        for (int v = to; v != from; v = search.predecessor[v]) {
+            hops.add(v);
+            hopLevels.add(search.viaLevel[v]);
+        }
+        hops.add(from);
+        Collections.reverse(hops);
+        Collections.reverse(hopLevels);
+        for (int i = 0; i + 1 < hops.size(); i++) {
+            this.unpack(current, hops.get(i), hops.get(i + 1), hopLevels.get(i), path);
+        }
+    }
+
+    private void checkNode(int id) {
+        if (id < 0 || id >= this.nodeCount || this.nodeById[id] == null) {
+            throw new NoSuchElementException("Node is not part of the overlay's graph");
+        }
+    }
+
+    /**
+     * Returns the number of levels above the graph itself.
+     *
+     * @return the number of levels
+     */
+    public int getLevelCount() {
+        return this.levelCount;
+    }
+
+    /**
+     * Returns the number of cells of a level.
+     *
+     * @param level a level from 1 to getLevelCount()
+     * @return the number of cells
+     */
+    public int getCellCount(int level) {
+        return this.boundary[level].length;
+    }
+
+    /**
+     * Returns how long the latest customization took.
+     *
+     * @return the customization time in milliseconds
+     */
+    public double getCustomizeMillis() {
+        return this.metric.customizeNanos / 1e6;
+    }
+
+    /**
+     * Dijkstra's algorithm over the overlay, with arrays indexed by node id that are reset
+     * through a generation stamp, and a binary heap that lowers a waiting node's cost in place
+     * (clique edges reach the same node many times). One Search is kept per thread.
+     */
+    private class Search {
+        private final double[] cost;
+        private final int[] reachedIn;
+        private final int[] predecessor;
+        // the level of the edge that reached each node: 0 for a graph edge, l for a clique edge
+        private final int[] viaLevel;
+        // heapPosition[v] is v's index in heap while it waits, or -1 once it is settled
+        private final int[] heapPosition;
+        private final int[] heap;
+        private int heapSize;
+        private int generation = 0;
+
+        Search(int nodeCount) {
+            this.cost = new double[nodeCount];
+            this.reachedIn = new int[nodeCount];
+            this.predecessor = new int[nodeCount];
+            this.viaLevel = new int[nodeCount];
+            this.heapPosition = new int[nodeCount];
+            this.heap = new int[nodeCount];
+        }
+
+        double costOf(int v) {
+            return this.reachedIn[v] == this.generation ? this.cost[v] : Double.POSITIVE_INFINITY;
+        }
+
+        /**
+         * Runs Dijkstra's algorithm from source, stopping once target (when not -1) is settled.
+         * <p>
+         * When fixedLevel is not -1, every node is searched at that level and only nodes inside
+         * cell restrictCell of level restrictLevel are visited; this is how cliques are built
+         * and unpacked. Otherwise each node is searched at the highest level where its cell
+         * contains neither queryStart nor queryEnd. A node searched at level 0 follows its graph
+         * edges; at level l it follows the clique of its level-l cell and the graph edges that
+         * leave that cell.
+         */
+        void run(Metric metric, int source, int target, int fixedLevel, int restrictLevel,
+                 int restrictCell, int queryStart, int queryEnd) {
+            if (++this.generation == Integer.MAX_VALUE) {
+                Arrays.fill(this.reachedIn, 0);
+                this.generation = 1;
+            }
+            this.heapSize = 0;
+            this.relax(source, 0.0, -1, 0);
+
+            while (this.heapSize > 0) {
+                int u = this.poll();
+                if (u == target) {
+                    return;
+                }
+                double costOfU = this.cost[u];
+                int level = fixedLevel != -1 ? fixedLevel : queryLevel(u, queryStart, queryEnd);
+
+                if (level > 0) {
+                    int cell = cellOf[level][u];
+                    int[] cellBoundary = boundary[level][cell];
+                    double[] clique = metric.cliques[level][cell];
+                    int row = boundaryIndex[level][u] * cellBoundary.length;
+                    for (int j = 0; j < cellBoundary.length; j++) {
+                        if (clique[row + j] != Double.POSITIVE_INFINITY) {
+                            this.relax(cellBoundary[j], costOfU + clique[row + j], u, level);
+                        }
+                    }
+                }
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int v = targets[e];
+                    if (level > 0 && cellOf[level][v] == cellOf[level][u]) {
+                        continue; // inside the cell, the clique already covers this edge
+                    }
+                    if (fixedLevel != -1 && cellOf[restrictLevel][v] != restrictCell) {
+                        continue;
+                    }
+                    this.relax(v, costOfU + metric.weights[e], u, 0);
+                }
+            }
+        }
+
+        /**
+         * Lowers the cost of v to candidate when that is cheaper, adding v to the heap when it
+         * is reached for the first time.
+         */
+        private void relax(int v, double candidate, int from, int level) {
+            if (this.reachedIn[v] != this.generation) {
+                this.reachedIn[v] = this.generation;
+                this.heapPosition[v] = this.heapSize;
+                this.heap[this.heapSize++] = v;
+            } else if (candidate >= this.cost[v] || this.heapPosition[v] == -1) {
+                return;
+            }
+            this.cost[v] = candidate;
+            this.predecessor[v] = from;
+            this.viaLevel[v] = level;
+            this.siftUp(this.heapPosition[v]);
+        }
+
+        private void siftUp(int index) {
+            int v = this.heap[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (this.cost[this.heap[parent]] <= this.cost[v]) {
+                    break;
+                }
+                this.heap[index] = this.heap[parent];
+                this.heapPosition[this.heap[index]] = index;
+                index = parent;
+            }
+            this.heap[index] = v;
+            this.heapPosition[v] = index;
+        }
+
+        private int poll() {
+            int top = this.heap[0];
+            this.heapPosition[top] = -1;
+            this.heapSize--;
+            if (this.heapSize > 0) {
+                int v = this.heap[this.heapSize];
+                int index = 0;
+                while (2 * index + 1 < this.heapSize) {
+                    int child = 2 * index + 1;
+                    if (child + 1 < this.heapSize &&
+                            this.cost[this.heap[child + 1]] < this.cost[this.heap[child]]) {
+                        child++;
+                    }
+                    if (this.cost[this.heap[child]] >= this.cost[v]) {
+                        break;
+                    }
+                    this.heap[index] = this.heap[child];
+                    this.heapPosition[this.heap[index]] = index;
+                    index = child;
+                }
+                this.heap[index] = v;
+                this.heapPosition[v] = index;
+            }
+            return top;
+        }
+    }
+
+    /**
+     * Returns the highest level at which the cell of node v contains neither start nor end, or
+     * 0 when v shares its level-1 cell with one of them.
+     */
+    private int queryLevel(int v, int start, int end) {
+        for (int level = this.levelCount; level > 0; level--) {
+            int cell = this.cellOf[level][v];
+            if (cell != this.cellOf[level][start] && cell != this.cellOf[level][end]) {
+                return level;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Benchmarks a three-level overlay of a synthetic grid graph: the time to partition, the
+     * time to customize after every weight has changed, and the query latency compared to
+     * Dijkstra's algorithm.
+     *
+     * @param args optionally the side length of the grid (default 300), followed by the cell
+     *             size of each level (default 64 512 4096)
+     */
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int[] cellSizes = args.length > 1 ? new int[args.length - 1] : new int[] {64, 512, 4096};
+        for (int i = 1; i < args.length; i++) {
+            cellSizes[i - 1] = Integer.parseInt(args[i]);
+        }
+        GraphSnapshot<Integer> grid = DeltaSteppingSearch.randomGrid(side, 42);
+        DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+        for (int v = 0; v < grid.nodeCount; v++) {
+            graph.insertNode(v);
+        }
+        for (int v = 0; v < grid.nodeCount; v++) {
+            for (int e = grid.forwardOffsets[v]; e < grid.forwardOffsets[v + 1]; e++) {
+                graph.insertEdge(v, grid.forwardTargets[e], grid.forwardWeights[e]);
+            }
+        }
+
+        long start = System.nanoTime();
+        MultiLevelOverlay<Integer, Double> overlay = new MultiLevelOverlay<>(graph, cellSizes);
+        double buildMillis = (System.nanoTime() - start) / 1e6;
+        System.out.println(String.format("Grid %dx%d: %d nodes, %d edges", side, side,
+                grid.nodeCount, grid.edgeCount));
+        StringBuilder cells = new StringBuilder();
+        for (int level = 1; level <= overlay.getLevelCount(); level++) {
+            cells.append(level > 1 ? ", " : "").append(overlay.getCellCount(level));
+        }
+        System.out.println(String.format("Partition and first customization: %.1f ms " +
+                "(cells per level: %s)", buildMillis, cells));
+
+        // change every weight, as a new accessibility profile would, then customize again
+        Random random = new Random(7);
+        for (int v = 0; v < grid.nodeCount; v++) {
+            for (int e = grid.forwardOffsets[v]; e < grid.forwardOffsets[v + 1]; e++) {
+                graph.insertEdge(v, grid.forwardTargets[e], 1.0 + random.nextInt(100));
+            }
+        }
+        for (int round = 0; round < 3; round++) {
+            overlay.customize();
+            System.out.println(String.format("Customization: %.1f ms",
+                    overlay.getCustomizeMillis()));
+        }
+
+        int pairs = 200;
+        int[] starts = new int[pairs];
+        int[] ends = new int[pairs];
+        for (int i = 0; i < pairs; i++) {
+            starts[i] = random.nextInt(grid.nodeCount);
+            ends[i] = random.nextInt(grid.nodeCount);
+        }
+        double checksum = 0.0;
+        for (int i = 0; i < pairs; i++) { // warm up
+            checksum += overlay.shortestPathCost(starts[i], ends[i]);
+        }
+        start = System.nanoTime();
+        for (int i = 0; i < pairs; i++) {
+            checksum += overlay.shortestPathCost(starts[i], ends[i]);
+        }
+        double overlayMicros = (System.nanoTime() - start) / 1e3 / pairs;
+        start = System.nanoTime();
+        for (int i = 0; i < pairs; i++) {
+            checksum += graph.shortestPathCost(starts[i], ends[i], null);
+        }
+        double dijkstraMicros = (System.nanoTime() - start) / 1e3 / pairs;
+        System.out.println(String.format("Query latency: %.0f us with the overlay, %.0f us with " +
+                "Dijkstra (%.1fx faster)", overlayMicros, dijkstraMicros,
+                dijkstraMicros / overlayMicros));
+        if (checksum == 42.0) {
+            System.out.println(); // keeps the queries from being optimized away
+        }
+    }
+}
@@ -0,0 +1,259 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A dictionary of distinct names, such as location names, stored as UTF-8 bytes one after the
+ * other in a single byte array. Name i is the bytes from start[i] up to start[i + 1], so a pool
+ * of n names costs one array of bytes and a few int arrays of length n, instead of n String
+ * objects with their own headers and char or byte arrays.
+ * <p>
+ * Names are given dense ids in the order they are first interned, and are looked up through an
+ * open-addressing hash table of ids. Both intern and idOf accept a range of any CharSequence,
+ * such as the part of a line of a dot file between the quotes, so a name that is already in the
+ * pool is found without creating a String for it. The hash of each name is that of the same
+ * String (spread over the table like OpenAddressingMap does), and is cached, so probing compares
+ * hashes before it compares any bytes.
+ * <p>
+ * Strings are only created by nameOf, once per name, and kept so that later calls return the
+ * same instance. Interning a String keeps that String as the name's instance, so names that
+ * already exist elsewhere (for example as the data of graph nodes) are never copied.
+ * <p>
+ * A pool can be read by any number of threads once nothing is being interned anymore.
+ */
+public class NamePool {
+
+    private byte[] bytes;
+    private int used = 0;
+    // name i is bytes[start[i] .. start[i + 1]), and hashes[i] its spread hash
+    private int[] start;
+    private int[] hashes;
+    private String[] strings;
+    private int count = 0;
+    // open-addressing table of name id + 1, or 0 for empty slots
+    private int[] slots;
+
+    /**
+     * Creates an empty pool with room for 16 names before it grows.
+     */
+    public NamePool() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty pool with room for the provided number of names before it grows.
+     *
+     * @param expectedNames the number of names to make room for
+     */
+    public NamePool(int expectedNames) {
+        int capacity = Math.max(4, expectedNames);
+        this.bytes = new byte[capacity * 16];
+        this.start = new int[capacity + 1];
+        this.hashes = new int[capacity];
+        this.strings = new String[capacity];
+        this.slots = new int[Integer.highestOneBit(capacity * 2 * 2 - 1)];
+    }
+
+    /**
+     * Mixes the high bits of a hash code into the low bits that select the home slot.
+     */
+    private static int spread(int hashCode) {
+        int hash = hashCode * 0x9E3779B9; // the golden ratio, as in Fibonacci hashing
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Returns the spread String hash code of text[from .. to).
+     */
+    private static int hashOf(CharSequence text, int from, int to) {
+        int hashCode = 0;
+        for (int i = from; i < to; i++) {
+            hashCode = 31 * hashCode + text.charAt(i);
+        }
+        return spread(hashCode);
+    }
+
+    /**
+     * Checks whether name id consists of the characters text[from .. to). ASCII characters are
+     * compared with the stored bytes directly; anything else is compared after encoding.
+     */
+    private boolean matches(int id, CharSequence text, int from, int to) {
+        int at = this.start[id];
+        int end = this.start[id + 1];
+        for (int i = from; i < to; i++, at++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                byte[] utf8 = text.subSequence(i, to).toString().getBytes(StandardCharsets.UTF_8);
+                return Arrays.equals(this.bytes, at, end, utf8, 0, utf8.length);
+            }
+            if (at == end || this.bytes[at] != c) {
+                return false;
+            }
+        }
+        return at == end;
+    }
+
+    /**
+     * Returns the slot that holds the name text[from .. to), or -(slot + 1) for the empty slot
+     * where it would go.
+     */
+    private int findSlot(CharSequence text, int from, int to, int hash) {
+        int mask = this.slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = this.slots[slot] - 1;
+            if (id == -1) {
+                return -(slot + 1);
+            }
+            if (this.hashes[id] == hash && this.matches(id, text, from, to)) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Returns the id of the name text[from .. to), or -1 if it is not in the pool.
+     *
+     * @param text a sequence of characters containing the name
+     * @param from the index of the name's first character in text
+     * @param to   the index after the name's last character in text
+     * @return the id of the name, or -1
+     */
+    public int idOf(CharSequence text, int from, int to) {
+        int slot = this.findSlot(text, from, to, hashOf(text, from, to));
+        return slot < 0 ? -1 : this.slots[slot] - 1;
+    }
+
+    /**
+     * Returns the id of a name, or -1 if it is not in the pool.
+     *
+     * @param name the name to look up
+     * @return the id of the name, or -1
+     * @throws NullPointerException if name is null
+     */
+    public int idOf(CharSequence name) {
+        return this.idOf(name, 0, name.length());
+    }
+
+    /**
+     * Returns the id of the name text[from .. to), adding it to the pool first when it is not
+     * there yet. A new name gets the id size() had before the call.
+     *
+     * @param text a sequence of characters containing the name
+     * @param from the index of the name's first character in text
+     * @param to   the index after the name's last character in text
+     * @return the id of the name
+     */
+    public int intern(CharSequence text, int from, int to) {
+        int hash = hashOf(text, from, to);
+        int slot = this.findSlot(text, from, to, hash);
+        if (slot >= 0) {
+            return this.slots[slot] - 1;
+        }
+        int id = this.count++;
+        if (this.count > this.hashes.length) {
+            int capacity = this.hashes.length * 2;
+            this.start = Arrays.copyOf(this.start, capacity + 1);
+            this.hashes = Arrays.copyOf(this.hashes, capacity);
+            this.strings = Arrays.copyOf(this.strings, capacity);
+        }
+        this.append(text, from, to);
+        this.start[id + 1] = this.used;
+        this.hashes[id] = hash;
+        this.slots[-slot - 1] = id + 1;
+        if (this.count > this.slots.length >>> 1) {
+            this.growSlots();
+        }
+        return id;
+    }
+
+    /**
+     * Returns the id of a name, adding it to the pool first when it is not there yet, in which
+     * case nameOf will return this String instance for it.
+     *
+     * @param name the name to look up or add
+     * @return the id of the name
+     * @throws NullPointerException if name is null
+     */
+    public int intern(String name) {
+        int before = this.count;
+        int id = this.intern(name, 0, name.length());
+        if (id == before) {
+            this.strings[id] = name;
+        }
+        return id;
+    }
+
+    /**
+     * Appends the UTF-8 encoding of text[from .. to) to the byte array.
+     */
+    private void append(CharSequence text, int from, int to) {
+        // every char takes at most 3 bytes (a surrogate pair takes 4 for its 2 chars)
+        if (this.used + 3L * (to - from) > this.bytes.length) {
+            this.bytes = Arrays.copyOf(this.bytes,
+                    (int) Math.max(this.bytes.length * 2L, this.used + 3L * (to - from)));
+        }
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                byte[] utf8 = text.subSequence(i, to).toString().getBytes(StandardCharsets.UTF_8);
+                System.arraycopy(utf8, 0, this.bytes, this.used, utf8.length);
+                this.used += utf8.length;
+                return;
+            }
+            this.bytes[this.used++] = (byte) c;
+        }
+    }
+
+    /**
+     * Doubles the hash table, placing every id by its cached hash.
+     */
+    private void growSlots() {
+        this.slots = new int[this.slots.length * 2];
+        int mask = this.slots.length - 1;
+        for (int id = 0; id < this.count; id++) {
+            int slot = this.hashes[id] & mask;
+            while (this.slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            this.slots[slot] = id + 1;
+        }
+    }
+
+    /**
+     * Returns the name with the provided id, creating its String on the first call.
+     *
+     * @param id the id of a name, as returned by intern
+     * @return the name
+     * @throws IndexOutOfBoundsException if no name has that id
+     */
+    public String nameOf(int id) {
+        if (id < 0 || id >= this.count) {
+            throw new IndexOutOfBoundsException("No name has id " + id);
+        }
+        String name = this.strings[id];
+        if (name == null) {
+            // a race between two readers creates two equal Strings, and either may be kept
+            name = new String(this.bytes, this.start[id], this.start[id + 1] - this.start[id],
+                    StandardCharsets.UTF_8);
+            this.strings[id] = name;
+        }
+        return name;
+    }
+
+    /**
+     * Returns the number of distinct names in the pool.
+     *
+     * @return the number of names, which is also one more than the largest id
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Returns the number of bytes that the names' UTF-8 encodings take up.
+     *
+     * @return the total length of all names in bytes
+     */
+    public int getByteCount() {
+        return this.used;
+    }
+}
@@ -0,0 +1,85 @@
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NamePoolTests {
+
+    /**
+     * Interns names given as ranges of lines, as the dot file parser does, and checks that each
+     * distinct name gets the next id, that repeated names keep theirs, and that lookups of names
+     * and ranges that are not in the pool return -1.
+     */
+    @Test
+    public void testRanges() {
+        NamePool pool = new NamePool();
+        String line = "\"Memorial Union\" -> \"Science Hall\" [seconds=105.8];";
+        assertEquals(0, pool.intern(line, 1, 15));
+        assertEquals(1, pool.intern(line, 21, 33));
+        assertEquals(0, pool.intern("Memorial Union"));
+        assertEquals(1, pool.intern(new StringBuilder("Science Hall"), 0, 12));
+        assertEquals(2, pool.size());
+        assertEquals("Memorial Union", pool.nameOf(0));
+        assertEquals("Science Hall", pool.nameOf(1));
+        assertEquals(26, pool.getByteCount());
+
+        assertEquals(1, pool.idOf("Science Hall"));
+        assertEquals(-1, pool.idOf("Science"));
+        assertEquals(-1, pool.idOf("Science Halls"));
+        assertEquals(-1, pool.idOf(line, 1, 14), "A prefix of a name was found");
+        assertEquals(2, pool.intern(""));
+        assertEquals(2, pool.idOf(line, 5, 5));
+        assertThrows(IndexOutOfBoundsException.class, () -> pool.nameOf(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> pool.nameOf(-1));
+    }
+
+    /**
+     * Tests that names with characters outside of ASCII, including a surrogate pair, are
+     * stored as UTF-8 and told apart from names that share their ASCII prefix.
+     */
+    @Test
+    public void testNonAscii() {
+        NamePool pool = new NamePool(1);
+        assertEquals(0, pool.intern("Caf\u00e9 Ol\u00e9"));
+        assertEquals(1, pool.intern("Caf\u00e8 Ol\u00e9"));
+        assertEquals(2, pool.intern("Caf"));
+        assertEquals(3, pool.intern("Map \ud83d\uddfa"));
+        assertEquals(0, pool.idOf(new StringBuilder("Caf\u00e9 Ol\u00e9")));
+        assertEquals(-1, pool.idOf("Caf\u00e9"));
+        assertEquals(3, pool.idOf("Map \ud83d\uddfa"));
+        assertEquals("Caf\u00e8 Ol\u00e9", pool.nameOf(1));
+        assertEquals("Map \ud83d\uddfa", pool.nameOf(3));
+        assertEquals(10 + 10 + 3 + 8, pool.getByteCount());
+    }
+
+    /**
+     * Interns enough names to grow every array several times, and checks that all of them
+     * keep their ids, and that nameOf returns the same String each time, which is the one
+     * interned for names that were interned as Strings.
+     */
+    @Test
+    public void testGrowth() {
+        NamePool pool = new NamePool(1);
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            String name = "Location number " + i;
+            names.add(name);
+            if (i % 2 == 0) {
+                assertEquals(i, pool.intern(name));
+            } else {
+                String line = "\"" + name + "\" -> x";
+                assertEquals(i, pool.intern(line, 1, name.length() + 1));
+            }
+        }
+        assertEquals(names.size(), pool.size());
+        for (int i = 0; i < names.size(); i++) {
+            assertEquals(i, pool.idOf(names.get(i)));
+            assertEquals(names.get(i), pool.nameOf(i));
+            assertSame(pool.nameOf(i), pool.nameOf(i), "nameOf created another String");
+            if (i % 2 == 0) {
+                assertSame(names.get(i), pool.nameOf(i), "The interned String wasn't kept");
+            }
+        }
+        assertEquals(-1, pool.idOf("Location number 5000"));
+    }
+}
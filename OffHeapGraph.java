@@ -0,0 +1,764 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * A GraphADT whose nodes, edges, weights and location names are all stored outside of the Java
+ * heap, in direct ByteBuffers read and written through VarHandles. DijkstraGraph keeps a Node
+ * object with two ArrayLists per node, and an Edge object with a boxed Double per edge, so a
+ * graph with millions of edges is tens of millions of heap objects that every full garbage
+ * collection has to trace. Here the whole graph is four buffers, which the collector sees as
+ * four small objects no matter how many nodes and edges they hold.
+ * <p>
+ * Nodes and edges are fixed-size records, addressed by id:
+ * <ul>
+ * <li>a node record holds the first edge of its leaving and entering lists, where its name's
+ * UTF-8 bytes start in the name pool and how many there are, and the hash of its name. A
+ * removed node's record is marked by a name offset of -1 and links to the next free node.</li>
+ * <li>an edge record holds its weight, its predecessor and successor ids, and the next edge
+ * of its predecessor's leaving list and of its successor's entering list, so that the edges of
+ * a node form two singly linked lists threaded through the records. Removed edge records are
+ * kept on a free list too.</li>
+ * </ul>
+ * Names are looked up through an open-addressing hash table of node ids, also off-heap, which
+ * compares the cached hashes before comparing any bytes. A removed node's name stays in the
+ * pool until the dead bytes outnumber the live ones, and then the pool is compacted.
+ * <p>
+ * The Foreign Function and Memory API's MemorySegments and Arenas would also allow freeing the
+ * memory deterministically, but they are not final in Java 17, so this uses direct ByteBuffers,
+ * which are freed once the graph is unreachable. Each buffer is limited to 2 GB, or about 89
+ * million edges. Searches keep their per-node state in a SearchWorkspace, on the heap but
+ * reused by each thread, so a search allocates nothing but its result.
+ */
+public class OffHeapGraph implements GraphADT<String, Double> {
+
+    private static final VarHandle INT =
+            MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final VarHandle DOUBLE =
+            MethodHandles.byteBufferViewVarHandle(double[].class, ByteOrder.nativeOrder());
+
+    // node record layout
+    private static final int NODE_BYTES = 20;
+    private static final int FIRST_OUT = 0;
+    private static final int FIRST_IN = 4;
+    private static final int NAME_OFFSET = 8; // -1 for removed nodes
+    private static final int NAME_LENGTH = 12; // the next free node id, for removed nodes
+    private static final int NAME_HASH = 16;
+
+    // edge record layout
+    private static final int EDGE_BYTES = 24;
+    private static final int WEIGHT = 0;
+    private static final int PRED = 8;
+    private static final int SUCC = 12;
+    private static final int NEXT_OUT = 16; // the next free edge, for removed edges
+    private static final int NEXT_IN = 20;
+
+    private ByteBuffer nodeRecords;
+    private ByteBuffer edgeRecords;
+    private ByteBuffer namePool;
+    // open-addressing table of node id + 1, or 0 for empty slots
+    private ByteBuffer nameSlots;
+    private int nameSlotCount;
+
+    private int nodeBound = 0;
+    private int nodeCount = 0;
+    private int freeNode = -1;
+    private int edgeBound = 0;
+    private int edgeCount = 0;
+    private int freeEdge = -1;
+    private int namePoolUsed = 0;
+    private int deadNameBytes = 0;
+
+    private final ThreadLocal<SearchWorkspace<String, Double>> searchWorkspaces =
+            ThreadLocal.withInitial(SearchWorkspace::new);
+
+    /**
+     * Creates an empty graph with room for a few nodes and edges; the buffers double whenever
+     * they fill up.
+     */
+    public OffHeapGraph() {
+        this(16, 64);
+    }
+
+    /**
+     * Creates an empty graph with room for the provided number of nodes and edges, so that
+     * loading a graph of known size never copies a buffer.
+     *
+     * @param expectedNodes the number of nodes to make room for
+     * @param expectedEdges the number of edges to make room for
+     */
+    public OffHeapGraph(int expectedNodes, int expectedEdges) {
+        this.nodeRecords = ByteBuffer.allocateDirect(Math.max(1, expectedNodes) * NODE_BYTES);
+        this.edgeRecords = ByteBuffer.allocateDirect(Math.max(1, expectedEdges) * EDGE_BYTES);
+        this.namePool = ByteBuffer.allocateDirect(Math.max(1, expectedNodes) * 16);
+        this.nameSlotCount = Integer.highestOneBit(Math.max(4, expectedNodes * 2) * 2 - 1);
+        this.nameSlots = ByteBuffer.allocateDirect(this.nameSlotCount * 4);
+    }
+
+    /**
+     * Returns a direct buffer of at least neededBytes bytes holding the contents of buffer.
+     */
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, long neededBytes) {
+        if (neededBytes <= buffer.capacity()) {
+            return buffer;
+        }
+        if (neededBytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Graph is too large for a single buffer");
+        }
+        long capacity = Math.min(Integer.MAX_VALUE, Math.max(neededBytes, 2L * buffer.capacity()));
+        ByteBuffer larger = ByteBuffer.allocateDirect((int) capacity);
+        larger.put(buffer.duplicate().clear());
+        return larger;
+    }
+
+    private int nodeInt(int node, int field) {
+        return (int) INT.get(this.nodeRecords, node * NODE_BYTES + field);
+    }
+
+    private void setNodeInt(int node, int field, int value) {
+        INT.set(this.nodeRecords, node * NODE_BYTES + field, value);
+    }
+
+    private int edgeInt(int edge, int field) {
+        return (int) INT.get(this.edgeRecords, edge * EDGE_BYTES + field);
+    }
+
+    private void setEdgeInt(int edge, int field, int value) {
+        INT.set(this.edgeRecords, edge * EDGE_BYTES + field, value);
+    }
+
+    private double weightOf(int edge) {
+        return (double) DOUBLE.get(this.edgeRecords, edge * EDGE_BYTES + WEIGHT);
+    }
+
+    private int slotValue(int slot) {
+        return (int) INT.get(this.nameSlots, slot * 4);
+    }
+
+    private void setSlotValue(int slot, int value) {
+        INT.set(this.nameSlots, slot * 4, value);
+    }
+
+    /**
+     * Mixes the high bits of a hash code into the low bits that select the home slot. Tests use
+     * it to pick names that share a home slot.
+     */
+    static int spread(int hashCode) {
+        int hash = hashCode * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Checks whether the name of node is the string whose UTF-8 bytes are utf8.
+     */
+    private boolean nameEquals(int node, byte[] utf8) {
+        int offset = this.nodeInt(node, NAME_OFFSET);
+        if (this.nodeInt(node, NAME_LENGTH) != utf8.length) {
+            return false;
+        }
+        for (int i = 0; i < utf8.length; i++) {
+            if (this.namePool.get(offset + i) != utf8[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the slot holding the node named name, or -(slot + 1) for the empty slot where it
+     * would go.
+     */
+    private int findSlot(String name, int hash) {
+        int mask = this.nameSlotCount - 1;
+        byte[] utf8 = null; // only encoded once a slot's hash matches
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int value = this.slotValue(slot);
+            if (value == 0) {
+                return -(slot + 1);
+            }
+            if (this.nodeInt(value - 1, NAME_HASH) == hash) {
+                if (utf8 == null) {
+                    utf8 = name.getBytes(StandardCharsets.UTF_8);
+                }
+                if (this.nameEquals(value - 1, utf8)) {
+                    return slot;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the id of the node named name, or -1 when there is none.
+     *
+     * @throws NullPointerException if name is null
+     */
+    private int idOf(String name) {
+        int slot = this.findSlot(name, spread(name.hashCode()));
+        return slot < 0 ? -1 : this.slotValue(slot) - 1;
+    }
+
+    /**
+     * Returns the name of the node with id node.
+     */
+    private String nameOf(int node) {
+        byte[] utf8 = new byte[this.nodeInt(node, NAME_LENGTH)];
+        this.namePool.get(this.nodeInt(node, NAME_OFFSET), utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Doubles the name table and moves every node id to its slot in it by its cached hash.
+     */
+    private void growNameSlots() {
+        ByteBuffer oldSlots = this.nameSlots;
+        int oldCount = this.nameSlotCount;
+        this.nameSlotCount = oldCount * 2;
+        this.nameSlots = ByteBuffer.allocateDirect(this.nameSlotCount * 4);
+        int mask = this.nameSlotCount - 1;
+        for (int i = 0; i < oldCount; i++) {
+            int value = (int) INT.get(oldSlots, i * 4);
+            if (value != 0) {
+                int slot = this.nodeInt(value - 1, NAME_HASH) & mask;
+                while (this.slotValue(slot) != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                this.setSlotValue(slot, value);
+            }
+        }
+    }
+
+    /**
+     * Empties slot, moving later ids of the same run back so that every remaining id can still
+     * be reached from its home slot.
+     */
+    private void removeSlot(int slot) {
+        int mask = this.nameSlotCount - 1;
+        int gap = slot;
+        for (int next = (gap + 1) & mask; this.slotValue(next) != 0; next = (next + 1) & mask) {
+            int home = this.nodeInt(this.slotValue(next) - 1, NAME_HASH) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                this.setSlotValue(gap, this.slotValue(next));
+                gap = next;
+            }
+        }
+        this.setSlotValue(gap, 0);
+    }
+
+    /**
+     * Rewrites the names of the remaining nodes next to each other at the start of the pool.
+     */
+    private void compactNamePool() {
+        ByteBuffer compacted = ByteBuffer.allocateDirect(
+                Math.max(1, 2 * (this.namePoolUsed - this.deadNameBytes)));
+        for (int node = 0; node < this.nodeBound; node++) {
+            int offset = this.nodeInt(node, NAME_OFFSET);
+            if (offset != -1) {
+                this.setNodeInt(node, NAME_OFFSET, compacted.position());
+                compacted.put(this.namePool.duplicate().position(offset)
+                        .limit(offset + this.nodeInt(node, NAME_LENGTH)));
+            }
+        }
+        this.namePoolUsed = compacted.position();
+        this.deadNameBytes = 0;
+        this.namePool = compacted;
+    }
+
+    /**
+     * Insert a new node into the graph.
+     *
+     * @param data is the data item stored in the new node
+     * @return true if the data is unique and can be inserted into a new node, or false if this
+     *         data is already in the graph
+     * @throws NullPointerException if data is null
+     */
+    @Override
+    public boolean insertNode(String data) {
+        int hash = spread(data.hashCode());
+        int slot = this.findSlot(data, hash);
+        if (slot >= 0) {
+            return false;
+        }
+        int node;
+        if (this.freeNode != -1) {
+            node = this.freeNode;
+            this.freeNode = this.nodeInt(node, NAME_LENGTH);
+        } else {
+            node = this.nodeBound++;
+            this.nodeRecords = ensureCapacity(this.nodeRecords, (long) this.nodeBound * NODE_BYTES);
+        }
+        byte[] utf8 = data.getBytes(StandardCharsets.UTF_8);
+        this.namePool = ensureCapacity(this.namePool, (long) this.namePoolUsed + utf8.length);
+        this.namePool.put(this.namePoolUsed, utf8);
+        this.setNodeInt(node, FIRST_OUT, -1);
+        this.setNodeInt(node, FIRST_IN, -1);
+        this.setNodeInt(node, NAME_OFFSET, this.namePoolUsed);
+        this.setNodeInt(node, NAME_LENGTH, utf8.length);
+        this.setNodeInt(node, NAME_HASH, hash);
+        this.namePoolUsed += utf8.length;
+        this.setSlotValue(-slot - 1, node + 1);
+        if (++this.nodeCount > this.nameSlotCount - (this.nameSlotCount >>> 2)) {
+            this.growNameSlots();
+        }
+        return true;
+    }
+
+    /**
+     * Remove every node and edge from the graph, keeping the buffers for the next nodes and
+     * edges. Only the name table has to be zeroed; the node and edge records and the name pool
+     * are overwritten as new ones are added.
+     */
+    @Override
+    public void clear() {
+        for (int slot = 0; slot < this.nameSlotCount; slot++) {
+            this.setSlotValue(slot, 0);
+        }
+        this.nodeBound = 0;
+        this.nodeCount = 0;
+        this.freeNode = -1;
+        this.edgeBound = 0;
+        this.edgeCount = 0;
+        this.freeEdge = -1;
+        this.namePoolUsed = 0;
+        this.deadNameBytes = 0;
+    }
+
+    /**
+     * Remove a node from the graph. And also remove all edges adjacent to that node.
+     *
+     * @param data is the data item stored in the node to be removed
+     * @return true if a vertex with data is found and removed, or false if that data value is
+     *         not found in the graph
+     * @throws NullPointerException if data is null
+     */
+    @Override
+    public boolean removeNode(String data) {
+        int slot = this.findSlot(data, spread(data.hashCode()));
+        if (slot < 0) {
+            return false;
+        }
+        int node = this.slotValue(slot) - 1;
+        while (this.nodeInt(node, FIRST_OUT) != -1) {
+            int edge = this.nodeInt(node, FIRST_OUT);
+            this.removeEdge(edge, node, this.edgeInt(edge, SUCC));
+        }
+        while (this.nodeInt(node, FIRST_IN) != -1) {
+            int edge = this.nodeInt(node, FIRST_IN);
+            this.removeEdge(edge, this.edgeInt(edge, PRED), node);
+        }
+        this.removeSlot(slot);
+        this.deadNameBytes += this.nodeInt(node, NAME_LENGTH);
+        this.setNodeInt(node, NAME_OFFSET, -1);
+        this.setNodeInt(node, NAME_LENGTH, this.freeNode);
+        this.freeNode = node;
+        this.nodeCount--;
+        if (this.deadNameBytes > 4096 && this.deadNameBytes > this.namePoolUsed / 2) {
+            this.compactNamePool();
+        }
+        return true;
+    }
+
+    /**
+     * Check whether the graph contains a node with the provided data.
+     *
+     * @param data the node contents to check for
+     * @return true if data item is stored in a node within the graph, or false otherwise
+     */
+    @Override
+    public boolean containsNode(String data) {
+        return this.idOf(data) != -1;
+    }
+
+    /**
+     * Retrieves a list of all node data from this graph, in the order of their ids.
+     *
+     * @return list of all node data
+     */
+    @Override
+    public List<String> getAllNodes() {
+        List<String> names = new ArrayList<>(this.nodeCount);
+        for (int node = 0; node < this.nodeBound; node++) {
+            if (this.nodeInt(node, NAME_OFFSET) != -1) {
+                names.add(this.nameOf(node));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Return the number of nodes in the graph.
+     *
+     * @return the number of nodes in the graph
+     */
+    @Override
+    public int getNodeCount() {
+        return this.nodeCount;
+    }
+
+    /**
+     * Returns the edge from pred to succ, or -1 when there is none.
+     */
+    private int findEdge(int pred, int succ) {
+        for (int edge = this.nodeInt(pred, FIRST_OUT); edge != -1;
+             edge = this.edgeInt(edge, NEXT_OUT)) {
+            if (this.edgeInt(edge, SUCC) == succ) {
+                return edge;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Insert a new directed edge with positive edges weight into the graph. Or if an edge
+     * between pred and succ already exists, update the data stored in that edge with the new
+     * weight.
+     *
+     * @param pred   is the data item contained in the new edge's predecesor node
+     * @param succ   is the data item contained in the new edge's successor node
+     * @param weight is the non-negative data item stored in the new edge (like BaseGraph, this
+     *               accepts the zero weights of locations that share an entrance)
+     * @return true if the edge could be inserted or updated, or false if the pred or succ data
+     *         are not found in any graph nodes or if the weight is negative or NaN
+     */
+    @Override
+    public boolean insertEdge(String pred, String succ, Double weight) {
+        if (pred == null || succ == null || weight == null || !(weight >= 0.0)) {
+            return false;
+        }
+        int predNode = this.idOf(pred);
+        int succNode = this.idOf(succ);
+        if (predNode == -1 || succNode == -1) {
+            return false;
+        }
+        int edge = this.findEdge(predNode, succNode);
+        if (edge == -1) {
+            if (this.freeEdge != -1) {
+                edge = this.freeEdge;
+                this.freeEdge = this.edgeInt(edge, NEXT_OUT);
+            } else {
+                edge = this.edgeBound++;
+                this.edgeRecords = ensureCapacity(this.edgeRecords,
+                        (long) this.edgeBound * EDGE_BYTES);
+            }
+            this.setEdgeInt(edge, PRED, predNode);
+            this.setEdgeInt(edge, SUCC, succNode);
+            this.setEdgeInt(edge, NEXT_OUT, this.nodeInt(predNode, FIRST_OUT));
+            this.setEdgeInt(edge, NEXT_IN, this.nodeInt(succNode, FIRST_IN));
+            this.setNodeInt(predNode, FIRST_OUT, edge);
+            this.setNodeInt(succNode, FIRST_IN, edge);
+            this.edgeCount++;
+        }
+        DOUBLE.set(this.edgeRecords, edge * EDGE_BYTES + WEIGHT, weight.doubleValue());
+        return true;
+    }
+
+    /**
+     * Unlinks edge from the leaving list of pred and the entering list of succ, and frees it.
+     */
+    private void removeEdge(int edge, int pred, int succ) {
+        this.unlink(edge, pred, FIRST_OUT, NEXT_OUT);
+        this.unlink(edge, succ, FIRST_IN, NEXT_IN);
+        this.setEdgeInt(edge, NEXT_OUT, this.freeEdge);
+        this.freeEdge = edge;
+        this.edgeCount--;
+    }
+
+    /**
+     * Unlinks edge from the list of node that starts at the node field first and continues
+     * through the edge field next.
+     */
+    private void unlink(int edge, int node, int first, int next) {
+        int current = this.nodeInt(node, first);
+        if (current == edge) {
+            this.setNodeInt(node, first, this.edgeInt(edge, next));
+            return;
+        }
+        while (this.edgeInt(current, next) != edge) {
+            current = this.edgeInt(current, next);
+        }
+        this.setEdgeInt(current, next, this.edgeInt(edge, next));
+    }
+
+    /**
+     * Remove an edge from the graph.
+     *
+     * @param pred the data item contained in the source node for the edge
+     * @param succ the data item contained in the target node for the edge
+     * @return true if the edge could be removed, or false if such an edge is not found in the
+     *         graph
+     */
+    @Override
+    public boolean removeEdge(String pred, String succ) {
+        int predNode = this.idOf(pred);
+        int succNode = this.idOf(succ);
+        int edge = predNode == -1 || succNode == -1 ? -1 : this.findEdge(predNode, succNode);
+        if (edge == -1) {
+            return false;
+        }
+        this.removeEdge(edge, predNode, succNode);
+        return true;
+    }
+
+    /**
+     * Check if edge is in the graph.
+     *
+     * @param pred the data item contained in the source node for the edge
+     * @param succ the data item contained in the target node for the edge
+     * @return true if the edge is found in the graph, or false other
+     */
+    @Override
+    public boolean containsEdge(String pred, String succ) {
+        int predNode = this.idOf(pred);
+        int succNode = this.idOf(succ);
+        return predNode != -1 && succNode != -1 && this.findEdge(predNode, succNode) != -1;
+    }
+
+    /**
+     * Return the data associated with a specific edge.
+     *
+     * @param pred the data item contained in the source node for the edge
+     * @param succ the data item contained in the target node for the edge
+     * @return the non-negative data from the edge between those nodes
+     * @throws NoSuchElementException if either node or the edge between them are not found
+     *                                within this graph
+     */
+    @Override
+    public Double getEdge(String pred, String succ) {
+        int predNode = this.idOf(pred);
+        int succNode = this.idOf(succ);
+        int edge = predNode == -1 || succNode == -1 ? -1 : this.findEdge(predNode, succNode);
+        if (edge == -1) {
+            throw new NoSuchElementException("No edge from " + pred + " to " + succ);
+        }
+        return this.weightOf(edge);
+    }
+
+    /**
+     * Return the number of edges in the graph.
+     *
+     * @return the number of edges in the graph
+     */
+    @Override
+    public int getEdgeCount() {
+        return this.edgeCount;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from start until end is settled, or until every node within
+     * budget is settled when end is -1, following the edge records directly.
+     */
+    private SearchWorkspace<String, Double> search(int start, int end, double budget) {
+        SearchWorkspace<String, Double> workspace = this.searchWorkspaces.get();
+        workspace.reset(this.nodeBound);
+        workspace.offer(start, 0.0, -1);
+        while (!workspace.isEmpty() && workspace.peekCost() <= budget) {
+            int current = workspace.settleNext();
+            if (current == end) {
+                return workspace;
+            }
+            double cost = workspace.costOf(current);
+            for (int edge = this.nodeInt(current, FIRST_OUT); edge != -1;
+                 edge = this.edgeInt(edge, NEXT_OUT)) {
+                int succ = this.edgeInt(edge, SUCC);
+                if (!workspace.isSettled(succ)) {
+                    workspace.offer(succ, cost + this.weightOf(edge), current);
+                }
+            }
+        }
+        if (end != -1) {
+            throw new NoSuchElementException("Path doesn't exist between the given points");
+        }
+        return workspace;
+    }
+
+    /**
+     * Looks up the ids of start and end, and searches for the shortest path between them.
+     */
+    private SearchWorkspace<String, Double> searchShortestPath(String start, String end) {
+        int startNode = start == null ? -1 : this.idOf(start);
+        if (startNode == -1) {
+            throw new NoSuchElementException("Start node is not present in the graph");
+        }
+        int endNode = end == null ? -1 : this.idOf(end);
+        if (endNode == -1) {
+            throw new NoSuchElementException("End node is not present in the graph");
+        }
+        return this.search(startNode, endNode, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Returns the list of data values from nodes along the shortest path from the node with the
+     * provided start value through the node with the provided end value.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return list of data item from node along this shortest path
+     * @throws NoSuchElementException if either the start or end node cannot be found in the
+     *                                graph, or if there is no directed path from start to end
+     */
+    @Override
+    public List<String> shortestPathData(String start, String end) {
+        SearchWorkspace<String, Double> workspace = this.searchShortestPath(start, end);
+        List<String> path = new ArrayList<>();
+        for (int node = workspace.lastSettled(); node != -1;
+             node = workspace.predecessorOf(node)) {
+            path.add(this.nameOf(node));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Returns the cost of the shortest path from the node containing the start data to the node
+     * containing the end data.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return the cost of the shortest path between these nodes
+     * @throws NoSuchElementException if either the start or end node cannot be found in the
+     *                                graph, or if there is no directed path from start to end
+     */
+    @Override
+    public double shortestPathCost(String start, String end) {
+        SearchWorkspace<String, Double> workspace = this.searchShortestPath(start, end);
+        return workspace.costOf(workspace.lastSettled());
+    }
+
+    /**
+     * Returns every node that can be reached from the start node with a total path cost no
+     * greater than the provided budget, mapped to the cost of reaching it.
+     *
+     * @param start  the data item in the starting node for the search
+     * @param budget the maximum total path cost for a node to be included
+     * @return a map from each reachable node's data to the cost of its shortest path from start
+     * @throws NoSuchElementException   when start does not correspond to a graph node
+     * @throws IllegalArgumentException when budget is negative or NaN
+     */
+    @Override
+    public MapADT<String, Double> reachableWithin(String start, double budget) {
+        int startNode = start == null ? -1 : this.idOf(start);
+        if (startNode == -1) {
+            throw new NoSuchElementException("Start node is not present in the graph");
+        }
+        if (!(budget >= 0.0)) {
+            throw new IllegalArgumentException("Budget must be a non-negative number");
+        }
+        SearchWorkspace<String, Double> workspace = this.search(startNode, -1, budget);
+        OpenAddressingMap<String, Double> arrivalTimes = new OpenAddressingMap<>();
+        for (int node = 0; node < this.nodeBound; node++) {
+            if (workspace.isSettled(node)) {
+                arrivalTimes.put(this.nameOf(node), workspace.costOf(node));
+            }
+        }
+        return arrivalTimes;
+    }
+
+    /**
+     * Returns the number of bytes of direct memory that this graph's buffers take up.
+     *
+     * @return the total capacity of the node, edge, name and name table buffers
+     */
+    public long getOffHeapBytes() {
+        return (long) this.nodeRecords.capacity() + this.edgeRecords.capacity() +
+                this.namePool.capacity() + this.nameSlots.capacity();
+    }
+
+    /**
+     * Builds a synthetic road-like grid with about the provided number of edges, as an
+     * OffHeapGraph or as a DijkstraGraph, and reports the heap it occupies, the garbage
+     * collections while building it, how long a full collection takes with the graph alive, and
+     * the time of point-to-point queries. Run it once for each kind of graph, since a graph
+     * built earlier in the same JVM stays reachable through its threads' search workspaces.
+     *
+     * @param args optionally the number of edges (default 10000000), and OffHeapGraph (the
+     *             default) or DijkstraGraph
+     */
+    public static void main(String[] args) {
+        int edges = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        boolean offHeap = args.length < 2 || args[1].equals("OffHeapGraph");
+        // every cell of a side x side grid has edges to and from its right and lower neighbors
+        int side = (int) Math.sqrt(edges / 4.0);
+        System.out.println(String.format("grid of %d nodes and %d edges", side * side,
+                4L * side * (side - 1)));
+        if (offHeap) {
+            report("OffHeapGraph", new OffHeapGraph(side * side, 4 * side * side), side);
+        } else {
+            report("DijkstraGraph", new DijkstraGraph<>(), side);
+        }
+    }
+
+    private static void report(String name, GraphADT<String, Double> graph, int side) {
+        System.gc();
+        long heapBefore = usedHeap();
+        long[] gcBefore = gcCountAndMillis();
+        long start = System.nanoTime();
+        buildGrid(graph, side);
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+        long[] gcAfterBuild = gcCountAndMillis();
+
+        long fullGcStart = System.nanoTime();
+        System.gc();
+        long fullGcMillis = (System.nanoTime() - fullGcStart) / 1_000_000;
+        long heapBytes = usedHeap() - heapBefore;
+
+        Random random = new Random(7);
+        int queries = 20;
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            graph.shortestPathCost(Integer.toString(random.nextInt(side * side)),
+                    Integer.toString(random.nextInt(side * side)));
+        }
+        double queryMillis = (System.nanoTime() - start) / 1e6 / queries;
+
+        String offHeap = graph instanceof OffHeapGraph ?
+                String.format(", %d MB off-heap", ((OffHeapGraph) graph).getOffHeapBytes() >> 20) :
+                "";
+        System.out.println(String.format("%-13s %6d MB heap%s, built in %d ms with %d GCs " +
+                        "(%d ms), full GC %d ms, %.0f ms per query", name, heapBytes >> 20,
+                offHeap, buildMillis, gcAfterBuild[0] - gcBefore[0],
+                gcAfterBuild[1] - gcBefore[1], fullGcMillis, queryMillis));
+    }
+
+    private static void buildGrid(GraphADT<String, Double> graph, int side) {
+        String[] names = new String[side * side];
+        for (int v = 0; v < names.length; v++) {
+            names[v] = Integer.toString(v);
+            graph.insertNode(names[v]);
+        }
+        Random random = new Random(42);
+        for (int row = 0; row < side; row++) {
+            for (int column = 0; column < side; column++) {
+                int v = row * side + column;
+                if (column + 1 < side) {
+                    graph.insertEdge(names[v], names[v + 1], 1.0 + random.nextInt(9));
+                    graph.insertEdge(names[v + 1], names[v], 1.0 + random.nextInt(9));
+                }
+                if (row + 1 < side) {
+                    graph.insertEdge(names[v], names[v + side], 1.0 + random.nextInt(9));
+                    graph.insertEdge(names[v + side], names[v], 1.0 + random.nextInt(9));
+                }
+            }
+        }
+    }
+
+    private static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long[] gcCountAndMillis() {
+        long[] countAndMillis = new long[2];
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            countAndMillis[0] += collector.getCollectionCount();
+            countAndMillis[1] += collector.getCollectionTime();
+        }
+        return countAndMillis;
+    }
+}
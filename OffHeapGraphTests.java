@@ -0,0 +1,300 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapGraphTests {
+
+    /**
+     * Tests the lecture example: the shortest path from D to I is D->G->H->I with a cost of 13,
+     * and there is no path from E to D.
+     */
+    @Test
+    public void testLectureDemo() {
+        OffHeapGraph graph = new OffHeapGraph();
+        for (String node : List.of("A", "B", "D", "E", "F", "G", "H", "I", "L", "M")) {
+            assertTrue(graph.insertNode(node));
+        }
+        assertFalse(graph.insertNode("A"), "Duplicate node was inserted");
+        String[][] edges = {{"G", "A", "4"}, {"D", "A", "7"}, {"A", "B", "1"}, {"H", "B", "6"},
+            {"I", "D", "1"}, {"M", "E", "3"}, {"D", "F", "4"}, {"M", "F", "4"}, {"D", "G", "2"},
+            {"F", "G", "9"}, {"A", "H", "7"}, {"G", "H", "9"}, {"I", "H", "2"}, {"M", "I", "4"},
+            {"H", "I", "2"}, {"G", "L", "7"}, {"H", "L", "2"}, {"A", "M", "5"}, {"B", "M", "3"}};
+        for (String[] edge : edges) {
+            assertTrue(graph.insertEdge(edge[0], edge[1], Double.parseDouble(edge[2])));
+        }
+        assertEquals(10, graph.getNodeCount());
+        assertEquals(19, graph.getEdgeCount());
+        assertEquals(List.of("D", "G", "H", "I"), graph.shortestPathData("D", "I"),
+                "Incorrect Shortest Path");
+        assertEquals(13, graph.shortestPathCost("D", "I"), "Incorrect Shortest Path Cost");
+        assertThrows(NoSuchElementException.class, () -> graph.shortestPathData("E", "D"));
+        assertThrows(NoSuchElementException.class, () -> graph.shortestPathCost("Z", "D"));
+
+        assertEquals(Double.valueOf(2.0), graph.getEdge("D", "G"));
+        assertThrows(NoSuchElementException.class, () -> graph.getEdge("G", "D"));
+        assertFalse(graph.insertEdge("D", "Z", 1.0), "Edge to a missing node was inserted");
+        assertFalse(graph.insertEdge("D", "E", -1.0), "Edge with a negative weight was inserted");
+        assertTrue(graph.insertEdge("D", "G", 20.0));
+        assertEquals(19, graph.getEdgeCount(), "Updating a weight added an edge");
+        assertEquals(List.of("D", "F", "G"), graph.shortestPathData("D", "G"));
+
+        MapADT<String, Double> reachable = graph.reachableWithin("D", 6.0);
+        assertEquals(new HashSet<>(List.of("D", "F")), new HashSet<>(reachable.getKeys()));
+        assertThrows(IllegalArgumentException.class, () -> graph.reachableWithin("D", -1.0));
+
+        assertTrue(graph.removeNode("H"));
+        assertFalse(graph.containsNode("H"));
+        assertFalse(graph.containsEdge("G", "H"));
+        assertEquals(13, graph.getEdgeCount(), "Edges of a removed node remain");
+        assertEquals(List.of("D", "A", "B", "M", "I"), graph.shortestPathData("D", "I"));
+    }
+
+    /**
+     * Applies the same random insertions and removals of nodes and edges to an OffHeapGraph and
+     * a DijkstraGraph, so that records, names and name table slots are freed and reused, and
+     * checks after each round that both graphs hold the same nodes and edges and find the same
+     * shortest path costs.
+     */
+    @Test
+    public void testMatchesDijkstraGraph() {
+        OffHeapGraph graph = new OffHeapGraph();
+        DijkstraGraph<String, Double> expected = new DijkstraGraph<>();
+        Random random = new Random(3);
+        for (int round = 0; round < 20; round++) {
+            for (int step = 0; step < 400; step++) {
+                // long names with a shared prefix make the name pool fill up and compact
+                String pred = "location number " + random.nextInt(150);
+                String succ = "location number " + random.nextInt(150);
+                switch (random.nextInt(6)) {
+                    case 0:
+                        assertEquals(expected.insertNode(pred), graph.insertNode(pred));
+                        break;
+                    case 1:
+                        if (random.nextInt(4) == 0) {
+                            assertEquals(expected.removeNode(pred), graph.removeNode(pred));
+                        }
+                        break;
+                    case 2:
+                        assertEquals(expected.removeEdge(pred, succ), graph.removeEdge(pred, succ));
+                        break;
+                    default:
+                        if (expected.containsNode(pred) && expected.containsNode(succ)) {
+                            double weight = 1 + random.nextInt(20);
+                            assertTrue(graph.insertEdge(pred, succ, weight));
+                            expected.insertEdge(pred, succ, weight);
+                        } else {
+                            assertFalse(graph.insertEdge(pred, succ, 1.0));
+                        }
+                }
+            }
+            assertEquals(expected.getNodeCount(), graph.getNodeCount(), "Node counts differ");
+            assertEquals(expected.getEdgeCount(), graph.getEdgeCount(), "Edge counts differ");
+            List<String> nodes = expected.getAllNodes();
+            assertEquals(new HashSet<>(nodes), new HashSet<>(graph.getAllNodes()));
+            for (int i = 0; i < 30 && !nodes.isEmpty(); i++) {
+                String start = nodes.get(random.nextInt(nodes.size()));
+                String end = nodes.get(random.nextInt(nodes.size()));
+                assertEquals(expected.containsEdge(start, end), graph.containsEdge(start, end));
+                if (expected.pathExists(start, end)) {
+                    assertEquals(expected.shortestPathCost(start, end),
+                            graph.shortestPathCost(start, end), 1e-9, "Costs differ");
+                    List<String> path = graph.shortestPathData(start, end);
+                    double cost = 0.0;
+                    for (int j = 1; j < path.size(); j++) {
+                        cost += graph.getEdge(path.get(j - 1), path.get(j));
+                    }
+                    assertEquals(expected.shortestPathCost(start, end), cost, 1e-9);
+                } else {
+                    assertThrows(NoSuchElementException.class,
+                            () -> graph.shortestPathCost(start, end));
+                }
+                MapADT<String, Double> reachable = graph.reachableWithin(start, 15.0);
+                MapADT<String, Double> expectedReachable = expected.reachableWithin(start, 15.0);
+                assertEquals(expectedReachable.getSize(), reachable.getSize());
+                for (String node : expectedReachable.getKeys()) {
+                    assertEquals(expectedReachable.get(node), reachable.get(node), 1e-9);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that the backend gives the same answers on campus.dot with an OffHeapGraph as with
+     * a DijkstraGraph, including reloading the file into the same graph.
+     */
+    @Test
+    public void testBackendOnCampus() throws IOException {
+        OffHeapGraph graph = new OffHeapGraph();
+        Backend backend = new Backend(graph);
+        backend.loadGraphData("campus.dot");
+        backend.loadGraphData("campus.dot");
+        Backend expected = new Backend(new DijkstraGraph<>());
+        expected.loadGraphData("campus.dot");
+
+        assertEquals(new HashSet<>(expected.getListOfAllLocations()),
+                new HashSet<>(backend.getListOfAllLocations()));
+        assertEquals(expected.getGraphDiameter(), backend.getGraphDiameter(), 1e-9);
+        assertEquals(expected.getGraphRadius(), backend.getGraphRadius(), 1e-9);
+        List<String> locations = expected.getListOfAllLocations();
+        for (int i = 0; i < locations.size(); i += 9) {
+            String start = locations.get(i);
+            String end = locations.get((i * 17 + 3) % locations.size());
+            double expectedTime = expected.findTimesOnShortestPath(start, end).stream()
+                    .mapToDouble(Double::doubleValue).sum();
+            double time = backend.findTimesOnShortestPath(start, end).stream()
+                    .mapToDouble(Double::doubleValue).sum();
+            assertEquals(expectedTime, time, 1e-9, "Times from " + start + " differ");
+            assertEquals(expected.findTimesWithinTime(start, 200.0),
+                    backend.findTimesWithinTime(start, 200.0));
+        }
+    }
+
+    /**
+     * Tests removing names from the middle of a run in the name table. A graph made for 16
+     * nodes has 32 slots, and the names are picked so that several share a home slot and the
+     * next two home slots are taken by names pushed along the same run. Removing a name must
+     * move the later ones back so that every remaining name, and its edges, can still be found.
+     */
+    @Test
+    public void testRemoveSlotShiftsRun() {
+        OffHeapGraph graph = new OffHeapGraph(16, 64);
+        List<String> names = new ArrayList<>();
+        for (int home = 5; home <= 7; home++) {
+            int wanted = home == 5 ? 5 : 2;
+            for (int i = 0; wanted > 0; i++) {
+                String name = "node " + i;
+                if ((OffHeapGraph.spread(name.hashCode()) & 31) == home && !names.contains(name)) {
+                    names.add(name);
+                    wanted--;
+                }
+            }
+        }
+        for (String name : names) {
+            assertTrue(graph.insertNode(name));
+        }
+        for (int i = 0; i + 1 < names.size(); i++) {
+            assertTrue(graph.insertEdge(names.get(i), names.get(i + 1), i + 1.0));
+        }
+
+        // the second name of the first run, then the first, then one pushed from slot 6
+        for (int removed : new int[] {1, 0, 5}) {
+            String name = names.get(removed);
+            assertTrue(graph.removeNode(name));
+            assertFalse(graph.containsNode(name), "Removed name is still found");
+            assertFalse(graph.removeNode(name));
+            for (String other : names) {
+                if (graph.getAllNodes().contains(other)) {
+                    assertTrue(graph.containsNode(other), other + " is lost after a removal");
+                    assertFalse(graph.insertNode(other), other + " was inserted twice");
+                }
+            }
+        }
+        assertEquals(names.size() - 3, graph.getNodeCount());
+        assertEquals(Double.valueOf(3.0), graph.getEdge(names.get(2), names.get(3)));
+        assertEquals(3.0 + 4.0, graph.shortestPathCost(names.get(2), names.get(4)), 1e-9);
+        assertFalse(graph.containsEdge(names.get(4), names.get(5)));
+        assertTrue(graph.insertNode(names.get(0)), "Removed name could not be inserted again");
+        assertTrue(graph.containsNode(names.get(0)));
+        assertEquals(names.size() - 2, new HashSet<>(graph.getAllNodes()).size());
+    }
+
+    /**
+     * Tests that the records of removed nodes and edges are reused by the next insertions, so
+     * that a graph kept at the same size never grows its buffers, and that a reused record keeps
+     * nothing of the node or edge it held before.
+     */
+    @Test
+    public void testFreeListsReuseRecords() {
+        OffHeapGraph graph = new OffHeapGraph(4, 8);
+        for (String node : List.of("A", "B", "C", "D")) {
+            graph.insertNode(node);
+        }
+        String[][] edges = {{"A", "B"}, {"B", "A"}, {"B", "C"}, {"C", "D"}, {"D", "A"},
+            {"A", "C"}, {"C", "A"}, {"B", "D"}};
+        for (String[] edge : edges) {
+            assertTrue(graph.insertEdge(edge[0], edge[1], 1.0));
+        }
+        long bytes = graph.getOffHeapBytes();
+
+        for (int round = 0; round < 10; round++) {
+            // B has four edges; its record and theirs go on the free lists
+            assertTrue(graph.removeNode("B"));
+            assertEquals(4, graph.getEdgeCount());
+            assertTrue(graph.insertNode("E"));
+            assertFalse(graph.containsEdge("E", "A"), "Reused node record kept an old edge");
+            assertFalse(graph.containsEdge("A", "E"), "Reused node record kept an old edge");
+            assertTrue(graph.insertEdge("E", "D", 0.5));
+            assertTrue(graph.insertEdge("A", "E", 0.5));
+            assertEquals(6, graph.getEdgeCount());
+            assertEquals(1.0, graph.shortestPathCost("A", "D"), 1e-9);
+            assertEquals(List.of("A", "E", "D"), graph.shortestPathData("A", "D"));
+
+            assertTrue(graph.removeNode("E"));
+            assertTrue(graph.removeEdge("D", "A"));
+            assertFalse(graph.removeEdge("D", "A"));
+            assertTrue(graph.insertNode("B"));
+            for (String[] edge : edges) {
+                if (edge[0].equals("B") || edge[1].equals("B") || edge[0].equals("D")) {
+                    assertTrue(graph.insertEdge(edge[0], edge[1], 1.0));
+                }
+            }
+            assertEquals(8, graph.getEdgeCount());
+            assertEquals(new HashSet<>(List.of("A", "B", "C", "D")),
+                    new HashSet<>(graph.getAllNodes()));
+            assertEquals(Double.valueOf(1.0), graph.getEdge("D", "A"));
+            assertEquals(List.of("B", "D"), graph.shortestPathData("B", "D"));
+        }
+        assertEquals(bytes, graph.getOffHeapBytes(), "Buffers grew instead of reusing records");
+    }
+
+    /**
+     * Tests that the name pool is compacted once more than 4 KB of it belongs to removed
+     * nodes, and that every remaining name, its edges, and names inserted afterwards are found.
+     */
+    @Test
+    public void testCompactNamePool() {
+        OffHeapGraph graph = new OffHeapGraph();
+        int count = 300;
+        for (int i = 0; i < count; i++) {
+            graph.insertNode(String.format("compacted location %03d", i));
+        }
+        for (int i = 0; i + 3 < count; i += 3) {
+            graph.insertEdge(String.format("compacted location %03d", i),
+                    String.format("compacted location %03d", i + 3), 1.0);
+            graph.insertEdge(String.format("compacted location %03d", i),
+                    String.format("compacted location %03d", i + 1), 1.0);
+        }
+        long bytes = graph.getOffHeapBytes();
+        // 200 names of 22 bytes each are 4400 dead bytes, two thirds of the pool
+        for (int i = 0; i < count; i++) {
+            if (i % 3 != 0) {
+                assertTrue(graph.removeNode(String.format("compacted location %03d", i)));
+            }
+        }
+        assertTrue(graph.getOffHeapBytes() < bytes, "Name pool was not compacted");
+
+        assertEquals(count / 3, graph.getNodeCount());
+        assertEquals(count / 3 - 1, graph.getEdgeCount());
+        for (int i = 0; i < count; i++) {
+            String name = String.format("compacted location %03d", i);
+            assertEquals(i % 3 == 0, graph.containsNode(name), name);
+        }
+        assertTrue(graph.getAllNodes().contains("compacted location 297"));
+        assertEquals(count / 3 - 1, graph.shortestPathCost("compacted location 000",
+                "compacted location 297"), 1e-9);
+
+        assertTrue(graph.insertNode("compacted location 001"));
+        assertTrue(graph.insertNode("a name added after compaction"));
+        assertTrue(graph.insertEdge("compacted location 297", "a name added after compaction",
+                1.0));
+        assertEquals(List.of("compacted location 294", "compacted location 297",
+                "a name added after compaction"), graph.shortestPathData("compacted location 294",
+                "a name added after compaction"));
+        assertTrue(graph.containsNode("compacted location 001"));
+    }
+}
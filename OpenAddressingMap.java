@@ -0,0 +1,445 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A MapADT that stores its pairs directly in arrays with open addressing, instead of chaining
+ * Pair objects in a LinkedList per index like HashtableMap. Keys, values and the hash of each key
+ * sit at the same index of three parallel arrays. A key is looked for at the index its hash
+ * points to and, when that slot holds another key, at the following slots in turn (linear
+ * probing) until it or an empty slot is found. Probing reads neighboring slots of the same
+ * arrays, so a lookup touches a cache line or two and allocates nothing.
+ * <p>
+ * The capacity is always a power of two, so the home slot of a hash is found by masking off its
+ * low bits rather than with Math.abs(hashCode) % capacity, which is slower and breaks for a
+ * hashCode of Integer.MIN_VALUE (whose absolute value is negative). Hashes are spread first so
+ * that keys differing only in high bits, like consecutive multiples of the capacity, do not
+ * collide. Each slot caches its key's hash, so probing compares hashes before calling equals,
+ * and growing the table never calls hashCode again. The table doubles once it is 3/4 full, and
+ * removal shifts later entries of the same run back rather than leaving markers behind, so
+ * lookups never probe past deleted slots.
+ * <p>
+ * The number of pairs is kept in a counter, so getSize takes constant time, and putIfAbsent and
+ * computeIfAbsent find a key's slot only once.
+ * <p>
+ * Cursors and key Spliterators scan the slots of the arrays in order, skipping empty ones.
+ * A Spliterator splits by halving its range of slots, so a parallel stream of the keys divides
+ * the arrays between threads without copying them.
+ */
+public class OpenAddressingMap<KeyType, ValueType> implements MapADT<KeyType, ValueType> {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    // keys[i] is null for empty slots; hashes[i] caches spread(keys[i].hashCode())
+    private Object[] keys;
+    private Object[] values;
+    private int[] hashes;
+    private int size = 0;
+    // the table grows when size would exceed this
+    private int threshold;
+
+    /**
+     * Creates an empty map with the default capacity of 64.
+     */
+    public OpenAddressingMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty map with room for the provided number of slots, rounded up to a power of
+     * two.
+     *
+     * @param capacity the smallest number of slots to start with
+     */
+    public OpenAddressingMap(int capacity) {
+        this.allocate(Integer.highestOneBit(Math.max(4, capacity) * 2 - 1));
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new Object[capacity];
+        this.values = new Object[capacity];
+        this.hashes = new int[capacity];
+        this.threshold = capacity - (capacity >>> 2);
+    }
+
+    /**
+     * Mixes the high bits of a hash code into the low bits that select the home slot.
+     */
+    private static int spread(int hashCode) {
+        int hash = hashCode * 0x9E3779B9; // the golden ratio, as in Fibonacci hashing
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Returns the slot that holds key, or -(slot + 1) for the empty slot where key would go.
+     */
+    private int findSlot(Object key, int hash) {
+        int mask = this.keys.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            Object current = this.keys[slot];
+            if (current == null) {
+                return -(slot + 1);
+            }
+            if (this.hashes[slot] == hash && (current == key || current.equals(key))) {
+                return slot;
+            }
+        }
+    }
+
+    private int hashOf(KeyType key) {
+        if (key == null) {
+            throw new NullPointerException("null keys not allowed");
+        }
+        return spread(key.hashCode());
+    }
+
+    /**
+     * Stores a new pair in the empty slot returned by findSlot, growing the table when needed.
+     */
+    private void insertAt(int emptySlot, Object key, int hash, Object value) {
+        this.keys[emptySlot] = key;
+        this.values[emptySlot] = value;
+        this.hashes[emptySlot] = hash;
+        if (++this.size > this.threshold) {
+            this.grow();
+        }
+    }
+
+    /**
+     * Doubles the capacity, moving every pair to its slot in the larger table by its cached hash.
+     */
+    private void grow() {
+        Object[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+        int[] oldHashes = this.hashes;
+        this.allocate(oldKeys.length * 2);
+        int mask = this.keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = oldHashes[i] & mask;
+                while (this.keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+                this.hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    /**
+     * Adds a new key,value pair/mapping to this collection.
+     *
+     * @param key   the key of the key,value pair
+     * @param value the value that key maps to
+     * @throws IllegalArgumentException if key already maps to a value
+     * @throws NullPointerException     if key is null
+     */
+    @Override
+    public void put(KeyType key, ValueType value) throws IllegalArgumentException {
+        int hash = this.hashOf(key);
+        int slot = this.findSlot(key, hash);
+        if (slot >= 0) {
+            throw new IllegalArgumentException("key " + key.toString() + " already present in the" +
+                    " map");
+        }
+        this.insertAt(-slot - 1, key, hash, value);
+    }
+
+    /**
+     * Adds a new key,value pair/mapping to this collection, unless key already maps to a value,
+     * with a single probe for the key's slot.
+     *
+     * @param key   the key of the key,value pair
+     * @param value the value that key maps to
+     * @return true if the pair was added, and false if key already mapped to a value
+     * @throws NullPointerException if key is null
+     */
+    @Override
+    public boolean putIfAbsent(KeyType key, ValueType value) {
+        int hash = this.hashOf(key);
+        int slot = this.findSlot(key, hash);
+        if (slot >= 0) {
+            return false;
+        }
+        this.insertAt(-slot - 1, key, hash, value);
+        return true;
+    }
+
+    /**
+     * Retrieves the value that a key maps to, first mapping the key to a value computed from it
+     * when it doesn't map to one yet, with a single probe for the key's slot.
+     *
+     * @param key             the key to look up
+     * @param mappingFunction computes the value for key when key is not stored yet; it must not
+     *                        modify this map
+     * @return the value that key maps to
+     * @throws NullPointerException if key is null
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public ValueType computeIfAbsent(KeyType key,
+            Function<? super KeyType, ? extends ValueType> mappingFunction) {
+        int hash = this.hashOf(key);
+        int slot = this.findSlot(key, hash);
+        if (slot >= 0) {
+            return (ValueType) this.values[slot];
+        }
+        ValueType value = mappingFunction.apply(key);
+        this.insertAt(-slot - 1, key, hash, value);
+        return value;
+    }
+
+    /**
+     * Checks whether a key maps to a value in this collection.
+     *
+     * @param key the key to check
+     * @return true if the key maps to a value, and false is the key doesn't map to a value
+     * @throws NullPointerException if key is null
+     */
+    @Override
+    public boolean containsKey(KeyType key) {
+        return this.findSlot(key, this.hashOf(key)) >= 0;
+    }
+
+    /**
+     * Retrieves the specific value that a key maps to.
+     *
+     * @param key the key to look up
+     * @return the value that key maps to
+     * @throws NoSuchElementException when key is not stored in this collection
+     * @throws NullPointerException   if key is null
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public ValueType get(KeyType key) throws NoSuchElementException {
+        int slot = this.findSlot(key, this.hashOf(key));
+        if (slot < 0) {
+            throw new NoSuchElementException("Key not present");
+        }
+        return (ValueType) this.values[slot];
+    }
+
+    /**
+     * Retrieves the value that a key maps to, or defaultValue when the key doesn't map to one,
+     * with a single probe for the key's slot.
+     *
+     * @param key          the key to look up
+     * @param defaultValue the value to return when key is not stored in this collection
+     * @return the value that key maps to, or defaultValue
+     * @throws NullPointerException if key is null
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public ValueType getOrDefault(KeyType key, ValueType defaultValue) {
+        int slot = this.findSlot(key, this.hashOf(key));
+        return slot < 0 ? defaultValue : (ValueType) this.values[slot];
+    }
+
+    /**
+     * Remove the mapping for a key from this collection. The entries after it in the same run of
+     * occupied slots move back when their home slot allows it, so that every remaining key can
+     * still be reached from its home slot without crossing an empty slot.
+     *
+     * @param key the key whose mapping to remove
+     * @return the value that the removed key mapped to
+     * @throws NoSuchElementException when key is not stored in this collection
+     * @throws NullPointerException   if key is null
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public ValueType remove(KeyType key) throws NoSuchElementException {
+        int slot = this.findSlot(key, this.hashOf(key));
+        if (slot < 0) {
+            throw new NoSuchElementException("key not in table");
+        }
+        ValueType removed = (ValueType) this.values[slot];
+        int mask = this.keys.length - 1;
+        int gap = slot;
+        for (int next = (gap + 1) & mask; this.keys[next] != null; next = (next + 1) & mask) {
+            // the entry at next may fill the gap unless its home slot lies after the gap (in
+            // probe order), in which case moving it would put it before its home
+            int home = this.hashes[next] & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                this.keys[gap] = this.keys[next];
+                this.values[gap] = this.values[next];
+                this.hashes[gap] = this.hashes[next];
+                gap = next;
+            }
+        }
+        this.keys[gap] = null;
+        this.values[gap] = null;
+        this.size--;
+        return removed;
+    }
+
+    /**
+     * Removes all key,value pairs from this collection.
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(this.keys, null);
+        Arrays.fill(this.values, null);
+        this.size = 0;
+    }
+
+    /**
+     * Returns a new, empty map with as many slots as this one.
+     *
+     * @return the empty map
+     */
+    @Override
+    public MapADT<KeyType, ValueType> emptyCopy() {
+        return new OpenAddressingMap<>(this.keys.length);
+    }
+
+    /**
+     * Retrieves the number of keys stored in this collection.
+     *
+     * @return the number of keys stored in this collection
+     */
+    @Override
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Retrieves this collection's capacity.
+     *
+     * @return the number of slots in the underlying arrays for this collection
+     */
+    @Override
+    public int getCapacity() {
+        return this.keys.length;
+    }
+
+    /**
+     * Retrieves this collection's keys.
+     *
+     * @return a list of keys in the order of their slots in the underlying arrays
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<KeyType> getKeys() {
+        List<KeyType> keyList = new ArrayList<>(this.size);
+        for (Object key : this.keys) {
+            if (key != null) {
+                keyList.add((KeyType) key);
+            }
+        }
+        return keyList;
+    }
+
+    /**
+     * Returns a cursor that scans the slots of the underlying arrays in order.
+     *
+     * @return a cursor positioned before the first pair
+     */
+    @Override
+    public Cursor<KeyType, ValueType> cursor() {
+        Object[] keys = this.keys;
+        Object[] values = this.values;
+        return new Cursor<>() {
+            private int slot = -1;
+
+            public boolean advance() {
+                while (this.slot < keys.length - 1) {
+                    if (keys[++this.slot] != null) {
+                        return true;
+                    }
+                }
+                this.slot = keys.length;
+                return false;
+            }
+
+            @SuppressWarnings("unchecked")
+            public KeyType key() {
+                return (KeyType) keys[this.slot];
+            }
+
+            @SuppressWarnings("unchecked")
+            public ValueType value() {
+                return (ValueType) values[this.slot];
+            }
+        };
+    }
+
+    /**
+     * Returns a Spliterator over the keys in the slots of the underlying arrays, which splits
+     * off the first half of its remaining slots at a time.
+     *
+     * @return a Spliterator over this collection's keys
+     */
+    @Override
+    public Spliterator<KeyType> keySpliterator() {
+        return new KeySpliterator<>(this.keys, 0, this.keys.length, this.size);
+    }
+
+    /**
+     * The keys in keys[index .. end), of which there are about estimate.
+     */
+    private static class KeySpliterator<KeyType> implements Spliterator<KeyType> {
+        private final Object[] keys;
+        private int index;
+        private final int end;
+        private long estimate;
+
+        KeySpliterator(Object[] keys, int index, int end, long estimate) {
+            this.keys = keys;
+            this.index = index;
+            this.end = end;
+            this.estimate = estimate;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super KeyType> action) {
+            while (this.index < this.end) {
+                Object key = this.keys[this.index++];
+                if (key != null) {
+                    action.accept((KeyType) key);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super KeyType> action) {
+            for (; this.index < this.end; this.index++) {
+                Object key = this.keys[this.index];
+                if (key != null) {
+                    action.accept((KeyType) key);
+                }
+            }
+        }
+
+        @Override
+        public Spliterator<KeyType> trySplit() {
+            int middle = (this.index + this.end) >>> 1;
+            if (middle <= this.index) {
+                return null;
+            }
+            // the keys are spread evenly over the slots, so each half holds about half of them
+            Spliterator<KeyType> prefix =
+                    new KeySpliterator<>(this.keys, this.index, middle, this.estimate >>>= 1);
+            this.index = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return this.estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpenAddressingMapTests {
+
+    /**
+     * A key whose hash code is chosen by the test, so that keys can be made to collide.
+     */
+    private static class FixedHashKey {
+        final int id;
+        final int hash;
+
+        FixedHashKey(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof FixedHashKey && ((FixedHashKey) other).id == this.id;
+        }
+    }
+
+    /**
+     * Tests put, get, containsKey and getSize, including the exceptions for duplicate, missing
+     * and null keys, and that the table grows while keeping every pair.
+     */
+    @Test
+    public void testPutAndGet() {
+        OpenAddressingMap<Integer, String> map = new OpenAddressingMap<>(4);
+        for (int i = 0; i < 1000; i++) {
+            map.put(i * 64, "value" + i);
+            assertEquals(i + 1, map.getSize(), "Size didn't match");
+        }
+        assertTrue(map.getCapacity() >= 1000 * 4 / 3, "Table didn't grow");
+        assertEquals(Integer.bitCount(map.getCapacity()), 1, "Capacity must be a power of two");
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("value" + i, map.get(i * 64), "Value didn't match");
+            assertTrue(map.containsKey(i * 64));
+            assertFalse(map.containsKey(i * 64 + 1));
+        }
+        assertEquals(1000, map.getKeys().size());
+        assertThrows(IllegalArgumentException.class, () -> map.put(64, "duplicate"),
+                "Duplicate key didn't throw exception");
+        assertThrows(NoSuchElementException.class, () -> map.get(1),
+                "Missing key didn't throw exception");
+        assertThrows(NullPointerException.class, () -> map.put(null, "null"),
+                "Null key didn't throw exception");
+        MapADT<Integer, String> empty = map.emptyCopy();
+        assertEquals(0, empty.getSize());
+        assertEquals(map.getCapacity(), empty.getCapacity(), "Copy has a different capacity");
+        assertEquals(1000, map.getSize(), "Copy emptied the original map");
+        map.clear();
+        assertEquals(0, map.getSize());
+        assertFalse(map.containsKey(0));
+    }
+
+    /**
+     * Tests keys whose hash code is Integer.MIN_VALUE, which Math.abs(hashCode) % capacity turns
+     * into a negative index.
+     */
+    @Test
+    public void testMinValueHashCode() {
+        OpenAddressingMap<FixedHashKey, String> map = new OpenAddressingMap<>();
+        FixedHashKey first = new FixedHashKey(1, Integer.MIN_VALUE);
+        FixedHashKey second = new FixedHashKey(2, Integer.MIN_VALUE);
+        map.put(first, "first");
+        map.put(second, "second");
+        assertEquals("first", map.get(first));
+        assertEquals("second", map.get(second));
+        assertEquals("first", map.remove(new FixedHashKey(1, Integer.MIN_VALUE)));
+        assertEquals("second", map.get(second));
+    }
+
+    /**
+     * Tests putIfAbsent and computeIfAbsent: both leave existing pairs alone, and
+     * computeIfAbsent only calls its function for missing keys.
+     */
+    @Test
+    public void testCompoundOperations() {
+        OpenAddressingMap<String, Integer> map = new OpenAddressingMap<>();
+        assertTrue(map.putIfAbsent("a", 1), "Missing key wasn't added");
+        assertFalse(map.putIfAbsent("a", 2), "Existing key was replaced");
+        assertEquals(1, map.get("a"));
+        int[] calls = {0};
+        assertEquals(1, map.computeIfAbsent("a", key -> ++calls[0]));
+        assertEquals(0, calls[0], "Function was called for an existing key");
+        assertEquals(1, map.computeIfAbsent("b", key -> ++calls[0]));
+        assertEquals(1, map.get("b"));
+        assertEquals(2, map.getSize());
+        assertThrows(NullPointerException.class, () -> map.putIfAbsent(null, 3));
+    }
+
+    /**
+     * Compares the map with java.util.HashMap over random puts and removes of keys that fall
+     * into only a few home slots, so that removal has to shift long runs of colliding keys.
+     */
+    @Test
+    public void testRemoveKeepsCollidingKeysReachable() {
+        OpenAddressingMap<FixedHashKey, Integer> map = new OpenAddressingMap<>(16);
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(11);
+        for (int step = 0; step < 20000; step++) {
+            int id = random.nextInt(300);
+            FixedHashKey key = new FixedHashKey(id, id % 7);
+            if (random.nextBoolean()) {
+                assertEquals(!expected.containsKey(id), map.putIfAbsent(key, step));
+                expected.putIfAbsent(id, step);
+            } else if (expected.containsKey(id)) {
+                assertEquals(expected.remove(id), map.remove(key));
+            } else {
+                assertThrows(NoSuchElementException.class, () -> map.remove(key));
+            }
+            assertEquals(expected.size(), map.getSize(), "Size didn't match");
+        }
+        HashSet<Integer> ids = new HashSet<>();
+        for (FixedHashKey key : map.getKeys()) {
+            ids.add(key.id);
+            assertEquals(expected.get(key.id), map.get(key), "Value didn't match");
+        }
+        assertEquals(expected.keySet(), ids);
+    }
+
+    /**
+     * Collects the keys of a Spliterator after splitting it and its halves as far as they go,
+     * failing if any key is seen twice.
+     */
+    private static <T> HashSet<T> splitAndCollect(Spliterator<T> keys) {
+        HashSet<T> seen = new HashSet<>();
+        Spliterator<T> prefix = keys.trySplit();
+        if (prefix != null) {
+            for (T key : splitAndCollect(prefix)) {
+                assertTrue(seen.add(key), "Key in both halves of a split: " + key);
+            }
+            for (T key : splitAndCollect(keys)) {
+                assertTrue(seen.add(key), "Key in both halves of a split: " + key);
+            }
+        } else {
+            keys.forEachRemaining(key -> assertTrue(seen.add(key), "Key seen twice: " + key));
+        }
+        return seen;
+    }
+
+    /**
+     * Tests that a cursor visits every pair once with its value, and that the key Spliterator
+     * splits into parts that together hold every key once, also in a parallel stream.
+     */
+    @Test
+    public void testCursorAndSpliterator() {
+        OpenAddressingMap<Integer, Integer> map = new OpenAddressingMap<>(4);
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        assertFalse(map.cursor().advance(), "Cursor of an empty map found a pair");
+        for (int key = 0; key < 3000; key += 3) {
+            map.put(key, -key);
+            expected.put(key, -key);
+        }
+        for (int key = 0; key < 3000; key += 9) {
+            map.remove(key);
+            expected.remove(key);
+        }
+        HashMap<Integer, Integer> visited = new HashMap<>();
+        for (MapADT.Cursor<Integer, Integer> cursor = map.cursor(); cursor.advance(); ) {
+            assertNull(visited.put(cursor.key(), cursor.value()), "Pair visited twice");
+        }
+        assertEquals(expected, visited);
+        assertEquals(expected.keySet(), splitAndCollect(map.keySpliterator()));
+        List<Integer> streamed = map.keyStream(true).collect(Collectors.toList());
+        assertEquals(expected.size(), streamed.size());
+        assertEquals(expected.keySet(), new HashSet<>(streamed));
+    }
+}
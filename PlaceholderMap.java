@@ -1,6 +1,9 @@
+import java.util.Iterator;
 import java.util.List;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
 
 /**
  * Implements MapADT using an instance of java.util.HashMap.
@@ -66,6 +69,32 @@ public class PlaceholderMap<KeyType, ValueType> implements MapADT<KeyType, Value
         throw new UnsupportedOperationException("PlaceholderMap does not support the .getKeys() method");
     }
 
+    @Override
+    public Cursor<KeyType, ValueType> cursor() {
+        Iterator<Map.Entry<KeyType, ValueType>> entries = baseMap.entrySet().iterator();
+        return new Cursor<>() {
+            private Map.Entry<KeyType, ValueType> current = null;
+
+            public boolean advance() {
+                current = entries.hasNext() ? entries.next() : null;
+                return current != null;
+            }
+
+            public KeyType key() {
+                return current.getKey();
+            }
+
+            public ValueType value() {
+                return current.getValue();
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<KeyType> keySpliterator() {
+        return baseMap.keySet().spliterator();
+    }
+
 
 }
 
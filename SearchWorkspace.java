@@ -0,0 +1,234 @@
+import java.util.Arrays;
+
+/**
+ * A SearchWorkspace holds everything that a single run of Dijkstra's algorithm needs to remember
+ * about the nodes it explores: each node's tentative cost, its predecessor along the cheapest
+ * path found so far, whether it has been settled, and a binary heap of the nodes that are
+ * waiting to be settled. All of this lives in arrays indexed by node id that are reused from one
+ * search to the next, so that a search does not allocate a priority queue entry per relaxation
+ * or a map of visited nodes.
+ * <p>
+ * Instead of clearing the arrays before every search, each search gets a new generation number.
+ * An entry only counts as filled in when the generation stored next to it is the current one,
+ * so starting a new search takes constant time no matter how many nodes the last one touched.
+ * <p>
+ * A workspace must only be used by one search at a time. DijkstraGraph keeps one per thread.
+ */
+public class SearchWorkspace<NodeType, EdgeType extends Number> {
+
+    private int generation = 0;
+    // reachedIn[id] == generation when the node has a tentative cost in the current search, and
+    // settledIn[id] == generation when that cost is final
+    private int[] reachedIn = new int[0];
+    private int[] settledIn = new int[0];
+    private double[] cost = new double[0];
+    private int[] predecessor = new int[0];
+    private Object[] nodeById = new Object[0];
+
+    // binary min-heap of node ids ordered by cost, where heapPosition[id] is the index of id in
+    // heap while it is waiting to be settled
+    private int[] heap = new int[0];
+    private int[] heapPosition = new int[0];
+    private int heapSize = 0;
+    private int lastSettled = -1;
+
+    /**
+     * Prepares this workspace for a new search over nodes with ids below idBound. The arrays
+     * only grow (and allocate) when idBound is larger than in any earlier search.
+     *
+     * @param idBound one more than the largest node id the search may encounter
+     */
+    public void reset(int idBound) {
+        if (idBound > this.reachedIn.length) {
+            int capacity = Math.max(idBound, this.reachedIn.length * 2);
+            this.reachedIn = Arrays.copyOf(this.reachedIn, capacity);
+            this.settledIn = Arrays.copyOf(this.settledIn, capacity);
+            this.cost = Arrays.copyOf(this.cost, capacity);
+            this.predecessor = Arrays.copyOf(this.predecessor, capacity);
+            this.nodeById = Arrays.copyOf(this.nodeById, capacity);
+            this.heap = Arrays.copyOf(this.heap, capacity);
+            this.heapPosition = Arrays.copyOf(this.heapPosition, capacity);
+        }
+        if (this.generation == Integer.MAX_VALUE) {
+            // after about two billion searches, old stamps could be mistaken for new ones
+            Arrays.fill(this.reachedIn, 0);
+            Arrays.fill(this.settledIn, 0);
+            this.generation = 0;
+        }
+        this.generation++;
+        this.heapSize = 0;
+        this.lastSettled = -1;
+        // nodeById keeps referring to the previous search's nodes until their ids are reached
+        // again, but entries are only read for ids reached in the current search
+    }
+
+    /**
+     * Lowers the tentative cost of a node to cost through predecessor, when that is cheaper than
+     * the node's current tentative cost. Nodes reached for the first time are added to the heap.
+     *
+     * @param node        the node that was reached
+     * @param cost        the cost of the path that reached it
+     * @param predecessor the id of the previous node on that path, or -1 for the start node
+     * @return true when the node's tentative cost was lowered (or set for the first time)
+     */
+    public boolean offer(BaseGraph<NodeType, EdgeType>.Node node, double cost, int predecessor) {
+        this.nodeById[node.id] = node;
+        return this.offer(node.id, cost, predecessor);
+    }
+
+    /**
+     * Same as offer(node, cost, predecessor), for graphs that have no Node objects (such as
+     * OffHeapGraph). nodeOf must not be called for nodes that were only offered by id.
+     *
+     * @param id          the id of the node that was reached
+     * @param cost        the cost of the path that reached it
+     * @param predecessor the id of the previous node on that path, or -1 for the start node
+     * @return true when the node's tentative cost was lowered (or set for the first time)
+     */
+    public boolean offer(int id, double cost, int predecessor) {
+        if (this.reachedIn[id] != this.generation) {
+            this.reachedIn[id] = this.generation;
+            this.cost[id] = cost;
+            this.predecessor[id] = predecessor;
+            this.heap[this.heapSize] = id;
+            this.heapPosition[id] = this.heapSize;
+            this.siftUp(this.heapSize++);
+            return true;
+        } else if (cost < this.cost[id] && this.settledIn[id] != this.generation) {
+            this.cost[id] = cost;
+            this.predecessor[id] = predecessor;
+            this.siftUp(this.heapPosition[id]);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether any node is still waiting to be settled.
+     *
+     * @return true when the heap is empty
+     */
+    public boolean isEmpty() {
+        return this.heapSize == 0;
+    }
+
+    /**
+     * Returns the lowest tentative cost of any node that is still waiting to be settled.
+     *
+     * @return the cost of the node that settleNext would return
+     */
+    public double peekCost() {
+        return this.cost[this.heap[0]];
+    }
+
+    /**
+     * Removes the node with the lowest tentative cost from the heap and marks it as settled.
+     *
+     * @return the id of the settled node
+     */
+    public int settleNext() {
+        int id = this.heap[0];
+        this.heapSize--;
+        if (this.heapSize > 0) {
+            this.heap[0] = this.heap[this.heapSize];
+            this.heapPosition[this.heap[0]] = 0;
+            this.siftDown(0);
+        }
+        this.settledIn[id] = this.generation;
+        this.lastSettled = id;
+        return id;
+    }
+
+    /**
+     * Returns the node that was settled most recently in the current search.
+     *
+     * @return the id of the last settled node, or -1 when no node was settled yet
+     */
+    public int lastSettled() {
+        return this.lastSettled;
+    }
+
+    /**
+     * Checks whether a node was settled in the current search.
+     *
+     * @param id the node's id
+     * @return true when the node's cost is final
+     */
+    public boolean isSettled(int id) {
+        return this.settledIn[id] == this.generation;
+    }
+
+    /**
+     * Returns the tentative (or, once settled, final) cost of a node reached in this search.
+     *
+     * @param id the node's id
+     * @return the cost of the cheapest path found to the node
+     */
+    public double costOf(int id) {
+        return this.cost[id];
+    }
+
+    /**
+     * Returns the id of the node before this one on the cheapest path found to it.
+     *
+     * @param id the node's id
+     * @return the predecessor's id, or -1 for the start node
+     */
+    public int predecessorOf(int id) {
+        return this.predecessor[id];
+    }
+
+    /**
+     * Returns the node with the provided id, which must have been reached in this search.
+     *
+     * @param id the node's id
+     * @return the node
+     */
+    @SuppressWarnings("unchecked")
+    public BaseGraph<NodeType, EdgeType>.Node nodeOf(int id) {
+        return (BaseGraph<NodeType, EdgeType>.Node) this.nodeById[id];
+    }
+
+    /**
+     * Moves the heap entry at index up until its parent is no more expensive.
+     */
+    private void siftUp(int index) {
+        int id = this.heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (this.cost[this.heap[parent]] <= this.cost[id]) {
+                break;
+            }
+            this.heap[index] = this.heap[parent];
+            this.heapPosition[this.heap[index]] = index;
+            index = parent;
+        }
+        this.heap[index] = id;
+        this.heapPosition[id] = index;
+    }
+
+    /**
+     * Moves the heap entry at index down until neither child is cheaper.
+     */
+    private void siftDown(int index) {
+        int id = this.heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= this.heapSize) {
+                break;
+            }
+            if (child + 1 < this.heapSize && this.cost[this.heap[child + 1]] <
+                    this.cost[this.heap[child]]) {
+                child++;
+            }
+            if (this.cost[this.heap[child]] >= this.cost[id]) {
+                break;
+            }
+            this.heap[index] = this.heap[child];
+            this.heapPosition[this.heap[index]] = index;
+            index = child;
+        }
+        this.heap[index] = id;
+        this.heapPosition[id] = index;
+    }
+}
@@ -0,0 +1,323 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class orders the stops of a tour so that the total cost of visiting all of them is as low
+ * as possible. It works on a matrix of precomputed costs, where index 0 is the starting point of
+ * the tour and every other index is a stop, so it knows nothing about the graph those costs came
+ * from. Costs may be asymmetric (the cost from i to j can differ from the cost from j to i), and
+ * Double.POSITIVE_INFINITY marks a pair without a path.
+ * <p>
+ * Tours with at most EXACT_STOP_LIMIT stops are solved exactly with the Held-Karp dynamic
+ * program. Larger tours start from a nearest-neighbor ordering that is then improved by 2-opt
+ * (reverse a segment of the tour) and Or-opt (move a run of one to three stops elsewhere) until
+ * neither move finds an improvement.
+ */
+public class TourOptimizer {
+
+    // Held-Karp takes O(2^n * n^2) time and O(2^n * n) space for n stops
+    public static final int EXACT_STOP_LIMIT = 12;
+
+    /**
+     * Returns the visiting order with the lowest total cost that could be found. The returned
+     * array always starts with 0 (the start of the tour) followed by every stop index exactly
+     * once.
+     *
+     * @param costs         square matrix of costs between the start (index 0) and the stops
+     * @param returnToStart true when the tour must end back at the start after the last stop
+     * @return the indices of the start and stops in visiting order
+     * @throws NoSuchElementException when no order can visit every stop
+     */
+    public static int[] optimizeOrder(double[][] costs, boolean returnToStart) {
+        int[] order = costs.length - 1 <= EXACT_STOP_LIMIT ? heldKarpOrder(costs, returnToStart)
+                : localSearchOrder(costs, returnToStart);
+        if (tourCost(costs, order, returnToStart) == Double.POSITIVE_INFINITY) {
+            throw new NoSuchElementException("No tour can visit every stop");
+        }
+        return order;
+    }
+
+    /**
+     * Returns the total cost of visiting the indices of order in sequence, including the leg
+     * back to order[0] when returnToStart is true.
+     */
+    public static double tourCost(double[][] costs, int[] order, boolean returnToStart) {
+        double total = 0.0;
+        for (int i = 1; i < order.length; i++) {
+            total += costs[order[i - 1]][order[i]];
+        }
+        if (returnToStart && order.length > 1) {
+            total += costs[order[order.length - 1]][order[0]];
+        }
+        return total;
+    }
+
+    /**
+     * Finds an optimal order with the Held-Karp dynamic program. best[subset][last] holds the
+     * cheapest cost of leaving the start, visiting exactly the stops in subset, and ending at
+     * stop last (stop k is bit k - 1 of subset).
+     */
+    static int[] heldKarpOrder(double[][] costs, boolean returnToStart) {
+        int stopCount = costs.length - 1;
+        if (stopCount == 0) {
+            return new int[] {0};
+        }
+        int subsets = 1 << stopCount;
+        double[][] best = new double[subsets][stopCount];
+        int[][] previous = new int[subsets][stopCount];
+        for (double[] row : best) {
+            Arrays.fill(row, Double.POSITIVE_INFINITY);
+        }
+        for (int last = 0; last < stopCount; last++) {
+            best[1 << last][last] = costs[0][last + 1];
+            previous[1 << last][last] = -1;
+        }
+
+        for (int subset = 1; subset < subsets; subset++) {
+            for (int last = 0; last < stopCount; last++) {
+                if ((subset & (1 << last)) == 0 || best[subset][last] ==
+                        Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                for (int next = 0; next < stopCount; next++) {
+                    if ((subset & (1 << next)) != 0) {
+                        continue;
+                    }
+                    int extended = subset | (1 << next);
+                    double cost = best[subset][last] + costs[last + 1][next + 1];
+                    if (cost < best[extended][next]) {
+                        best[extended][next] = cost;
+                        previous[extended][next] = last;
+                    }
+                }
+            }
+        }
+
+        // pick the cheapest final stop, then follow previous back to the start
+        int full = subsets - 1;
+        int last = 0;
+        double bestTotal = Double.POSITIVE_INFINITY;
+        for (int candidate = 0; candidate < stopCount; candidate++) {
+            double total = best[full][candidate] + (returnToStart ? costs[candidate + 1][0] : 0.0);
+            if (total < bestTotal) {
+                bestTotal = total;
+                last = candidate;
+            }
+        }
+        if (bestTotal == Double.POSITIVE_INFINITY) {
+            throw new NoSuchElementException("No tour can visit every stop");
+        }
+        int[] order = new int[costs.length];
+        int subset = full;
+        for (int position = stopCount; position > 0; position--) {
+            order[position] = last + 1;
+            int before = previous[subset][last];
+            subset &= ~(1 << last);
+            last = before;
+        }
+        return order;
+    }
+
+    /**
+     * Builds an order with the nearest-neighbor heuristic and improves it with 2-opt and Or-opt
+     * moves until a local optimum is reached.
+     */
+    static int[] localSearchOrder(double[][] costs, boolean returnToStart) {
+        int[] order = nearestNeighborOrder(costs);
+        double currentCost = tourCost(costs, order, returnToStart);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+
+            // 2-opt: reverse order[i..j]. Costs may be asymmetric, so the reversed segment's cost
+            // changes too and every candidate is priced as a whole
+            for (int i = 1; i < order.length - 1; i++) {
+                for (int j = i + 1; j < order.length; j++) {
+                    reverse(order, i, j);
+                    double candidateCost = tourCost(costs, order, returnToStart);
+                    if (candidateCost < currentCost - 1e-9) {
+                        currentCost = candidateCost;
+                        improved = true;
+                    } else {
+                        reverse(order, i, j);
+                    }
+                }
+            }
+
+            // Or-opt: move a run of 1 to 3 stops starting at order[i] to another position
+            for (int length = 1; length <= 3; length++) {
+                for (int i = 1; i + length <= order.length; i++) {
+                    for (int target = 1; target + length <= order.length; target++) {
+                        if (target == i) {
+                            continue;
+                        }
+                        int[] candidate = moveRun(order, i, length, target);
+                        double candidateCost = tourCost(costs, candidate, returnToStart);
+                        if (candidateCost < currentCost - 1e-9) {
+                            order = candidate;
+                            currentCost = candidateCost;
+                            improved = true;
+                        }
+                    }
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Starting from index 0, repeatedly visits the cheapest stop that has not been visited yet.
+     */
+    static int[] nearestNeighborOrder(double[][] costs) {
+        int[] order = new int[costs.length];
+        boolean[] visited = new boolean[costs.length];
+        visited[0] = true;
+        for (int position = 1; position < costs.length; position++) {
+            int current = order[position - 1];
+            int nearest = -1;
+            for (int candidate = 1; candidate < costs.length; candidate++) {
+                if (!visited[candidate] && (nearest == -1 ||
+                        costs[current][candidate] < costs[current][nearest])) {
+                    nearest = candidate;
+                }
+            }
+            order[position] = nearest;
+            visited[nearest] = true;
+        }
+        return order;
+    }
+
+    /**
+     * Reverses order[from..to] in place.
+     */
+    private static void reverse(int[] order, int from, int to) {
+        for (; from < to; from++, to--) {
+            int swap = order[from];
+            order[from] = order[to];
+            order[to] = swap;
+        }
+    }
+
+    /**
+     * Returns a copy of order where the run of length entries starting at from is removed and
+     * re-inserted so that it starts at position target of the result.
+     */
+    private static int[] moveRun(int[] order, int from, int length, int target) {
+        int[] rest = new int[order.length - length];
+        int size = 0;
+        for (int i = 0; i < order.length; i++) {
+            if (i < from || i >= from + length) {
+                rest[size++] = order[i];
+            }
+        }
+        int[] moved = new int[order.length];
+        System.arraycopy(rest, 0, moved, 0, target);
+        System.arraycopy(order, from, moved, target, length);
+        System.arraycopy(rest, target, moved, target + length, rest.length - target);
+        return moved;
+    }
+
+    /**
+     * Returns a random matrix of costs between points on a plane, where each direction gets a
+     * different random detour so that the costs are asymmetric.
+     */
+    private static double[][] randomCosts(int size, long seed) {
+        Random random = new Random(seed);
+        double[] x = new double[size];
+        double[] y = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = random.nextDouble() * 1000;
+            y[i] = random.nextDouble() * 1000;
+        }
+        double[][] costs = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (i != j) {
+                    costs[i][j] = Math.hypot(x[i] - x[j], y[i] - y[j]) *
+                            (1.0 + random.nextDouble() * 0.2);
+                }
+            }
+        }
+        return costs;
+    }
+
+    /**
+     * Returns the cheapest cost over every order of the stops, by trying all of them.
+     */
+    private static double bruteForceCost(double[][] costs, int[] order, int position,
+                                         boolean returnToStart) {
+        if (position == order.length) {
+            return tourCost(costs, order, returnToStart);
+        }
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = position; i < order.length; i++) {
+            int swap = order[position];
+            order[position] = order[i];
+            order[i] = swap;
+            best = Math.min(best, bruteForceCost(costs, order, position + 1, returnToStart));
+            order[i] = order[position];
+            order[position] = swap;
+        }
+        return best;
+    }
+
+    /**
+     * Tests that the Held-Karp order matches the cheapest order found by trying every permutation
+     * of 7 stops, both for open tours and for tours that return to the start.
+     */
+    @Test
+    public void testHeldKarpIsOptimal() {
+        double[][] costs = randomCosts(8, 400);
+        int[] identity = {0, 1, 2, 3, 4, 5, 6, 7};
+        for (boolean returnToStart : new boolean[] {false, true}) {
+            int[] order = TourOptimizer.optimizeOrder(costs, returnToStart);
+            assertEquals(0, order[0], "Tour must begin at the start");
+            assertEquals(bruteForceCost(costs, identity.clone(), 1, returnToStart),
+                    tourCost(costs, order, returnToStart), 1e-9, "Held-Karp order is not optimal");
+        }
+    }
+
+    /**
+     * Tests that the local search visits every stop exactly once, never does worse than the
+     * nearest-neighbor order it starts from, and lands close to the exact Held-Karp answer.
+     */
+    @Test
+    public void testLocalSearchQuality() {
+        double[][] costs = randomCosts(EXACT_STOP_LIMIT + 1, 29);
+        int[] order = localSearchOrder(costs, false);
+
+        int[] sorted = order.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            assertEquals(i, sorted[i], "Order must visit every stop exactly once");
+        }
+        assertEquals(0, order[0], "Tour must begin at the start");
+
+        double localCost = tourCost(costs, order, false);
+        assertTrue(localCost <= tourCost(costs, nearestNeighborOrder(costs), false),
+                "Local search made the nearest-neighbor tour worse");
+        double exactCost = tourCost(costs, heldKarpOrder(costs, false), false);
+        assertTrue(localCost <= exactCost * 1.10, "Local search tour costs " + localCost +
+                " which is more than 10% above the optimal " + exactCost);
+    }
+
+    /**
+     * Tests that a stop which cannot be reached from anywhere makes the tour impossible.
+     */
+    @Test
+    public void testUnreachableStop() {
+        double[][] costs = randomCosts(4, 7);
+        for (int i = 0; i < costs.length; i++) {
+            if (i != 2) {
+                costs[i][2] = Double.POSITIVE_INFINITY;
+            }
+        }
+        assertThrows(NoSuchElementException.class, () -> TourOptimizer.optimizeOrder(costs, false),
+                "Unreachable stop didn't throw exception");
+    }
+}
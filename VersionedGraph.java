@@ -0,0 +1,899 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A GraphADT that keeps every published state of the graph as an immutable version, so that
+ * searches never block on, and are never disturbed by, changes made while they run. BaseGraph
+ * changes the edge lists of its nodes in place, so a search running on another thread while an
+ * edge is inserted or a node removed can throw a ConcurrentModificationException or follow a
+ * half-removed edge. Here a search reads the current version once and works on it alone until
+ * it returns, however many versions are published in the meantime.
+ * <p>
+ * A version stores its nodes by id in chunks of CHUNK_SIZE immutable node entries, each holding
+ * the node's data, the targets and weights of its leaving edges and the sources of its entering
+ * edges. Writers work in a Transaction, which starts from the current version, copies a chunk
+ * the first time it changes a node in it, and replaces the entries of the nodes it changes.
+ * Everything else is shared with the version it started from, so a change costs a copy of the
+ * chunk directory, the touched chunks and the touched nodes' edge arrays, not of the graph.
+ * Committing publishes the new version with a single volatile write. Writers take turns through
+ * a lock, but readers never take it.
+ * <p>
+ * The mutators of GraphADT each run in a transaction of their own. Loading many nodes and edges
+ * that way copies the chunk directory for every change, so bulk changes should go through
+ * beginUpdate, and then become visible to readers all at once when the transaction commits.
+ * <p>
+ * Node ids come from a ConcurrentHashtableMap that each version refers to, which readers look
+ * up without locking. Versions share one map until the graph is cleared: a node's data keeps
+ * its id after the node is removed, so inserting it again reuses that id. Clearing starts a new
+ * map and hands out ids from 0 again, and only the versions from then on see it, so the names
+ * of earlier loads do not pile up in the map or push the ids of later ones ever higher. Within
+ * the versions that share a map, an id means the same data. An old version is reclaimed by the
+ * garbage collector once no Snapshot or running search refers to it; its chunks, entries and
+ * id map live on as long as newer versions still share them.
+ */
+public class VersionedGraph<NodeType> implements GraphADT<NodeType, Double> {
+
+    private static final int CHUNK_BITS = 6;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int[] NO_IDS = new int[0];
+    private static final double[] NO_WEIGHTS = new double[0];
+
+    /*
+     * A node in one or more versions. Entries are never modified once they are in a chunk:
+     * a transaction replaces the entry of each node whose edges it changes.
+     */
+    private static final class NodeEntry {
+        final Object data;
+        // the leaving edges go to targets[i] at a cost of weights[i]
+        final int[] targets;
+        final double[] weights;
+        // the ids of the nodes with an edge to this one
+        final int[] sources;
+
+        NodeEntry(Object data, int[] targets, double[] weights, int[] sources) {
+            this.data = data;
+            this.targets = targets;
+            this.weights = weights;
+            this.sources = sources;
+        }
+
+        NodeEntry withLeaving(int target, double weight) {
+            int index = indexOf(this.targets, target);
+            if (index >= 0) {
+                double[] weights = this.weights.clone();
+                weights[index] = weight;
+                return new NodeEntry(this.data, this.targets, weights, this.sources);
+            }
+            int[] targets = Arrays.copyOf(this.targets, this.targets.length + 1);
+            double[] weights = Arrays.copyOf(this.weights, this.weights.length + 1);
+            targets[this.targets.length] = target;
+            weights[this.weights.length] = weight;
+            return new NodeEntry(this.data, targets, weights, this.sources);
+        }
+
+        NodeEntry withoutLeaving(int target) {
+            int index = indexOf(this.targets, target);
+            int[] targets = new int[this.targets.length - 1];
+            double[] weights = new double[this.weights.length - 1];
+            System.arraycopy(this.targets, 0, targets, 0, index);
+            System.arraycopy(this.targets, index + 1, targets, index, targets.length - index);
+            System.arraycopy(this.weights, 0, weights, 0, index);
+            System.arraycopy(this.weights, index + 1, weights, index, weights.length - index);
+            return new NodeEntry(this.data, targets, weights, this.sources);
+        }
+
+        NodeEntry withSource(int source) {
+            int[] sources = Arrays.copyOf(this.sources, this.sources.length + 1);
+            sources[this.sources.length] = source;
+            return new NodeEntry(this.data, this.targets, this.weights, sources);
+        }
+
+        NodeEntry withoutSource(int source) {
+            int index = indexOf(this.sources, source);
+            int[] sources = new int[this.sources.length - 1];
+            System.arraycopy(this.sources, 0, sources, 0, index);
+            System.arraycopy(this.sources, index + 1, sources, index, sources.length - index);
+            return new NodeEntry(this.data, this.targets, this.weights, sources);
+        }
+
+        private static int indexOf(int[] ids, int id) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /*
+     * One published state of the graph. Nothing reachable from a version changes after it is
+     * published, except that later transactions add the ids of new data to its id map, which
+     * this version never finds an entry for.
+     */
+    private final class Version {
+        final long number;
+        final NodeEntry[][] chunks;
+        final int idBound;
+        final int nodeCount;
+        final int edgeCount;
+        // id of every node data inserted since the graph was last cleared
+        final ConcurrentHashtableMap<NodeType, Integer> ids;
+        // the next id to hand out for data that isn't in ids yet
+        final int nextId;
+
+        Version(long number, NodeEntry[][] chunks, int idBound, int nodeCount, int edgeCount,
+                ConcurrentHashtableMap<NodeType, Integer> ids, int nextId) {
+            this.number = number;
+            this.chunks = chunks;
+            this.idBound = idBound;
+            this.nodeCount = nodeCount;
+            this.edgeCount = edgeCount;
+            this.ids = ids;
+            this.nextId = nextId;
+        }
+    }
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Version current = new Version(0, new NodeEntry[0][], 0, 0, 0,
+            new ConcurrentHashtableMap<>(), 0);
+
+    private final ThreadLocal<SearchWorkspace<NodeType, Double>> searchWorkspaces =
+            ThreadLocal.withInitial(SearchWorkspace::new);
+
+    /**
+     * The read-only methods of GraphADT, over the nodes that entry returns. Each call to one of
+     * them sees a single state of the graph.
+     */
+    private abstract class Reader implements GraphADT<NodeType, Double> {
+
+        /**
+         * Returns the entry of the node with the provided id, or null if there is none.
+         */
+        abstract NodeEntry entry(int id);
+
+        abstract int idBound();
+
+        /**
+         * Returns the map from node data to ids that this view looks nodes up in.
+         */
+        abstract ConcurrentHashtableMap<NodeType, Integer> ids();
+
+        /**
+         * Returns the id of the node with the provided data, or -1 if there is none.
+         */
+        int idOf(NodeType data) {
+            if (data == null || !this.ids().containsKey(data)) {
+                return -1;
+            }
+            int id = this.ids().get(data);
+            return this.entry(id) == null ? -1 : id;
+        }
+
+        @SuppressWarnings("unchecked")
+        NodeType dataOf(int id) {
+            return (NodeType) this.entry(id).data;
+        }
+
+        /**
+         * Check whether the graph contains a node with the provided data.
+         *
+         * @param data the node contents to check for
+         * @return true if data item is stored in a node within the graph, or false otherwise
+         */
+        @Override
+        public boolean containsNode(NodeType data) {
+            return this.idOf(data) != -1;
+        }
+
+        /**
+         * Retrieves a list of all node data from this graph, in the order of their ids.
+         *
+         * @return list of all node data
+         */
+        @Override
+        public List<NodeType> getAllNodes() {
+            List<NodeType> nodes = new ArrayList<>(this.getNodeCount());
+            for (int id = 0; id < this.idBound(); id++) {
+                if (this.entry(id) != null) {
+                    nodes.add(this.dataOf(id));
+                }
+            }
+            return nodes;
+        }
+
+        /**
+         * Check if edge is in the graph.
+         *
+         * @param pred the data item contained in the source node for the edge
+         * @param succ the data item contained in the target node for the edge
+         * @return true if the edge is found in the graph, or false other
+         */
+        @Override
+        public boolean containsEdge(NodeType pred, NodeType succ) {
+            int predId = this.idOf(pred);
+            int succId = this.idOf(succ);
+            return predId != -1 && succId != -1 &&
+                    NodeEntry.indexOf(this.entry(predId).targets, succId) >= 0;
+        }
+
+        /**
+         * Return the data associated with a specific edge.
+         *
+         * @param pred the data item contained in the source node for the edge
+         * @param succ the data item contained in the target node for the edge
+         * @return the non-negative data from the edge between those nodes
+         * @throws NoSuchElementException if either node or the edge between them are not found
+         *                                within this graph
+         */
+        @Override
+        public Double getEdge(NodeType pred, NodeType succ) {
+            int predId = this.idOf(pred);
+            int succId = this.idOf(succ);
+            int index = predId == -1 || succId == -1 ? -1 :
+                    NodeEntry.indexOf(this.entry(predId).targets, succId);
+            if (index == -1) {
+                throw new NoSuchElementException("No edge from " + pred + " to " + succ);
+            }
+            return this.entry(predId).weights[index];
+        }
+
+        /**
+         * Runs Dijkstra's algorithm from start until end is settled, or until every node within
+         * budget is settled when end is -1.
+         */
+        private SearchWorkspace<NodeType, Double> search(int start, int end, double budget) {
+            SearchWorkspace<NodeType, Double> workspace = searchWorkspaces.get();
+            workspace.reset(this.idBound());
+            workspace.offer(start, 0.0, -1);
+            while (!workspace.isEmpty() && workspace.peekCost() <= budget) {
+                int current = workspace.settleNext();
+                if (current == end) {
+                    return workspace;
+                }
+                double cost = workspace.costOf(current);
+                NodeEntry entry = this.entry(current);
+                for (int i = 0; i < entry.targets.length; i++) {
+                    if (!workspace.isSettled(entry.targets[i])) {
+                        workspace.offer(entry.targets[i], cost + entry.weights[i], current);
+                    }
+                }
+            }
+            if (end != -1) {
+                throw new NoSuchElementException("Path doesn't exist between the given points");
+            }
+            return workspace;
+        }
+
+        private SearchWorkspace<NodeType, Double> searchShortestPath(NodeType start,
+                NodeType end) {
+            int startId = this.idOf(start);
+            if (startId == -1) {
+                throw new NoSuchElementException("Start node is not present in the graph");
+            }
+            int endId = this.idOf(end);
+            if (endId == -1) {
+                throw new NoSuchElementException("End node is not present in the graph");
+            }
+            return this.search(startId, endId, Double.POSITIVE_INFINITY);
+        }
+
+        /**
+         * Returns the list of data values from nodes along the shortest path from the node with
+         * the provided start value through the node with the provided end value.
+         *
+         * @param start the data item in the starting node for the path
+         * @param end   the data item in the destination node for the path
+         * @return list of data item from node along this shortest path
+         * @throws NoSuchElementException if either the start or end node cannot be found in the
+         *                                graph, or if there is no directed path from start to
+         *                                end
+         */
+        @Override
+        public List<NodeType> shortestPathData(NodeType start, NodeType end) {
+            SearchWorkspace<NodeType, Double> workspace = this.searchShortestPath(start, end);
+            List<NodeType> path = new ArrayList<>();
+            for (int id = workspace.lastSettled(); id != -1; id = workspace.predecessorOf(id)) {
+                path.add(this.dataOf(id));
+            }
+            Collections.reverse(path);
+            return path;
+        }
+
+        /**
+         * Returns the cost of the shortest path from the node containing the start data to the
+         * node containing the end data.
+         *
+         * @param start the data item in the starting node for the path
+         * @param end   the data item in the destination node for the path
+         * @return the cost of the shortest path between these nodes
+         * @throws NoSuchElementException if either the start or end node cannot be found in the
+         *                                graph, or if there is no directed path from start to
+         *                                end
+         */
+        @Override
+        public double shortestPathCost(NodeType start, NodeType end) {
+            SearchWorkspace<NodeType, Double> workspace = this.searchShortestPath(start, end);
+            return workspace.costOf(workspace.lastSettled());
+        }
+
+        /**
+         * Returns every node that can be reached from the start node with a total path cost no
+         * greater than the provided budget, mapped to the cost of reaching it.
+         *
+         * @param start  the data item in the starting node for the search
+         * @param budget the maximum total path cost for a node to be included
+         * @return a map from each reachable node's data to the cost of its shortest path from
+         *         start
+         * @throws NoSuchElementException   when start does not correspond to a graph node
+         * @throws IllegalArgumentException when budget is negative or NaN
+         */
+        @Override
+        public MapADT<NodeType, Double> reachableWithin(NodeType start, double budget) {
+            int startId = this.idOf(start);
+            if (startId == -1) {
+                throw new NoSuchElementException("Start node is not present in the graph");
+            }
+            if (!(budget >= 0.0)) {
+                throw new IllegalArgumentException("Budget must be a non-negative number");
+            }
+            SearchWorkspace<NodeType, Double> workspace = this.search(startId, -1, budget);
+            OpenAddressingMap<NodeType, Double> arrivalTimes = new OpenAddressingMap<>();
+            for (int id = 0; id < this.idBound(); id++) {
+                if (workspace.isSettled(id)) {
+                    arrivalTimes.put(this.dataOf(id), workspace.costOf(id));
+                }
+            }
+            return arrivalTimes;
+        }
+    }
+
+    /**
+     * A read-only view of one version of the graph, which stays the same however the graph
+     * changes afterwards. Several queries that must agree with each other should use the same
+     * snapshot. Every method that would change the graph throws an
+     * UnsupportedOperationException.
+     */
+    public class Snapshot extends Reader {
+        private final Version version;
+
+        private Snapshot(Version version) {
+            this.version = version;
+        }
+
+        @Override
+        NodeEntry entry(int id) {
+            return id < this.version.idBound ?
+                    this.version.chunks[id >>> CHUNK_BITS][id & (CHUNK_SIZE - 1)] : null;
+        }
+
+        @Override
+        int idBound() {
+            return this.version.idBound;
+        }
+
+        @Override
+        ConcurrentHashtableMap<NodeType, Integer> ids() {
+            return this.version.ids;
+        }
+
+        /**
+         * Returns the number of the version this snapshot shows, which grows by one with every
+         * committed transaction that changed the graph.
+         *
+         * @return the version number
+         */
+        public long getVersion() {
+            return this.version.number;
+        }
+
+        /**
+         * Returns the number of node data that have an id in this version's id map, including
+         * the data of nodes that were removed since the graph was last cleared.
+         */
+        int idCount() {
+            return this.version.ids.getSize();
+        }
+
+        @Override
+        public int getNodeCount() {
+            return this.version.nodeCount;
+        }
+
+        @Override
+        public int getEdgeCount() {
+            return this.version.edgeCount;
+        }
+
+        @Override
+        public boolean insertNode(NodeType data) {
+            throw new UnsupportedOperationException("Snapshots are read-only");
+        }
+
+        @Override
+        public boolean removeNode(NodeType data) {
+            throw new UnsupportedOperationException("Snapshots are read-only");
+        }
+
+        @Override
+        public void clear() {
+            throw new UnsupportedOperationException("Snapshots are read-only");
+        }
+
+        @Override
+        public boolean insertEdge(NodeType pred, NodeType succ, Double weight) {
+            throw new UnsupportedOperationException("Snapshots are read-only");
+        }
+
+        @Override
+        public boolean removeEdge(NodeType pred, NodeType succ) {
+            throw new UnsupportedOperationException("Snapshots are read-only");
+        }
+    }
+
+    /**
+     * A set of changes to the graph that readers see all at once, when it is committed. Its own
+     * methods see the changes made so far. Only one transaction can be open at a time, so
+     * beginUpdate waits while another thread has one open, and every transaction must be
+     * committed, preferably in a finally block.
+     */
+    public class Transaction extends Reader {
+        private final Version base;
+        private NodeEntry[][] chunks;
+        // copied[c] is true once chunks[c] is this transaction's own copy
+        private boolean[] copied;
+        private int idBound;
+        private int nodeCount;
+        private int edgeCount;
+        private ConcurrentHashtableMap<NodeType, Integer> ids;
+        private int nextId;
+        private boolean changed = false;
+        private boolean open = true;
+
+        private Transaction(Version base) {
+            this.base = base;
+            this.chunks = base.chunks.clone();
+            this.copied = new boolean[this.chunks.length];
+            this.idBound = base.idBound;
+            this.nodeCount = base.nodeCount;
+            this.edgeCount = base.edgeCount;
+            this.ids = base.ids;
+            this.nextId = base.nextId;
+        }
+
+        @Override
+        NodeEntry entry(int id) {
+            return id < this.idBound ? this.chunks[id >>> CHUNK_BITS][id & (CHUNK_SIZE - 1)] :
+                    null;
+        }
+
+        @Override
+        int idBound() {
+            return this.idBound;
+        }
+
+        @Override
+        ConcurrentHashtableMap<NodeType, Integer> ids() {
+            return this.ids;
+        }
+
+        private void checkOpen() {
+            if (!this.open) {
+                throw new IllegalStateException("Transaction was already committed");
+            }
+        }
+
+        /**
+         * Replaces the entry of the node with the provided id, copying its chunk first unless
+         * this transaction already has.
+         */
+        private void set(int id, NodeEntry entry) {
+            if (id >= this.idBound) {
+                this.idBound = id + 1;
+                int chunkCount = (this.idBound + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+                if (chunkCount > this.chunks.length) {
+                    int oldCount = this.chunks.length;
+                    this.chunks = Arrays.copyOf(this.chunks, Math.max(chunkCount, oldCount * 2));
+                    this.copied = Arrays.copyOf(this.copied, this.chunks.length);
+                    for (int c = oldCount; c < this.chunks.length; c++) {
+                        this.chunks[c] = new NodeEntry[CHUNK_SIZE];
+                        this.copied[c] = true;
+                    }
+                }
+            }
+            int chunk = id >>> CHUNK_BITS;
+            if (!this.copied[chunk]) {
+                this.chunks[chunk] = this.chunks[chunk].clone();
+                this.copied[chunk] = true;
+            }
+            this.chunks[chunk][id & (CHUNK_SIZE - 1)] = entry;
+            this.changed = true;
+        }
+
+        /**
+         * Insert a new node into the graph.
+         *
+         * @param data is the data item stored in the new node
+         * @return true if the data is unique and can be inserted into a new node, or false if
+         *         this data is already in the graph
+         * @throws NullPointerException if data is null
+         */
+        @Override
+        public boolean insertNode(NodeType data) {
+            this.checkOpen();
+            if (data == null) {
+                throw new NullPointerException("null nodes not allowed");
+            }
+            if (this.idOf(data) != -1) {
+                return false;
+            }
+            int id = this.ids.computeIfAbsent(data, ignored -> this.nextId++);
+            this.set(id, new NodeEntry(data, NO_IDS, NO_WEIGHTS, NO_IDS));
+            this.nodeCount++;
+            return true;
+        }
+
+        /**
+         * Remove every node and edge from the graph. The transaction simply starts from an
+         * empty chunk directory and a new, empty id map, which takes constant time however
+         * large the graph is. Versions from before the commit keep the map they had.
+         */
+        @Override
+        public void clear() {
+            this.checkOpen();
+            this.chunks = new NodeEntry[0][];
+            this.copied = new boolean[0];
+            this.ids = new ConcurrentHashtableMap<>();
+            this.nextId = 0;
+            this.idBound = 0;
+            this.nodeCount = 0;
+            this.edgeCount = 0;
+            this.changed = true;
+        }
+
+        /**
+         * Remove a node from the graph. And also remove all edges adjacent to that node.
+         *
+         * @param data is the data item stored in the node to be removed
+         * @return true if a vertex with data is found and removed, or false if that data value
+         *         is not found in the graph
+         * @throws NullPointerException if data is null
+         */
+        @Override
+        public boolean removeNode(NodeType data) {
+            this.checkOpen();
+            if (data == null) {
+                throw new NullPointerException("null nodes not allowed");
+            }
+            int id = this.idOf(data);
+            if (id == -1) {
+                return false;
+            }
+            NodeEntry removed = this.entry(id);
+            for (int target : removed.targets) {
+                if (target != id) {
+                    this.set(target, this.entry(target).withoutSource(id));
+                }
+            }
+            for (int source : removed.sources) {
+                if (source != id) {
+                    this.set(source, this.entry(source).withoutLeaving(id));
+                }
+            }
+            // a self-loop is both a leaving and an entering edge, but only one edge
+            boolean selfLoop = NodeEntry.indexOf(removed.targets, id) >= 0;
+            this.edgeCount -= removed.targets.length + removed.sources.length - (selfLoop ? 1 : 0);
+            this.set(id, null);
+            this.nodeCount--;
+            return true;
+        }
+
+        @Override
+        public int getNodeCount() {
+            return this.nodeCount;
+        }
+
+        /**
+         * Insert a new directed edge with positive edges weight into the graph. Or if an edge
+         * between pred and succ already exists, update the data stored in that edge with the
+         * new weight.
+         *
+         * @param pred   is the data item contained in the new edge's predecesor node
+         * @param succ   is the data item contained in the new edge's successor node
+         * @param weight is the non-negative data item stored in the new edge
+         * @return true if the edge could be inserted or updated, or false if the pred or succ
+         *         data are not found in any graph nodes or if the weight is negative or NaN
+         */
+        @Override
+        public boolean insertEdge(NodeType pred, NodeType succ, Double weight) {
+            this.checkOpen();
+            if (weight == null || !(weight >= 0.0)) {
+                return false;
+            }
+            int predId = this.idOf(pred);
+            int succId = this.idOf(succ);
+            if (predId == -1 || succId == -1) {
+                return false;
+            }
+            boolean exists = NodeEntry.indexOf(this.entry(predId).targets, succId) >= 0;
+            this.set(predId, this.entry(predId).withLeaving(succId, weight));
+            if (!exists) {
+                this.set(succId, this.entry(succId).withSource(predId));
+                this.edgeCount++;
+            }
+            return true;
+        }
+
+        /**
+         * Remove an edge from the graph.
+         *
+         * @param pred the data item contained in the source node for the edge
+         * @param succ the data item contained in the target node for the edge
+         * @return true if the edge could be removed, or false if such an edge is not found in
+         *         the graph
+         */
+        @Override
+        public boolean removeEdge(NodeType pred, NodeType succ) {
+            this.checkOpen();
+            if (!this.containsEdge(pred, succ)) {
+                return false;
+            }
+            int predId = this.idOf(pred);
+            int succId = this.idOf(succ);
+            this.set(predId, this.entry(predId).withoutLeaving(succId));
+            this.set(succId, this.entry(succId).withoutSource(predId));
+            this.edgeCount--;
+            return true;
+        }
+
+        @Override
+        public int getEdgeCount() {
+            return this.edgeCount;
+        }
+
+        /**
+         * Publishes the changes made in this transaction as the graph's new version, when there
+         * are any, and lets the next writer begin.
+         *
+         * @throws IllegalStateException if this transaction was already committed
+         */
+        public void commit() {
+            this.checkOpen();
+            this.open = false;
+            try {
+                if (this.changed) {
+                    current = new Version(this.base.number + 1, this.chunks, this.idBound,
+                            this.nodeCount, this.edgeCount, this.ids, this.nextId);
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns a read-only view of the graph as it is now.
+     *
+     * @return a snapshot of the current version
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(this.current);
+    }
+
+    /**
+     * Opens a transaction for changing the graph, waiting until no other thread has one open.
+     *
+     * @return the new transaction, which must be committed
+     * @throws IllegalStateException if the calling thread already has a transaction open
+     */
+    public Transaction beginUpdate() {
+        if (this.writeLock.isHeldByCurrentThread()) {
+            throw new IllegalStateException("A transaction is already open on this thread");
+        }
+        this.writeLock.lock();
+        return new Transaction(this.current);
+    }
+
+    /**
+     * Insert a new node into the graph, in a transaction of its own.
+     *
+     * @param data is the data item stored in the new node
+     * @return true if the data is unique and can be inserted into a new node, or false if this
+     *         data is already in the graph
+     * @throws NullPointerException if data is null
+     */
+    @Override
+    public boolean insertNode(NodeType data) {
+        Transaction transaction = this.beginUpdate();
+        try {
+            return transaction.insertNode(data);
+        } finally {
+            transaction.commit();
+        }
+    }
+
+    /**
+     * Remove a node from the graph, and all edges adjacent to that node, in a transaction of
+     * its own.
+     *
+     * @param data is the data item stored in the node to be removed
+     * @return true if a vertex with data is found and removed, or false if that data value is
+     *         not found in the graph
+     * @throws NullPointerException if data is null
+     */
+    @Override
+    public boolean removeNode(NodeType data) {
+        Transaction transaction = this.beginUpdate();
+        try {
+            return transaction.removeNode(data);
+        } finally {
+            transaction.commit();
+        }
+    }
+
+    /**
+     * Remove every node and edge from the graph, in a transaction of its own.
+     */
+    @Override
+    public void clear() {
+        Transaction transaction = this.beginUpdate();
+        try {
+            transaction.clear();
+        } finally {
+            transaction.commit();
+        }
+    }
+
+    /**
+     * Insert a new directed edge, or update the weight of an existing one, in a transaction of
+     * its own.
+     *
+     * @param pred   is the data item contained in the new edge's predecesor node
+     * @param succ   is the data item contained in the new edge's successor node
+     * @param weight is the non-negative data item stored in the new edge
+     * @return true if the edge could be inserted or updated, or false if the pred or succ data
+     *         are not found in any graph nodes or if the weight is negative or NaN
+     */
+    @Override
+    public boolean insertEdge(NodeType pred, NodeType succ, Double weight) {
+        Transaction transaction = this.beginUpdate();
+        try {
+            return transaction.insertEdge(pred, succ, weight);
+        } finally {
+            transaction.commit();
+        }
+    }
+
+    /**
+     * Remove an edge from the graph, in a transaction of its own.
+     *
+     * @param pred the data item contained in the source node for the edge
+     * @param succ the data item contained in the target node for the edge
+     * @return true if the edge could be removed, or false if such an edge is not found in the
+     *         graph
+     */
+    @Override
+    public boolean removeEdge(NodeType pred, NodeType succ) {
+        Transaction transaction = this.beginUpdate();
+        try {
+            return transaction.removeEdge(pred, succ);
+        } finally {
+            transaction.commit();
+        }
+    }
+
+    /**
+     * Check whether the current version contains a node with the provided data.
+     *
+     * @param data the node contents to check for
+     * @return true if data item is stored in a node within the graph, or false otherwise
+     */
+    @Override
+    public boolean containsNode(NodeType data) {
+        return this.snapshot().containsNode(data);
+    }
+
+    /**
+     * Retrieves a list of all node data from the current version, in the order of their ids.
+     *
+     * @return list of all node data
+     */
+    @Override
+    public List<NodeType> getAllNodes() {
+        return this.snapshot().getAllNodes();
+    }
+
+    /**
+     * Return the number of nodes in the current version.
+     *
+     * @return the number of nodes in the graph
+     */
+    @Override
+    public int getNodeCount() {
+        return this.current.nodeCount;
+    }
+
+    /**
+     * Check if edge is in the current version.
+     *
+     * @param pred the data item contained in the source node for the edge
+     * @param succ the data item contained in the target node for the edge
+     * @return true if the edge is found in the graph, or false other
+     */
+    @Override
+    public boolean containsEdge(NodeType pred, NodeType succ) {
+        return this.snapshot().containsEdge(pred, succ);
+    }
+
+    /**
+     * Return the weight of an edge in the current version.
+     *
+     * @param pred the data item contained in the source node for the edge
+     * @param succ the data item contained in the target node for the edge
+     * @return the non-negative data from the edge between those nodes
+     * @throws NoSuchElementException if either node or the edge between them are not found
+     *                                within this graph
+     */
+    @Override
+    public Double getEdge(NodeType pred, NodeType succ) {
+        return this.snapshot().getEdge(pred, succ);
+    }
+
+    /**
+     * Return the number of edges in the current version.
+     *
+     * @return the number of edges in the graph
+     */
+    @Override
+    public int getEdgeCount() {
+        return this.current.edgeCount;
+    }
+
+    /**
+     * Returns the shortest path in the version that is current when the search starts.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return list of data item from node along this shortest path
+     * @throws NoSuchElementException if either the start or end node cannot be found in the
+     *                                graph, or if there is no directed path from start to end
+     */
+    @Override
+    public List<NodeType> shortestPathData(NodeType start, NodeType end) {
+        return this.snapshot().shortestPathData(start, end);
+    }
+
+    /**
+     * Returns the cost of the shortest path in the version that is current when the search
+     * starts.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return the cost of the shortest path between these nodes
+     * @throws NoSuchElementException if either the start or end node cannot be found in the
+     *                                graph, or if there is no directed path from start to end
+     */
+    @Override
+    public double shortestPathCost(NodeType start, NodeType end) {
+        return this.snapshot().shortestPathCost(start, end);
+    }
+
+    /**
+     * Returns every node within budget of start in the version that is current when the search
+     * starts, mapped to the cost of reaching it.
+     *
+     * @param start  the data item in the starting node for the search
+     * @param budget the maximum total path cost for a node to be included
+     * @return a map from each reachable node's data to the cost of its shortest path from start
+     * @throws NoSuchElementException   when start does not correspond to a graph node
+     * @throws IllegalArgumentException when budget is negative or NaN
+     */
+    @Override
+    public MapADT<NodeType, Double> reachableWithin(NodeType start, double budget) {
+        return this.snapshot().reachableWithin(start, budget);
+    }
+}
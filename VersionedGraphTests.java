@@ -0,0 +1,259 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VersionedGraphTests {
+
+    /**
+     * Checks that a snapshot keeps showing the version it was taken from while nodes and edges
+     * are changed, and that the changes of a transaction only become visible once it commits.
+     */
+    @Test
+    public void testSnapshotsKeepTheirVersion() {
+        VersionedGraph<String> graph = new VersionedGraph<>();
+        for (String node : List.of("A", "B", "C", "D")) {
+            assertTrue(graph.insertNode(node));
+        }
+        assertFalse(graph.insertNode("A"), "Duplicate node was inserted");
+        graph.insertEdge("A", "B", 1.0);
+        graph.insertEdge("B", "C", 1.0);
+        graph.insertEdge("A", "C", 5.0);
+        graph.insertEdge("C", "C", 1.0);
+        VersionedGraph<String>.Snapshot before = graph.snapshot();
+        assertEquals(4, before.getEdgeCount());
+
+        graph.removeNode("B");
+        graph.insertEdge("A", "C", 3.0);
+        assertFalse(graph.containsNode("B"));
+        assertEquals(2, graph.getEdgeCount());
+        assertEquals(3.0, graph.shortestPathCost("A", "C"));
+        assertTrue(before.containsNode("B"));
+        assertEquals(List.of("A", "B", "C"), before.shortestPathData("A", "C"));
+        assertEquals(5.0, before.getEdge("A", "C"));
+        assertEquals(4, before.getEdgeCount());
+        assertTrue(graph.snapshot().getVersion() > before.getVersion());
+
+        VersionedGraph<String>.Transaction update = graph.beginUpdate();
+        assertThrows(IllegalStateException.class, graph::beginUpdate,
+                "A second transaction was opened on the same thread");
+        update.insertNode("B");
+        update.insertEdge("A", "B", 1.0);
+        update.insertEdge("B", "C", 1.0);
+        assertEquals(2.0, update.shortestPathCost("A", "C"), "Transaction doesn't see itself");
+        assertFalse(graph.containsNode("B"), "Uncommitted node is visible");
+        update.commit();
+        assertThrows(IllegalStateException.class, () -> update.insertNode("E"));
+        assertEquals(List.of("A", "B", "C"), graph.shortestPathData("A", "C"));
+        assertEquals(4, graph.getEdgeCount());
+
+        VersionedGraph<String>.Snapshot after = graph.snapshot();
+        assertThrows(UnsupportedOperationException.class, () -> after.insertNode("E"));
+        assertThrows(UnsupportedOperationException.class, () -> after.removeEdge("A", "B"));
+        assertThrows(NoSuchElementException.class, () -> after.shortestPathCost("D", "A"));
+        assertEquals(new HashSet<>(List.of("A", "B", "C")),
+                new HashSet<>(after.reachableWithin("A", 2.0).getKeys()));
+    }
+
+    /**
+     * Applies the same random insertions and removals of nodes and edges to a VersionedGraph,
+     * in transactions of varying size, and to a DijkstraGraph, and checks after each round that
+     * both hold the same nodes and edges and find the same shortest path costs.
+     */
+    @Test
+    public void testMatchesDijkstraGraph() {
+        VersionedGraph<Integer> graph = new VersionedGraph<>();
+        DijkstraGraph<Integer, Double> expected = new DijkstraGraph<>();
+        Random random = new Random(5);
+        for (int round = 0; round < 20; round++) {
+            VersionedGraph<Integer>.Transaction update = graph.beginUpdate();
+            for (int step = 0; step < 300; step++) {
+                if (random.nextInt(20) == 0) {
+                    update.commit();
+                    update = graph.beginUpdate();
+                }
+                int pred = random.nextInt(150);
+                int succ = random.nextInt(150);
+                switch (random.nextInt(6)) {
+                    case 0:
+                        assertEquals(expected.insertNode(pred), update.insertNode(pred));
+                        break;
+                    case 1:
+                        if (random.nextInt(4) == 0) {
+                            assertEquals(expected.removeNode(pred), update.removeNode(pred));
+                        }
+                        break;
+                    case 2:
+                        assertEquals(expected.removeEdge(pred, succ), update.removeEdge(pred, succ));
+                        break;
+                    default:
+                        if (expected.containsNode(pred) && expected.containsNode(succ)) {
+                            double weight = 1 + random.nextInt(20);
+                            assertTrue(update.insertEdge(pred, succ, weight));
+                            expected.insertEdge(pred, succ, weight);
+                        } else {
+                            assertFalse(update.insertEdge(pred, succ, 1.0));
+                        }
+                }
+            }
+            update.commit();
+            assertEquals(expected.getNodeCount(), graph.getNodeCount(), "Node counts differ");
+            assertEquals(expected.getEdgeCount(), graph.getEdgeCount(), "Edge counts differ");
+            List<Integer> nodes = expected.getAllNodes();
+            assertEquals(new HashSet<>(nodes), new HashSet<>(graph.getAllNodes()));
+            for (int i = 0; i < 30 && !nodes.isEmpty(); i++) {
+                int start = nodes.get(random.nextInt(nodes.size()));
+                int end = nodes.get(random.nextInt(nodes.size()));
+                assertEquals(expected.containsEdge(start, end), graph.containsEdge(start, end));
+                if (expected.pathExists(start, end)) {
+                    assertEquals(expected.shortestPathCost(start, end),
+                            graph.shortestPathCost(start, end), 1e-9, "Costs differ");
+                } else {
+                    assertThrows(NoSuchElementException.class,
+                            () -> graph.shortestPathCost(start, end));
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs searches on several threads while another thread keeps replacing the middle of a
+     * path, in transactions that always leave the path from "start" to "end" costing 10, and
+     * checks that no search fails or sees a different cost or a half-made change.
+     */
+    @Test
+    public void testReadersDuringWrites() throws InterruptedException {
+        VersionedGraph<String> graph = new VersionedGraph<>();
+        VersionedGraph<String>.Transaction setup = graph.beginUpdate();
+        for (int i = 0; i < 200; i++) {
+            setup.insertNode("filler" + i);
+            if (i > 0) {
+                setup.insertEdge("filler" + (i - 1), "filler" + i, 1.0);
+            }
+        }
+        setup.insertNode("start");
+        setup.insertNode("end");
+        setup.insertEdge("start", "filler0", 1.0);
+        setup.insertEdge("start", "end", 10.0);
+        setup.commit();
+
+        AtomicBoolean done = new AtomicBoolean(false);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 3; t++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    while (!done.get()) {
+                        VersionedGraph<String>.Snapshot snapshot = graph.snapshot();
+                        assertEquals(10.0, snapshot.shortestPathCost("start", "end"));
+                        assertEquals(10.0, graph.shortestPathCost("start", "end"));
+                        // the middle node is either absent or has both of its edges
+                        assertEquals(snapshot.containsNode("middle") ? 203 : 201,
+                                snapshot.getEdgeCount());
+                        assertEquals(snapshot.getNodeCount(), snapshot.getAllNodes().size());
+                        snapshot.reachableWithin("start", 50.0);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+        Random random = new Random(9);
+        for (int step = 0; step < 2000 && failure.get() == null; step++) {
+            VersionedGraph<String>.Transaction update = graph.beginUpdate();
+            try {
+                if (update.containsNode("middle")) {
+                    update.removeNode("middle");
+                } else {
+                    double first = 1 + random.nextInt(9);
+                    update.insertNode("middle");
+                    update.insertEdge("start", "middle", first);
+                    update.insertEdge("middle", "end", 10.0 - first);
+                }
+                // a weight change to the filler path, which never becomes a shortcut
+                update.insertEdge("filler0", "filler1", 1.0 + random.nextInt(3));
+            } finally {
+                update.commit();
+            }
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(failure.get(), () -> "A reader failed: " + failure.get());
+    }
+
+    /**
+     * Tests that the backend gives the same answers on campus.dot with a VersionedGraph as with
+     * a DijkstraGraph, and that a reload is published as a single version.
+     */
+    @Test
+    public void testBackendOnCampus() throws IOException {
+        VersionedGraph<String> graph = new VersionedGraph<>();
+        Backend backend = new Backend(graph);
+        backend.loadGraphData("campus.dot");
+        long version = graph.snapshot().getVersion();
+        backend.loadGraphData("campus.dot");
+        assertEquals(version + 1, graph.snapshot().getVersion(), "Reload took several versions");
+        Backend expected = new Backend(new DijkstraGraph<>());
+        expected.loadGraphData("campus.dot");
+
+        assertEquals(new HashSet<>(expected.getListOfAllLocations()),
+                new HashSet<>(backend.getListOfAllLocations()));
+        assertEquals(expected.getGraphDiameter(), backend.getGraphDiameter(), 1e-9);
+        List<String> locations = expected.getListOfAllLocations();
+        for (int i = 0; i < locations.size(); i += 9) {
+            String start = locations.get(i);
+            String end = locations.get((i * 17 + 3) % locations.size());
+            assertEquals(expected.findTimesOnShortestPath(start, end).stream()
+                            .mapToDouble(Double::doubleValue).sum(),
+                    backend.findTimesOnShortestPath(start, end).stream()
+                            .mapToDouble(Double::doubleValue).sum(), 1e-9);
+            assertEquals(expected.findTimesWithinTime(start, 200.0),
+                    backend.findTimesWithinTime(start, 200.0));
+        }
+    }
+
+    /**
+     * Loads graphs with different names one after another, and checks that the id map and the
+     * ids handed out only ever hold the names of the latest load, while a snapshot taken before
+     * a reload still finds its own nodes.
+     */
+    @Test
+    public void testReloadsReclaimIds() {
+        VersionedGraph<String> graph = new VersionedGraph<>();
+        VersionedGraph<String>.Snapshot first = null;
+        for (int load = 0; load < 10; load++) {
+            GraphBuilder<String> builder = new GraphBuilder<>();
+            for (int i = 0; i + 1 < 100; i++) {
+                builder.addEdge(load + "-" + i, load + "-" + (i + 1), 1.0);
+            }
+            VersionedGraph<String>.Transaction update = graph.beginUpdate();
+            try {
+                builder.buildInto(update);
+            } finally {
+                update.commit();
+            }
+            VersionedGraph<String>.Snapshot snapshot = graph.snapshot();
+            assertEquals(100, snapshot.getNodeCount());
+            assertEquals(100, snapshot.idBound(), "Ids of earlier loads were not reclaimed");
+            assertEquals(100, snapshot.idCount(), "Names of earlier loads stayed in the id map");
+            assertEquals(99.0, snapshot.shortestPathCost(load + "-0", load + "-99"), 1e-9);
+            if (first == null) {
+                first = snapshot;
+            }
+        }
+        assertTrue(first.containsNode("0-50"), "Old snapshot lost its own nodes");
+        assertFalse(first.containsNode("9-50"), "Old snapshot sees nodes of a later load");
+        assertFalse(graph.containsNode("0-50"), "Current version sees nodes of an earlier load");
+        assertEquals(98.0, first.shortestPathCost("0-1", "0-99"), 1e-9);
+    }
+}
@@ -127,6 +127,12 @@ public class WebApp {
 	    response += frontend.generateShortestPathResponseHTML(
 					keyValuePairs.get("start"),
 					keyValuePairs.get("end")) + "</div>";
+	    // compute response for reachable within time request
+	} else if(keyValuePairs.containsKey("origin") &&
+		  keyValuePairs.containsKey("seconds")) {
+	    response += frontend.generateReachableWithinResponseHTML(
+					 keyValuePairs.get("origin"),
+					 keyValuePairs.get("seconds")) + "</div>";
 	    // compute response for other request
 	} else if(keyValuePairs.containsKey("from")) {
 	    response += frontend.generateFurthestDestinationFromResponseHTML(
@@ -144,7 +150,9 @@ public class WebApp {
 	    frontend.generateShortestPathPromptHTML() + "</div>";
 	String secondPrompt = "<div id=\"secondPrompt\">" +
 	    frontend.generateFurthestDestinationFromPromptHTML() + "</div>";
-	return firstPrompt + secondPrompt;
+	String thirdPrompt = "<div id=\"thirdPrompt\">" +
+	    frontend.generateReachableWithinPromptHTML() + "</div>";
+	return firstPrompt + secondPrompt + thirdPrompt;
     }
 
     // compose reponse with prompts inside a complete html tree